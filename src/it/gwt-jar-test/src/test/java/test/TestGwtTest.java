@@ -84,6 +84,8 @@ import walkingkooka.spreadsheet.provider.SpreadsheetProviders;
 import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
 import walkingkooka.spreadsheet.server.FakeSpreadsheetServerContext;
 import walkingkooka.spreadsheet.server.SpreadsheetHttpServer;
+import walkingkooka.spreadsheet.server.SpreadsheetHttpServerCompression;
+import walkingkooka.spreadsheet.server.SpreadsheetServerCache;
 import walkingkooka.spreadsheet.server.SpreadsheetServerContexts;
 import walkingkooka.spreadsheet.store.repo.SpreadsheetStoreRepositories;
 import walkingkooka.storage.StorageContexts;
@@ -111,6 +113,7 @@ import java.math.MathContext;
 import java.math.RoundingMode;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Currency;
 import java.util.Locale;
@@ -140,6 +143,14 @@ public class TestGwtTest extends GWTTestCase implements HasHateosContentType {
         59
     );
 
+    private final static int MAX_USERS = 1024;
+
+    private final static Duration USER_MAX_IDLE = Duration.ofHours(1);
+
+    private final static int MAX_SPREADSHEET_CONTEXTS = 64;
+
+    private final static Duration SPREADSHEET_CONTEXT_MAX_IDLE = Duration.ofMinutes(30);
+
     public void testCreateSpreadsheet() {
         final TestHttpServer httpServer = new TestHttpServer();
         spreadsheetHttpServer(httpServer);
@@ -427,12 +438,23 @@ public class TestGwtTest extends GWTTestCase implements HasHateosContentType {
                             )
                         )
                     ),
-                    TerminalServerContexts.fake()
+                    TerminalServerContexts.fake(),
+                    SpreadsheetServerCache.bounded(
+                        MAX_SPREADSHEET_CONTEXTS,
+                        SPREADSHEET_CONTEXT_MAX_IDLE
+                    )
                 );
             },
             (r) -> Optional.of(
                 EmailAddress.parse("user@example.com")
-            )
+            ),
+            SpreadsheetServerCache.bounded(
+                MAX_USERS,
+                USER_MAX_IDLE
+            ),
+            SpreadsheetHttpServer.UNLIMITED_CONCURRENT_REQUESTS,
+            SpreadsheetHttpServer.DEFAULT_MAX_CONCURRENT_REQUEST_WAIT,
+            SpreadsheetHttpServerCompression.defaults()
         );
     }
 
@@ -86,6 +86,8 @@ import walkingkooka.spreadsheet.provider.SpreadsheetProviders;
 import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
 import walkingkooka.spreadsheet.server.FakeSpreadsheetServerContext;
 import walkingkooka.spreadsheet.server.SpreadsheetHttpServer;
+import walkingkooka.spreadsheet.server.SpreadsheetHttpServerCompression;
+import walkingkooka.spreadsheet.server.SpreadsheetServerCache;
 import walkingkooka.spreadsheet.server.SpreadsheetServerContexts;
 import walkingkooka.spreadsheet.store.repo.SpreadsheetStoreRepositories;
 import walkingkooka.storage.StorageContexts;
@@ -113,6 +115,7 @@ import java.math.MathContext;
 import java.math.RoundingMode;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Currency;
 import java.util.Locale;
@@ -135,6 +138,14 @@ public class J2clTest implements HasHateosContentType {
         59
     );
 
+    private final static int MAX_USERS = 1024;
+
+    private final static Duration USER_MAX_IDLE = Duration.ofHours(1);
+
+    private final static int MAX_SPREADSHEET_CONTEXTS = 64;
+
+    private final static Duration SPREADSHEET_CONTEXT_MAX_IDLE = Duration.ofMinutes(30);
+
     @Test
     public void testCreateSpreadsheet() {
         final TestHttpServer httpServer = new TestHttpServer();
@@ -423,12 +434,23 @@ public class J2clTest implements HasHateosContentType {
                             )
                         )
                     ),
-                    TerminalServerContexts.fake()
+                    TerminalServerContexts.fake(),
+                    SpreadsheetServerCache.bounded(
+                        MAX_SPREADSHEET_CONTEXTS,
+                        SPREADSHEET_CONTEXT_MAX_IDLE
+                    )
                 );
             },
             (r) -> Optional.of(
                 EmailAddress.parse("user@example.com")
-            )
+            ),
+            SpreadsheetServerCache.bounded(
+                MAX_USERS,
+                USER_MAX_IDLE
+            ),
+            SpreadsheetHttpServer.UNLIMITED_CONCURRENT_REQUESTS,
+            SpreadsheetHttpServer.DEFAULT_MAX_CONCURRENT_REQUEST_WAIT,
+            SpreadsheetHttpServerCompression.defaults()
         );
     }
 
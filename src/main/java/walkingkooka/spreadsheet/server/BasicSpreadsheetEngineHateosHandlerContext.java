@@ -25,6 +25,7 @@ import walkingkooka.locale.LocaleLanguageTag;
 import walkingkooka.net.email.EmailAddress;
 import walkingkooka.net.http.server.hateos.HateosHandlerContext;
 import walkingkooka.net.http.server.hateos.HateosHandlerContextDelegator;
+import walkingkooka.spreadsheet.engine.SpreadsheetCellQuery;
 import walkingkooka.spreadsheet.engine.SpreadsheetEngine;
 import walkingkooka.spreadsheet.engine.SpreadsheetEngineContext;
 import walkingkooka.spreadsheet.engine.SpreadsheetEngineContextDelegator;
@@ -32,8 +33,10 @@ import walkingkooka.spreadsheet.format.provider.SpreadsheetFormatterProvider;
 import walkingkooka.spreadsheet.meta.SpreadsheetMetadata;
 import walkingkooka.spreadsheet.provider.SpreadsheetProvider;
 import walkingkooka.spreadsheet.provider.SpreadsheetProviderDelegator;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
 import walkingkooka.spreadsheet.reference.SpreadsheetLabelName;
 import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
+import walkingkooka.spreadsheet.value.SpreadsheetCell;
 import walkingkooka.text.Indentation;
 import walkingkooka.text.LineEnding;
 import walkingkooka.tree.expression.ExpressionNumberKind;
@@ -41,6 +44,7 @@ import walkingkooka.tree.json.marshall.JsonNodeMarshallContextDelegator;
 import walkingkooka.tree.json.marshall.JsonNodeMarshallContextObjectPostProcessor;
 import walkingkooka.tree.json.marshall.JsonNodeMarshallUnmarshallContext;
 import walkingkooka.tree.json.marshall.JsonNodeUnmarshallContextPreProcessor;
+import walkingkooka.validation.ValueType;
 
 import java.math.MathContext;
 import java.nio.charset.Charset;
@@ -49,6 +53,7 @@ import java.util.Currency;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 final class BasicSpreadsheetEngineHateosHandlerContext implements SpreadsheetEngineHateosHandlerContext,
     HateosHandlerContextDelegator,
@@ -58,20 +63,36 @@ final class BasicSpreadsheetEngineHateosHandlerContext implements SpreadsheetEng
 
     static BasicSpreadsheetEngineHateosHandlerContext with(final SpreadsheetEngine spreadsheetEngine,
                                                            final HateosHandlerContext hateosHandlerContext,
-                                                           final SpreadsheetEngineContext engineContext) {
+                                                           final SpreadsheetEngineContext engineContext,
+                                                           final SpreadsheetViewportMetadataWriteBehind viewportMetadataWriteBehind,
+                                                           final SpreadsheetServerChangeLog changeLog,
+                                                           final SpreadsheetServerCellQueryCache cellQueryCache,
+                                                           final Optional<SpreadsheetServerCellValueIndex> cellValueIndex) {
         return new BasicSpreadsheetEngineHateosHandlerContext(
             Objects.requireNonNull(spreadsheetEngine, "spreadsheetEngine"),
             Objects.requireNonNull(hateosHandlerContext, "hateosHandlerContext"),
-            Objects.requireNonNull(engineContext, "engineContext")
+            Objects.requireNonNull(engineContext, "engineContext"),
+            Objects.requireNonNull(viewportMetadataWriteBehind, "viewportMetadataWriteBehind"),
+            Objects.requireNonNull(changeLog, "changeLog"),
+            Objects.requireNonNull(cellQueryCache, "cellQueryCache"),
+            Objects.requireNonNull(cellValueIndex, "cellValueIndex")
         );
     }
 
     private BasicSpreadsheetEngineHateosHandlerContext(final SpreadsheetEngine spreadsheetEngine,
                                                        final HateosHandlerContext hateosHandlerContext,
-                                                       final SpreadsheetEngineContext engineContext) {
+                                                       final SpreadsheetEngineContext engineContext,
+                                                       final SpreadsheetViewportMetadataWriteBehind viewportMetadataWriteBehind,
+                                                       final SpreadsheetServerChangeLog changeLog,
+                                                       final SpreadsheetServerCellQueryCache cellQueryCache,
+                                                       final Optional<SpreadsheetServerCellValueIndex> cellValueIndex) {
         this.spreadsheetEngine = spreadsheetEngine;
         this.hateosHandlerContext = hateosHandlerContext;
         this.engineContext = engineContext;
+        this.viewportMetadataWriteBehind = viewportMetadataWriteBehind;
+        this.changeLog = changeLog;
+        this.cellQueryCache = cellQueryCache;
+        this.cellValueIndex = cellValueIndex;
     }
 
     @Override
@@ -144,7 +165,11 @@ final class BasicSpreadsheetEngineHateosHandlerContext implements SpreadsheetEng
             new BasicSpreadsheetEngineHateosHandlerContext(
                 this.spreadsheetEngine,
                 context,
-                this.engineContext
+                this.engineContext,
+                this.viewportMetadataWriteBehind,
+                this.changeLog,
+                this.cellQueryCache,
+                this.cellValueIndex
             );
     }
 
@@ -182,6 +207,48 @@ final class BasicSpreadsheetEngineHateosHandlerContext implements SpreadsheetEng
         return this.engineContext;
     }
 
+    @Override
+    public SpreadsheetMetadata saveViewportMetadata(final SpreadsheetMetadata metadata) {
+        return this.viewportMetadataWriteBehind.save(
+            metadata,
+            this.engineContext.storeRepository()
+                .metadatas(),
+            this.now()
+        );
+    }
+
+    private final SpreadsheetViewportMetadataWriteBehind viewportMetadataWriteBehind;
+
+    @Override
+    public Optional<Set<SpreadsheetCellReference>> changedCellsSince(final long revision) {
+        return this.changeLog.cellsSince(revision);
+    }
+
+    private final SpreadsheetServerChangeLog changeLog;
+
+    @Override
+    public Set<SpreadsheetCellReference> matchedCells(final SpreadsheetCellQuery query,
+                                                      final Set<SpreadsheetCell> cells) {
+        return this.cellQueryCache.matchedCells(
+            query,
+            cells,
+            this
+        );
+    }
+
+    private final SpreadsheetServerCellQueryCache cellQueryCache;
+
+    @Override
+    public Optional<Set<SpreadsheetCell>> cellsWithValueType(final ValueType valueType) {
+        Objects.requireNonNull(valueType, "valueType");
+
+        return this.cellValueIndex.map(
+            i -> i.cellsWithValueType(valueType)
+        );
+    }
+
+    private final Optional<SpreadsheetServerCellValueIndex> cellValueIndex;
+
     // SpreadsheetFormatterProvider.....................................................................................
 
     @Override
@@ -209,7 +276,11 @@ final class BasicSpreadsheetEngineHateosHandlerContext implements SpreadsheetEng
             new BasicSpreadsheetEngineHateosHandlerContext(
                 this.spreadsheetEngine,
                 this.hateosHandlerContext,
-                clone
+                clone,
+                this.viewportMetadataWriteBehind,
+                this.changeLog,
+                this.cellQueryCache,
+                this.cellValueIndex
             );
     }
 
@@ -223,7 +294,11 @@ final class BasicSpreadsheetEngineHateosHandlerContext implements SpreadsheetEng
             new BasicSpreadsheetEngineHateosHandlerContext(
                 this.spreadsheetEngine,
                 this.hateosHandlerContext,
-                after
+                after,
+                this.viewportMetadataWriteBehind,
+                this.changeLog,
+                this.cellQueryCache,
+                this.cellValueIndex
             );
     }
 
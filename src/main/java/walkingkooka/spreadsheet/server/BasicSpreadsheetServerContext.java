@@ -19,7 +19,6 @@ package walkingkooka.spreadsheet.server;
 
 import walkingkooka.Cast;
 import walkingkooka.ToStringBuilder;
-import walkingkooka.collect.map.Maps;
 import walkingkooka.convert.BinaryNumberConverterFunction;
 import walkingkooka.currency.CurrencyCode;
 import walkingkooka.currency.CurrencyLocaleContext;
@@ -62,9 +61,9 @@ import java.nio.charset.Charset;
 import java.util.Currency;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 /**
@@ -87,7 +86,8 @@ final class BasicSpreadsheetServerContext implements SpreadsheetServerContext,
                                               final SpreadsheetMetadataContext spreadsheetMetadataContext,
                                               final HateosHandlerContext hateosHandlerContext,
                                               final ProviderContext providerContext,
-                                              final TerminalServerContext terminalServerContext) {
+                                              final TerminalServerContext terminalServerContext,
+                                              final SpreadsheetServerCache<SpreadsheetId, SpreadsheetContext> spreadsheetContextCache) {
         return new BasicSpreadsheetServerContext(
             Objects.requireNonNull(mediaTypeDetector, "mediaTypeDetector"),
             Objects.requireNonNull(multiplier, "multiplier"),
@@ -99,7 +99,8 @@ final class BasicSpreadsheetServerContext implements SpreadsheetServerContext,
             Objects.requireNonNull(spreadsheetMetadataContext, "spreadsheetMetadataContext"),
             Objects.requireNonNull(hateosHandlerContext, "hateosHandlerContext"),
             Objects.requireNonNull(providerContext, "providerContext"),
-            Objects.requireNonNull(terminalServerContext, "terminalServerContext")
+            Objects.requireNonNull(terminalServerContext, "terminalServerContext"),
+            Objects.requireNonNull(spreadsheetContextCache, "spreadsheetContextCache")
         );
     }
 
@@ -113,7 +114,8 @@ final class BasicSpreadsheetServerContext implements SpreadsheetServerContext,
                                           final SpreadsheetMetadataContext spreadsheetMetadataContext,
                                           final HateosHandlerContext hateosHandlerContext,
                                           final ProviderContext providerContext,
-                                          final TerminalServerContext terminalServerContext) {
+                                          final TerminalServerContext terminalServerContext,
+                                          final SpreadsheetServerCache<SpreadsheetId, SpreadsheetContext> spreadsheetContextCache) {
         super();
 
         this.mediaTypeDetector = mediaTypeDetector;
@@ -130,6 +132,7 @@ final class BasicSpreadsheetServerContext implements SpreadsheetServerContext,
         this.hateosHandlerContext = hateosHandlerContext;
         this.providerContext = providerContext;
         this.terminalServerContext = terminalServerContext;
+        this.spreadsheetContextCache = spreadsheetContextCache;
     }
 
     // SpreadsheetServerContext.........................................................................................
@@ -176,27 +179,32 @@ final class BasicSpreadsheetServerContext implements SpreadsheetServerContext,
 
     private final TerminalServerContext terminalServerContext;
 
+    /**
+     * Cache hits never lock, and a missing {@link SpreadsheetContext} is loaded once, with only other requests for the
+     * same {@link SpreadsheetId} waiting for that load.
+     */
     @Override
-    public synchronized Optional<SpreadsheetContext> spreadsheetContext(final SpreadsheetId id) {
+    public Optional<SpreadsheetContext> spreadsheetContext(final SpreadsheetId id) {
         Objects.requireNonNull(id, "id");
 
-        SpreadsheetContext context = this.spreadsheetIdToSpreadsheetContext.get(id);
-
-        if (null == context) {
-            final SpreadsheetMetadata metadata = this.loadMetadata(id)
-                .orElse(null);
-            if (null != metadata) {
-                context = this.fixedSpreadsheetContext(metadata);
-            }
-        }
-
-        return Optional.ofNullable(context);
+        return this.spreadsheetContextCache.getOrLoad(
+            id,
+            (i) -> this.loadMetadata(i)
+                .map(this::newFixedSpreadsheetContext)
+        );
     }
 
     /**
-     * Uses the provided {@link SpreadsheetId} to get or lazily create a {@link SpreadsheetContext}.
+     * Creates a new {@link SpreadsheetContext} for the given {@link SpreadsheetMetadata} and caches it.
      */
     private SpreadsheetContext fixedSpreadsheetContext(final SpreadsheetMetadata metadata) {
+        return this.spreadsheetContextCache.put(
+            metadata.getOrFail(SpreadsheetMetadataPropertyName.SPREADSHEET_ID),
+            this.newFixedSpreadsheetContext(metadata)
+        );
+    }
+
+    private SpreadsheetContext newFixedSpreadsheetContext(final SpreadsheetMetadata metadata) {
         final SpreadsheetId spreadsheetId = metadata.getOrFail(SpreadsheetMetadataPropertyName.SPREADSHEET_ID);
 
         final SpreadsheetEnvironmentContext spreadsheetEnvironmentContext = this.spreadsheetEnvironmentContext.cloneEnvironment();
@@ -211,7 +219,7 @@ final class BasicSpreadsheetServerContext implements SpreadsheetServerContext,
             )
         );
 
-        final SpreadsheetContext context = SpreadsheetContexts.fixedSpreadsheetId(
+        return SpreadsheetContexts.fixedSpreadsheetId(
             this.mediaTypeDetector,
             this.spreadsheetMetadataContext, // SpreadsheetMetadataCreator
             this.multiplier,
@@ -226,16 +234,23 @@ final class BasicSpreadsheetServerContext implements SpreadsheetServerContext,
             this.spreadsheetProvider,
             ProviderContexts.readOnly(providerContext)
         );
+    }
 
-        this.spreadsheetIdToSpreadsheetContext.put(
-            spreadsheetId,
-            context
-        );
+    @Override
+    public Runnable addSpreadsheetContextEvictionWatcher(final Consumer<SpreadsheetContext> watcher) {
+        Objects.requireNonNull(watcher, "watcher");
 
-        return context;
+        return this.spreadsheetContextCache.addEvictionWatcher(
+            (id, spreadsheetContext) -> watcher.accept(spreadsheetContext)
+        );
     }
 
-    private final Map<SpreadsheetId, SpreadsheetContext> spreadsheetIdToSpreadsheetContext = Maps.concurrent();
+    /**
+     * A bounded cache of {@link SpreadsheetContext}, which may evict spreadsheets that have not been used recently.
+     * Copies with a different environment or {@link HateosHandlerContext} receive their own empty cache, so a
+     * {@link SpreadsheetContext} is never shared between them.
+     */
+    private final SpreadsheetServerCache<SpreadsheetId, SpreadsheetContext> spreadsheetContextCache;
 
     // CurrencyLocaleContextDelegator...................................................................................
 
@@ -282,7 +297,8 @@ final class BasicSpreadsheetServerContext implements SpreadsheetServerContext,
                 this.spreadsheetMetadataContext,
                 this.hateosHandlerContext,
                 after,
-                this.terminalServerContext
+                this.terminalServerContext,
+                this.spreadsheetContextCache.cloneEmpty()
             );
     }
 
@@ -358,7 +374,7 @@ final class BasicSpreadsheetServerContext implements SpreadsheetServerContext,
     public void deleteMetadata(final SpreadsheetId spreadsheetId) {
         this.spreadsheetMetadataContext.deleteMetadata(spreadsheetId);
 
-        this.spreadsheetIdToSpreadsheetContext.remove(spreadsheetId);
+        this.spreadsheetContextCache.remove(spreadsheetId);
     }
 
     @Override
@@ -421,7 +437,8 @@ final class BasicSpreadsheetServerContext implements SpreadsheetServerContext,
                 this.spreadsheetMetadataContext,
                 Objects.requireNonNull(context, "hateosHandlerContext"),
                 this.providerContext,
-                this.terminalServerContext
+                this.terminalServerContext,
+                this.spreadsheetContextCache.cloneEmpty()
             );
     }
 
@@ -455,7 +472,7 @@ final class BasicSpreadsheetServerContext implements SpreadsheetServerContext,
             .label("spreadsheetEngine")
             .value(this.spreadsheetEngine)
             .label("spreadsheetIdToSpreadsheetContext")
-            .value(this.spreadsheetIdToSpreadsheetContext)
+            .value(this.spreadsheetContextCache.toMap())
             .label("currencyLocaleContext")
             .value(this.currencyLocaleContext)
             .label("spreadsheetEnvironmentContext")
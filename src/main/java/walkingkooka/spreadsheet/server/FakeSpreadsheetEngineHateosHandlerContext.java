@@ -74,6 +74,7 @@ import walkingkooka.spreadsheet.parser.provider.SpreadsheetParserInfoSet;
 import walkingkooka.spreadsheet.parser.provider.SpreadsheetParserName;
 import walkingkooka.spreadsheet.parser.provider.SpreadsheetParserSelector;
 import walkingkooka.spreadsheet.parser.provider.SpreadsheetParserSelectorToken;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
 import walkingkooka.spreadsheet.reference.SpreadsheetExpressionReference;
 import walkingkooka.spreadsheet.reference.SpreadsheetExpressionReferenceLoader;
 import walkingkooka.spreadsheet.reference.SpreadsheetLabelMapping;
@@ -316,6 +317,16 @@ public class FakeSpreadsheetEngineHateosHandlerContext extends FakeHateosHandler
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public SpreadsheetMetadata saveViewportMetadata(final SpreadsheetMetadata metadata) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Optional<Set<SpreadsheetCellReference>> changedCellsSince(final long revision) {
+        throw new UnsupportedOperationException();
+    }
+
     // cells............................................................................................................
 
     @Override
@@ -58,6 +58,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 public class FakeSpreadsheetServerContext extends FakeSpreadsheetProvider implements SpreadsheetServerContext {
@@ -356,6 +357,11 @@ public class FakeSpreadsheetServerContext extends FakeSpreadsheetProvider implem
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public Runnable addSpreadsheetContextEvictionWatcher(final Consumer<SpreadsheetContext> watcher) {
+        throw new UnsupportedOperationException();
+    }
+
     // HasProviderContext...............................................................................................
 
     @Override
@@ -17,14 +17,27 @@
 
 package walkingkooka.spreadsheet.server;
 
+import walkingkooka.collect.set.Sets;
 import walkingkooka.environment.EnvironmentContext;
 import walkingkooka.net.http.server.hateos.HateosHandlerContext;
+import walkingkooka.spreadsheet.engine.SpreadsheetCellQuery;
 import walkingkooka.spreadsheet.engine.SpreadsheetEngine;
 import walkingkooka.spreadsheet.engine.SpreadsheetEngineContext;
+import walkingkooka.spreadsheet.meta.SpreadsheetMetadata;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.value.SpreadsheetCell;
+import walkingkooka.spreadsheet.value.SpreadsheetValueType;
 import walkingkooka.storage.http.StorageHttpHandlerContext;
+import walkingkooka.tree.expression.Expression;
 import walkingkooka.tree.expression.ExpressionNumber;
 import walkingkooka.tree.json.marshall.JsonNodeMarshallContextObjectPostProcessor;
 import walkingkooka.tree.json.marshall.JsonNodeUnmarshallContextPreProcessor;
+import walkingkooka.validation.ValueType;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * A {@link HateosHandlerContext} that includes {@link SpreadsheetEngineContext}.
@@ -81,6 +94,51 @@ public interface SpreadsheetEngineHateosHandlerContext extends HateosHandlerCont
     @Override
     SpreadsheetEngineHateosHandlerContext setPreProcessor(final JsonNodeUnmarshallContextPreProcessor processor);
 
+    /**
+     * Saves {@link SpreadsheetMetadata} where only the {@link walkingkooka.spreadsheet.meta.SpreadsheetMetadataPropertyName#VIEWPORT_HOME}
+     * and {@link walkingkooka.spreadsheet.meta.SpreadsheetMetadataPropertyName#VIEWPORT_SELECTION} changed. The write
+     * may be deferred and coalesced with later viewport changes, the returned {@link SpreadsheetMetadata} should be used
+     * for the response.
+     */
+    SpreadsheetMetadata saveViewportMetadata(final SpreadsheetMetadata metadata);
+
+    /**
+     * Returns the cells changed or deleted after the given revision, or nothing when that revision is unknown or
+     * columns, rows, labels or the metadata also changed, in which case all cells must be loaded.
+     */
+    Optional<Set<SpreadsheetCellReference>> changedCellsSince(final long revision);
+
+    /**
+     * Returns the references of the given cells that match the query, which are highlighted in responses. This
+     * default compiles the query and evaluates it for every cell.
+     */
+    default Set<SpreadsheetCellReference> matchedCells(final SpreadsheetCellQuery query,
+                                                       final Set<SpreadsheetCell> cells) {
+        return this.spreadsheetEngine()
+            .filterCells(
+                cells,
+                SpreadsheetValueType.ANY,
+                this.toExpression(
+                    query.parserToken()
+                ).orElse(
+                    Expression.value(Boolean.TRUE)
+                ),
+                this
+            ).stream()
+            .map(SpreadsheetCell::reference)
+            .collect(Collectors.toCollection(Sets::ordered));
+    }
+
+    /**
+     * Returns the cells that have or may have a value of the given type, or nothing when cells are not indexed by
+     * value type, in which case every cell must be queried.
+     */
+    default Optional<Set<SpreadsheetCell>> cellsWithValueType(final ValueType valueType) {
+        Objects.requireNonNull(valueType, "valueType");
+
+        return Optional.empty();
+    }
+
     // HasMissingCellNumberValue........................................................................................
 
     @Override
@@ -22,21 +22,41 @@ import walkingkooka.reflect.PublicStaticHelper;
 import walkingkooka.spreadsheet.engine.SpreadsheetEngine;
 import walkingkooka.spreadsheet.engine.SpreadsheetEngineContext;
 
+import java.time.Duration;
+import java.util.Optional;
+
 public final class SpreadsheetEngineHateosHandlerContexts implements PublicStaticHelper {
 
     /**
-     * {@see BasicSpreadsheetEngineHateosHandlerContext}
+     * {@see BasicSpreadsheetEngineHateosHandlerContext}, viewport metadata is always saved immediately and changes are
+     * not logged so cell loads always include all cells. Query matches are cached for the life of the returned context,
+     * as nothing increments its revision, so it should not outlive a request, while cells are not indexed by value
+     * type, as nothing would keep the index current.
      */
     public static SpreadsheetEngineHateosHandlerContext basic(final SpreadsheetEngine spreadsheetEngine,
                                                               final HateosHandlerContext hateosHandlerContext,
                                                               final SpreadsheetEngineContext engineContext) {
+        final SpreadsheetServerRevision revision = SpreadsheetServerRevision.empty();
+
         return BasicSpreadsheetEngineHateosHandlerContext.with(
             spreadsheetEngine,
             hateosHandlerContext,
-            engineContext
+            engineContext,
+            SpreadsheetViewportMetadataWriteBehind.with(Duration.ZERO),
+            SpreadsheetServerChangeLog.with(
+                revision,
+                0 // maxChanges
+            ),
+            SpreadsheetServerCellQueryCache.with(
+                MAX_CELL_QUERY_MATCHES,
+                revision
+            ),
+            Optional.empty() // cellValueIndex
         );
     }
 
+    private final static int MAX_CELL_QUERY_MATCHES = 1024;
+
     /**
      * {see FakeSpreadsheetEngineHateosHandlerContext}
      */
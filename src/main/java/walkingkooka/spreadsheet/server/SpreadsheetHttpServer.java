@@ -17,12 +17,14 @@
 
 package walkingkooka.spreadsheet.server;
 
-import walkingkooka.collect.map.Maps;
+import walkingkooka.collect.list.Lists;
 import walkingkooka.collect.set.Sets;
 import walkingkooka.net.UrlPath;
 import walkingkooka.net.UrlPathName;
 import walkingkooka.net.email.EmailAddress;
+import walkingkooka.net.header.ETag;
 import walkingkooka.net.header.HttpHeaderName;
+import walkingkooka.net.http.HttpEntity;
 import walkingkooka.net.http.HttpStatusCode;
 import walkingkooka.net.http.server.HttpHandler;
 import walkingkooka.net.http.server.HttpHandlerContext;
@@ -48,7 +50,7 @@ import walkingkooka.spreadsheet.server.locale.LocaleHateosResource;
 import walkingkooka.validation.form.provider.FormHandlerName;
 import walkingkooka.validation.provider.ValidatorName;
 
-import java.util.Map;
+import java.time.Duration;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Function;
@@ -64,6 +66,20 @@ public final class SpreadsheetHttpServer implements HttpServer {
     public final static HttpHeaderName<String> TRANSACTION_ID = HttpHeaderName.with("X-transaction-id")
         .stringValues();
 
+    /**
+     * This header contains the revision of the spreadsheet for a cell load, which may be returned in the
+     * <code>since</code> query parameter of a later load to receive only the cells that changed.
+     */
+    public final static HttpHeaderName<String> REVISION = HttpHeaderName.with("X-spreadsheet-revision")
+        .stringValues();
+
+    /**
+     * Lists the request headers that select between forms of a response, so caches do not give one form to a client
+     * that asked for another.
+     */
+    public final static HttpHeaderName<String> VARY = HttpHeaderName.with("Vary")
+        .stringValues();
+
     public final static UrlPath API = UrlPath.parse("/api");
 
     public final static UrlPath API_COMPARATOR = API.append(
@@ -175,18 +191,44 @@ public final class SpreadsheetHttpServer implements HttpServer {
         .size();
 
 
+    /**
+     * Passed as the maxConcurrentRequests to {@link #with} when requests should not be limited.
+     */
+    public final static int UNLIMITED_CONCURRENT_REQUESTS = Integer.MAX_VALUE;
+
+    /**
+     * The default longest time a request waits for one of the maxConcurrentRequests before it is rejected.
+     */
+    public final static Duration DEFAULT_MAX_CONCURRENT_REQUEST_WAIT = Duration.ofSeconds(10);
+
     /**
      * Creates a new {@link SpreadsheetHttpServer} using the config and the functions to create the actual {@link HttpServer}.
      */
     public static SpreadsheetHttpServer with(final HttpHandler<SpreadsheetServerContext> publicHttpHandler,
                                              final Function<HttpHandler<SpreadsheetServerContext>, HttpServer> server,
                                              final Function<Optional<EmailAddress>, SpreadsheetServerContext> spreadsheetServerContextFactory,
-                                             final Function<HttpRequest, Optional<EmailAddress>> httpRequestUserExtractor) {
+                                             final Function<HttpRequest, Optional<EmailAddress>> httpRequestUserExtractor,
+                                             final SpreadsheetServerCache<EmailAddress, SpreadsheetServerContext> userToContext,
+                                             final int maxConcurrentRequests,
+                                             final Duration maxConcurrentRequestWait,
+                                             final SpreadsheetHttpServerCompression compression) {
+        if (maxConcurrentRequests <= 0) {
+            throw new IllegalArgumentException("Invalid maxConcurrentRequests " + maxConcurrentRequests + " <= 0");
+        }
+        Objects.requireNonNull(maxConcurrentRequestWait, "maxConcurrentRequestWait");
+        if (maxConcurrentRequestWait.isNegative()) {
+            throw new IllegalArgumentException("Invalid maxConcurrentRequestWait " + maxConcurrentRequestWait + " < 0");
+        }
+
         return new SpreadsheetHttpServer(
             Objects.requireNonNull(publicHttpHandler, "publicHttpHandler"),
             Objects.requireNonNull(server, "server"),
             Objects.requireNonNull(spreadsheetServerContextFactory, "spreadsheetServerContextFactory"),
-            Objects.requireNonNull(httpRequestUserExtractor, "httpRequestUserExtractor")
+            Objects.requireNonNull(httpRequestUserExtractor, "httpRequestUserExtractor"),
+            Objects.requireNonNull(userToContext, "userToContext"),
+            maxConcurrentRequests,
+            maxConcurrentRequestWait,
+            Objects.requireNonNull(compression, "compression")
         );
     }
 
@@ -202,32 +244,81 @@ public final class SpreadsheetHttpServer implements HttpServer {
         response.clearEntity();
     }
 
+    /**
+     * Replies with a {@link HttpStatusCode#NOT_MODIFIED} without any body when the request <code>If-None-Match</code>
+     * includes the given {@link ETag}, returning true when the response was set.
+     */
+    public static boolean notModified(final ETag etag,
+                                      final HttpRequest request,
+                                      final HttpResponse response) {
+        Objects.requireNonNull(etag, "etag");
+        Objects.requireNonNull(request, "request");
+        Objects.requireNonNull(response, "response");
+
+        boolean notModified = false;
+
+        final String value = etag.value();
+        for (final ETag possible : HttpHeaderName.IF_NONE_MATCH.header(request).orElse(Lists.empty())) {
+            if (value.equals(possible.value())) {
+                notModified = true;
+                break;
+            }
+        }
+
+        if (notModified) {
+            response.setVersion(request.protocolVersion());
+            response.setStatus(HttpStatusCode.NOT_MODIFIED.status());
+            response.setEntity(
+                HttpEntity.EMPTY.addHeader(
+                    HttpHeaderName.E_TAG,
+                    etag
+                )
+            );
+        }
+
+        return notModified;
+    }
+
     /**
      * Private ctor use factory.
      */
     private SpreadsheetHttpServer(final HttpHandler<SpreadsheetServerContext> publicHttpHandler,
                                   final Function<HttpHandler<SpreadsheetServerContext>, HttpServer> server,
                                   final Function<Optional<EmailAddress>, SpreadsheetServerContext> spreadsheetServerContextFactory,
-                                  final Function<HttpRequest, Optional<EmailAddress>> httpRequestUserExtractor) {
+                                  final Function<HttpRequest, Optional<EmailAddress>> httpRequestUserExtractor,
+                                  final SpreadsheetServerCache<EmailAddress, SpreadsheetServerContext> userToContext,
+                                  final int maxConcurrentRequests,
+                                  final Duration maxConcurrentRequestWait,
+                                  final SpreadsheetHttpServerCompression compression) {
         super();
 
         this.spreadsheetServerContextFactory = spreadsheetServerContextFactory;
-        this.httpHandler = SpreadsheetHttpServerHttpHandler.with(publicHttpHandler);
+        this.httpHandler = SpreadsheetHttpServerHttpHandler.with(
+            publicHttpHandler,
+            compression
+        );
 
         this.server = server.apply(
-            // necessary because HttpHandlers.autoGzipEncoding is @GwtIncompatible
-            SpreadsheetHttpServerAutoGzipEncoding.autoGzipEncoding(
-                HttpHandlers.stacktraceDumping(
-                    HttpHandlers.headerCopy(
-                        Sets.of(TRANSACTION_ID),
-                        this::handle
-                    ),
-                    HttpHandlers.throwableTranslator()
+            // necessary because Semaphore is @GwtIncompatible
+            SpreadsheetHttpServerConcurrencyLimit.concurrencyLimit(
+                maxConcurrentRequests,
+                maxConcurrentRequestWait,
+                // necessary because Deflater is @GwtIncompatible
+                SpreadsheetHttpServerAutoGzipEncoding.autoGzipEncoding(
+                    compression,
+                    HttpHandlers.stacktraceDumping(
+                        HttpHandlers.headerCopy(
+                            Sets.of(TRANSACTION_ID),
+                            this::handle
+                        ),
+                        HttpHandlers.throwableTranslator()
+                    )
                 )
             )
         );
 
         this.httpRequestUserExtractor = httpRequestUserExtractor;
+        this.userToContext = userToContext;
     }
 
     private void handle(final HttpRequest request,
@@ -238,17 +329,12 @@ public final class SpreadsheetHttpServer implements HttpServer {
         final Optional<EmailAddress> userOrAnonymous = this.httpRequestUserExtractor.apply(request);
 
         if (userOrAnonymous.isPresent()) {
-            final EmailAddress userEmail = userOrAnonymous.get();
-
-            contextWithUser = this.userToContext.get(userEmail);
-            if (null == contextWithUser) {
-                contextWithUser = this.spreadsheetServerContextFactory.apply(userOrAnonymous);
-
-                this.userToContext.put(
-                    userEmail,
-                    contextWithUser
-                );
-            }
+            contextWithUser = this.userToContext.getOrLoad(
+                userOrAnonymous.get(),
+                (u) -> Optional.of(
+                    this.spreadsheetServerContextFactory.apply(userOrAnonymous)
+                )
+            ).get();
         }
 
         this.httpHandler.handle(
@@ -268,9 +354,10 @@ public final class SpreadsheetHttpServer implements HttpServer {
     private final HttpHandler<SpreadsheetServerContext> httpHandler;
 
     /**
-     * Maps authenticated users to a {@link SpreadsheetServerContext}
+     * Maps authenticated users to a {@link SpreadsheetServerContext}. Concurrent first requests from the same user
+     * create a single {@link SpreadsheetServerContext}, and the cache may evict users who have not been seen recently.
      */
-    private final Map<EmailAddress, SpreadsheetServerContext> userToContext = Maps.concurrent();
+    private final SpreadsheetServerCache<EmailAddress, SpreadsheetServerContext> userToContext;
 
     // HttpServer.......................................................................................................
 
@@ -19,14 +19,17 @@ package walkingkooka.spreadsheet.server;
 
 import javaemul.internal.annotations.GwtIncompatible;
 import walkingkooka.net.http.server.HttpHandler;
-import walkingkooka.net.http.server.HttpHandlers;
 
 abstract class SpreadsheetHttpServerAutoGzipEncoding extends SpreadsheetHttpServerAutoGzipEncodingGwt {
 
     // shadows a method with same signature in SpreadsheetHttpServerAutoGzipEncodingGwt
     @GwtIncompatible
-    static HttpHandler<SpreadsheetServerContext> autoGzipEncoding(final HttpHandler<SpreadsheetServerContext> httpHandler) {
-        return HttpHandlers.autoGzipEncoding(httpHandler);
+    static HttpHandler<SpreadsheetServerContext> autoGzipEncoding(final SpreadsheetHttpServerCompression compression,
+                                                                  final HttpHandler<SpreadsheetServerContext> httpHandler) {
+        return SpreadsheetHttpServerCompressionHttpHandler.with(
+            compression,
+            httpHandler
+        );
     }
 
     private SpreadsheetHttpServerAutoGzipEncoding() {
@@ -21,7 +21,8 @@ import walkingkooka.net.http.server.HttpHandler;
 
 abstract class SpreadsheetHttpServerAutoGzipEncodingGwt {
 
-    static HttpHandler<SpreadsheetServerContext> autoGzipEncoding(final HttpHandler<SpreadsheetServerContext> httpHandler) {
+    static HttpHandler<SpreadsheetServerContext> autoGzipEncoding(final SpreadsheetHttpServerCompression compression,
+                                                                  final HttpHandler<SpreadsheetServerContext> httpHandler) {
         return httpHandler;
     }
 
@@ -0,0 +1,377 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.server;
+
+import walkingkooka.collect.list.Lists;
+import walkingkooka.collect.set.Sets;
+import walkingkooka.net.RelativeUrl;
+import walkingkooka.net.Url;
+import walkingkooka.net.UrlPathName;
+import walkingkooka.net.header.HasHateosContentType;
+import walkingkooka.net.header.HttpHeaderName;
+import walkingkooka.net.header.MediaType;
+import walkingkooka.net.http.HttpEntity;
+import walkingkooka.net.http.HttpMethod;
+import walkingkooka.net.http.HttpStatus;
+import walkingkooka.net.http.HttpStatusCode;
+import walkingkooka.net.http.server.HttpHandler;
+import walkingkooka.net.http.server.HttpHandlers;
+import walkingkooka.net.http.server.HttpRequest;
+import walkingkooka.net.http.server.HttpResponse;
+import walkingkooka.net.http.server.HttpResponses;
+import walkingkooka.spreadsheet.server.net.SpreadsheetServerMediaTypes;
+import walkingkooka.tree.json.JsonNode;
+import walkingkooka.tree.json.JsonPropertyName;
+import walkingkooka.tree.json.marshall.JsonNodeUnmarshallContext;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Executes an ordered list of sub requests for a single spreadsheet in one round trip, such as
+ * <code>POST /api/spreadsheet/1/batch</code> with the body below. Each sub request shares the headers of the batch
+ * request, and the response is a JSON array holding a response for each sub request in the same order.
+ * <pre>
+ * [
+ *   {
+ *     "method": "POST",
+ *     "url": "/api/spreadsheet/1/cell/A1",
+ *     "transactionId": "1",
+ *     "body": {
+ *       "cells": ...
+ *     }
+ *   },
+ *   {
+ *     "method": "GET",
+ *     "url": "/api/spreadsheet/1/cell/*?home=A1&width=200&height=60&includeFrozenColumnsRows=false",
+ *     "transactionId": "2"
+ *   }
+ * ]
+ * </pre>
+ * <pre>
+ * [
+ *   {
+ *     "transactionId": "1",
+ *     "status": 200,
+ *     "statusMessage": "OK",
+ *     "headers": {
+ *       "Content-Type": "application/json;charset=UTF-8"
+ *     },
+ *     "body": "{..."
+ *   },
+ *   ...
+ * ]
+ * </pre>
+ * Sub responses with a binary or encoded body, such as {@link SpreadsheetServerMediaTypes#JSON_BINARY}, have a
+ * <code>bodyBase64</code> holding the body encoded as base64 instead of a <code>body</code>.
+ */
+final class SpreadsheetHttpServerBatch {
+
+    /**
+     * Tests if the request is a POST of a batch for a spreadsheet, such as <code>/api/spreadsheet/1/batch</code>.
+     */
+    static boolean isBatch(final HttpRequest request) {
+        boolean batch = false;
+
+        if (HttpMethod.POST.equals(request.method())) {
+            final List<UrlPathName> names = request.url()
+                .path()
+                .namesList();
+            batch = BATCH_NAME_INDEX + 1 == names.size() &&
+                BATCH.equals(names.get(BATCH_NAME_INDEX));
+        }
+
+        return batch;
+    }
+
+    /**
+     * The index of the {@link walkingkooka.spreadsheet.meta.SpreadsheetId}.
+     */
+    private final static int SPREADSHEET_ID_NAME_INDEX = SpreadsheetHttpServer.API_SPREADSHEET.namesList()
+        .size();
+
+    /**
+     * The index of <code>batch</code> which follows the {@link walkingkooka.spreadsheet.meta.SpreadsheetId}.
+     */
+    private final static int BATCH_NAME_INDEX = SPREADSHEET_ID_NAME_INDEX + 1;
+
+    private final static UrlPathName BATCH = UrlPathName.with("batch");
+
+    /**
+     * Executes each of the sub requests in order with the given {@link HttpHandler} and replies with all their
+     * responses. Sub requests for a different spreadsheet fail with a {@link HttpStatusCode#BAD_REQUEST}.
+     */
+    static void handle(final HttpRequest request,
+                       final HttpResponse response,
+                       final HttpHandler<SpreadsheetServerContext> handler,
+                       final SpreadsheetServerContext context) {
+        final HttpHandler<SpreadsheetServerContext> errorTranslatingHandler = HttpHandlers.stacktraceDumping(
+            HttpHandlers.headerCopy(
+                Sets.of(SpreadsheetHttpServer.TRANSACTION_ID),
+                handler
+            ),
+            HttpHandlers.throwableTranslator()
+        );
+
+        final UrlPathName spreadsheetId = request.url()
+            .path()
+            .namesList()
+            .get(SPREADSHEET_ID_NAME_INDEX);
+
+        final List<JsonNode> responses = Lists.array();
+
+        // RFC 8259 requires JSON exchanged between systems to be UTF-8
+        for (final JsonNode subRequest : JsonNode.parse(new String(request.body(), StandardCharsets.UTF_8))
+            .arrayOrFail()
+            .children()) {
+            final SpreadsheetHttpServerBatchHttpRequest batchHttpRequest = parseSubRequest(
+                subRequest,
+                request
+            );
+            final HttpResponse subResponse = HttpResponses.recording();
+
+            if (isSpreadsheetId(batchHttpRequest.url(), spreadsheetId)) {
+                errorTranslatingHandler.handle(
+                    batchHttpRequest,
+                    subResponse,
+                    context
+                );
+            } else {
+                subResponse.setVersion(request.protocolVersion());
+                subResponse.setStatus(
+                    HttpStatusCode.BAD_REQUEST.setMessage("Batch request for different spreadsheet")
+                );
+            }
+
+            responses.add(
+                toJson(
+                    batchHttpRequest.transactionId,
+                    subResponse
+                )
+            );
+        }
+
+        response.setVersion(request.protocolVersion());
+        response.setStatus(HttpStatusCode.OK.status());
+        response.setEntity(
+            HttpEntity.EMPTY.setContentType(HasHateosContentType.HATEOS_CONTENT_TYPE)
+                .setBodyText(
+                    JsonNode.array()
+                        .setChildren(responses)
+                        .toString()
+                ).setContentLength()
+        );
+    }
+
+    private static SpreadsheetHttpServerBatchHttpRequest parseSubRequest(final JsonNode node,
+                                                                         final HttpRequest request) {
+        HttpMethod method = null;
+        RelativeUrl url = null;
+        Optional<String> transactionId = Optional.empty();
+        String body = "";
+
+        for (final JsonNode child : node.objectOrFail().children()) {
+            final JsonPropertyName name = child.name();
+            switch (name.value()) {
+                case METHOD_PROPERTY_STRING:
+                    method = HttpMethod.with(child.stringOrFail());
+                    break;
+                case URL_PROPERTY_STRING:
+                    url = Url.parseRelative(child.stringOrFail());
+                    break;
+                case TRANSACTION_ID_PROPERTY_STRING:
+                    transactionId = Optional.of(child.stringOrFail());
+                    break;
+                case BODY_PROPERTY_STRING:
+                    body = child.toString();
+                    break;
+                default:
+                    JsonNodeUnmarshallContext.unknownPropertyPresent(name, node);
+                    break;
+            }
+        }
+
+        if (null == method) {
+            JsonNodeUnmarshallContext.missingProperty(METHOD_PROPERTY, node);
+        }
+        if (null == url) {
+            JsonNodeUnmarshallContext.missingProperty(URL_PROPERTY, node);
+        }
+
+        return SpreadsheetHttpServerBatchHttpRequest.with(
+            request,
+            method,
+            url,
+            transactionId,
+            body
+        );
+    }
+
+    private static boolean isSpreadsheetId(final RelativeUrl url,
+                                           final UrlPathName spreadsheetId) {
+        final List<UrlPathName> names = url.path()
+            .namesList();
+        final List<UrlPathName> prefix = SpreadsheetHttpServer.API_SPREADSHEET.namesList();
+
+        return names.size() > SPREADSHEET_ID_NAME_INDEX &&
+            names.subList(0, SPREADSHEET_ID_NAME_INDEX).equals(prefix) &&
+            spreadsheetId.equals(names.get(SPREADSHEET_ID_NAME_INDEX));
+    }
+
+    private static JsonNode toJson(final Optional<String> transactionId,
+                                   final HttpResponse response) {
+        final List<JsonNode> children = Lists.array();
+
+        if (transactionId.isPresent()) {
+            children.add(
+                JsonNode.string(transactionId.get())
+                    .setName(TRANSACTION_ID_PROPERTY)
+            );
+        }
+
+        final HttpStatus status = response.status()
+            .orElse(HttpStatusCode.INTERNAL_SERVER_ERROR.status());
+        children.add(
+            JsonNode.number(
+                status.value()
+                    .code()
+            ).setName(STATUS_PROPERTY)
+        );
+        children.add(
+            JsonNode.string(status.message())
+                .setName(STATUS_MESSAGE_PROPERTY)
+        );
+
+        final HttpEntity entity = response.entity();
+
+        final List<JsonNode> headers = Lists.array();
+        for (final Entry<HttpHeaderName<?>, List<?>> header : entity.headers().entrySet()) {
+            headers.add(
+                JsonNode.string(
+                    header.getValue()
+                        .stream()
+                        .map(Object::toString)
+                        .collect(Collectors.joining(", "))
+                ).setName(
+                    JsonPropertyName.with(
+                        header.getKey()
+                            .value()
+                    )
+                )
+            );
+        }
+        children.add(
+            JsonNode.object()
+                .setChildren(headers)
+                .setName(HEADERS_PROPERTY)
+        );
+
+        children.add(
+            isText(entity) ?
+                JsonNode.string(entity.bodyText())
+                    .setName(BODY_PROPERTY) :
+                JsonNode.string(
+                    base64(
+                        entity.body()
+                            .value()
+                    )
+                ).setName(BODY_BASE64_PROPERTY)
+        );
+
+        return JsonNode.object()
+            .setChildren(children);
+    }
+
+    /**
+     * Tests if the body of the sub response is text which may be held by a JSON string, binary or encoded bodies such as
+     * {@link SpreadsheetServerMediaTypes#JSON_BINARY} would be corrupted by decoding them as text.
+     */
+    // @VisibleForTesting
+    static boolean isText(final HttpEntity entity) {
+        return 0 == entity.body()
+            .size() ||
+            false == HttpHeaderName.CONTENT_ENCODING.header(entity)
+                .isPresent() &&
+                HttpHeaderName.CONTENT_TYPE.header(entity)
+                    .map(SpreadsheetHttpServerBatch::isText)
+                    .orElse(true);
+    }
+
+    private static boolean isText(final MediaType contentType) {
+        final String text = contentType.toHeaderText()
+            .toLowerCase();
+        final int semiColon = text.indexOf(';');
+        final String withoutParameters = (-1 == semiColon ?
+            text :
+            text.substring(0, semiColon)
+        ).trim();
+
+        return withoutParameters.startsWith("text/") ||
+            withoutParameters.endsWith("/json") ||
+            withoutParameters.endsWith("+json") ||
+            withoutParameters.endsWith("/xml") ||
+            withoutParameters.endsWith("+xml");
+    }
+
+    /**
+     * Encodes the bytes as standard base64 with padding.
+     */
+    // @VisibleForTesting
+    static String base64(final byte[] bytes) {
+        final StringBuilder b = new StringBuilder((bytes.length + 2) / 3 * 4);
+
+        for (int i = 0; i < bytes.length; i += 3) {
+            final int remaining = bytes.length - i;
+            final int value = (bytes[i] & 0xff) << 16 |
+                (remaining > 1 ? (bytes[i + 1] & 0xff) << 8 : 0) |
+                (remaining > 2 ? bytes[i + 2] & 0xff : 0);
+
+            b.append(BASE64_ALPHABET.charAt(value >> 18 & 0x3f));
+            b.append(BASE64_ALPHABET.charAt(value >> 12 & 0x3f));
+            b.append(remaining > 1 ? BASE64_ALPHABET.charAt(value >> 6 & 0x3f) : '=');
+            b.append(remaining > 2 ? BASE64_ALPHABET.charAt(value & 0x3f) : '=');
+        }
+
+        return b.toString();
+    }
+
+    private final static String BASE64_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+
+    private final static String METHOD_PROPERTY_STRING = "method";
+    private final static String URL_PROPERTY_STRING = "url";
+    private final static String TRANSACTION_ID_PROPERTY_STRING = "transactionId";
+    private final static String BODY_PROPERTY_STRING = "body";
+
+    private final static JsonPropertyName METHOD_PROPERTY = JsonPropertyName.with(METHOD_PROPERTY_STRING);
+    private final static JsonPropertyName URL_PROPERTY = JsonPropertyName.with(URL_PROPERTY_STRING);
+    private final static JsonPropertyName TRANSACTION_ID_PROPERTY = JsonPropertyName.with(TRANSACTION_ID_PROPERTY_STRING);
+    private final static JsonPropertyName STATUS_PROPERTY = JsonPropertyName.with("status");
+    private final static JsonPropertyName STATUS_MESSAGE_PROPERTY = JsonPropertyName.with("statusMessage");
+    private final static JsonPropertyName HEADERS_PROPERTY = JsonPropertyName.with("headers");
+    private final static JsonPropertyName BODY_PROPERTY = JsonPropertyName.with(BODY_PROPERTY_STRING);
+    private final static JsonPropertyName BODY_BASE64_PROPERTY = JsonPropertyName.with("bodyBase64");
+
+    /**
+     * Stop creation
+     */
+    private SpreadsheetHttpServerBatch() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.server;
+
+import walkingkooka.collect.list.Lists;
+import walkingkooka.collect.map.Maps;
+import walkingkooka.net.RelativeUrl;
+import walkingkooka.net.header.CharsetName;
+import walkingkooka.net.header.HasHateosContentType;
+import walkingkooka.net.header.HttpHeaderName;
+import walkingkooka.net.http.HttpMethod;
+import walkingkooka.net.http.HttpProtocolVersion;
+import walkingkooka.net.http.HttpTransport;
+import walkingkooka.net.http.server.HttpRequest;
+import walkingkooka.net.http.server.HttpRequestParameterName;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A single sub request within a batch, sharing the transport, protocol version and headers of the batch
+ * {@link HttpRequest} but with its own method, url, body and {@link SpreadsheetHttpServer#TRANSACTION_ID}.
+ */
+final class SpreadsheetHttpServerBatchHttpRequest implements HttpRequest {
+
+    static SpreadsheetHttpServerBatchHttpRequest with(final HttpRequest request,
+                                                      final HttpMethod method,
+                                                      final RelativeUrl url,
+                                                      final Optional<String> transactionId,
+                                                      final String body) {
+        return new SpreadsheetHttpServerBatchHttpRequest(
+            Objects.requireNonNull(request, "request"),
+            Objects.requireNonNull(method, "method"),
+            Objects.requireNonNull(url, "url"),
+            Objects.requireNonNull(transactionId, "transactionId"),
+            Objects.requireNonNull(body, "body")
+        );
+    }
+
+    private SpreadsheetHttpServerBatchHttpRequest(final HttpRequest request,
+                                                  final HttpMethod method,
+                                                  final RelativeUrl url,
+                                                  final Optional<String> transactionId,
+                                                  final String body) {
+        super();
+
+        this.request = request;
+        this.method = method;
+        this.url = url;
+        this.transactionId = transactionId;
+        this.body = body.getBytes(StandardCharsets.UTF_8);
+        this.headers = headers(
+            request,
+            transactionId,
+            this.body
+        );
+    }
+
+    /**
+     * Copies the headers of the batch request, replacing those that describe the body and any transaction id. The
+     * conditional headers of the batch request are for the batch and not any sub request, and would otherwise answer a
+     * sub request with a 304 or 412 for an {@link walkingkooka.net.header.ETag} or date it never returned.
+     */
+    private static Map<HttpHeaderName<?>, List<?>> headers(final HttpRequest request,
+                                                           final Optional<String> transactionId,
+                                                           final byte[] body) {
+        final Map<HttpHeaderName<?>, List<?>> headers = Maps.ordered();
+        headers.putAll(request.headers());
+
+        headers.remove(HttpHeaderName.ACCEPT);
+        headers.remove(HttpHeaderName.CONTENT_LENGTH);
+        headers.remove(HttpHeaderName.CONTENT_TYPE);
+        headers.remove(SpreadsheetHttpServer.TRANSACTION_ID);
+
+        headers.remove(HttpHeaderName.IF_MATCH);
+        headers.remove(HttpHeaderName.IF_NONE_MATCH);
+        headers.remove(HttpHeaderName.IF_MODIFIED_SINCE);
+        headers.remove(HttpHeaderName.IF_UNMODIFIED_SINCE);
+        headers.remove(HttpHeaderName.IF_RANGE);
+
+        headers.put(
+            HttpHeaderName.ACCEPT,
+            Lists.of(
+                HasHateosContentType.HATEOS_CONTENT_TYPE.accept()
+            )
+        );
+        if (body.length > 0) {
+            headers.put(
+                HttpHeaderName.CONTENT_TYPE,
+                Lists.of(
+                    HasHateosContentType.HATEOS_CONTENT_TYPE.setCharset(CharsetName.UTF_8)
+                )
+            );
+            headers.put(
+                HttpHeaderName.CONTENT_LENGTH,
+                Lists.of(
+                    Long.valueOf(body.length)
+                )
+            );
+        }
+        if (transactionId.isPresent()) {
+            headers.put(
+                SpreadsheetHttpServer.TRANSACTION_ID,
+                Lists.of(
+                    transactionId.get()
+                )
+            );
+        }
+
+        return Maps.readOnly(headers);
+    }
+
+    @Override
+    public HttpTransport transport() {
+        return this.request.transport();
+    }
+
+    @Override
+    public HttpProtocolVersion protocolVersion() {
+        return this.request.protocolVersion();
+    }
+
+    @Override
+    public HttpMethod method() {
+        return this.method;
+    }
+
+    private final HttpMethod method;
+
+    @Override
+    public RelativeUrl url() {
+        return this.url;
+    }
+
+    private final RelativeUrl url;
+
+    @Override
+    public Map<HttpHeaderName<?>, List<?>> headers() {
+        return this.headers;
+    }
+
+    private final Map<HttpHeaderName<?>, List<?>> headers;
+
+    @Override
+    public byte[] body() {
+        return this.body.clone();
+    }
+
+    private final byte[] body;
+
+    @Override
+    public Map<HttpRequestParameterName, List<String>> parameters() {
+        final Map<HttpRequestParameterName, List<String>> parameters = Maps.ordered();
+
+        this.url.query()
+            .parameters()
+            .forEach((key, value) -> parameters.put(HttpRequestParameterName.with(key.value()), value));
+
+        return Maps.readOnly(parameters);
+    }
+
+    @Override
+    public List<String> parameterValues(final HttpRequestParameterName parameterName) {
+        return Optional.ofNullable(
+            this.parameters()
+                .get(parameterName)
+        ).orElse(Lists.empty());
+    }
+
+    /**
+     * The batch request.
+     */
+    private final HttpRequest request;
+
+    /**
+     * When present also included in the sub response.
+     */
+    final Optional<String> transactionId;
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return this.method + " " + this.url;
+    }
+}
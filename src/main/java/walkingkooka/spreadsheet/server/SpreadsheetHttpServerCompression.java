@@ -0,0 +1,212 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.server;
+
+import walkingkooka.collect.set.Sets;
+import walkingkooka.net.header.MediaType;
+import walkingkooka.spreadsheet.server.net.SpreadsheetServerMediaTypes;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Controls which responses are gzip compressed, and records how many bytes compression saved and how long it took.
+ * Responses smaller than the minimum size, or with an excluded content-type such as already compressed binary downloads,
+ * are sent unchanged.
+ */
+public final class SpreadsheetHttpServerCompression {
+
+    /**
+     * Uses the default compromise between speed and size, this matches {@link java.util.zip.Deflater#DEFAULT_COMPRESSION}.
+     */
+    public final static int DEFAULT_LEVEL = -1;
+
+    public final static int BEST_SPEED = 1;
+
+    public final static int BEST_COMPRESSION = 9;
+
+    /**
+     * Responses smaller than this are usually not worth the cost of compressing.
+     */
+    public final static int DEFAULT_MINIMUM_SIZE = 1024;
+
+    /**
+     * Creates a {@link SpreadsheetHttpServerCompression} with the default minimum size and level, which never compresses
+     * {@link SpreadsheetServerMediaTypes#BINARY} responses.
+     */
+    public static SpreadsheetHttpServerCompression defaults() {
+        return with(
+            DEFAULT_MINIMUM_SIZE,
+            DEFAULT_LEVEL,
+            Sets.of(SpreadsheetServerMediaTypes.BINARY)
+        );
+    }
+
+    public static SpreadsheetHttpServerCompression with(final int minimumSize,
+                                                        final int level,
+                                                        final Set<MediaType> excludedContentTypes) {
+        if (minimumSize < 0) {
+            throw new IllegalArgumentException("Invalid minimumSize " + minimumSize + " < 0");
+        }
+        if (DEFAULT_LEVEL != level && (level < 0 || level > BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("Invalid level " + level + " not " + DEFAULT_LEVEL + " or between 0 and " + BEST_COMPRESSION);
+        }
+        Objects.requireNonNull(excludedContentTypes, "excludedContentTypes");
+
+        final Set<MediaType> copy = Sets.ordered();
+        copy.addAll(excludedContentTypes);
+
+        return new SpreadsheetHttpServerCompression(
+            minimumSize,
+            level,
+            Collections.unmodifiableSet(copy)
+        );
+    }
+
+    private SpreadsheetHttpServerCompression(final int minimumSize,
+                                             final int level,
+                                             final Set<MediaType> excludedContentTypes) {
+        super();
+
+        this.minimumSize = minimumSize;
+        this.level = level;
+        this.excludedContentTypes = excludedContentTypes;
+    }
+
+    /**
+     * Tests if a response body with the given content-type and size should be compressed.
+     */
+    public boolean isCompressible(final Optional<MediaType> contentType,
+                                  final long size) {
+        Objects.requireNonNull(contentType, "contentType");
+
+        return size >= this.minimumSize &&
+            false == contentType.map(this::isExcluded)
+                .orElse(false);
+    }
+
+    /**
+     * Content-types are compared ignoring any parameters such as the charset.
+     */
+    private boolean isExcluded(final MediaType contentType) {
+        final String without = withoutParameters(contentType);
+
+        boolean excluded = false;
+        for (final MediaType exclude : this.excludedContentTypes) {
+            if (without.equalsIgnoreCase(withoutParameters(exclude))) {
+                excluded = true;
+                break;
+            }
+        }
+        return excluded;
+    }
+
+    private static String withoutParameters(final MediaType mediaType) {
+        final String text = mediaType.toHeaderText();
+        final int semiColon = text.indexOf(';');
+        return (-1 == semiColon ?
+            text :
+            text.substring(0, semiColon)
+        ).trim();
+    }
+
+    public int minimumSize() {
+        return this.minimumSize;
+    }
+
+    private final int minimumSize;
+
+    public int level() {
+        return this.level;
+    }
+
+    private final int level;
+
+    public Set<MediaType> excludedContentTypes() {
+        return this.excludedContentTypes;
+    }
+
+    private final Set<MediaType> excludedContentTypes;
+
+    // metrics..........................................................................................................
+
+    /**
+     * Records a single compressed response.
+     */
+    void record(final long uncompressedSize,
+                final long compressedSize,
+                final long nanos) {
+        this.compressedCount.incrementAndGet();
+        this.uncompressedBytes.addAndGet(uncompressedSize);
+        this.compressedBytes.addAndGet(compressedSize);
+        this.compressNanos.addAndGet(nanos);
+    }
+
+    /**
+     * The number of responses that were compressed.
+     */
+    public long compressedCount() {
+        return this.compressedCount.get();
+    }
+
+    private final AtomicLong compressedCount = new AtomicLong();
+
+    public long uncompressedBytes() {
+        return this.uncompressedBytes.get();
+    }
+
+    private final AtomicLong uncompressedBytes = new AtomicLong();
+
+    public long compressedBytes() {
+        return this.compressedBytes.get();
+    }
+
+    private final AtomicLong compressedBytes = new AtomicLong();
+
+    /**
+     * The total number of bytes not sent because of compression.
+     */
+    public long bytesSaved() {
+        return this.uncompressedBytes() - this.compressedBytes();
+    }
+
+    /**
+     * The total time spent compressing responses.
+     */
+    public Duration compressTime() {
+        return Duration.ofNanos(
+            this.compressNanos.get()
+        );
+    }
+
+    private final AtomicLong compressNanos = new AtomicLong();
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return "minimumSize=" + this.minimumSize +
+            " level=" + this.level +
+            " excludedContentTypes=" + this.excludedContentTypes +
+            " compressedCount=" + this.compressedCount() +
+            " bytesSaved=" + this.bytesSaved();
+    }
+}
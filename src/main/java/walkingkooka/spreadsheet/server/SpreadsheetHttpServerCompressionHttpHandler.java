@@ -0,0 +1,285 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.server;
+
+import javaemul.internal.annotations.GwtIncompatible;
+import walkingkooka.Binary;
+import walkingkooka.net.header.AcceptEncoding;
+import walkingkooka.net.header.AcceptEncodingValue;
+import walkingkooka.net.header.ContentEncoding;
+import walkingkooka.net.header.HttpHeaderName;
+import walkingkooka.net.http.HttpEntity;
+import walkingkooka.net.http.server.HttpHandler;
+import walkingkooka.net.http.server.HttpRequest;
+import walkingkooka.net.http.server.HttpResponse;
+import walkingkooka.net.http.server.HttpResponses;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A {@link HttpHandler} that gzips response bodies when the request accepts gzip and the
+ * {@link SpreadsheetHttpServerCompression} allows. Compressible responses to requests with an accept-encoding also
+ * include <code>Vary: Accept-Encoding</code>, so caches do not give a gzipped response to a client that did not ask
+ * for it.
+ */
+@GwtIncompatible
+final class SpreadsheetHttpServerCompressionHttpHandler implements HttpHandler<SpreadsheetServerContext> {
+
+    static SpreadsheetHttpServerCompressionHttpHandler with(final SpreadsheetHttpServerCompression compression,
+                                                           final HttpHandler<SpreadsheetServerContext> handler) {
+        return new SpreadsheetHttpServerCompressionHttpHandler(
+            compression,
+            handler
+        );
+    }
+
+    private SpreadsheetHttpServerCompressionHttpHandler(final SpreadsheetHttpServerCompression compression,
+                                                       final HttpHandler<SpreadsheetServerContext> handler) {
+        super();
+
+        this.compression = compression;
+        this.handler = handler;
+    }
+
+    @Override
+    public void handle(final HttpRequest request,
+                       final HttpResponse response,
+                       final SpreadsheetServerContext context) {
+        if (HttpHeaderName.ACCEPT_ENCODING.header(request).isPresent()) {
+            final HttpResponse recording = HttpResponses.recording();
+            this.handler.handle(
+                request,
+                recording,
+                context
+            );
+
+            recording.version()
+                .ifPresent(response::setVersion);
+            recording.status()
+                .ifPresent(response::setStatus);
+            response.setEntity(
+                compress(
+                    recording.entity(),
+                    isGzipAccepted(request),
+                    this.compression
+                )
+            );
+        } else {
+            this.handler.handle(
+                request,
+                response,
+                context
+            );
+        }
+    }
+
+    /**
+     * Tests if the request has an accept-encoding that includes gzip with a non zero quality factor. An explicit gzip
+     * takes precedence over a wildcard, so <code>gzip;q=0, *</code> does not accept gzip.
+     */
+    // @VisibleForTesting
+    static boolean isGzipAccepted(final HttpRequest request) {
+        final Optional<AcceptEncoding> acceptEncoding = HttpHeaderName.ACCEPT_ENCODING.header(request);
+
+        Boolean gzip = null;
+        boolean wildcard = false;
+
+        if (acceptEncoding.isPresent()) {
+            for (final AcceptEncodingValue value : acceptEncoding.get().value()) {
+                final boolean accepted = value.qualityFactorOrDefault() > 0;
+
+                if (value.isWildcard()) {
+                    wildcard = accepted;
+                } else if (value.test(ContentEncoding.GZIP)) {
+                    gzip = accepted;
+                }
+            }
+        }
+
+        return null != gzip ?
+            gzip :
+            wildcard;
+    }
+
+    /**
+     * Gzips the entity when gzip is accepted and the {@link SpreadsheetHttpServerCompression} allows, adding
+     * <code>Vary: Accept-Encoding</code> to any compressible entity. Entities that already have a content-encoding are
+     * returned unchanged.
+     */
+    static HttpEntity compress(final HttpEntity entity,
+                               final boolean gzip,
+                               final SpreadsheetHttpServerCompression compression) {
+        HttpEntity compressed = entity;
+
+        final Binary body = entity.body();
+        final int size = body.size();
+
+        if (false == HttpHeaderName.CONTENT_ENCODING.header(entity).isPresent() &&
+            compression.isCompressible(
+                HttpHeaderName.CONTENT_TYPE.header(entity),
+                size
+            )) {
+            compressed = entity.addHeader(
+                SpreadsheetHttpServer.VARY,
+                HttpHeaderName.ACCEPT_ENCODING.value()
+            );
+
+            if (gzip) {
+                final long start = System.nanoTime();
+                final byte[] gzipped = gzip(
+                    body.value(),
+                    compression.level()
+                );
+
+                compression.record(
+                    size,
+                    gzipped.length,
+                    System.nanoTime() - start
+                );
+
+                compressed = compressed.addHeader(
+                    HttpHeaderName.CONTENT_ENCODING,
+                    ContentEncoding.GZIP
+                ).setBody(
+                    Binary.with(gzipped)
+                ).setContentLength();
+            }
+        }
+
+        return compressed;
+    }
+
+    /**
+     * Writes the gzip header, the deflated bytes and the CRC and size trailer.
+     */
+    private static byte[] gzip(final byte[] bytes,
+                               final int level) {
+        final Deflater deflater = borrowDeflater(level);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+
+            final ByteArrayOutputStream output = new ByteArrayOutputStream(bytes.length / 2 + GZIP_HEADER.length + 8);
+            output.write(
+                GZIP_HEADER,
+                0,
+                GZIP_HEADER.length
+            );
+
+            final byte[] buffer = new byte[8192];
+            while (false == deflater.finished()) {
+                output.write(
+                    buffer,
+                    0,
+                    deflater.deflate(buffer)
+                );
+            }
+
+            final CRC32 crc = new CRC32();
+            crc.update(bytes);
+
+            writeIntLittleEndian((int) crc.getValue(), output);
+            writeIntLittleEndian(bytes.length, output);
+
+            return output.toByteArray();
+        } finally {
+            returnDeflater(deflater);
+        }
+    }
+
+    /**
+     * Takes an idle {@link Deflater} from the pool, or creates one when the pool is empty.
+     */
+    private static Deflater borrowDeflater(final int level) {
+        Deflater deflater = DEFLATERS.poll();
+        if (null == deflater) {
+            deflater = new Deflater(
+                level,
+                true // nowrap, the gzip header and trailer are written here
+            );
+        } else {
+            deflater.setLevel(level); // a reset deflater starts the next stream with this level
+        }
+        return deflater;
+    }
+
+    /**
+     * Resets and returns the {@link Deflater} to the pool. When the pool is full, or the deflater failed, it is ended
+     * instead, releasing its native memory rather than waiting for the garbage collector.
+     */
+    private static void returnDeflater(final Deflater deflater) {
+        boolean pooled = false;
+        try {
+            deflater.reset();
+            pooled = DEFLATERS.offer(deflater);
+        } finally {
+            if (false == pooled) {
+                deflater.end();
+            }
+        }
+    }
+
+    /**
+     * A bounded pool of idle {@link Deflater}, rather than a {@link ThreadLocal}, so the native memory held is limited
+     * by the pool size and not the number of server threads, and no deflater is leaked when a thread ends.
+     * Compressing is CPU bound, so more deflaters than processors would rarely be in use at once.
+     */
+    private final static BlockingQueue<Deflater> DEFLATERS = new ArrayBlockingQueue<>(
+        Runtime.getRuntime()
+            .availableProcessors()
+    );
+
+    private static void writeIntLittleEndian(final int value,
+                                             final ByteArrayOutputStream output) {
+        output.write(value);
+        output.write(value >> 8);
+        output.write(value >> 16);
+        output.write(value >> 24);
+    }
+
+    /**
+     * Magic, deflate method and zeros for the remaining fields, matching the header written by {@link java.util.zip.GZIPOutputStream}.
+     */
+    private final static byte[] GZIP_HEADER = new byte[]{
+        0x1f,
+        (byte) 0x8b,
+        Deflater.DEFLATED,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0
+    };
+
+    private final SpreadsheetHttpServerCompression compression;
+
+    private final HttpHandler<SpreadsheetServerContext> handler;
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return this.compression + " " + this.handler;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.server;
+
+import javaemul.internal.annotations.GwtIncompatible;
+import walkingkooka.net.header.HttpHeaderName;
+import walkingkooka.net.http.HttpEntity;
+import walkingkooka.net.http.HttpStatusCode;
+import walkingkooka.net.http.server.HttpHandler;
+import walkingkooka.net.http.server.HttpRequest;
+import walkingkooka.net.http.server.HttpResponse;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link HttpHandler} that allows at most a fixed number of requests to run at the same time. Excess requests wait
+ * in arrival order for a permit, so many slow spreadsheet evaluations cannot all compete for the CPU and stores at once.
+ * A waiting request still blocks the thread that the {@link walkingkooka.net.http.server.HttpServer} gave it. The
+ * maximum wait bounds how long each thread is held, and requests that do not get a permit in time are answered with
+ * {@link HttpStatusCode#SERVICE_UNAVAILABLE} and a <code>Retry-After</code>. A zero maximum wait rejects excess
+ * requests at once without blocking, which suits servers with a small pool of platform threads.
+ */
+@GwtIncompatible
+final class SpreadsheetHttpServerConcurrencyLimitHttpHandler implements HttpHandler<SpreadsheetServerContext> {
+
+    static SpreadsheetHttpServerConcurrencyLimitHttpHandler with(final int maxConcurrentRequests,
+                                                                final Duration maxWait,
+                                                                final HttpHandler<SpreadsheetServerContext> handler) {
+        Objects.requireNonNull(maxWait, "maxWait");
+        Objects.requireNonNull(handler, "handler");
+
+        return new SpreadsheetHttpServerConcurrencyLimitHttpHandler(
+            maxConcurrentRequests,
+            maxWait,
+            handler
+        );
+    }
+
+    /**
+     * Clients are asked to retry a rejected request after this many seconds.
+     */
+    // @VisibleForTesting
+    final static String RETRY_AFTER_SECONDS = "1";
+
+    // @VisibleForTesting
+    final static HttpHeaderName<String> RETRY_AFTER = HttpHeaderName.with("Retry-After")
+        .stringValues();
+
+    private SpreadsheetHttpServerConcurrencyLimitHttpHandler(final int maxConcurrentRequests,
+                                                            final Duration maxWait,
+                                                            final HttpHandler<SpreadsheetServerContext> handler) {
+        super();
+
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.permits = new Semaphore(
+            maxConcurrentRequests,
+            true // fair
+        );
+        this.handler = handler;
+    }
+
+    @Override
+    public void handle(final HttpRequest request,
+                       final HttpResponse response,
+                       final SpreadsheetServerContext context) {
+        boolean acquired;
+        if (0 == this.maxWaitNanos) {
+            acquired = this.permits.tryAcquire();
+        } else {
+            try {
+                acquired = this.permits.tryAcquire(
+                    this.maxWaitNanos,
+                    TimeUnit.NANOSECONDS
+                );
+            } catch (final InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            }
+        }
+
+        if (acquired) {
+            try {
+                this.handler.handle(
+                    request,
+                    response,
+                    context
+                );
+            } finally {
+                this.permits.release();
+            }
+        } else {
+            response.setVersion(request.protocolVersion());
+            response.setStatus(HttpStatusCode.SERVICE_UNAVAILABLE.status());
+            response.setEntity(
+                HttpEntity.EMPTY.addHeader(
+                    RETRY_AFTER,
+                    RETRY_AFTER_SECONDS
+                )
+            );
+        }
+    }
+
+    private final int maxConcurrentRequests;
+
+    private final long maxWaitNanos;
+
+    private final Semaphore permits;
+
+    private final HttpHandler<SpreadsheetServerContext> handler;
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return "maxConcurrentRequests=" + this.maxConcurrentRequests +
+            " maxWait=" + Duration.ofNanos(this.maxWaitNanos) +
+            " " +
+            this.handler;
+    }
+}
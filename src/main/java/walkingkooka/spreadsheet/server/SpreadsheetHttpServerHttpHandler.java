@@ -20,23 +20,41 @@ package walkingkooka.spreadsheet.server;
 import walkingkooka.net.http.server.HttpHandler;
 import walkingkooka.net.http.server.HttpHandlerContext;
 import walkingkooka.net.http.server.HttpRequest;
+import walkingkooka.net.http.server.HttpRequestAttribute;
 import walkingkooka.net.http.server.HttpResponse;
+import walkingkooka.route.Router;
+
+import java.util.function.Supplier;
 
 /**
  * A {@link HttpHandler} which routes requests to all the API end points and file server using the given {@link SpreadsheetServerContext}.
  */
 final class SpreadsheetHttpServerHttpHandler implements HttpHandler<SpreadsheetServerContext> {
 
-    static SpreadsheetHttpServerHttpHandler with(final HttpHandler<SpreadsheetServerContext> publicHttpHandler) {
-        return new SpreadsheetHttpServerHttpHandler(publicHttpHandler);
+    static SpreadsheetHttpServerHttpHandler with(final HttpHandler<SpreadsheetServerContext> publicHttpHandler,
+                                                 final SpreadsheetHttpServerCompression compression) {
+        return with(
+            () -> SpreadsheetHttpServerHttpHandlerRouterFactory.with(
+                publicHttpHandler,
+                compression
+            ).router
+        );
+    }
+
+    // @VisibleForTesting
+    static SpreadsheetHttpServerHttpHandler with(final Supplier<Router<HttpRequestAttribute<?>, HttpHandler<SpreadsheetServerContext>>> routerFactory) {
+        return new SpreadsheetHttpServerHttpHandler(routerFactory);
     }
 
-    private SpreadsheetHttpServerHttpHandler(final HttpHandler<SpreadsheetServerContext> publicHttpHandler) {
+    private SpreadsheetHttpServerHttpHandler(final Supplier<Router<HttpRequestAttribute<?>, HttpHandler<SpreadsheetServerContext>>> routerFactory) {
         super();
-        this.publicHttpHandler = publicHttpHandler;
+        this.router = routerFactory.get();
     }
 
-    private final HttpHandler<SpreadsheetServerContext> publicHttpHandler;
+    /**
+     * The {@link Router} is immutable and built once, and then shared by all requests and threads.
+     */
+    private final Router<HttpRequestAttribute<?>, HttpHandler<SpreadsheetServerContext>> router;
 
     // HttpHandler......................................................................................................
 
@@ -48,12 +66,8 @@ final class SpreadsheetHttpServerHttpHandler implements HttpHandler<SpreadsheetS
     public void handle(final HttpRequest request,
                        final HttpResponse response,
                        final SpreadsheetServerContext context) {
-        SpreadsheetHttpServerHttpHandlerRouterFactory.with(
-                this.publicHttpHandler
-            ).router
-            .route(
-                request.routerParameters()
-            ).orElse(SpreadsheetHttpServer::notFound)
+        this.router.route(request.routerParameters())
+            .orElse(SpreadsheetHttpServer::notFound)
             .handle(
                 request,
                 response,
@@ -17,6 +17,7 @@
 
 package walkingkooka.spreadsheet.server;
 
+import walkingkooka.collect.map.Maps;
 import walkingkooka.collect.set.Sets;
 import walkingkooka.net.UrlPath;
 import walkingkooka.net.UrlPathName;
@@ -24,11 +25,9 @@ import walkingkooka.net.http.server.HttpHandler;
 import walkingkooka.net.http.server.HttpHandlerContext;
 import walkingkooka.net.http.server.HttpRequest;
 import walkingkooka.net.http.server.HttpRequestAttribute;
-import walkingkooka.net.http.server.HttpRequestAttributeRouting;
 import walkingkooka.net.http.server.HttpResponse;
 import walkingkooka.net.http.server.hateos.HateosHandlerContext;
 import walkingkooka.net.http.server.hateos.HateosResourceMappings;
-import walkingkooka.route.RouteMappings;
 import walkingkooka.route.Router;
 import walkingkooka.spreadsheet.server.comparator.SpreadsheetComparatorHateosResourceMappings;
 import walkingkooka.spreadsheet.server.convert.ConverterHateosResourceMappings;
@@ -44,97 +43,147 @@ import walkingkooka.spreadsheet.server.importer.SpreadsheetImporterHateosResourc
 import walkingkooka.spreadsheet.server.locale.LocaleHateosHandlerContext;
 import walkingkooka.spreadsheet.server.locale.LocaleHateosResourceMappings;
 import walkingkooka.spreadsheet.server.meta.SpreadsheetMetadataHttpHandler;
+import walkingkooka.spreadsheet.server.net.SpreadsheetUrlPathRouter;
 import walkingkooka.spreadsheet.server.parser.SpreadsheetParserHateosResourceMappings;
 import walkingkooka.spreadsheet.server.validation.ValidationHateosResourceMappings;
 
 import java.util.Map;
-import java.util.function.Predicate;
 
 final class SpreadsheetHttpServerHttpHandlerRouterFactory {
 
-    static SpreadsheetHttpServerHttpHandlerRouterFactory with(final HttpHandler<SpreadsheetServerContext> publicHttpHandler) {
-        return new SpreadsheetHttpServerHttpHandlerRouterFactory(publicHttpHandler);
+    static SpreadsheetHttpServerHttpHandlerRouterFactory with(final HttpHandler<SpreadsheetServerContext> publicHttpHandler,
+                                                              final SpreadsheetHttpServerCompression compression) {
+        return new SpreadsheetHttpServerHttpHandlerRouterFactory(
+            publicHttpHandler,
+            compression
+        );
     }
 
-    private SpreadsheetHttpServerHttpHandlerRouterFactory(final HttpHandler<SpreadsheetServerContext> publicHttpHandler) {
+    private SpreadsheetHttpServerHttpHandlerRouterFactory(final HttpHandler<SpreadsheetServerContext> publicHttpHandler,
+                                                          final SpreadsheetHttpServerCompression compression) {
         super();
 
-        this.router = RouteMappings.<HttpRequestAttribute<?>, HttpHandler<SpreadsheetServerContext>>empty()
-            .add(
-                routing(SpreadsheetHttpServer.API_COMPARATOR),
-                spreadsheetProviderHateosHandlerContextHttpHandler(
-                    this.comparatorRouter()
-                )
-            ).add(
-                routing(SpreadsheetHttpServer.API_CONVERTER),
-                spreadsheetProviderHateosHandlerContextHttpHandler(
-                    this.converterRouter()
-                )
-            ).add(
-                routing(SpreadsheetHttpServer.API_CURRENCY),
-                currencyHateosHandlerContextHttpHandler(
-                    this.currencyRouter()
-                )
-            ).add(
-                routing(SpreadsheetHttpServer.API_DATE_TIME_SYMBOLS),
-                localeHateosHandlerContextHttpHandler(
-                    this.dateTimeSymbolsRouter()
-                )
-            ).add(
-                routing(SpreadsheetHttpServer.API_DECIMAL_NUMBER_SYMBOLS),
-                localeHateosHandlerContextHttpHandler(
-                    this.decimalNumberSymbolsRouter()
-                )
-            ).add(
-                routing(SpreadsheetHttpServer.API_EXPORTER),
-                spreadsheetProviderHateosHandlerContextHttpHandler(
-                    this.exporterRouter()
-                )
-            ).add(
-                routing(SpreadsheetHttpServer.API_FORMATTER),
-                spreadsheetProviderHateosHandlerContextHttpHandler(
-                    this.formatterRouter()
-                )
-            ).add(
-                routing(SpreadsheetHttpServer.API_FORM_HANDLER),
-                spreadsheetProviderHateosHandlerContextHttpHandler(
-                    this.formHandlerRouter()
-                )
-            ).add(
-                routing(SpreadsheetHttpServer.API_FUNCTION),
-                spreadsheetProviderHateosHandlerContextHttpHandler(
-                    this.functionRouter()
-                )
-            ).add(
-                routing(SpreadsheetHttpServer.API_IMPORTER),
-                spreadsheetProviderHateosHandlerContextHttpHandler(
-                    this.importerRouter()
-                )
-            ).add(
-                routing(SpreadsheetHttpServer.API_LOCALE),
-                localeHateosHandlerContextHttpHandler(
-                    this.localeRouter()
-                )
-            ).add(
-                routing(SpreadsheetHttpServer.API_PARSER),
-                spreadsheetProviderHateosHandlerContextHttpHandler(
-                    this.parserRouter()
-                )
-            ).add(
-                routing(SpreadsheetHttpServer.API_VALIDATOR),
-                spreadsheetProviderHateosHandlerContextHttpHandler(
-                    this.validatorRouter()
+        final Map<UrlPath, HttpHandler<SpreadsheetServerContext>> pathToHandlers = Maps.ordered();
+
+        pathToHandlers.put(
+            SpreadsheetHttpServer.API_COMPARATOR,
+            spreadsheetProviderHateosHandlerContextHttpHandler(
+                SpreadsheetHttpServer.API_COMPARATOR,
+                compression,
+                this.comparatorRouter()
+            )
+        );
+        pathToHandlers.put(
+            SpreadsheetHttpServer.API_CONVERTER,
+            spreadsheetProviderHateosHandlerContextHttpHandler(
+                SpreadsheetHttpServer.API_CONVERTER,
+                compression,
+                this.converterRouter()
+            )
+        );
+        pathToHandlers.put(
+            SpreadsheetHttpServer.API_CURRENCY,
+            currencyHateosHandlerContextHttpHandler(
+                this.currencyRouter()
+            )
+        );
+        pathToHandlers.put(
+            SpreadsheetHttpServer.API_DATE_TIME_SYMBOLS,
+            localeHateosHandlerContextHttpHandler(
+                this.dateTimeSymbolsRouter()
+            )
+        );
+        pathToHandlers.put(
+            SpreadsheetHttpServer.API_DECIMAL_NUMBER_SYMBOLS,
+            localeHateosHandlerContextHttpHandler(
+                this.decimalNumberSymbolsRouter()
+            )
+        );
+        pathToHandlers.put(
+            SpreadsheetHttpServer.API_EXPORTER,
+            spreadsheetProviderHateosHandlerContextHttpHandler(
+                SpreadsheetHttpServer.API_EXPORTER,
+                compression,
+                this.exporterRouter()
+            )
+        );
+        pathToHandlers.put(
+            SpreadsheetHttpServer.API_FORMATTER,
+            spreadsheetProviderHateosHandlerContextHttpHandler(
+                SpreadsheetHttpServer.API_FORMATTER,
+                compression,
+                this.formatterRouter()
+            )
+        );
+        pathToHandlers.put(
+            SpreadsheetHttpServer.API_FORM_HANDLER,
+            spreadsheetProviderHateosHandlerContextHttpHandler(
+                SpreadsheetHttpServer.API_FORM_HANDLER,
+                compression,
+                this.formHandlerRouter()
+            )
+        );
+        pathToHandlers.put(
+            SpreadsheetHttpServer.API_FUNCTION,
+            spreadsheetProviderHateosHandlerContextHttpHandler(
+                SpreadsheetHttpServer.API_FUNCTION,
+                compression,
+                this.functionRouter()
+            )
+        );
+        pathToHandlers.put(
+            SpreadsheetHttpServer.API_IMPORTER,
+            spreadsheetProviderHateosHandlerContextHttpHandler(
+                SpreadsheetHttpServer.API_IMPORTER,
+                compression,
+                this.importerRouter()
+            )
+        );
+        pathToHandlers.put(
+            SpreadsheetHttpServer.API_LOCALE,
+            localeHateosHandlerContextHttpHandler(
+                this.localeRouter()
+            )
+        );
+        pathToHandlers.put(
+            SpreadsheetHttpServer.API_PARSER,
+            spreadsheetProviderHateosHandlerContextHttpHandler(
+                SpreadsheetHttpServer.API_PARSER,
+                compression,
+                this.parserRouter()
+            )
+        );
+        pathToHandlers.put(
+            SpreadsheetHttpServer.API_VALIDATOR,
+            spreadsheetProviderHateosHandlerContextHttpHandler(
+                SpreadsheetHttpServer.API_VALIDATOR,
+                compression,
+                this.validatorRouter()
+            )
+        );
+        pathToHandlers.put(
+            SPREADSHEET_ENGINE_PATH,
+            // GETs such as viewport loads may be answered in the compact binary form
+            SpreadsheetHttpServerJsonBinaryHttpHandler.with(
+                // necessary because ThreadPoolExecutor is @GwtIncompatible
+                SpreadsheetHttpServerViewportPrefetch.viewportPrefetch(
+                    // necessary because ReentrantReadWriteLock is @GwtIncompatible
+                    SpreadsheetHttpServerSpreadsheetIdLocking.spreadsheetIdLocking(
+                        SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContext.with(SpreadsheetHttpServerSpreadsheetHttpHandler.INSTANCE)
+                    )
                 )
-            ).add(
-                SPREADSHEET_ENGINE_ROUTING,
-                SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContext.with(SpreadsheetHttpServerSpreadsheetHttpHandler.INSTANCE)
-            ).add(
-                routing(SpreadsheetHttpServer.API),
-                SpreadsheetMetadataHttpHandler.INSTANCE
-            ).add(
-                FILE_SERVER_ROUTING,
-                publicHttpHandler
-            ).router();
+            )
+        );
+        pathToHandlers.put(
+            SpreadsheetHttpServer.API,
+            SpreadsheetMetadataHttpHandler.INSTANCE
+        );
+        pathToHandlers.put(
+            FILE_SERVER_PATH,
+            publicHttpHandler
+        );
+
+        this.router = SpreadsheetUrlPathRouter.with(pathToHandlers);
     }
 
     private static HttpHandler<SpreadsheetServerContext> currencyHateosHandlerContextHttpHandler(final Router<HttpRequestAttribute<?>, HttpHandler<CurrencyHateosHandlerContext>> router) {
@@ -149,9 +198,16 @@ final class SpreadsheetHttpServerHttpHandlerRouterFactory {
         );
     }
 
-    private static HttpHandler<SpreadsheetServerContext> spreadsheetProviderHateosHandlerContextHttpHandler(final Router<HttpRequestAttribute<?>, HttpHandler<SpreadsheetProviderHateosHandlerContext>> router) {
-        return SpreadsheetHttpServerHttpHandlerSpreadsheetProviderHateosHandlerContext.with(
-            httpHandler(router)
+    private static HttpHandler<SpreadsheetServerContext> spreadsheetProviderHateosHandlerContextHttpHandler(final UrlPath path,
+                                                                                                         final SpreadsheetHttpServerCompression compression,
+                                                                                                         final Router<HttpRequestAttribute<?>, HttpHandler<SpreadsheetProviderHateosHandlerContext>> router) {
+        // necessary because Binary.gzip is @GwtIncompatible
+        return SpreadsheetHttpServerProviderInfoCache.providerInfoCache(
+            path,
+            compression,
+            SpreadsheetHttpServerHttpHandlerSpreadsheetProviderHateosHandlerContext.with(
+                httpHandler(router)
+            )
         );
     }
 
@@ -170,12 +226,6 @@ final class SpreadsheetHttpServerHttpHandlerRouterFactory {
 
     // mappings.........................................................................................................
 
-    private static Map<HttpRequestAttribute<?>, Predicate<?>> routing(final UrlPath path) {
-        return HttpRequestAttributeRouting.empty()
-            .path(path)
-            .build();
-    }
-
     private Router<HttpRequestAttribute<?>, HttpHandler<SpreadsheetProviderHateosHandlerContext>> comparatorRouter() {
         return this.spreadsheetProviderHateosHandlerContextRouter(
             SpreadsheetComparatorHateosResourceMappings.spreadsheetProviderHateosHandlerContext()
@@ -274,16 +324,13 @@ final class SpreadsheetHttpServerHttpHandlerRouterFactory {
     }
 
     // /api/spreadsheet/*/*
-    private final static Map<HttpRequestAttribute<?>, Predicate<?>> SPREADSHEET_ENGINE_ROUTING = HttpRequestAttributeRouting.empty()
-        .path(
-            SpreadsheetHttpServer.API_SPREADSHEET.append(UrlPathName.WILDCARD)
-                .append(UrlPathName.WILDCARD)
-        ).build();
+    private final static UrlPath SPREADSHEET_ENGINE_PATH = SpreadsheetHttpServer.API_SPREADSHEET.append(UrlPathName.WILDCARD)
+        .append(UrlPathName.WILDCARD);
 
     // SpreadsheetHttpServerHttpHandler
     final Router<HttpRequestAttribute<?>, HttpHandler<SpreadsheetServerContext>> router;
 
     // files............................................................................................................
 
-    private final static Map<HttpRequestAttribute<?>, Predicate<?>> FILE_SERVER_ROUTING = routing(UrlPath.parse("/*"));
+    private final static UrlPath FILE_SERVER_PATH = UrlPath.parse("/*");
 }
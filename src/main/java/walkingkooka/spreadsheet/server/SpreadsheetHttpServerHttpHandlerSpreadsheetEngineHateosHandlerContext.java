@@ -17,21 +17,26 @@
 
 package walkingkooka.spreadsheet.server;
 
+import walkingkooka.collect.map.Maps;
+import walkingkooka.net.http.HttpEntity;
 import walkingkooka.net.http.server.HttpHandler;
-import walkingkooka.net.http.server.HttpHandlerContext;
 import walkingkooka.net.http.server.HttpRequest;
 import walkingkooka.net.http.server.HttpResponse;
 import walkingkooka.spreadsheet.SpreadsheetContext;
-import walkingkooka.spreadsheet.engine.SpreadsheetEngine;
 import walkingkooka.spreadsheet.engine.SpreadsheetEngineContext;
-import walkingkooka.spreadsheet.engine.SpreadsheetEngines;
 import walkingkooka.spreadsheet.meta.SpreadsheetId;
 import walkingkooka.spreadsheet.meta.SpreadsheetMetadataPropertyName;
-import walkingkooka.spreadsheet.server.meta.SpreadsheetMetadataHateosHandlerContexts;
 
+import java.time.Duration;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BiConsumer;
 
-public final class SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContext implements HttpHandler<SpreadsheetServerContext> {
+public final class SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContext implements HttpHandler<SpreadsheetServerContext>,
+    SpreadsheetHttpServerSpreadsheetIdLockingHttpHandlerEvaluating {
 
     public static SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContext with(final HttpHandler<SpreadsheetEngineHateosHandlerContext> handler) {
         return new SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContext(
@@ -57,43 +62,29 @@ public final class SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandle
         if (null != spreadsheetId) {
             boolean notFound = true;
 
-            final HttpHandler<HttpHandlerContext> spreadsheetIdHttpHandler = context.spreadsheetContextOrFail(spreadsheetId)
-                .httpRouter()
-                .route(request.routerParameters())
+            final SpreadsheetContext spreadsheetContext = context.spreadsheetContext(spreadsheetId)
                 .orElse(null);
-            if (null != spreadsheetIdHttpHandler) {
-                final SpreadsheetContext spreadsheetContext = context.spreadsheetContext(spreadsheetId)
-                    .orElse(null);
-                if (null != spreadsheetContext) {
+            if (null != spreadsheetContext) {
+                if (SpreadsheetHttpServerBatch.isBatch(request)) {
                     notFound = false;
 
-                    final SpreadsheetEngineContext spreadsheetEngineContext = spreadsheetContext.spreadsheetEngineContext();
-
-                    final SpreadsheetEngine engine = SpreadsheetEngines.stamper(
-                        spreadsheetEngineContext.spreadsheetEngine(),
-                        metadata -> metadata.set(
-                            SpreadsheetMetadataPropertyName.AUDIT_INFO,
-                            spreadsheetEngineContext.refreshModifiedAuditInfo(
-                                metadata.getOrFail(SpreadsheetMetadataPropertyName.AUDIT_INFO)
-                            )
-                        )
-                    );
-
-                    final SpreadsheetEngineHateosHandlerContext spreadsheetEngineContext2 = SpreadsheetEngineHateosHandlerContexts.basic(
-                        engine,
-                        context, // HateosHandlerContext,
-                        spreadsheetEngineContext
-                    ).setPreProcessor(
-                        SpreadsheetMetadataHateosHandlerContexts.spreadsheetDeltaJsonCellLabelResolver(
-                            spreadsheetEngineContext.storeRepository()
-                                .labels()
-                        )
+                    // all sub requests share the SpreadsheetContext and pipeline
+                    SpreadsheetHttpServerBatch.handle(
+                        request,
+                        response,
+                        (r, s, c) -> {
+                            if (false == this.handleSpreadsheetContext(r, s, spreadsheetContext, c)) {
+                                SpreadsheetHttpServer.notFound(r, s, c);
+                            }
+                        },
+                        context
                     );
-
-                    this.handler.handle(
+                } else {
+                    notFound = false == this.handleSpreadsheetContext(
                         request,
                         response,
-                        spreadsheetEngineContext2
+                        spreadsheetContext,
+                        context
                     );
                 }
             }
@@ -104,5 +95,263 @@ public final class SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandle
         }
     }
 
+    /**
+     * Handles a request for the given {@link SpreadsheetContext}, returning false if it was not found.
+     */
+    private boolean handleSpreadsheetContext(final HttpRequest request,
+                                             final HttpResponse response,
+                                             final SpreadsheetContext spreadsheetContext,
+                                             final SpreadsheetServerContext context) {
+        boolean found = true;
+
+        final boolean metrics = SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineMetrics.isMetrics(request);
+        final boolean events = SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvents.isEvents(request);
+
+        if (metrics || events || spreadsheetContext.httpRouter()
+            .route(request.routerParameters())
+            .isPresent()) {
+            final SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipeline pipeline = this.pipeline(
+                spreadsheetContext,
+                context
+            );
+            if (metrics) {
+                pipeline.metrics(
+                    request,
+                    response
+                );
+            } else if (events) {
+                pipeline.events(
+                    request,
+                    response
+                );
+            } else {
+                pipeline.handle(
+                    request,
+                    response,
+                    this.handler
+                );
+            }
+        } else {
+            found = false;
+        }
+
+        return found;
+    }
+
+    // SpreadsheetHttpServerSpreadsheetIdLockingHttpHandlerEvaluating...................................................
+
+    /**
+     * Asks the pipeline of the spreadsheet if the cell request will evaluate and save cells or save the viewport.
+     * Requests for a missing spreadsheet are not evaluating, as they are answered without loading any cells.
+     */
+    @Override
+    public boolean isEvaluating(final SpreadsheetId spreadsheetId,
+                                final HttpRequest request,
+                                final SpreadsheetServerContext context) {
+        Objects.requireNonNull(spreadsheetId, "spreadsheetId");
+        Objects.requireNonNull(request, "request");
+        Objects.requireNonNull(context, "context");
+
+        boolean evaluating = false;
+
+        final SpreadsheetContext spreadsheetContext = context.spreadsheetContext(spreadsheetId)
+            .orElse(null);
+        if (null != spreadsheetContext) {
+            evaluating = this.pipeline(
+                spreadsheetContext,
+                context
+            ).isEvaluating(request);
+        }
+
+        return evaluating;
+    }
+
+    /**
+     * Closes pipelines that were evicted or replaced, each while holding the write lock of its spreadsheet, as
+     * pipelines may be evicted by the background sweeper of {@link SpreadsheetServerCache} or while other requests for
+     * the same spreadsheet are running.
+     */
+    @Override
+    public void closePipelines(final BiConsumer<SpreadsheetId, Runnable> writeLocked) {
+        Objects.requireNonNull(writeLocked, "writeLocked");
+
+        for (; ; ) {
+            final SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipeline pipeline = this.closing.poll();
+            if (null == pipeline) {
+                break;
+            }
+            writeLocked.accept(
+                pipeline.spreadsheetId,
+                pipeline::close
+            );
+        }
+    }
+
+    /**
+     * Writes the held viewport of each pipeline that has one, each while holding the write lock of its spreadsheet.
+     */
+    @Override
+    public void flushPipelines(final BiConsumer<SpreadsheetId, Runnable> writeLocked) {
+        Objects.requireNonNull(writeLocked, "writeLocked");
+
+        for (final SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipeline pipeline : this.pipelines.toMap().values()) {
+            if (pipeline.isFlushPending()) {
+                writeLocked.accept(
+                    pipeline.spreadsheetId,
+                    pipeline::flushIfDue
+                );
+            }
+        }
+    }
+
+    /**
+     * Returns the cached pipeline for the given {@link SpreadsheetContext} creating a new one when missing or if it was
+     * created for a different {@link SpreadsheetEngineContext} or {@link SpreadsheetServerContext}. A pipeline that is
+     * evicted or replaced is only closed while holding the write lock of its spreadsheet, so no request is still using
+     * it.
+     */
+    private SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipeline pipeline(final SpreadsheetContext spreadsheetContext,
+                                                                                                   final SpreadsheetServerContext context) {
+        final SpreadsheetEngineContext spreadsheetEngineContext = spreadsheetContext.spreadsheetEngineContext();
+
+        SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipeline pipeline = this.pipelines.get(spreadsheetContext)
+            .orElse(null);
+        if (null == pipeline || false == pipeline.isFor(spreadsheetEngineContext, context)) {
+            // only one thread creates a pipeline, others wait and use it
+            synchronized (this.pipelinesLock) {
+                pipeline = this.pipelines.get(spreadsheetContext)
+                    .orElse(null);
+                if (null == pipeline || false == pipeline.isFor(spreadsheetEngineContext, context)) {
+                    final SpreadsheetId spreadsheetId = spreadsheetEngineContext.spreadsheetMetadata()
+                        .getOrFail(SpreadsheetMetadataPropertyName.SPREADSHEET_ID);
+
+                    // closes the pipeline when the SpreadsheetContext is evicted rather than waiting for it to idle
+                    final Runnable removeEvictionWatcher = context.addSpreadsheetContextEvictionWatcher(
+                        (c) -> {
+                            if (spreadsheetContext == c) {
+                                this.pipelines.remove(c)
+                                    .ifPresent(this.closing::add);
+                            }
+                        }
+                    );
+
+                    // any replaced pipeline is passed to the eviction listener and closed later
+                    pipeline = this.pipelines.put(
+                        spreadsheetContext,
+                        SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipeline.with(
+                            spreadsheetId,
+                            spreadsheetEngineContext,
+                            context,
+                            this.spreadsheetIdToChanges.compute(
+                                spreadsheetId,
+                                (k, v) -> (null == v ?
+                                    SpreadsheetServerSpreadsheetChanges.with(
+                                        spreadsheetId,
+                                        spreadsheetEngineContext.storeRepository(),
+                                        this.viewportResponses,
+                                        this.eventResponses
+                                    ) :
+                                    v
+                                ).retain()
+                            ),
+                            () -> {
+                                removeEvictionWatcher.run();
+                                this.spreadsheetIdToChanges.compute(
+                                    spreadsheetId,
+                                    (k, v) -> null == v ?
+                                        null :
+                                        v.release()
+                                );
+                            }
+                        )
+                    );
+                }
+            }
+        }
+
+        return pipeline;
+    }
+
+    /**
+     * Pipelines that were evicted or replaced, waiting to be closed by the next request or scheduled write behind.
+     */
+    private final Queue<SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipeline> closing = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Held while creating and replacing pipelines, so concurrent first requests create a single pipeline.
+     */
+    private final Object pipelinesLock = new Object();
+
+    private final static int MAX_PIPELINES = 1024;
+
+    private final static Duration PIPELINE_MAX_IDLE = Duration.ofMinutes(10);
+
+    /**
+     * Pipelines for recently used {@link SpreadsheetContext}, idle pipelines are dropped so evicted spreadsheets are
+     * not retained, and are later closed while holding the write lock of their spreadsheet, flushing any held viewport metadata and removing
+     * watchers. Each user has their own {@link SpreadsheetContext} and pipeline, while state that must be shared by all users of a spreadsheet is held by
+     * {@link #spreadsheetIdToChanges}.
+     */
+    private final SpreadsheetServerCache<SpreadsheetContext, SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipeline> pipelines = SpreadsheetServerCache.with(
+        MAX_PIPELINES,
+        Long.MAX_VALUE, // maxWeight
+        (p) -> 1L,
+        Optional.of(PIPELINE_MAX_IDLE),
+        (k, v) -> this.closing.add(v),
+        System::nanoTime
+    );
+
+    /**
+     * The revision, change log and value index of each spreadsheet, shared by the pipelines of all users and removed
+     * when the last pipeline for the spreadsheet is closed.
+     */
+    // @VisibleForTesting
+    final Map<SpreadsheetId, SpreadsheetServerSpreadsheetChanges> spreadsheetIdToChanges = Maps.concurrent();
+
+    private final static int MAX_VIEWPORT_RESPONSES = 1024;
+
+    /**
+     * Bounds the memory used by the viewport responses of all spreadsheets.
+     */
+    private final static long MAX_VIEWPORT_RESPONSES_BYTES = 64 * 1024 * 1024;
+
+    private final static Duration VIEWPORT_RESPONSE_MAX_IDLE = Duration.ofMinutes(10);
+
+    /**
+     * Cell load responses of all spreadsheets, keyed by revisions which are never reused, so responses for older
+     * revisions or released spreadsheets are never used again and are evicted.
+     */
+    private final SpreadsheetServerCache<String, HttpEntity> viewportResponses = SpreadsheetServerCache.with(
+        MAX_VIEWPORT_RESPONSES,
+        MAX_VIEWPORT_RESPONSES_BYTES,
+        (e) -> e.body()
+            .size(),
+        Optional.of(VIEWPORT_RESPONSE_MAX_IDLE),
+        (k, v) -> {},
+        System::nanoTime
+    );
+
+    private final static int MAX_EVENT_RESPONSES = 1024;
+
+    /**
+     * Bounds the memory used by the event responses of all spreadsheets.
+     */
+    private final static long MAX_EVENT_RESPONSES_BYTES = 16 * 1024 * 1024;
+
+    private final static Duration EVENT_RESPONSE_MAX_IDLE = Duration.ofMinutes(1);
+
+    /**
+     * Event responses of all spreadsheets, which are only shared by subscribers until the next change.
+     */
+    private final SpreadsheetServerCache<String, HttpEntity> eventResponses = SpreadsheetServerCache.with(
+        MAX_EVENT_RESPONSES,
+        MAX_EVENT_RESPONSES_BYTES,
+        (e) -> e.body()
+            .size(),
+        Optional.of(EVENT_RESPONSE_MAX_IDLE),
+        (k, v) -> {},
+        System::nanoTime
+    );
+
     private final HttpHandler<SpreadsheetEngineHateosHandlerContext> handler;
 }
@@ -0,0 +1,336 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.server;
+
+import walkingkooka.net.UrlPathName;
+import walkingkooka.net.header.ETag;
+import walkingkooka.net.http.HttpMethod;
+import walkingkooka.net.http.HttpStatusCode;
+import walkingkooka.net.http.server.HttpHandler;
+import walkingkooka.net.http.server.HttpRequest;
+import walkingkooka.net.http.server.HttpResponse;
+import walkingkooka.net.http.server.hateos.HateosHandlerContext;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngine;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngineContext;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngines;
+import walkingkooka.spreadsheet.meta.SpreadsheetId;
+import walkingkooka.spreadsheet.meta.SpreadsheetMetadataPropertyName;
+import walkingkooka.spreadsheet.server.meta.SpreadsheetMetadataHateosHandlerContexts;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Holds the stamping {@link SpreadsheetEngine} and the {@link SpreadsheetEngineHateosHandlerContext} with its label
+ * resolving pre processor for a single {@link SpreadsheetEngineContext}, so they are created once and shared by all
+ * requests rather than once per request. Viewport metadata saves are also coalesced here, while each kind of request
+ * is handled by its own collaborator:
+ * <ul>
+ * <li>{@link SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineCellLoads} cell loads with
+ * their {@link ETag} and cached responses</li>
+ * <li>{@link SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvaluated} the cell requests
+ * known to not evaluate</li>
+ * <li>{@link SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelinePrefetch} background viewport
+ * prefetches</li>
+ * <li>{@link SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvents} change events</li>
+ * <li>{@link SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineMetrics} metrics</li>
+ * </ul>
+ * The revision, the log of changes and the index of cells by value type are held by the
+ * {@link SpreadsheetServerSpreadsheetChanges} shared by all users of the spreadsheet.
+ */
+final class SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipeline {
+
+    static SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipeline with(final SpreadsheetId spreadsheetId,
+                                                                                              final SpreadsheetEngineContext spreadsheetEngineContext,
+                                                                                              final HateosHandlerContext hateosHandlerContext,
+                                                                                              final SpreadsheetServerSpreadsheetChanges changes,
+                                                                                              final Runnable onClose) {
+        return new SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipeline(
+            spreadsheetId,
+            spreadsheetEngineContext,
+            hateosHandlerContext,
+            changes,
+            onClose
+        );
+    }
+
+    private SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipeline(final SpreadsheetId spreadsheetId,
+                                                                                          final SpreadsheetEngineContext spreadsheetEngineContext,
+                                                                                          final HateosHandlerContext hateosHandlerContext,
+                                                                                          final SpreadsheetServerSpreadsheetChanges changes,
+                                                                                          final Runnable onClose) {
+        super();
+
+        this.spreadsheetId = spreadsheetId;
+        this.spreadsheetEngineContext = spreadsheetEngineContext;
+        this.hateosHandlerContext = hateosHandlerContext;
+
+        final SpreadsheetEngine engine = SpreadsheetEngines.stamper(
+            spreadsheetEngineContext.spreadsheetEngine(),
+            metadata -> metadata.set(
+                SpreadsheetMetadataPropertyName.AUDIT_INFO,
+                spreadsheetEngineContext.refreshModifiedAuditInfo(
+                    metadata.getOrFail(SpreadsheetMetadataPropertyName.AUDIT_INFO)
+                )
+            )
+        );
+
+        final SpreadsheetViewportMetadataWriteBehind viewportMetadataWriteBehind = SpreadsheetViewportMetadataWriteBehind.with(VIEWPORT_METADATA_SAVE_INTERVAL);
+        this.viewportMetadataWriteBehind = viewportMetadataWriteBehind;
+
+        this.changes = changes;
+        this.onClose = onClose;
+
+        final SpreadsheetEngineHateosHandlerContext context = BasicSpreadsheetEngineHateosHandlerContext.with(
+            engine,
+            hateosHandlerContext,
+            spreadsheetEngineContext,
+            viewportMetadataWriteBehind,
+            changes.changeLog,
+            SpreadsheetServerCellQueryCache.with(
+                MAX_CELL_QUERY_MATCHES,
+                changes.revision
+            ),
+            Optional.of(changes.cellValueIndex)
+        ).setPreProcessor(
+            SpreadsheetMetadataHateosHandlerContexts.spreadsheetDeltaJsonCellLabelResolver(
+                spreadsheetEngineContext.storeRepository()
+                    .labels()
+            )
+        );
+        this.context = context;
+
+        this.evaluated = SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvaluated.with(
+            changes.revision,
+            viewportMetadataWriteBehind
+        );
+        this.cellLoads = SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineCellLoads.with(
+            context,
+            changes,
+            viewportMetadataWriteBehind,
+            this.evaluated
+        );
+        this.prefetch = SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelinePrefetch.with(context);
+        this.events = SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvents.with(
+            context,
+            changes
+        );
+        this.metrics = SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineMetrics.with(
+            changes,
+            this.prefetch
+        );
+    }
+
+    /**
+     * Tests if this pipeline was built for the same contexts, which will not be true if the spreadsheet was evicted
+     * and reloaded.
+     */
+    boolean isFor(final SpreadsheetEngineContext spreadsheetEngineContext,
+                  final HateosHandlerContext hateosHandlerContext) {
+        return this.spreadsheetEngineContext == spreadsheetEngineContext &&
+            this.hateosHandlerContext == hateosHandlerContext;
+    }
+
+    /**
+     * The spreadsheet whose write lock must be held when closing this pipeline.
+     */
+    final SpreadsheetId spreadsheetId;
+
+    private final SpreadsheetEngineContext spreadsheetEngineContext;
+
+    private final HateosHandlerContext hateosHandlerContext;
+
+    final SpreadsheetEngineHateosHandlerContext context;
+
+    /**
+     * Handles the request, passing cell loads to the
+     * {@link SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineCellLoads}. The background
+     * {@link SpreadsheetHttpServerViewportPrefetchHttpRequest} made after a cell load marked for prefetching is
+     * answered with a {@link HttpStatusCode#NO_CONTENT} after loading the predicted cells.
+     */
+    void handle(final HttpRequest request,
+                final HttpResponse response,
+                final HttpHandler<SpreadsheetEngineHateosHandlerContext> handler) {
+        // changes always hold the write lock, while other requests flush in isEvaluating before taking the read lock
+        if (SpreadsheetServerRevision.isChange(request)) {
+            this.viewportMetadataWriteBehind.flushIfDue(
+                this.context.now()
+            );
+        }
+
+        if (request instanceof SpreadsheetHttpServerViewportPrefetchHttpRequest) {
+            this.prefetch.prefetch(request.routerParameters());
+
+            response.setVersion(request.protocolVersion());
+            response.setStatus(HttpStatusCode.NO_CONTENT.status());
+        } else if (SpreadsheetServerRevision.isCellLoad(request)) {
+            this.cellLoads.handle(
+                request,
+                response,
+                handler
+            );
+        } else {
+            handler.handle(
+                request,
+                response,
+                this.context
+            );
+
+            this.changes.handled(request);
+            this.evaluated.evaluated(
+                request,
+                response
+            );
+        }
+    }
+
+    /**
+     * Called while holding the write lock of the spreadsheet by requests that may evaluate and save cells or save the
+     * viewport, first writing any held viewport that is due. Returns false only when the same url was already handled
+     * at the current revision with no viewport held, as that handling evaluated every cell and saved the viewport so
+     * handling it again will not save anything. This is answered without navigating or loading any cells, so the request
+     * then only loads its window once, under the read lock. Background prefetches always evaluate, as they load the
+     * predicted window rather than the window of their url.
+     */
+    boolean isEvaluating(final HttpRequest request) {
+        this.viewportMetadataWriteBehind.flushIfDue(
+            this.context.now()
+        );
+
+        return request instanceof SpreadsheetHttpServerViewportPrefetchHttpRequest ||
+            false == this.evaluated.isEvaluated(request);
+    }
+
+    /**
+     * Returns true when a viewport is held, and {@link #flushIfDue()} may have something to write.
+     */
+    boolean isFlushPending() {
+        return this.viewportMetadataWriteBehind.held()
+            .isPresent();
+    }
+
+    /**
+     * Writes any held viewport that is due, called every second by the locking handler while holding the write lock of
+     * the spreadsheet, so the last viewport of a user who stopped scrolling is written without waiting for another
+     * request.
+     */
+    void flushIfDue() {
+        this.viewportMetadataWriteBehind.flushIfDue(
+            this.context.now()
+        );
+    }
+
+    void metrics(final HttpRequest request,
+                 final HttpResponse response) {
+        this.metrics.metrics(
+            request,
+            response
+        );
+    }
+
+    void events(final HttpRequest request,
+                final HttpResponse response) {
+        this.events.events(
+            request,
+            response
+        );
+    }
+
+    /**
+     * Tests if the request is a GET for the given name which follows the {@link SpreadsheetId}.
+     */
+    static boolean isGet(final HttpRequest request,
+                         final UrlPathName name) {
+        boolean get = false;
+
+        if (HttpMethod.GET.equals(request.method())) {
+            final List<UrlPathName> names = request.url()
+                .path()
+                .namesList();
+            get = NAME_INDEX + 1 == names.size() &&
+                name.equals(names.get(NAME_INDEX));
+        }
+
+        return get;
+    }
+
+    /**
+     * The index of <code>metrics</code> or <code>events</code> which follows the {@link SpreadsheetId}.
+     */
+    private final static int NAME_INDEX = SpreadsheetHttpServer.API_SPREADSHEET.namesList()
+        .size() + 1;
+
+    private final SpreadsheetServerSpreadsheetChanges changes;
+
+    private final SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvaluated evaluated;
+
+    private final SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineCellLoads cellLoads;
+
+    private final SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelinePrefetch prefetch;
+
+    private final SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvents events;
+
+    private final SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineMetrics metrics;
+
+    /**
+     * Bounds the memory used to remember which cells matched the highlighted query.
+     */
+    private final static int MAX_CELL_QUERY_MATCHES = 16 * 1024;
+
+    /**
+     * Removes the eviction watcher and releases the shared {@link SpreadsheetServerSpreadsheetChanges}.
+     */
+    private final Runnable onClose;
+
+    /**
+     * Writes any viewport metadata that is still held and runs the on close {@link Runnable}, which removes the eviction
+     * watcher and releases the shared {@link SpreadsheetServerSpreadsheetChanges}, called when this pipeline or its
+     * {@link walkingkooka.spreadsheet.SpreadsheetContext} is evicted or replaced. Pipelines are only closed while holding
+     * the write lock of the spreadsheet, so no other request is using this pipeline or saving metadata,
+     * and closing more than once does nothing.
+     */
+    void close() {
+        final boolean close;
+        synchronized (this) {
+            close = false == this.closed;
+            this.closed = true;
+        }
+
+        if (close) {
+            this.viewportMetadataWriteBehind.flush();
+            this.onClose.run();
+        }
+    }
+
+    private boolean closed;
+
+    /**
+     * Viewport navigations within this interval are coalesced into a single save.
+     */
+    private final static Duration VIEWPORT_METADATA_SAVE_INTERVAL = Duration.ofSeconds(5);
+
+    private final SpreadsheetViewportMetadataWriteBehind viewportMetadataWriteBehind;
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return this.context.toString();
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.server;
+
+import walkingkooka.Binary;
+import walkingkooka.net.header.ETag;
+import walkingkooka.net.header.HasHateosContentType;
+import walkingkooka.net.header.HttpHeaderName;
+import walkingkooka.net.header.MediaType;
+import walkingkooka.net.http.HttpEntity;
+import walkingkooka.net.http.HttpStatus;
+import walkingkooka.net.http.HttpStatusCode;
+import walkingkooka.net.http.server.HttpHandler;
+import walkingkooka.net.http.server.HttpRequest;
+import walkingkooka.net.http.server.HttpResponse;
+import walkingkooka.spreadsheet.engine.SpreadsheetDelta;
+import walkingkooka.spreadsheet.meta.SpreadsheetMetadataPropertyName;
+import walkingkooka.spreadsheet.server.net.SpreadsheetServerMediaTypes;
+import walkingkooka.tree.json.JsonObject;
+
+import java.util.Optional;
+
+/**
+ * Handles cell loads. Loads with a matching <code>If-None-Match</code> are answered with a
+ * {@link HttpStatusCode#NOT_MODIFIED} without loading any cells, other loads are answered from the viewport response
+ * cache when possible, while successful loads include an {@link ETag} and the {@link SpreadsheetHttpServer#REVISION}
+ * of the loaded cells.
+ */
+final class SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineCellLoads {
+
+    static SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineCellLoads with(final SpreadsheetEngineHateosHandlerContext context,
+                                                                                                       final SpreadsheetServerSpreadsheetChanges changes,
+                                                                                                       final SpreadsheetViewportMetadataWriteBehind viewportMetadataWriteBehind,
+                                                                                                       final SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvaluated evaluated) {
+        return new SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineCellLoads(
+            context,
+            changes,
+            viewportMetadataWriteBehind,
+            evaluated
+        );
+    }
+
+    private SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineCellLoads(final SpreadsheetEngineHateosHandlerContext context,
+                                                                                                   final SpreadsheetServerSpreadsheetChanges changes,
+                                                                                                   final SpreadsheetViewportMetadataWriteBehind viewportMetadataWriteBehind,
+                                                                                                   final SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvaluated evaluated) {
+        super();
+
+        this.context = context;
+        this.changes = changes;
+        this.revision = changes.revision;
+        this.viewportMetadataWriteBehind = viewportMetadataWriteBehind;
+        this.evaluated = evaluated;
+    }
+
+    void handle(final HttpRequest request,
+                final HttpResponse response,
+                final HttpHandler<SpreadsheetEngineHateosHandlerContext> handler) {
+        if (false == SpreadsheetHttpServer.notModified(this.etag(request), request, response)) {
+            this.load(
+                request,
+                response,
+                handler
+            );
+        }
+    }
+
+    private void load(final HttpRequest request,
+                      final HttpResponse response,
+                      final HttpHandler<SpreadsheetEngineHateosHandlerContext> handler) {
+        // a held viewport will be written by a later save, so responses are not cached until then
+        final boolean cacheable = false == this.viewportMetadataWriteBehind.held()
+            .isPresent();
+        final long revision = this.revision.value();
+        final MediaType contentType = contentType(request);
+        final String key = revision + " " + contentType + " " + request.url();
+
+        final SpreadsheetServerCache<String, HttpEntity> viewportResponses = this.changes.viewportResponses;
+
+        final HttpEntity cached = cacheable ?
+            viewportResponses.get(key)
+                .orElse(null) :
+            null;
+        if (null != cached) {
+            response.setVersion(request.protocolVersion());
+            response.setStatus(HttpStatusCode.OK.status());
+            response.setEntity(cached);
+        } else {
+            final boolean jsonBinary = SpreadsheetServerMediaTypes.JSON_BINARY.equals(contentType);
+
+            // the marshalled delta is captured so the binary form is written without parsing the printed JSON
+            final JsonObject[] delta = new JsonObject[1];
+
+            handler.handle(
+                request,
+                response,
+                jsonBinary ?
+                    this.context.setObjectPostProcessor(
+                        (value, json) -> {
+                            if (value instanceof SpreadsheetDelta) {
+                                delta[0] = json;
+                            }
+                            return json;
+                        }
+                    ) :
+                    this.context
+            );
+
+            final Optional<HttpStatus> status = response.status();
+            if (status.isPresent() && HttpStatusCode.OK == status.get().value()) {
+                HttpEntity entity = response.entity();
+                if (null != delta[0]) {
+                    entity = entity.setContentType(SpreadsheetServerMediaTypes.JSON_BINARY)
+                        .setBody(
+                            Binary.with(
+                                SpreadsheetServerJsonBinary.encode(delta[0])
+                            )
+                        ).setContentLength();
+                }
+
+                // computed after because the load may save evaluated cells or the viewport
+                entity = entity.addHeader(
+                    HttpHeaderName.E_TAG,
+                    this.etag(request)
+                ).addHeader(
+                    SpreadsheetHttpServer.REVISION,
+                    String.valueOf(revision)
+                ).addHeader(
+                    SpreadsheetHttpServer.VARY, // cell loads may also be written in the binary form
+                    HttpHeaderName.ACCEPT.value()
+                );
+                response.setEntity(entity);
+                this.evaluated.evaluated(
+                    request,
+                    response
+                );
+
+                // the load itself may have changed the spreadsheet, making this response already stale
+                if (cacheable && revision == this.revision.value()) {
+                    viewportResponses.put(
+                        key,
+                        entity
+                    );
+                }
+
+                // the prefetch header is removed by SpreadsheetHttpServerViewportPrefetchHttpHandler
+                if (SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelinePrefetch.isPrefetch(request.routerParameters())) {
+                    response.setEntity(
+                        entity.addHeader(
+                            SpreadsheetHttpServerViewportPrefetchHttpHandler.PREFETCH,
+                            Boolean.TRUE.toString()
+                        )
+                    );
+                }
+            }
+        }
+    }
+
+    /**
+     * Only the home and selection of a held viewport are included, as the rest of the metadata is covered by the
+     * revision.
+     */
+    private ETag etag(final HttpRequest request) {
+        return this.revision.etag(
+            request.url(),
+            contentType(request),
+            this.viewportMetadataWriteBehind.held()
+                .map(
+                    m -> m.getOrFail(SpreadsheetMetadataPropertyName.VIEWPORT_HOME) +
+                        " " +
+                        m.get(SpreadsheetMetadataPropertyName.VIEWPORT_SELECTION)
+                            .map(Object::toString)
+                            .orElse("")
+                ).orElse(null)
+        );
+    }
+
+    /**
+     * Requests from {@link SpreadsheetHttpServerJsonBinaryHttpHandler} only accept the binary form, which has its own
+     * cached responses and {@link ETag}.
+     */
+    private static MediaType contentType(final HttpRequest request) {
+        return request instanceof SpreadsheetHttpServerJsonBinaryHttpRequest ?
+            SpreadsheetServerMediaTypes.JSON_BINARY :
+            HasHateosContentType.HATEOS_CONTENT_TYPE;
+    }
+
+    private final SpreadsheetEngineHateosHandlerContext context;
+
+    private final SpreadsheetServerSpreadsheetChanges changes;
+
+    private final SpreadsheetServerRevision revision;
+
+    private final SpreadsheetViewportMetadataWriteBehind viewportMetadataWriteBehind;
+
+    private final SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvaluated evaluated;
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return this.context.toString();
+    }
+}
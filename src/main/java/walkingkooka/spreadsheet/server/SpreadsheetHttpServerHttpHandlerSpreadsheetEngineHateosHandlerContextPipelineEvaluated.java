@@ -0,0 +1,106 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.server;
+
+import walkingkooka.collect.map.Maps;
+import walkingkooka.net.http.HttpStatusCode;
+import walkingkooka.net.http.server.HttpRequest;
+import walkingkooka.net.http.server.HttpResponse;
+
+import java.util.Map;
+
+/**
+ * Remembers the revision and url of cell requests known to not evaluate or save anything, so a later identical request
+ * at the same revision may be handled under the read lock of the spreadsheet.
+ */
+final class SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvaluated {
+
+    static SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvaluated with(final SpreadsheetServerRevision revision,
+                                                                                                       final SpreadsheetViewportMetadataWriteBehind viewportMetadataWriteBehind) {
+        return new SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvaluated(
+            revision,
+            viewportMetadataWriteBehind
+        );
+    }
+
+    private SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvaluated(final SpreadsheetServerRevision revision,
+                                                                                                   final SpreadsheetViewportMetadataWriteBehind viewportMetadataWriteBehind) {
+        super();
+
+        this.revision = revision;
+        this.viewportMetadataWriteBehind = viewportMetadataWriteBehind;
+    }
+
+    /**
+     * Returns true when the same url was already handled at the current revision with no viewport held, as that
+     * handling evaluated every cell and saved the viewport so handling it again will not save anything.
+     */
+    boolean isEvaluated(final HttpRequest request) {
+        return false == this.viewportMetadataWriteBehind.held().isPresent() &&
+            this.evaluated.containsKey(
+                this.key(request)
+            );
+    }
+
+    /**
+     * Records a successful cell request, so later identical requests at the same revision are known to not evaluate.
+     * The revision is read after handling, as the request may have saved evaluated cells or the viewport.
+     */
+    void evaluated(final HttpRequest request,
+                   final HttpResponse response) {
+        if (SpreadsheetServerRevision.isCell(request) &&
+            false == SpreadsheetServerRevision.isChange(request) &&
+            false == this.viewportMetadataWriteBehind.held().isPresent() &&
+            response.status()
+                .map(s -> HttpStatusCode.OK == s.value())
+                .orElse(false)) {
+            final Map<String, Boolean> evaluated = this.evaluated;
+
+            // keys of earlier revisions never match again, so clearing only forgets a few recent urls
+            if (evaluated.size() >= MAX_EVALUATED) {
+                evaluated.clear();
+            }
+            evaluated.put(
+                this.key(request),
+                Boolean.TRUE
+            );
+        }
+    }
+
+    private String key(final HttpRequest request) {
+        return this.revision.value() + " " + request.url();
+    }
+
+    private final SpreadsheetServerRevision revision;
+
+    private final SpreadsheetViewportMetadataWriteBehind viewportMetadataWriteBehind;
+
+    /**
+     * Keys are added by concurrent reads, the value is always true.
+     */
+    private final Map<String, Boolean> evaluated = Maps.concurrent();
+
+    private final static int MAX_EVALUATED = 64;
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return this.evaluated.size() + " evaluated";
+    }
+}
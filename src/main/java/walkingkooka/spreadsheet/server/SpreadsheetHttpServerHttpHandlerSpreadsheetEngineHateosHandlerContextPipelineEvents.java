@@ -0,0 +1,272 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.server;
+
+import walkingkooka.collect.set.Sets;
+import walkingkooka.collect.set.SortedSets;
+import walkingkooka.net.UrlPathName;
+import walkingkooka.net.header.HttpHeaderName;
+import walkingkooka.net.http.HttpEntity;
+import walkingkooka.net.http.HttpStatusCode;
+import walkingkooka.net.http.server.HttpRequest;
+import walkingkooka.net.http.server.HttpRequestAttribute;
+import walkingkooka.net.http.server.HttpResponse;
+import walkingkooka.spreadsheet.engine.SpreadsheetDelta;
+import walkingkooka.spreadsheet.engine.SpreadsheetDeltaProperties;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngineEvaluation;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellRangeReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.server.delta.SpreadsheetDeltaUrlQueryParameters;
+import walkingkooka.spreadsheet.server.net.SpreadsheetServerMediaTypes;
+import walkingkooka.spreadsheet.value.SpreadsheetCell;
+import walkingkooka.spreadsheet.viewport.SpreadsheetViewportWindows;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Answers a GET for the change events of a spreadsheet, such as
+ * <code>/api/spreadsheet/1/events?since=123&window=A1:C3</code>, as a server sent event stream.
+ */
+final class SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvents {
+
+    static SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvents with(final SpreadsheetEngineHateosHandlerContext context,
+                                                                                                    final SpreadsheetServerSpreadsheetChanges changes) {
+        return new SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvents(
+            context,
+            changes
+        );
+    }
+
+    private SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvents(final SpreadsheetEngineHateosHandlerContext context,
+                                                                                                final SpreadsheetServerSpreadsheetChanges changes) {
+        super();
+
+        this.context = context;
+        this.changes = changes;
+    }
+
+    /**
+     * Tests if the request is a GET for the change events of a spreadsheet.
+     */
+    static boolean isEvents(final HttpRequest request) {
+        return SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipeline.isGet(
+            request,
+            EVENTS
+        );
+    }
+
+    private final static UrlPathName EVENTS = UrlPathName.with("events");
+
+    /**
+     * Replies with a server sent event stream holding a single event for all changes since the revision in the
+     * <code>Last-Event-ID</code> header or when missing or invalid the <code>since</code> query parameter. Changes are batched by the
+     * <code>retry</code> interval, after which an EventSource reconnects with the new <code>Last-Event-ID</code>.
+     * <pre>
+     * retry: 1000
+     * id: 123
+     * event: change
+     * data: {
+     * data:   "cells": {
+     * ...
+     * </pre>
+     * A <code>reload</code> event is sent when the revision is missing or too old, and the client should load its
+     * entire viewport. The response is shared by all subscribers with the same revision and window, and is keyed by the
+     * shared revision of the spreadsheet so a change by any user is never answered from a stale response.
+     */
+    void events(final HttpRequest request,
+                final HttpResponse response) {
+        final Map<HttpRequestAttribute<?>, Object> parameters = request.routerParameters();
+
+        // an EventSource reconnects to its original url, so the since it was opened with must not win over the
+        // Last-Event-ID of the latest event it received
+        Optional<Long> since = LAST_EVENT_ID.header(request)
+            .flatMap(SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvents::lastEventId);
+        if (false == since.isPresent()) {
+            since = SpreadsheetDeltaUrlQueryParameters.since(parameters);
+        }
+
+        final Optional<SpreadsheetViewportWindows> window = SpreadsheetDeltaUrlQueryParameters.WINDOW.firstParameterValue(parameters)
+            .map(SpreadsheetViewportWindows::parse);
+
+        final SpreadsheetServerSpreadsheetChanges changes = this.changes;
+        final long revision = changes.revision.value();
+        final String key = revision +
+            " " +
+            since.map(String::valueOf)
+                .orElse("") +
+            " " +
+            window.map(SpreadsheetViewportWindows::toString)
+                .orElse("");
+
+        HttpEntity entity = changes.eventResponses.get(key)
+            .orElse(null);
+        if (null == entity) {
+            entity = HttpEntity.EMPTY.setContentType(SpreadsheetServerMediaTypes.EVENT_STREAM)
+                .setBodyText(
+                    this.event(
+                        since,
+                        window,
+                        revision
+                    )
+                ).setContentLength();
+
+            if (revision == changes.revision.value()) {
+                changes.eventResponses.put(
+                    key,
+                    entity
+                );
+            }
+        }
+
+        response.setVersion(request.protocolVersion());
+        response.setStatus(HttpStatusCode.OK.status());
+        response.setEntity(entity);
+    }
+
+    private String event(final Optional<Long> since,
+                         final Optional<SpreadsheetViewportWindows> window,
+                         final long revision) {
+        final StringBuilder event = new StringBuilder();
+        event.append("retry: ")
+            .append(EVENTS_RETRY.toMillis())
+            .append('\n');
+        event.append("id: ")
+            .append(revision)
+            .append('\n');
+
+        final Optional<Set<SpreadsheetCellReference>> changed = since.flatMap(this.changes.changeLog::cellsSince);
+        if (changed.isPresent()) {
+            final Set<SpreadsheetCellReference> cells = SortedSets.tree();
+            for (final SpreadsheetCellReference cell : changed.get()) {
+                if (false == window.isPresent() || isWithin(cell, window.get())) {
+                    cells.add(cell);
+                }
+            }
+
+            if (false == cells.isEmpty()) {
+                event.append("event: change\n");
+
+                final SpreadsheetEngineHateosHandlerContext context = this.context;
+                for (final String line : context.marshall(this.loadChangedCells(cells))
+                    .toString()
+                    .split("\n")) {
+                    event.append("data: ")
+                        .append(line)
+                        .append('\n');
+                }
+            }
+        } else {
+            event.append("event: reload\n");
+            event.append("data: ")
+                .append(revision)
+                .append('\n');
+        }
+
+        return event.append('\n')
+            .toString();
+    }
+
+    private static boolean isWithin(final SpreadsheetCellReference cell,
+                                    final SpreadsheetViewportWindows window) {
+        boolean within = false;
+
+        for (final SpreadsheetCellRangeReference cellRange : window.cellRanges()) {
+            if (cellRange.testCell(cell)) {
+                within = true;
+                break;
+            }
+        }
+
+        return within;
+    }
+
+    /**
+     * Loads the changed cells, those that no longer exist are returned as deleted cells. Cells are loaded without
+     * evaluating, because events only hold the read lock of the spreadsheet and must never save cells, while cells that
+     * are not yet evaluated are evaluated by the next cell load of the client.
+     */
+    private SpreadsheetDelta loadChangedCells(final Set<SpreadsheetCellReference> cells) {
+        final SpreadsheetEngineHateosHandlerContext context = this.context;
+
+        final SpreadsheetDelta loaded = context.spreadsheetEngine()
+            .loadMultipleCellRanges(
+                cells.stream()
+                    .map(SpreadsheetCellReference::toCellRange)
+                    .collect(Collectors.toCollection(Sets::ordered)),
+                SpreadsheetEngineEvaluation.SKIP_EVALUATE,
+                EVENT_DELTA_PROPERTIES,
+                context
+            );
+
+        final Set<SpreadsheetCellReference> deleted = SortedSets.tree();
+        deleted.addAll(cells);
+        deleted.addAll(loaded.deletedCells());
+        for (final SpreadsheetCell cell : loaded.cells()) {
+            deleted.remove(cell.reference());
+        }
+
+        return loaded.setDeletedCells(deleted);
+    }
+
+    private final static Set<SpreadsheetDeltaProperties> EVENT_DELTA_PROPERTIES = Sets.of(
+        SpreadsheetDeltaProperties.CELLS,
+        SpreadsheetDeltaProperties.LABELS
+    );
+
+    /**
+     * The <code>Last-Event-ID</code> is sent back by the browser untouched, an invalid value is treated as missing,
+     * answering with a <code>reload</code> rather than failing every reconnect.
+     */
+    // @VisibleForTesting
+    static Optional<Long> lastEventId(final String value) {
+        Long id;
+        try {
+            id = Long.parseLong(value.trim());
+        } catch (final NumberFormatException invalid) {
+            id = null;
+        }
+        return Optional.ofNullable(id);
+    }
+
+    private final static HttpHeaderName<String> LAST_EVENT_ID = HttpHeaderName.with("Last-Event-ID")
+        .stringValues();
+
+    /**
+     * Changes within this interval are batched into a single event. Every subscriber reconnects once per interval, so a
+     * spreadsheet with N open viewports costs N requests per second even when nothing changes. Subscribers with the same
+     * revision and window share a single cached response, so only the first request for each distinct window after a
+     * change loads cells, while the rest only pay for the request itself. A longer interval reduces this cost at the
+     * price of changes taking longer to appear.
+     */
+    private final static Duration EVENTS_RETRY = Duration.ofSeconds(1);
+
+    private final SpreadsheetEngineHateosHandlerContext context;
+
+    private final SpreadsheetServerSpreadsheetChanges changes;
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return this.context.toString();
+    }
+}
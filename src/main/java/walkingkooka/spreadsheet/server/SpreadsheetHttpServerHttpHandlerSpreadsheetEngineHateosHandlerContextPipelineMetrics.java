@@ -0,0 +1,161 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.server;
+
+import walkingkooka.collect.list.Lists;
+import walkingkooka.net.UrlPathName;
+import walkingkooka.net.header.HasHateosContentType;
+import walkingkooka.net.http.HttpEntity;
+import walkingkooka.net.http.HttpStatusCode;
+import walkingkooka.net.http.server.HttpRequest;
+import walkingkooka.net.http.server.HttpResponse;
+import walkingkooka.tree.json.JsonNode;
+import walkingkooka.tree.json.JsonPropertyName;
+
+/**
+ * Answers a GET for the metrics of a spreadsheet, such as <code>/api/spreadsheet/1/metrics</code>.
+ */
+final class SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineMetrics {
+
+    static SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineMetrics with(final SpreadsheetServerSpreadsheetChanges changes,
+                                                                                                     final SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelinePrefetch prefetch) {
+        return new SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineMetrics(
+            changes,
+            prefetch
+        );
+    }
+
+    private SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineMetrics(final SpreadsheetServerSpreadsheetChanges changes,
+                                                                                                 final SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelinePrefetch prefetch) {
+        super();
+
+        this.changes = changes;
+        this.prefetch = prefetch;
+    }
+
+    /**
+     * Tests if the request is a GET for the metrics of a spreadsheet.
+     */
+    static boolean isMetrics(final HttpRequest request) {
+        return SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipeline.isGet(
+            request,
+            METRICS
+        );
+    }
+
+    private final static UrlPathName METRICS = UrlPathName.with("metrics");
+
+    /**
+     * Replies with the revision, viewport prefetch and viewport response cache metrics as JSON. The viewport response
+     * cache is shared by all spreadsheets, so its metrics cover all spreadsheets.
+     * <pre>
+     * {
+     *   "revision": 12,
+     *   "prefetch": {
+     *     "count": 4,
+     *     "hitCount": 2,
+     *     "wastedCount": 1,
+     *     "hitRate": 0.66
+     *   },
+     *   "viewportResponses": {
+     *     "hitCount": 3,
+     *     "missCount": 1,
+     *     "hitRate": 0.75,
+     *     "evictionCount": 0,
+     *     "size": 1,
+     *     "weight": 1234
+     *   }
+     * }
+     * </pre>
+     */
+    void metrics(final HttpRequest request,
+                 final HttpResponse response) {
+        response.setVersion(request.protocolVersion());
+        response.setStatus(HttpStatusCode.OK.status());
+        response.setEntity(
+            HttpEntity.EMPTY.setContentType(HasHateosContentType.HATEOS_CONTENT_TYPE)
+                .setBodyText(
+                    this.metricsJson()
+                        .toString()
+                ).setContentLength()
+        );
+    }
+
+    // @VisibleForTesting
+    JsonNode metricsJson() {
+        final SpreadsheetServerCache<String, HttpEntity> viewportResponses = this.changes.viewportResponses;
+
+        final long hitCount = viewportResponses.hitCount();
+        final long missCount = viewportResponses.missCount();
+        final long requestCount = hitCount + missCount;
+
+        return JsonNode.object()
+            .setChildren(
+                Lists.of(
+                    JsonNode.number(this.changes.revision.value())
+                        .setName(REVISION_PROPERTY),
+                    this.prefetch.metricsJson()
+                        .setName(PREFETCH_PROPERTY),
+                    JsonNode.object()
+                        .setChildren(
+                            Lists.of(
+                                JsonNode.number(hitCount)
+                                    .setName(HIT_COUNT_PROPERTY),
+                                JsonNode.number(missCount)
+                                    .setName(MISS_COUNT_PROPERTY),
+                                JsonNode.number(
+                                    0 == requestCount ?
+                                        0 :
+                                        (double) hitCount / requestCount
+                                ).setName(HIT_RATE_PROPERTY),
+                                JsonNode.number(viewportResponses.evictionCount())
+                                    .setName(EVICTION_COUNT_PROPERTY),
+                                JsonNode.number(viewportResponses.size())
+                                    .setName(SIZE_PROPERTY),
+                                JsonNode.number(viewportResponses.weight())
+                                    .setName(WEIGHT_PROPERTY)
+                            )
+                        ).setName(VIEWPORT_RESPONSES_PROPERTY)
+                )
+            );
+    }
+
+    private final static JsonPropertyName REVISION_PROPERTY = JsonPropertyName.with("revision");
+    private final static JsonPropertyName VIEWPORT_RESPONSES_PROPERTY = JsonPropertyName.with("viewportResponses");
+    private final static JsonPropertyName PREFETCH_PROPERTY = JsonPropertyName.with("prefetch");
+    final static JsonPropertyName COUNT_PROPERTY = JsonPropertyName.with("count");
+    final static JsonPropertyName WASTED_COUNT_PROPERTY = JsonPropertyName.with("wastedCount");
+    final static JsonPropertyName HIT_COUNT_PROPERTY = JsonPropertyName.with("hitCount");
+    private final static JsonPropertyName MISS_COUNT_PROPERTY = JsonPropertyName.with("missCount");
+    final static JsonPropertyName HIT_RATE_PROPERTY = JsonPropertyName.with("hitRate");
+    private final static JsonPropertyName EVICTION_COUNT_PROPERTY = JsonPropertyName.with("evictionCount");
+    private final static JsonPropertyName SIZE_PROPERTY = JsonPropertyName.with("size");
+    private final static JsonPropertyName WEIGHT_PROPERTY = JsonPropertyName.with("weight");
+
+    private final SpreadsheetServerSpreadsheetChanges changes;
+
+    private final SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelinePrefetch prefetch;
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return this.metricsJson()
+            .toString();
+    }
+}
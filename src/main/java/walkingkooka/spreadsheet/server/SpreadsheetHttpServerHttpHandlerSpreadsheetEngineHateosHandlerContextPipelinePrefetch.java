@@ -0,0 +1,220 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.server;
+
+import walkingkooka.collect.list.Lists;
+import walkingkooka.collect.set.Sets;
+import walkingkooka.net.http.server.HttpRequestAttribute;
+import walkingkooka.spreadsheet.engine.SpreadsheetDeltaProperties;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngine;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngineEvaluation;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellRangeReference;
+import walkingkooka.spreadsheet.server.delta.SpreadsheetDeltaUrlQueryParameters;
+import walkingkooka.spreadsheet.viewport.SpreadsheetViewport;
+import walkingkooka.spreadsheet.viewport.SpreadsheetViewportWindows;
+import walkingkooka.tree.json.JsonNode;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads the window predicted to follow a cell load with navigations and <code>prefetch=true</code>, and counts how
+ * often predictions are followed.
+ */
+final class SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelinePrefetch {
+
+    static SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelinePrefetch with(final SpreadsheetEngineHateosHandlerContext context) {
+        return new SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelinePrefetch(context);
+    }
+
+    private SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelinePrefetch(final SpreadsheetEngineHateosHandlerContext context) {
+        super();
+        this.context = context;
+    }
+
+    /**
+     * Tests if the cell load includes navigations and <code>prefetch=true</code>, without navigating, which is left to
+     * the background {@link #prefetch(Map)}.
+     */
+    static boolean isPrefetch(final Map<HttpRequestAttribute<?>, Object> parameters) {
+        return SpreadsheetDeltaUrlQueryParameters.prefetch(parameters) &&
+            SpreadsheetDeltaUrlQueryParameters.viewport(
+                parameters,
+                true // includeNavigation
+            ).map(v -> false == v.navigations().isEmpty())
+                .orElse(false);
+    }
+
+    /**
+     * Called in the background after a cell load with navigations and <code>prefetch=true</code>, predicting the
+     * window following another navigation in the same direction, such as scrolling right by another column, and loading
+     * the cell ranges not already within the loaded window so they are evaluated before the next navigation arrives.
+     * The previous prediction is counted as a hit if it matches the loaded window, otherwise as wasted.
+     */
+    void prefetch(final Map<HttpRequestAttribute<?>, Object> parameters) {
+        final SpreadsheetViewport viewport = SpreadsheetDeltaUrlQueryParameters.viewport(
+            parameters,
+            true // includeNavigation
+        ).orElse(null);
+        if (null != viewport && false == viewport.navigations().isEmpty()) {
+            final SpreadsheetEngineHateosHandlerContext context = this.context;
+            final SpreadsheetEngine engine = context.spreadsheetEngine();
+
+            final SpreadsheetViewport navigated = engine.navigate(
+                viewport,
+                context
+            ).orElse(null);
+            if (null != navigated) {
+                final boolean includeFrozenColumnsRows = includeFrozenColumnsRows(parameters);
+
+                final SpreadsheetViewportWindows window = this.window(
+                    navigated,
+                    includeFrozenColumnsRows
+                );
+
+                final SpreadsheetViewportWindows predicted = engine.navigate(
+                    navigated.setNavigations(
+                        viewport.navigations()
+                    ),
+                    context
+                ).map(v -> this.window(
+                    v,
+                    includeFrozenColumnsRows
+                )).orElse(null);
+
+                this.prefetched(
+                    window,
+                    predicted
+                );
+
+                if (null != predicted) {
+                    final Set<SpreadsheetCellRangeReference> cellRanges = Sets.ordered();
+                    cellRanges.addAll(predicted.cellRanges());
+                    cellRanges.removeAll(window.cellRanges());
+
+                    if (false == cellRanges.isEmpty()) {
+                        engine.loadMultipleCellRanges(
+                            cellRanges,
+                            SpreadsheetEngineEvaluation.COMPUTE_IF_NECESSARY,
+                            PREFETCH_DELTA_PROPERTIES,
+                            context
+                        );
+                    }
+                }
+            }
+        }
+    }
+
+    private final static Set<SpreadsheetDeltaProperties> PREFETCH_DELTA_PROPERTIES = Sets.of(
+        SpreadsheetDeltaProperties.CELLS
+    );
+
+    private static boolean includeFrozenColumnsRows(final Map<HttpRequestAttribute<?>, Object> parameters) {
+        return SpreadsheetDeltaUrlQueryParameters.INCLUDE_FROZEN_COLUMNS_ROWS.firstParameterValue(parameters)
+            .map(Boolean::parseBoolean)
+            .orElse(Boolean.TRUE);
+    }
+
+    private SpreadsheetViewportWindows window(final SpreadsheetViewport viewport,
+                                              final boolean includeFrozenColumnsRows) {
+        final SpreadsheetEngineHateosHandlerContext context = this.context;
+
+        return context.spreadsheetEngine()
+            .window(
+                SpreadsheetViewport.with(
+                    viewport.rectangle()
+                ).setIncludeFrozenColumnsRows(includeFrozenColumnsRows),
+                context
+            );
+    }
+
+    private final SpreadsheetEngineHateosHandlerContext context;
+
+    /**
+     * Counts the previous prediction as a hit or wasted and remembers the new prediction.
+     */
+    private synchronized void prefetched(final SpreadsheetViewportWindows window,
+                                         final SpreadsheetViewportWindows predicted) {
+        final SpreadsheetViewportWindows previous = this.predicted;
+        if (null != previous) {
+            if (previous.equals(window)) {
+                this.prefetchHitCount++;
+            } else {
+                this.prefetchWastedCount++;
+            }
+        }
+
+        this.predicted = predicted;
+        if (null != predicted) {
+            this.prefetchCount++;
+        }
+    }
+
+    /**
+     * The window predicted by the last navigation, which may be null.
+     */
+    private SpreadsheetViewportWindows predicted;
+
+    private long prefetchCount;
+
+    private long prefetchHitCount;
+
+    /**
+     * Predicted windows that were loaded but never followed by a matching navigation.
+     */
+    private long prefetchWastedCount;
+
+    /**
+     * Returns the prefetch section of the metrics.
+     */
+    JsonNode metricsJson() {
+        final long prefetchCount;
+        final long prefetchHitCount;
+        final long prefetchWastedCount;
+        synchronized (this) {
+            prefetchCount = this.prefetchCount;
+            prefetchHitCount = this.prefetchHitCount;
+            prefetchWastedCount = this.prefetchWastedCount;
+        }
+        final long prefetchUsedOrWastedCount = prefetchHitCount + prefetchWastedCount;
+
+        return JsonNode.object()
+            .setChildren(
+                Lists.of(
+                    JsonNode.number(prefetchCount)
+                        .setName(SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineMetrics.COUNT_PROPERTY),
+                    JsonNode.number(prefetchHitCount)
+                        .setName(SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineMetrics.HIT_COUNT_PROPERTY),
+                    JsonNode.number(prefetchWastedCount)
+                        .setName(SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineMetrics.WASTED_COUNT_PROPERTY),
+                    JsonNode.number(
+                        0 == prefetchUsedOrWastedCount ?
+                            0 :
+                            (double) prefetchHitCount / prefetchUsedOrWastedCount
+                    ).setName(SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineMetrics.HIT_RATE_PROPERTY)
+                )
+            );
+    }
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return this.context.toString();
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.server;
+
+import walkingkooka.net.header.HttpHeaderName;
+import walkingkooka.net.http.HttpMethod;
+import walkingkooka.net.http.server.HttpHandler;
+import walkingkooka.net.http.server.HttpRequest;
+import walkingkooka.net.http.server.HttpResponse;
+import walkingkooka.spreadsheet.server.net.SpreadsheetServerMediaTypes;
+
+import java.util.Objects;
+
+/**
+ * A {@link HttpHandler} that negotiates the <code>Accept</code> of GETs when the client only accepts
+ * {@link SpreadsheetServerMediaTypes#JSON_BINARY}. The wrapped handlers are dispatched by
+ * {@link walkingkooka.net.http.server.hateos.HateosResourceMappings} which only produce JSON, so they receive a
+ * {@link SpreadsheetHttpServerJsonBinaryHttpRequest} accepting JSON. Cell loads are written in the binary form from
+ * the marshalled delta by the pipeline, with <code>Vary: Accept</code> and their own ETag. Other responses are left
+ * as JSON rather than parsing and re-encoding the printed JSON. Other requests pass through unchanged.
+ */
+final class SpreadsheetHttpServerJsonBinaryHttpHandler implements HttpHandler<SpreadsheetServerContext> {
+
+    static SpreadsheetHttpServerJsonBinaryHttpHandler with(final HttpHandler<SpreadsheetServerContext> handler) {
+        return new SpreadsheetHttpServerJsonBinaryHttpHandler(
+            Objects.requireNonNull(handler, "handler")
+        );
+    }
+
+    private SpreadsheetHttpServerJsonBinaryHttpHandler(final HttpHandler<SpreadsheetServerContext> handler) {
+        super();
+        this.handler = handler;
+    }
+
+    @Override
+    public void handle(final HttpRequest request,
+                       final HttpResponse response,
+                       final SpreadsheetServerContext context) {
+        this.handler.handle(
+            isJsonBinary(request) ?
+                SpreadsheetHttpServerJsonBinaryHttpRequest.with(request) :
+                request,
+            response,
+            context
+        );
+    }
+
+    private static boolean isJsonBinary(final HttpRequest request) {
+        return HttpMethod.GET.equals(request.method()) &&
+            HttpHeaderName.ACCEPT.header(request)
+                .map(SpreadsheetServerHttpEntities::isJsonBinary)
+                .orElse(false);
+    }
+
+    private final HttpHandler<SpreadsheetServerContext> handler;
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return this.handler.toString();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.server;
+
+import walkingkooka.collect.list.Lists;
+import walkingkooka.collect.map.Maps;
+import walkingkooka.net.RelativeUrl;
+import walkingkooka.net.header.HasHateosContentType;
+import walkingkooka.net.header.HttpHeaderName;
+import walkingkooka.net.http.HttpMethod;
+import walkingkooka.net.http.HttpProtocolVersion;
+import walkingkooka.net.http.HttpTransport;
+import walkingkooka.net.http.server.HttpRequest;
+import walkingkooka.net.http.server.HttpRequestParameterName;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Wraps a {@link HttpRequest} that only accepts {@link walkingkooka.spreadsheet.server.net.SpreadsheetServerMediaTypes#JSON_BINARY},
+ * replacing the <code>Accept</code> with JSON so the wrapped handlers produce their usual JSON response.
+ */
+final class SpreadsheetHttpServerJsonBinaryHttpRequest implements HttpRequest {
+
+    static SpreadsheetHttpServerJsonBinaryHttpRequest with(final HttpRequest request) {
+        return new SpreadsheetHttpServerJsonBinaryHttpRequest(
+            Objects.requireNonNull(request, "request")
+        );
+    }
+
+    private SpreadsheetHttpServerJsonBinaryHttpRequest(final HttpRequest request) {
+        super();
+
+        this.request = request;
+
+        final Map<HttpHeaderName<?>, List<?>> headers = Maps.ordered();
+        headers.putAll(request.headers());
+        headers.put(
+            HttpHeaderName.ACCEPT,
+            Lists.of(
+                HasHateosContentType.HATEOS_CONTENT_TYPE.accept()
+            )
+        );
+        this.headers = Maps.readOnly(headers);
+    }
+
+    @Override
+    public HttpTransport transport() {
+        return this.request.transport();
+    }
+
+    @Override
+    public HttpProtocolVersion protocolVersion() {
+        return this.request.protocolVersion();
+    }
+
+    @Override
+    public HttpMethod method() {
+        return this.request.method();
+    }
+
+    @Override
+    public RelativeUrl url() {
+        return this.request.url();
+    }
+
+    @Override
+    public Map<HttpHeaderName<?>, List<?>> headers() {
+        return this.headers;
+    }
+
+    private final Map<HttpHeaderName<?>, List<?>> headers;
+
+    @Override
+    public byte[] body() {
+        return this.request.body();
+    }
+
+    @Override
+    public Map<HttpRequestParameterName, List<String>> parameters() {
+        return this.request.parameters();
+    }
+
+    @Override
+    public List<String> parameterValues(final HttpRequestParameterName parameterName) {
+        return this.request.parameterValues(parameterName);
+    }
+
+    private final HttpRequest request;
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return this.request.toString();
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.server;
+
+import javaemul.internal.annotations.GwtIncompatible;
+import walkingkooka.net.RelativeUrl;
+import walkingkooka.net.UrlPath;
+import walkingkooka.net.http.HttpMethod;
+import walkingkooka.net.http.HttpStatus;
+import walkingkooka.net.http.HttpStatusCode;
+import walkingkooka.net.http.server.HttpHandler;
+import walkingkooka.net.http.server.HttpRequest;
+import walkingkooka.net.http.server.HttpResponse;
+import walkingkooka.net.http.server.HttpResponses;
+import walkingkooka.spreadsheet.provider.SpreadsheetProvider;
+import walkingkooka.spreadsheet.provider.SpreadsheetProviderDelegator;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * A {@link HttpHandler} that caches the marshalled and compressed responses of GETs for the immutable provider info sets,
+ * such as <code>/api/formatter</code> or <code>/api/formatter/date-format-pattern</code>, per {@link SpreadsheetProvider}
+ * and path, ignoring any query string.
+ * Responses include an {@link walkingkooka.net.header.ETag}, and a matching <code>If-None-Match</code> receives a {@link HttpStatusCode#NOT_MODIFIED}
+ * without any body.
+ */
+@GwtIncompatible
+final class SpreadsheetHttpServerProviderInfoCacheHttpHandler implements HttpHandler<SpreadsheetServerContext> {
+
+    static SpreadsheetHttpServerProviderInfoCacheHttpHandler with(final UrlPath path,
+                                                                 final SpreadsheetHttpServerCompression compression,
+                                                                 final HttpHandler<SpreadsheetServerContext> handler) {
+        return new SpreadsheetHttpServerProviderInfoCacheHttpHandler(
+            path,
+            compression,
+            handler
+        );
+    }
+
+    private SpreadsheetHttpServerProviderInfoCacheHttpHandler(final UrlPath path,
+                                                             final SpreadsheetHttpServerCompression compression,
+                                                             final HttpHandler<SpreadsheetServerContext> handler) {
+        super();
+
+        this.path = path;
+        this.compression = compression;
+        this.maxNameCount = path.namesList()
+            .size() + 1;
+        this.handler = handler;
+    }
+
+    @Override
+    public void handle(final HttpRequest request,
+                       final HttpResponse response,
+                       final SpreadsheetServerContext context) {
+        if (this.isCacheable(request)) {
+            final SpreadsheetHttpServerProviderInfoCacheHttpHandlerKey key = SpreadsheetHttpServerProviderInfoCacheHttpHandlerKey.with(
+                spreadsheetProvider(context),
+                request.url()
+                    .path()
+            );
+
+            SpreadsheetHttpServerProviderInfoCacheHttpHandlerEntry entry = this.entries.get(key)
+                .orElse(null);
+            if (null == entry) {
+                final HttpResponse recording = HttpResponses.recording();
+                this.handler.handle(
+                    request,
+                    recording,
+                    context
+                );
+
+                final Optional<HttpStatus> status = recording.status();
+                if (status.isPresent() && HttpStatusCode.OK == status.get().value()) {
+                    entry = SpreadsheetHttpServerProviderInfoCacheHttpHandlerEntry.with(
+                        recording.entity()
+                    );
+                    this.entries.put(
+                        key,
+                        entry
+                    );
+                } else {
+                    recording.version()
+                        .ifPresent(response::setVersion);
+                    status.ifPresent(response::setStatus);
+                    response.setEntity(
+                        recording.entity()
+                    );
+                }
+            }
+
+            if (null != entry) {
+                this.reply(
+                    entry,
+                    request,
+                    response
+                );
+            }
+        } else {
+            this.handler.handle(
+                request,
+                response,
+                context
+            );
+        }
+    }
+
+    /**
+     * Returns the {@link SpreadsheetProvider} actually serving the infos, so contexts sharing the same provider also
+     * share cached responses. Contexts that do not delegate are themselves the provider.
+     */
+    private static SpreadsheetProvider spreadsheetProvider(final SpreadsheetServerContext context) {
+        return context instanceof SpreadsheetProviderDelegator ?
+            ((SpreadsheetProviderDelegator) context).spreadsheetProvider() :
+            context;
+    }
+
+    /**
+     * Only GETS for all or a single provider info are cached, other urls such as <code>/api/parser/name/edit</code> are not.
+     */
+    private boolean isCacheable(final HttpRequest request) {
+        final RelativeUrl url = request.url();
+
+        return HttpMethod.GET.equals(request.method()) &&
+            url.path()
+                .namesList()
+                .size() <= this.maxNameCount;
+    }
+
+    private void reply(final SpreadsheetHttpServerProviderInfoCacheHttpHandlerEntry entry,
+                       final HttpRequest request,
+                       final HttpResponse response) {
+        if (false == SpreadsheetHttpServer.notModified(entry.etag, request, response)) {
+            response.setVersion(request.protocolVersion());
+            response.setStatus(HttpStatusCode.OK.status());
+            response.setEntity(
+                SpreadsheetHttpServerCompressionHttpHandler.isGzipAccepted(request) ?
+                    entry.gzipped(this.compression) :
+                    entry.entity
+            );
+        }
+    }
+
+    private final UrlPath path;
+
+    private final SpreadsheetHttpServerCompression compression;
+
+    private final int maxNameCount;
+
+    private final HttpHandler<SpreadsheetServerContext> handler;
+
+    /**
+     * Bounds the entries, which are only a handful of info sets for each {@link SpreadsheetProvider}.
+     */
+    private final static int MAX_ENTRIES = 1024;
+
+    private final static Duration MAX_IDLE = Duration.ofMinutes(30);
+
+    // @VisibleForTesting
+    final SpreadsheetServerCache<SpreadsheetHttpServerProviderInfoCacheHttpHandlerKey, SpreadsheetHttpServerProviderInfoCacheHttpHandlerEntry> entries = SpreadsheetServerCache.with(
+        MAX_ENTRIES,
+        Long.MAX_VALUE, // maxWeight
+        (e) -> 1L,
+        Optional.of(MAX_IDLE),
+        (k, v) -> {},
+        System::nanoTime
+    );
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return this.path + " " + this.handler;
+    }
+}
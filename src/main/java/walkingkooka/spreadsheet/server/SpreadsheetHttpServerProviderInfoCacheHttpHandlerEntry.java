@@ -0,0 +1,107 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.server;
+
+import javaemul.internal.annotations.GwtIncompatible;
+import walkingkooka.Binary;
+import walkingkooka.net.header.ETag;
+import walkingkooka.net.header.ETagValidator;
+import walkingkooka.net.header.HttpHeaderName;
+import walkingkooka.net.http.HttpEntity;
+
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+/**
+ * A cached provider info response, holding the marshalled {@link HttpEntity} with its {@link ETag}, computing one from the
+ * body when missing, and the compressed form which is only created by the first request that accepts gzip, using the
+ * same {@link SpreadsheetHttpServerCompression} as all other responses.
+ */
+@GwtIncompatible
+final class SpreadsheetHttpServerProviderInfoCacheHttpHandlerEntry {
+
+    static SpreadsheetHttpServerProviderInfoCacheHttpHandlerEntry with(final HttpEntity entity) {
+        final Optional<ETag> etag = HttpHeaderName.E_TAG.header(entity);
+
+        return etag.isPresent() ?
+            new SpreadsheetHttpServerProviderInfoCacheHttpHandlerEntry(
+                entity,
+                etag.get()
+            ) :
+            withComputedETag(entity);
+    }
+
+    private static SpreadsheetHttpServerProviderInfoCacheHttpHandlerEntry withComputedETag(final HttpEntity entity) {
+        final Binary body = entity.body();
+
+        final CRC32 crc = new CRC32();
+        crc.update(body.value());
+
+        // weak so the same etag is shared by the gzipped form
+        final ETag etag = ETag.with(
+            Long.toHexString(crc.getValue()) + "-" + Integer.toHexString(body.size()),
+            ETagValidator.WEAK
+        );
+
+        return new SpreadsheetHttpServerProviderInfoCacheHttpHandlerEntry(
+            entity.addHeader(
+                HttpHeaderName.E_TAG,
+                etag
+            ),
+            etag
+        );
+    }
+
+    private SpreadsheetHttpServerProviderInfoCacheHttpHandlerEntry(final HttpEntity entity,
+                                                                  final ETag etag) {
+        super();
+        this.entity = entity;
+        this.etag = etag;
+    }
+
+    /**
+     * Returns the {@link HttpEntity} for a request that accepts gzip, compressing the body on the first call only. The
+     * entity is unchanged when the {@link SpreadsheetHttpServerCompression} does not compress it.
+     */
+    HttpEntity gzipped(final SpreadsheetHttpServerCompression compression) {
+        HttpEntity gzipped = this.gzipped;
+        if (null == gzipped) {
+            gzipped = SpreadsheetHttpServerCompressionHttpHandler.compress(
+                this.entity,
+                true, // gzip
+                compression
+            );
+
+            // racing threads produce equal entities, so there is no need to lock
+            this.gzipped = gzipped;
+        }
+        return gzipped;
+    }
+
+    final HttpEntity entity;
+
+    final ETag etag;
+
+    private volatile HttpEntity gzipped;
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return this.etag.toString();
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.server;
+
+import javaemul.internal.annotations.GwtIncompatible;
+import walkingkooka.net.UrlPath;
+import walkingkooka.spreadsheet.provider.SpreadsheetProvider;
+
+import java.lang.ref.WeakReference;
+import java.util.Objects;
+
+/**
+ * The key for a cached provider info response, which is the {@link SpreadsheetProvider} serving the infos, compared by
+ * identity, and the {@link UrlPath}. Users sharing the same {@link SpreadsheetProvider} share cached responses, and any
+ * query string is ignored because the infos never vary by query. The provider is only weakly referenced, so cached
+ * responses never keep a discarded provider alive, and a key for a collected provider only equals itself until it idles
+ * out of the cache.
+ */
+@GwtIncompatible
+final class SpreadsheetHttpServerProviderInfoCacheHttpHandlerKey {
+
+    static SpreadsheetHttpServerProviderInfoCacheHttpHandlerKey with(final SpreadsheetProvider provider,
+                                                                    final UrlPath path) {
+        return new SpreadsheetHttpServerProviderInfoCacheHttpHandlerKey(
+            Objects.requireNonNull(provider, "provider"),
+            Objects.requireNonNull(path, "path")
+        );
+    }
+
+    private SpreadsheetHttpServerProviderInfoCacheHttpHandlerKey(final SpreadsheetProvider provider,
+                                                                final UrlPath path) {
+        super();
+        this.provider = new WeakReference<>(provider);
+        this.providerHashCode = System.identityHashCode(provider);
+        this.path = path;
+    }
+
+    private final WeakReference<SpreadsheetProvider> provider;
+
+    private final int providerHashCode;
+
+    private final UrlPath path;
+
+    // Object...........................................................................................................
+
+    @Override
+    public int hashCode() {
+        return this.providerHashCode ^ this.path.hashCode();
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        return this == other ||
+            other instanceof SpreadsheetHttpServerProviderInfoCacheHttpHandlerKey &&
+                this.equals0((SpreadsheetHttpServerProviderInfoCacheHttpHandlerKey) other);
+    }
+
+    private boolean equals0(final SpreadsheetHttpServerProviderInfoCacheHttpHandlerKey other) {
+        final SpreadsheetProvider provider = this.provider.get();
+
+        return null != provider &&
+            provider == other.provider.get() &&
+            this.path.equals(other.path);
+    }
+
+    @Override
+    public String toString() {
+        return this.path.toString();
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.server;
+
+import walkingkooka.net.http.server.HttpHandler;
+
+abstract class SpreadsheetHttpServerSpreadsheetIdLockingGwt {
+
+    /**
+     * Javascript is single threaded, so requests never interleave, and closed pipelines are closed without any lock.
+     */
+    static HttpHandler<SpreadsheetServerContext> spreadsheetIdLocking(final SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContext httpHandler) {
+        return (request, response, context) -> {
+            httpHandler.closePipelines(
+                (spreadsheetId, close) -> close.run()
+            );
+            httpHandler.handle(
+                request,
+                response,
+                context
+            );
+        };
+    }
+
+    SpreadsheetHttpServerSpreadsheetIdLockingGwt() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.server;
+
+import javaemul.internal.annotations.GwtIncompatible;
+import walkingkooka.collect.map.Maps;
+import walkingkooka.net.UrlPathName;
+import walkingkooka.net.http.server.HttpHandler;
+import walkingkooka.net.http.server.HttpRequest;
+import walkingkooka.net.http.server.HttpRequestAttributes;
+import walkingkooka.net.http.server.HttpResponse;
+import walkingkooka.net.http.server.hateos.HateosResourceSelection;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngineEvaluation;
+import walkingkooka.spreadsheet.meta.SpreadsheetId;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * A {@link HttpHandler} that coordinates concurrent requests to the same spreadsheet. Read only requests such as
+ * loading labels, columns, rows or cells without evaluation share a read lock and run in parallel, while all other
+ * requests such as saving, filling, sorting, inserting or deleting take the write lock, in fair arrival order. Cell
+ * loads and queries that may evaluate and save cells, and viewport loads that may save the viewport, take the write lock
+ * and ask {@link SpreadsheetHttpServerSpreadsheetIdLockingHttpHandlerEvaluating}, which answers without loading any
+ * cells, if they will save anything. Those that will not downgrade to the read lock before handling, so repeated loads
+ * of already evaluated cells still run in parallel. Background viewport prefetches always keep the write lock, as they
+ * evaluate the cells of a predicted window rather than the window of their url. Requests for different spreadsheets
+ * never wait for each other.
+ * <br>
+ * Before taking any lock each request closes pipelines evicted in the meantime, and a task scheduled every second also
+ * closes them and writes any held state that is due, each while holding the write lock of its spreadsheet, so any state
+ * they write never races other requests. A request only ever holds a single lock, so
+ * this never deadlocks.
+ */
+@GwtIncompatible
+final class SpreadsheetHttpServerSpreadsheetIdLockingHttpHandler implements HttpHandler<SpreadsheetServerContext> {
+
+    static SpreadsheetHttpServerSpreadsheetIdLockingHttpHandler with(final HttpHandler<SpreadsheetServerContext> handler,
+                                                                     final SpreadsheetHttpServerSpreadsheetIdLockingHttpHandlerEvaluating evaluating) {
+        final SpreadsheetHttpServerSpreadsheetIdLockingHttpHandler locking = new SpreadsheetHttpServerSpreadsheetIdLockingHttpHandler(
+            Objects.requireNonNull(handler, "handler"),
+            Objects.requireNonNull(evaluating, "evaluating")
+        );
+
+        SpreadsheetServerScheduler.repeatWhileReachable(
+            locking,
+            SpreadsheetHttpServerSpreadsheetIdLockingHttpHandler::writeBehind
+        );
+
+        return locking;
+    }
+
+    private SpreadsheetHttpServerSpreadsheetIdLockingHttpHandler(final HttpHandler<SpreadsheetServerContext> handler,
+                                                                 final SpreadsheetHttpServerSpreadsheetIdLockingHttpHandlerEvaluating evaluating) {
+        super();
+        this.handler = handler;
+        this.evaluating = evaluating;
+    }
+
+    @Override
+    public void handle(final HttpRequest request,
+                       final HttpResponse response,
+                       final SpreadsheetServerContext context) {
+        this.evaluating.closePipelines(this::writeLocked);
+
+        final SpreadsheetId spreadsheetId = spreadsheetId(request)
+            .orElse(null);
+        if (null == spreadsheetId) {
+            // handler will report the missing or invalid SpreadsheetId
+            this.handler.handle(
+                request,
+                response,
+                context
+            );
+        } else {
+            final SpreadsheetHttpServerSpreadsheetIdLockingHttpHandlerLock readWriteLock = this.spreadsheetIdToLock.compute(
+                spreadsheetId,
+                (id, l) -> (null == l ? SpreadsheetHttpServerSpreadsheetIdLockingHttpHandlerLock.empty() : l).retain()
+            );
+            try {
+                final Lock readLock = readWriteLock.readLock();
+                final Lock writeLock = readWriteLock.writeLock();
+
+                if (isReadOnly(request)) {
+                    readLock.lock();
+                    try {
+                        this.handler.handle(
+                            request,
+                            response,
+                            context
+                        );
+                    } finally {
+                        readLock.unlock();
+                    }
+                } else {
+                    boolean readLocked = false;
+
+                    writeLock.lock();
+                    try {
+                        // downgrading keeps the spreadsheet locked, so no other request can change it before handling
+                        if (isMaybeEvaluating(request) &&
+                            false == this.evaluating.isEvaluating(spreadsheetId, request, context)) {
+                            readLock.lock();
+                            readLocked = true;
+                        } else {
+                            this.handler.handle(
+                                request,
+                                response,
+                                context
+                            );
+                        }
+                    } finally {
+                        writeLock.unlock();
+                    }
+
+                    if (readLocked) {
+                        try {
+                            this.handler.handle(
+                                request,
+                                response,
+                                context
+                            );
+                        } finally {
+                            readLock.unlock();
+                        }
+                    }
+                }
+            } finally {
+                this.spreadsheetIdToLock.compute(
+                    spreadsheetId,
+                    (id, l) -> l.release()
+                );
+            }
+        }
+    }
+
+    /**
+     * Called every second by the {@link SpreadsheetServerScheduler}, closing evicted pipelines and writing held state
+     * that is due, such as the last viewport of a user who stopped scrolling, without waiting for another request. Each
+     * write holds the write lock of its spreadsheet, so this may wait for requests already running for that spreadsheet.
+     */
+    // @VisibleForTesting
+    void writeBehind() {
+        final SpreadsheetHttpServerSpreadsheetIdLockingHttpHandlerEvaluating evaluating = this.evaluating;
+
+        evaluating.closePipelines(this::writeLocked);
+        evaluating.flushPipelines(this::writeLocked);
+    }
+
+    /**
+     * Runs the task while holding the write lock of the given spreadsheet.
+     */
+    private void writeLocked(final SpreadsheetId spreadsheetId,
+                             final Runnable task) {
+        final SpreadsheetHttpServerSpreadsheetIdLockingHttpHandlerLock readWriteLock = this.spreadsheetIdToLock.compute(
+            spreadsheetId,
+            (id, l) -> (null == l ? SpreadsheetHttpServerSpreadsheetIdLockingHttpHandlerLock.empty() : l).retain()
+        );
+        try {
+            final Lock writeLock = readWriteLock.writeLock();
+            writeLock.lock();
+            try {
+                task.run();
+            } finally {
+                writeLock.unlock();
+            }
+        } finally {
+            this.spreadsheetIdToLock.compute(
+                spreadsheetId,
+                (id, l) -> l.release()
+            );
+        }
+    }
+
+    private static Optional<SpreadsheetId> spreadsheetId(final HttpRequest request) {
+        SpreadsheetId spreadsheetId;
+
+        try {
+            spreadsheetId = HttpRequestAttributes.pathComponent(SPREADSHEET_ID_PATH_COMPONENT)
+                .parameterValue(request)
+                .map(n -> SpreadsheetId.parse(n.value()))
+                .orElse(null);
+        } catch (final RuntimeException invalid) {
+            spreadsheetId = null;
+        }
+
+        return Optional.ofNullable(spreadsheetId);
+    }
+
+    private final static int SPREADSHEET_ID_PATH_COMPONENT = SpreadsheetHttpServer.API_SPREADSHEET
+        .namesList()
+        .size();
+
+    /**
+     * Only GET requests are read only, except for those that may save. Sort saves the sorted cells, cell loads and
+     * queries may save evaluated cells unless evaluation is skipped, while viewport loads may save the viewport.
+     */
+    // @VisibleForTesting
+    static boolean isReadOnly(final HttpRequest request) {
+        return false == SpreadsheetServerRevision.isChange(request) &&
+            (false == SpreadsheetServerRevision.isCell(request) || (isSkipEvaluate(request) && false == isViewport(request)));
+    }
+
+    /**
+     * Cell loads and queries that do not skip evaluation and viewport loads, which only save if they find cells that are
+     * not yet evaluated or move the viewport.
+     */
+    // @VisibleForTesting
+    static boolean isMaybeEvaluating(final HttpRequest request) {
+        return false == SpreadsheetServerRevision.isChange(request) &&
+            false == isReadOnly(request);
+    }
+
+    /**
+     * Tests if the cell selection is <code>*</code>, which loads the window of a viewport and saves the viewport.
+     */
+    private static boolean isViewport(final HttpRequest request) {
+        final List<UrlPathName> names = request.url()
+            .path()
+            .namesList();
+        return names.size() > CELL_SELECTION_PATH_COMPONENT &&
+            HateosResourceSelection.ALL.equals(
+                names.get(CELL_SELECTION_PATH_COMPONENT)
+                    .value()
+            );
+    }
+
+    /**
+     * The index of the cell selection such as <code>A1:B2</code> which follows <code>cell</code>.
+     */
+    private final static int CELL_SELECTION_PATH_COMPONENT = SPREADSHEET_ID_PATH_COMPONENT + 2;
+
+    private static boolean isSkipEvaluate(final HttpRequest request) {
+        boolean skipEvaluate = false;
+
+        for (final UrlPathName name : request.url().path()) {
+            if (SKIP_EVALUATE.equals(name)) {
+                skipEvaluate = true;
+                break;
+            }
+        }
+
+        return skipEvaluate;
+    }
+
+    private final static UrlPathName SKIP_EVALUATE = SpreadsheetEngineEvaluation.SKIP_EVALUATE.toLinkRelation()
+        .toUrlPathName()
+        .get();
+
+    /**
+     * Locks are only present while a request for the spreadsheet is running or waiting.
+     */
+    // @VisibleForTesting
+    final Map<SpreadsheetId, SpreadsheetHttpServerSpreadsheetIdLockingHttpHandlerLock> spreadsheetIdToLock = Maps.concurrent();
+
+    private final HttpHandler<SpreadsheetServerContext> handler;
+
+    private final SpreadsheetHttpServerSpreadsheetIdLockingHttpHandlerEvaluating evaluating;
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return this.handler.toString();
+    }
+}
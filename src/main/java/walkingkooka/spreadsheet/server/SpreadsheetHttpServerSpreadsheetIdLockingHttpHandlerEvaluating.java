@@ -0,0 +1,60 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.server;
+
+import walkingkooka.net.http.server.HttpRequest;
+import walkingkooka.spreadsheet.meta.SpreadsheetId;
+
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * Used by {@link SpreadsheetHttpServerSpreadsheetIdLockingHttpHandler} to decide if a GET that may evaluate cells or
+ * save the viewport will actually save, and therefore must keep the write lock. This is only called while holding the
+ * write lock, which is downgraded to the read lock when nothing will be saved, so the answer remains true until the
+ * request is handled. Implementations may write pending state such as a held viewport, and should answer without
+ * loading cells, which the request will load anyway.
+ */
+interface SpreadsheetHttpServerSpreadsheetIdLockingHttpHandlerEvaluating {
+
+    /**
+     * Returns true if handling the request will evaluate and save cells or save the viewport, when unsure true should be
+     * returned.
+     */
+    boolean isEvaluating(final SpreadsheetId spreadsheetId,
+                         final HttpRequest request,
+                         final SpreadsheetServerContext context);
+
+    /**
+     * Called by each request before taking any lock and every second, passing the writes of closed pipelines, such as held viewport
+     * metadata, to the given {@link BiConsumer} which performs each while holding the write lock of its spreadsheet.
+     * The default has nothing to close.
+     */
+    default void closePipelines(final BiConsumer<SpreadsheetId, Runnable> writeLocked) {
+        Objects.requireNonNull(writeLocked, "writeLocked");
+    }
+
+    /**
+     * Called every second, passing the writes of held state that is due, such as held viewport metadata, to the given
+     * {@link BiConsumer} which performs each while holding the write lock of its spreadsheet. The default has nothing
+     * to flush.
+     */
+    default void flushPipelines(final BiConsumer<SpreadsheetId, Runnable> writeLocked) {
+        Objects.requireNonNull(writeLocked, "writeLocked");
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.server;
+
+import javaemul.internal.annotations.GwtIncompatible;
+
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A fair {@link ReentrantReadWriteLock} for a single spreadsheet, which also counts the requests holding or waiting
+ * for it so it can be released once idle.
+ */
+@GwtIncompatible
+final class SpreadsheetHttpServerSpreadsheetIdLockingHttpHandlerLock extends ReentrantReadWriteLock {
+
+    private static final long serialVersionUID = 1L;
+
+    static SpreadsheetHttpServerSpreadsheetIdLockingHttpHandlerLock empty() {
+        return new SpreadsheetHttpServerSpreadsheetIdLockingHttpHandlerLock();
+    }
+
+    private SpreadsheetHttpServerSpreadsheetIdLockingHttpHandlerLock() {
+        super(true); // fair
+    }
+
+    SpreadsheetHttpServerSpreadsheetIdLockingHttpHandlerLock retain() {
+        this.references++;
+        return this;
+    }
+
+    /**
+     * Returns null when there are no more references, which removes this lock when used within a {@link java.util.Map#compute}.
+     */
+    SpreadsheetHttpServerSpreadsheetIdLockingHttpHandlerLock release() {
+        this.references--;
+        return 0 == this.references ?
+            null :
+            this;
+    }
+
+    /**
+     * Only modified within {@link java.util.Map#compute}, which is atomic for a concurrent map.
+     */
+    // @VisibleForTesting
+    int references;
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.server;
+
+import javaemul.internal.annotations.GwtIncompatible;
+import walkingkooka.net.http.server.HttpHandler;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+abstract class SpreadsheetHttpServerViewportPrefetch extends SpreadsheetHttpServerViewportPrefetchGwt {
+
+    // shadows a method with same signature in SpreadsheetHttpServerViewportPrefetchGwt
+    @GwtIncompatible
+    static HttpHandler<SpreadsheetServerContext> viewportPrefetch(final HttpHandler<SpreadsheetServerContext> httpHandler) {
+        // older predictions are discarded when full, as they are the least likely to be needed
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            PREFETCH_THREADS,
+            PREFETCH_THREADS,
+            PREFETCH_THREAD_KEEP_ALIVE_SECONDS,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(MAX_QUEUED_PREFETCHES),
+            (r) -> {
+                final Thread thread = new Thread(
+                    r,
+                    "viewport-prefetch"
+                );
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.DiscardOldestPolicy()
+        );
+        executor.allowCoreThreadTimeOut(true);
+
+        return SpreadsheetHttpServerViewportPrefetchHttpHandler.with(
+            httpHandler,
+            executor::execute
+        );
+    }
+
+    private final static int PREFETCH_THREADS = 2;
+
+    private final static int PREFETCH_THREAD_KEEP_ALIVE_SECONDS = 60;
+
+    private final static int MAX_QUEUED_PREFETCHES = 16;
+
+    private SpreadsheetHttpServerViewportPrefetch() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.server;
+
+import walkingkooka.net.header.HttpHeaderName;
+import walkingkooka.net.http.HttpEntity;
+import walkingkooka.net.http.server.HttpHandler;
+import walkingkooka.net.http.server.HttpHandlers;
+import walkingkooka.net.http.server.HttpRequest;
+import walkingkooka.net.http.server.HttpResponse;
+import walkingkooka.net.http.server.HttpResponses;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * A {@link HttpHandler} that loads the cell ranges of the window predicted after a viewport navigation in the
+ * background, so the cells are already evaluated when the next navigation in the same direction arrives. The wrapped
+ * {@link HttpHandler} marks a viewport load that should be prefetched with the {@link #PREFETCH} header, which is always
+ * removed from the response. The same viewport load is then repeated in the background by a
+ * {@link SpreadsheetHttpServerViewportPrefetchHttpRequest} through the wrapped {@link HttpHandler}, acquiring any locks
+ * like any other request, which predicts the next window and loads its cells, so the response to the client never waits
+ * for the prediction.
+ */
+final class SpreadsheetHttpServerViewportPrefetchHttpHandler implements HttpHandler<SpreadsheetServerContext> {
+
+    /**
+     * A header marking a viewport load response that should be prefetched, only used between the viewport load and this
+     * {@link HttpHandler}. It is never read from requests, where it could be sent by any client.
+     */
+    final static HttpHeaderName<String> PREFETCH = HttpHeaderName.with("X-spreadsheet-prefetch")
+        .stringValues();
+
+    static SpreadsheetHttpServerViewportPrefetchHttpHandler with(final HttpHandler<SpreadsheetServerContext> handler,
+                                                                 final Consumer<Runnable> executor) {
+        return new SpreadsheetHttpServerViewportPrefetchHttpHandler(
+            Objects.requireNonNull(handler, "handler"),
+            Objects.requireNonNull(executor, "executor")
+        );
+    }
+
+    private SpreadsheetHttpServerViewportPrefetchHttpHandler(final HttpHandler<SpreadsheetServerContext> handler,
+                                                             final Consumer<Runnable> executor) {
+        super();
+        this.handler = handler;
+        this.prefetchHandler = HttpHandlers.stacktraceDumping(
+            handler,
+            HttpHandlers.throwableTranslator()
+        );
+        this.executor = executor;
+    }
+
+    @Override
+    public void handle(final HttpRequest request,
+                       final HttpResponse response,
+                       final SpreadsheetServerContext context) {
+        this.handler.handle(
+            request,
+            response,
+            context
+        );
+
+        final HttpEntity entity = response.entity();
+        final String prefetch = PREFETCH.header(entity)
+            .orElse(null);
+        if (null != prefetch) {
+            response.setEntity(
+                entity.removeHeader(PREFETCH)
+            );
+
+            final HttpRequest prefetchRequest = SpreadsheetHttpServerViewportPrefetchHttpRequest.with(request);
+
+            this.executor.accept(
+                () -> this.prefetchHandler.handle(
+                    prefetchRequest,
+                    HttpResponses.recording(),
+                    context
+                )
+            );
+        }
+    }
+
+    private final HttpHandler<SpreadsheetServerContext> handler;
+
+    /**
+     * Translates any failure into a response which is ignored, so a failed prefetch never stops the executor.
+     */
+    private final HttpHandler<SpreadsheetServerContext> prefetchHandler;
+
+    private final Consumer<Runnable> executor;
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return this.handler.toString();
+    }
+}
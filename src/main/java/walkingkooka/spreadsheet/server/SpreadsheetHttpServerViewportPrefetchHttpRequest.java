@@ -0,0 +1,113 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.server;
+
+import walkingkooka.net.RelativeUrl;
+import walkingkooka.net.header.HasHateosContentType;
+import walkingkooka.net.header.HttpHeaderName;
+import walkingkooka.net.http.HttpEntity;
+import walkingkooka.net.http.HttpMethod;
+import walkingkooka.net.http.HttpProtocolVersion;
+import walkingkooka.net.http.HttpTransport;
+import walkingkooka.net.http.server.HttpRequest;
+import walkingkooka.net.http.server.HttpRequestParameterName;
+import walkingkooka.net.http.server.HttpRequests;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The background GET made by {@link SpreadsheetHttpServerViewportPrefetchHttpHandler} repeating a viewport load, which
+ * predicts the next window and loads its cells rather than loading the viewport again. Only the server creates this
+ * {@link HttpRequest}, so unlike a header it can never be sent by a client.
+ */
+final class SpreadsheetHttpServerViewportPrefetchHttpRequest implements HttpRequest {
+
+    static SpreadsheetHttpServerViewportPrefetchHttpRequest with(final HttpRequest request) {
+        Objects.requireNonNull(request, "request");
+
+        return new SpreadsheetHttpServerViewportPrefetchHttpRequest(
+            HttpRequests.value(
+                request.transport(),
+                HttpMethod.GET,
+                request.url(),
+                request.protocolVersion(),
+                HttpEntity.EMPTY.addHeader(
+                    HttpHeaderName.ACCEPT,
+                    HasHateosContentType.HATEOS_CONTENT_TYPE.accept()
+                )
+            )
+        );
+    }
+
+    private SpreadsheetHttpServerViewportPrefetchHttpRequest(final HttpRequest request) {
+        super();
+
+        this.request = request;
+    }
+
+    @Override
+    public HttpTransport transport() {
+        return this.request.transport();
+    }
+
+    @Override
+    public HttpProtocolVersion protocolVersion() {
+        return this.request.protocolVersion();
+    }
+
+    @Override
+    public HttpMethod method() {
+        return this.request.method();
+    }
+
+    @Override
+    public RelativeUrl url() {
+        return this.request.url();
+    }
+
+    @Override
+    public Map<HttpHeaderName<?>, List<?>> headers() {
+        return this.request.headers();
+    }
+
+    @Override
+    public byte[] body() {
+        return this.request.body();
+    }
+
+    @Override
+    public Map<HttpRequestParameterName, List<String>> parameters() {
+        return this.request.parameters();
+    }
+
+    @Override
+    public List<String> parameterValues(final HttpRequestParameterName parameterName) {
+        return this.request.parameterValues(parameterName);
+    }
+
+    private final HttpRequest request;
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return this.request.toString();
+    }
+}
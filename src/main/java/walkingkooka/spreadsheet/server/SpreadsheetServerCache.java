@@ -0,0 +1,627 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.server;
+
+import walkingkooka.collect.list.Lists;
+import walkingkooka.collect.map.Maps;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * A bounded cache which evicts the least recently used entries when the maximum count or maximum weight is exceeded,
+ * and entries that have not been accessed for longer than the maximum idle time. Evicted entries and values replaced by
+ * a put of a different value are passed to an eviction listener, giving owners a chance to flush any state. Hits,
+ * misses and evictions are counted, allowing heap to be sized for many tenants.
+ * <br>
+ * Reads never lock, while {@link #getOrLoad(Object, Function)} loads each missing key once, with other concurrent
+ * misses for the same key waiting for that load. Idle entries are swept by any access or put once per sweep period,
+ * and in the background on the JVM by a single sweeper shared by all caches, so entries of keys that are never
+ * accessed again are still evicted. Listeners and watchers may therefore be called by the sweeper thread, and must
+ * only hand off any slow work, such as writing state, to request threads.
+ * <br>
+ * Idle times are measured with a monotonic nano time clock such as {@link System#nanoTime()}, so changes to the wall
+ * clock never expire entries early or keep them forever.
+ */
+public final class SpreadsheetServerCache<K, V> {
+
+    /**
+     * Creates a {@link SpreadsheetServerCache} that never evicts any entry.
+     */
+    public static <K, V> SpreadsheetServerCache<K, V> unbounded() {
+        return with(
+            Integer.MAX_VALUE,
+            Long.MAX_VALUE,
+            (v) -> 1L,
+            Optional.empty(),
+            (k, v) -> {},
+            System::nanoTime
+        );
+    }
+
+    /**
+     * Creates a {@link SpreadsheetServerCache} holding at most maxCount entries, evicting those not accessed within the
+     * max idle time, without any eviction listener.
+     */
+    public static <K, V> SpreadsheetServerCache<K, V> bounded(final int maxCount,
+                                                              final Duration maxIdle) {
+        return with(
+            maxCount,
+            Long.MAX_VALUE,
+            (v) -> 1L,
+            Optional.of(maxIdle),
+            (k, v) -> {},
+            System::nanoTime
+        );
+    }
+
+    public static <K, V> SpreadsheetServerCache<K, V> with(final int maxCount,
+                                                           final long maxWeight,
+                                                           final ToLongFunction<V> weigher,
+                                                           final Optional<Duration> maxIdle,
+                                                           final BiConsumer<K, V> evictionListener,
+                                                           final LongSupplier nanoTime) {
+        if (maxCount <= 0) {
+            throw new IllegalArgumentException("Invalid maxCount " + maxCount + " <= 0");
+        }
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("Invalid maxWeight " + maxWeight + " <= 0");
+        }
+        Objects.requireNonNull(weigher, "weigher");
+        Objects.requireNonNull(maxIdle, "maxIdle");
+        if (maxIdle.isPresent() && maxIdle.get().isNegative()) {
+            throw new IllegalArgumentException("Invalid maxIdle " + maxIdle.get() + " < 0");
+        }
+        Objects.requireNonNull(evictionListener, "evictionListener");
+        Objects.requireNonNull(nanoTime, "nanoTime");
+
+        final SpreadsheetServerCache<K, V> cache = new SpreadsheetServerCache<>(
+            maxCount,
+            maxWeight,
+            weigher,
+            maxIdle,
+            evictionListener,
+            nanoTime
+        );
+
+        // necessary because ScheduledExecutorService is @GwtIncompatible
+        if (maxIdle.isPresent()) {
+            SpreadsheetServerScheduler.repeatWhileReachable(
+                cache,
+                SpreadsheetServerCache::sweepIfDue
+            );
+        }
+
+        return cache;
+    }
+
+    private SpreadsheetServerCache(final int maxCount,
+                                   final long maxWeight,
+                                   final ToLongFunction<V> weigher,
+                                   final Optional<Duration> maxIdle,
+                                   final BiConsumer<K, V> evictionListener,
+                                   final LongSupplier nanoTime) {
+        super();
+
+        this.maxCount = maxCount;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.maxIdle = maxIdle.orElse(null);
+        this.maxIdleNanos = maxIdle.map(Duration::toNanos)
+            .orElse(Long.MAX_VALUE);
+        this.sweepPeriod = maxIdle.map(
+            (d) -> d.compareTo(MIN_SWEEP_PERIOD) < 0 ?
+                MIN_SWEEP_PERIOD :
+                d
+        ).orElse(null);
+        this.sweepPeriodNanos = null != this.sweepPeriod ?
+            this.sweepPeriod.toNanos() :
+            Long.MAX_VALUE;
+        this.evictionListener = evictionListener;
+        this.nanoTime = nanoTime;
+        this.lastSweep = nanoTime.getAsLong();
+    }
+
+    /**
+     * Returns a new empty {@link SpreadsheetServerCache} with the same limits and eviction listener, but without any
+     * eviction watchers.
+     */
+    public SpreadsheetServerCache<K, V> cloneEmpty() {
+        return with(
+            this.maxCount,
+            this.maxWeight,
+            this.weigher,
+            Optional.ofNullable(this.maxIdle),
+            this.evictionListener,
+            this.nanoTime
+        );
+    }
+
+    /**
+     * Returns the cached value if present and not idle, counting a hit or miss. Hits never take a lock.
+     */
+    public Optional<V> get(final K key) {
+        Objects.requireNonNull(key, "key");
+
+        this.sweepIfDue();
+
+        final V value = this.getOrNull(key);
+        if (null != value) {
+            this.hitCount.incrementAndGet();
+        } else {
+            this.missCount.incrementAndGet();
+        }
+
+        return Optional.ofNullable(value);
+    }
+
+    /**
+     * Returns the cached value or calls the loader and caches any value it returns. Hits never take a lock, and only
+     * concurrent misses for the same key wait for a single load, misses for other keys continue independently.
+     */
+    public Optional<V> getOrLoad(final K key,
+                                 final Function<K, Optional<V>> loader) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(loader, "loader");
+
+        this.sweepIfDue();
+
+        V value = this.getOrNull(key);
+        if (null != value) {
+            this.hitCount.incrementAndGet();
+        } else {
+            this.missCount.incrementAndGet();
+
+            final Object lock = this.keyToLoadLock.computeIfAbsent(
+                key,
+                (k) -> new Object()
+            );
+            try {
+                synchronized (lock) {
+                    // another thread may have loaded the value while waiting
+                    value = this.getOrNull(key);
+                    if (null == value) {
+                        value = this.load(
+                            key,
+                            loader
+                        );
+                    }
+                }
+            } finally {
+                this.keyToLoadLock.remove(
+                    key,
+                    lock
+                );
+            }
+        }
+
+        return Optional.ofNullable(value);
+    }
+
+    /**
+     * Calls the loader, recording the time taken, and caches any value it returns.
+     */
+    private V load(final K key,
+                   final Function<K, Optional<V>> loader) {
+        final long start = this.now();
+        try {
+            return loader.apply(key)
+                .map(v -> this.put(key, v))
+                .orElse(null);
+        } finally {
+            final long nanos = this.now() - start;
+
+            this.loadCount.incrementAndGet();
+            this.loadNanos.addAndGet(nanos);
+        }
+    }
+
+    /**
+     * Returns the value without updating any counters, evicting an idle entry under the lock.
+     */
+    private V getOrNull(final K key) {
+        V value = null;
+
+        final SpreadsheetServerCacheEntry<K, V> entry = this.keyToEntry.get(key);
+        if (null != entry) {
+            final long now = this.now();
+            if (this.isIdle(entry, now)) {
+                final List<SpreadsheetServerCacheEntry<K, V>> evicted = Lists.array();
+
+                synchronized (this) {
+                    // entry may have already been replaced or evicted by another thread
+                    if (entry == this.keyToEntry.get(key)) {
+                        this.evict(
+                            entry,
+                            evicted
+                        );
+                    }
+                }
+
+                this.fireEvicted(evicted);
+            } else {
+                entry.access(
+                    now,
+                    this.tick.incrementAndGet()
+                );
+                value = entry.value;
+            }
+        }
+
+        return value;
+    }
+
+    /**
+     * Adds or replaces the value for the given key, evicting idle entries when a sweep is due and then least recently
+     * used entries until within all limits. A replaced different value is passed to the eviction listener and watchers
+     * like an evicted value, but is not counted as an eviction.
+     */
+    public V put(final K key,
+                 final V value) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(value, "value");
+
+        final List<SpreadsheetServerCacheEntry<K, V>> evicted = Lists.array();
+        SpreadsheetServerCacheEntry<K, V> replaced = null;
+
+        synchronized (this) {
+            final long now = this.now();
+
+            final SpreadsheetServerCacheEntry<K, V> entry = SpreadsheetServerCacheEntry.with(
+                key,
+                value,
+                this.weigher.applyAsLong(value),
+                now,
+                this.tick.incrementAndGet()
+            );
+
+            final SpreadsheetServerCacheEntry<K, V> previous = this.keyToEntry.put(
+                key,
+                entry
+            );
+            if (null != previous) {
+                this.weight -= previous.weight;
+
+                if (previous.value != value) {
+                    replaced = previous;
+                }
+            }
+            this.weight += entry.weight;
+
+            if (this.isSweepDue(now)) {
+                this.evictIdle(
+                    now,
+                    evicted
+                );
+            }
+
+            while (this.keyToEntry.size() > this.maxCount || this.weight > this.maxWeight) {
+                this.evict(
+                    this.leastRecentlyUsed(),
+                    evicted
+                );
+            }
+        }
+
+        if (null != replaced) {
+            this.fire(replaced);
+        }
+        this.fireEvicted(evicted);
+
+        return value;
+    }
+
+    /**
+     * Removes the entry for the given key without notifying the eviction listener, such as when the value was deleted.
+     */
+    public Optional<V> remove(final K key) {
+        Objects.requireNonNull(key, "key");
+
+        synchronized (this) {
+            final SpreadsheetServerCacheEntry<K, V> entry = this.keyToEntry.remove(key);
+            if (null != entry) {
+                this.weight -= entry.weight;
+            }
+
+            return Optional.ofNullable(
+                null != entry ?
+                    entry.value :
+                    null
+            );
+        }
+    }
+
+    /**
+     * Removes all entries without notifying the eviction listener, such as when all values became stale.
+     */
+    public synchronized void clear() {
+        this.keyToEntry.clear();
+        this.weight = 0;
+    }
+
+    /**
+     * Evicts all idle entries, useful to release memory when there are no new requests.
+     */
+    public void evictIdle() {
+        final List<SpreadsheetServerCacheEntry<K, V>> evicted = Lists.array();
+
+        synchronized (this) {
+            this.evictIdle(
+                this.now(),
+                evicted
+            );
+        }
+
+        this.fireEvicted(evicted);
+    }
+
+    /**
+     * Evicts all idle entries if the sweep period has passed since the last sweep, so entries for keys that are never
+     * read again are also evicted. Also called regularly by the background sweeper on the JVM.
+     */
+    private void sweepIfDue() {
+        if (this.isSweepDue(this.now())) {
+            this.evictIdle();
+        }
+    }
+
+    /**
+     * Nano times may wrap, so only the difference between two times is compared.
+     */
+    private boolean isSweepDue(final long now) {
+        return null != this.sweepPeriod &&
+            now - this.lastSweep >= this.sweepPeriodNanos;
+    }
+
+    /**
+     * Idle entries are never swept more often than this.
+     */
+    private final static Duration MIN_SWEEP_PERIOD = Duration.ofSeconds(1);
+
+    /**
+     * When null entries never become idle and are never swept.
+     */
+    private final Duration sweepPeriod;
+
+    private final long sweepPeriodNanos;
+
+    /**
+     * The nano time of the last sweep, only updated by {@link #evictIdle(long, List)}, so a race only results in an
+     * extra sweep.
+     */
+    private volatile long lastSweep;
+
+    private void evictIdle(final long now,
+                           final List<SpreadsheetServerCacheEntry<K, V>> evicted) {
+        this.lastSweep = now;
+
+        if (null != this.maxIdle) {
+            final List<SpreadsheetServerCacheEntry<K, V>> idle = Lists.array();
+
+            for (final SpreadsheetServerCacheEntry<K, V> entry : this.keyToEntry.values()) {
+                if (this.isIdle(entry, now)) {
+                    idle.add(entry);
+                }
+            }
+
+            for (final SpreadsheetServerCacheEntry<K, V> entry : idle) {
+                this.evict(
+                    entry,
+                    evicted
+                );
+            }
+        }
+    }
+
+    private boolean isIdle(final SpreadsheetServerCacheEntry<K, V> entry,
+                           final long now) {
+        return null != this.maxIdle &&
+            now - entry.lastAccess > this.maxIdleNanos;
+    }
+
+    /**
+     * Finds the entry with the lowest tick, this is a linear scan but only happens when a limit is exceeded.
+     */
+    private SpreadsheetServerCacheEntry<K, V> leastRecentlyUsed() {
+        SpreadsheetServerCacheEntry<K, V> lru = null;
+
+        for (final SpreadsheetServerCacheEntry<K, V> entry : this.keyToEntry.values()) {
+            if (null == lru || entry.tick < lru.tick) {
+                lru = entry;
+            }
+        }
+
+        return lru;
+    }
+
+    private void evict(final SpreadsheetServerCacheEntry<K, V> entry,
+                       final List<SpreadsheetServerCacheEntry<K, V>> evicted) {
+        this.keyToEntry.remove(entry.key);
+        this.weight -= entry.weight;
+        this.evictionCount.incrementAndGet();
+
+        evicted.add(entry);
+    }
+
+    /**
+     * Listeners and watchers are always notified outside the lock.
+     */
+    private void fireEvicted(final List<SpreadsheetServerCacheEntry<K, V>> evicted) {
+        for (final SpreadsheetServerCacheEntry<K, V> entry : evicted) {
+            this.fire(entry);
+        }
+    }
+
+    private void fire(final SpreadsheetServerCacheEntry<K, V> entry) {
+        this.evictionListener.accept(
+            entry.key,
+            entry.value
+        );
+
+        for (final BiConsumer<K, V> watcher : this.evictionWatchers.values()) {
+            watcher.accept(
+                entry.key,
+                entry.value
+            );
+        }
+    }
+
+    /**
+     * Adds a watcher that is notified of every evicted or replaced entry after the eviction listener, returning a
+     * {@link Runnable} which removes the watcher. Entries that are removed or cleared are not evicted.
+     */
+    public Runnable addEvictionWatcher(final BiConsumer<K, V> watcher) {
+        Objects.requireNonNull(watcher, "watcher");
+
+        final Object token = new Object();
+        this.evictionWatchers.put(
+            token,
+            watcher
+        );
+        return () -> this.evictionWatchers.remove(token);
+    }
+
+    /**
+     * Each watcher is keyed by a unique token so the same watcher may be added more than once.
+     */
+    private final Map<Object, BiConsumer<K, V>> evictionWatchers = Maps.concurrent();
+
+    private long now() {
+        return this.nanoTime.getAsLong();
+    }
+
+    private final int maxCount;
+
+    private final long maxWeight;
+
+    private final ToLongFunction<V> weigher;
+
+    /**
+     * When null entries never become idle.
+     */
+    private final Duration maxIdle;
+
+    private final long maxIdleNanos;
+
+    private final BiConsumer<K, V> evictionListener;
+
+    /**
+     * A monotonic clock returning nanoseconds, such as {@link System#nanoTime()}.
+     */
+    private final LongSupplier nanoTime;
+
+    /**
+     * Reads are lock free, while all modifications happen while holding the lock on this cache, so the weight is
+     * always consistent with the entries.
+     */
+    private final Map<K, SpreadsheetServerCacheEntry<K, V>> keyToEntry = Maps.concurrent();
+
+    /**
+     * A lock for each key currently being loaded, removed once the load completes.
+     */
+    private final Map<K, Object> keyToLoadLock = Maps.concurrent();
+
+    /**
+     * Incremented for every access and used to find the least recently used entry.
+     */
+    private final AtomicLong tick = new AtomicLong();
+
+    // metrics..........................................................................................................
+
+    public long hitCount() {
+        return this.hitCount.get();
+    }
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    public long missCount() {
+        return this.missCount.get();
+    }
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    public long evictionCount() {
+        return this.evictionCount.get();
+    }
+
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * The number of times the loader was called by {@link #getOrLoad(Object, Function)}.
+     */
+    public long loadCount() {
+        return this.loadCount.get();
+    }
+
+    private final AtomicLong loadCount = new AtomicLong();
+
+    /**
+     * The total time spent within loaders, which divided by {@link #loadCount()} gives the average cost of creating a value.
+     */
+    public Duration loadTime() {
+        return Duration.ofNanos(
+            this.loadNanos.get()
+        );
+    }
+
+    private final AtomicLong loadNanos = new AtomicLong();
+
+    public int size() {
+        return this.keyToEntry.size();
+    }
+
+    public synchronized long weight() {
+        return this.weight;
+    }
+
+    private long weight;
+
+    /**
+     * Returns a read only snapshot of all cached values.
+     */
+    public synchronized Map<K, V> toMap() {
+        final Map<K, V> map = Maps.ordered();
+
+        for (final SpreadsheetServerCacheEntry<K, V> entry : this.keyToEntry.values()) {
+            map.put(
+                entry.key,
+                entry.value
+            );
+        }
+
+        return Maps.readOnly(map);
+    }
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return this.toMap() +
+            " hits=" + this.hitCount() +
+            " misses=" + this.missCount() +
+            " evictions=" + this.evictionCount();
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.server;
+
+/**
+ * A single value within a {@link SpreadsheetServerCache} along with its weight and last access.
+ */
+final class SpreadsheetServerCacheEntry<K, V> {
+
+    static <K, V> SpreadsheetServerCacheEntry<K, V> with(final K key,
+                                                         final V value,
+                                                         final long weight,
+                                                         final long lastAccess,
+                                                         final long tick) {
+        return new SpreadsheetServerCacheEntry<>(
+            key,
+            value,
+            weight,
+            lastAccess,
+            tick
+        );
+    }
+
+    private SpreadsheetServerCacheEntry(final K key,
+                                        final V value,
+                                        final long weight,
+                                        final long lastAccess,
+                                        final long tick) {
+        super();
+
+        this.key = key;
+        this.value = value;
+        this.weight = weight;
+        this.lastAccess = lastAccess;
+        this.tick = tick;
+    }
+
+    void access(final long lastAccess,
+                final long tick) {
+        this.lastAccess = lastAccess;
+        this.tick = tick;
+    }
+
+    final K key;
+
+    final V value;
+
+    final long weight;
+
+    /**
+     * The nano time of the last access, updated by lock free reads, so volatile.
+     */
+    volatile long lastAccess;
+
+    volatile long tick;
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return this.key + "=" + this.value;
+    }
+}
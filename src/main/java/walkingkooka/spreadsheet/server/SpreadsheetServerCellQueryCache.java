@@ -0,0 +1,178 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.server;
+
+import walkingkooka.collect.set.Sets;
+import walkingkooka.collect.set.SortedSets;
+import walkingkooka.spreadsheet.engine.SpreadsheetCellQuery;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.value.SpreadsheetCell;
+import walkingkooka.spreadsheet.value.SpreadsheetValueType;
+import walkingkooka.tree.expression.Expression;
+
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Caches the {@link Expression} compiled from the last {@link SpreadsheetCellQuery} and whether each tested
+ * {@link SpreadsheetCell} matched, for a single {@link SpreadsheetServerRevision}. A query may depend on other cells,
+ * labels, the metadata or volatile functions such as <code>now()</code>, which are not part of the tested cell, so
+ * any change, including a cell load that evaluates and saves cells, compiles the query again and tests every cell
+ * again. This only helps repeated responses at one revision, such as scrolling back and forth over cells that are
+ * already evaluated, where only the cells not yet tested are filtered.
+ */
+final class SpreadsheetServerCellQueryCache {
+
+    static SpreadsheetServerCellQueryCache with(final int maxCells,
+                                                final SpreadsheetServerRevision revision) {
+        if (maxCells <= 0) {
+            throw new IllegalArgumentException("Invalid maxCells " + maxCells + " <= 0");
+        }
+        Objects.requireNonNull(revision, "revision");
+
+        return new SpreadsheetServerCellQueryCache(
+            maxCells,
+            revision
+        );
+    }
+
+    private SpreadsheetServerCellQueryCache(final int maxCells,
+                                            final SpreadsheetServerRevision revision) {
+        super();
+        this.maxCells = maxCells;
+        this.revision = revision;
+    }
+
+    /**
+     * Returns the references of the given cells that match the query in the same order, only evaluating the query for
+     * cells not already tested.
+     */
+    Set<SpreadsheetCellReference> matchedCells(final SpreadsheetCellQuery query,
+                                               final Set<SpreadsheetCell> cells,
+                                               final SpreadsheetEngineHateosHandlerContext context) {
+        Objects.requireNonNull(query, "query");
+        Objects.requireNonNull(cells, "cells");
+        Objects.requireNonNull(context, "context");
+
+        final SpreadsheetServerCellQueryCacheCompiled compiled = this.compile(
+            query,
+            context
+        );
+        final SpreadsheetServerCache<SpreadsheetCell, Boolean> matches = compiled.matches;
+
+        final Set<SpreadsheetCellReference> matched = SortedSets.tree();
+        final Set<SpreadsheetCell> untested = Sets.ordered();
+
+        for (final SpreadsheetCell cell : cells) {
+            final Boolean match = matches.get(cell)
+                .orElse(null);
+            if (null == match) {
+                untested.add(cell);
+            } else {
+                if (match) {
+                    matched.add(cell.reference());
+                }
+            }
+        }
+
+        if (false == untested.isEmpty()) {
+            final Set<SpreadsheetCellReference> untestedMatched = SortedSets.tree();
+            for (final SpreadsheetCell cell : context.spreadsheetEngine()
+                .filterCells(
+                    untested,
+                    SpreadsheetValueType.ANY,
+                    compiled.expression,
+                    context
+                )) {
+                untestedMatched.add(cell.reference());
+            }
+
+            for (final SpreadsheetCell cell : untested) {
+                final SpreadsheetCellReference reference = cell.reference();
+                final boolean match = untestedMatched.contains(reference);
+                matches.put(
+                    cell,
+                    match
+                );
+                if (match) {
+                    matched.add(reference);
+                }
+            }
+        }
+
+        final Set<SpreadsheetCellReference> references = Sets.ordered();
+        for (final SpreadsheetCell cell : cells) {
+            final SpreadsheetCellReference reference = cell.reference();
+            if (matched.contains(reference)) {
+                references.add(reference);
+            }
+        }
+
+        return references;
+    }
+
+    /**
+     * Returns the {@link Expression} and matches for the query, compiling and replacing those for any other query or
+     * an earlier revision.
+     */
+    private synchronized SpreadsheetServerCellQueryCacheCompiled compile(final SpreadsheetCellQuery query,
+                                                                         final SpreadsheetEngineHateosHandlerContext context) {
+        SpreadsheetServerCellQueryCacheCompiled compiled = this.compiled;
+        final long revision = this.revision.value();
+
+        if (null == compiled || false == query.equals(compiled.query) || revision != compiled.revision) {
+            compiled = SpreadsheetServerCellQueryCacheCompiled.with(
+                query,
+                context.toExpression(
+                    query.parserToken()
+                ).orElse(DEFAULT_EXPRESSION),
+                revision,
+                this.maxCells
+            );
+            this.compiled = compiled;
+        }
+
+        return compiled;
+    }
+
+    private final static Expression DEFAULT_EXPRESSION = Expression.value(Boolean.TRUE);
+
+    /**
+     * The maximum number of cell matches remembered.
+     */
+    private final int maxCells;
+
+    /**
+     * Matches tested at any other revision are discarded.
+     */
+    private final SpreadsheetServerRevision revision;
+
+    /**
+     * The last compiled query which may be null.
+     */
+    private SpreadsheetServerCellQueryCacheCompiled compiled;
+
+    // Object...........................................................................................................
+
+    @Override
+    public synchronized String toString() {
+        final SpreadsheetServerCellQueryCacheCompiled compiled = this.compiled;
+        return null == compiled ?
+            "" :
+            compiled.toString();
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.server;
+
+import walkingkooka.spreadsheet.engine.SpreadsheetCellQuery;
+import walkingkooka.spreadsheet.value.SpreadsheetCell;
+import walkingkooka.tree.expression.Expression;
+
+import java.util.Optional;
+
+/**
+ * The {@link Expression} compiled from a {@link SpreadsheetCellQuery} and whether each tested {@link SpreadsheetCell}
+ * matched at a single revision, the least recently used matches being evicted once full.
+ */
+final class SpreadsheetServerCellQueryCacheCompiled {
+
+    static SpreadsheetServerCellQueryCacheCompiled with(final SpreadsheetCellQuery query,
+                                                        final Expression expression,
+                                                        final long revision,
+                                                        final int maxCells) {
+        return new SpreadsheetServerCellQueryCacheCompiled(
+            query,
+            expression,
+            revision,
+            maxCells
+        );
+    }
+
+    private SpreadsheetServerCellQueryCacheCompiled(final SpreadsheetCellQuery query,
+                                                    final Expression expression,
+                                                    final long revision,
+                                                    final int maxCells) {
+        super();
+
+        this.query = query;
+        this.expression = expression;
+        this.revision = revision;
+        this.matches = SpreadsheetServerCache.with(
+            maxCells,
+            maxCells,
+            (m) -> 1L,
+            Optional.empty(),
+            (k, v) -> {},
+            System::nanoTime
+        );
+    }
+
+    final SpreadsheetCellQuery query;
+
+    final Expression expression;
+
+    final long revision;
+
+    final SpreadsheetServerCache<SpreadsheetCell, Boolean> matches;
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return this.query + " " + this.expression;
+    }
+}
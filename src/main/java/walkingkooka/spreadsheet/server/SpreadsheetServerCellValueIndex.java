@@ -0,0 +1,176 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.server;
+
+import walkingkooka.collect.map.Maps;
+import walkingkooka.collect.set.Sets;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.value.SpreadsheetCell;
+import walkingkooka.spreadsheet.value.SpreadsheetValueType;
+import walkingkooka.tree.expression.ExpressionNumber;
+import walkingkooka.validation.ValueType;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * An index of the cells of a single spreadsheet by the type of their evaluated value, kept current by the cell store
+ * watcher, so a cell query for a value type only evaluates the cells that have or may have a value of that type.
+ * Cells without a value, or with a value of any other type, may have any type once evaluated and are always returned.
+ * <br>
+ * There is a single index for each spreadsheet, shared by all its users and held by
+ * {@link SpreadsheetServerSpreadsheetChanges} next to the cell store watcher that keeps it current. The index is
+ * loaded from the cell store of the spreadsheet on first use.
+ */
+final class SpreadsheetServerCellValueIndex {
+
+    static SpreadsheetServerCellValueIndex with(final Supplier<Set<SpreadsheetCell>> loader) {
+        return new SpreadsheetServerCellValueIndex(
+            Objects.requireNonNull(loader, "loader")
+        );
+    }
+
+    private SpreadsheetServerCellValueIndex(final Supplier<Set<SpreadsheetCell>> loader) {
+        super();
+        this.loader = loader;
+    }
+
+    /**
+     * Returns the cells with a value of the given type along with the cells whose type is unknown.
+     */
+    synchronized Set<SpreadsheetCell> cellsWithValueType(final ValueType valueType) {
+        Objects.requireNonNull(valueType, "valueType");
+
+        if (false == this.loaded) {
+            for (final SpreadsheetCell cell : this.loader.get()) {
+                this.add(cell);
+            }
+            this.loaded = true;
+        }
+
+        final Set<SpreadsheetCell> cells = Sets.ordered();
+
+        final Map<SpreadsheetCellReference, SpreadsheetCell> withValueType = this.valueTypeToCells.get(valueType);
+        if (null != withValueType) {
+            cells.addAll(withValueType.values());
+        }
+        cells.addAll(this.unknownValueType.values());
+
+        return cells;
+    }
+
+    /**
+     * Updates the index with a saved cell, or a deleted cell when the new cell is empty. Changes are ignored until
+     * the index is loaded, as they will be read by the load.
+     */
+    synchronized void cellChanged(final SpreadsheetCellReference reference,
+                                  final Optional<SpreadsheetCell> cell) {
+        Objects.requireNonNull(reference, "reference");
+        Objects.requireNonNull(cell, "cell");
+
+        if (this.loaded) {
+            final Map<SpreadsheetCellReference, SpreadsheetCell> previous = this.referenceToCells.remove(reference);
+            if (null != previous) {
+                previous.remove(reference);
+            }
+
+            if (cell.isPresent()) {
+                this.add(cell.get());
+            }
+        }
+    }
+
+    private void add(final SpreadsheetCell cell) {
+        final Map<SpreadsheetCellReference, SpreadsheetCell> cells = valueType(cell)
+            .map(t -> this.valueTypeToCells.computeIfAbsent(
+                t,
+                (k) -> Maps.sorted()
+            )).orElse(this.unknownValueType);
+
+        final SpreadsheetCellReference reference = cell.reference();
+        cells.put(
+            reference,
+            cell
+        );
+        this.referenceToCells.put(
+            reference,
+            cells
+        );
+    }
+
+    /**
+     * Returns the {@link ValueType} of the evaluated value of the cell, or nothing when the cell has not been evaluated
+     * or the value is an error or some other type.
+     */
+    // @VisibleForTesting
+    static Optional<ValueType> valueType(final SpreadsheetCell cell) {
+        final Object value = cell.formula()
+            .value()
+            .orElse(null);
+
+        final ValueType valueType;
+
+        if (value instanceof Boolean) {
+            valueType = SpreadsheetValueType.BOOLEAN;
+        } else if (value instanceof ExpressionNumber || value instanceof Number) {
+            valueType = SpreadsheetValueType.NUMBER;
+        } else if (value instanceof LocalDate) {
+            valueType = SpreadsheetValueType.DATE;
+        } else if (value instanceof LocalDateTime) {
+            valueType = SpreadsheetValueType.DATE_TIME;
+        } else if (value instanceof LocalTime) {
+            valueType = SpreadsheetValueType.TIME;
+        } else if (value instanceof String) {
+            valueType = SpreadsheetValueType.TEXT;
+        } else {
+            valueType = null;
+        }
+
+        return Optional.ofNullable(valueType);
+    }
+
+    private final Supplier<Set<SpreadsheetCell>> loader;
+
+    private boolean loaded;
+
+    private final Map<ValueType, Map<SpreadsheetCellReference, SpreadsheetCell>> valueTypeToCells = Maps.hash();
+
+    /**
+     * Cells that have not been evaluated, or with an error or some other value.
+     */
+    private final Map<SpreadsheetCellReference, SpreadsheetCell> unknownValueType = Maps.sorted();
+
+    /**
+     * The map holding each cell, so a cell can be removed without knowing its previous value type.
+     */
+    private final Map<SpreadsheetCellReference, Map<SpreadsheetCellReference, SpreadsheetCell>> referenceToCells = Maps.hash();
+
+    // Object...........................................................................................................
+
+    @Override
+    public synchronized String toString() {
+        return this.loaded ?
+            this.referenceToCells.size() + " cell(s)" :
+            "";
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.server;
+
+import walkingkooka.collect.set.SortedSets;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * A bounded log of the cells changed or deleted at each {@link SpreadsheetServerRevision}, used to answer cell loads
+ * with only the cells that changed since a revision held by the client. Once full the oldest changes are dropped,
+ * and any change that is not for a single cell, such as a column, row, label or metadata change, requires a full
+ * response for all earlier revisions.
+ */
+final class SpreadsheetServerChangeLog {
+
+    static SpreadsheetServerChangeLog with(final SpreadsheetServerRevision revision,
+                                           final int maxChanges) {
+        Objects.requireNonNull(revision, "revision");
+        if (maxChanges < 0) {
+            throw new IllegalArgumentException("Invalid maxChanges " + maxChanges + " < 0");
+        }
+
+        return new SpreadsheetServerChangeLog(
+            revision,
+            maxChanges
+        );
+    }
+
+    private SpreadsheetServerChangeLog(final SpreadsheetServerRevision revision,
+                                       final int maxChanges) {
+        super();
+
+        this.revision = revision;
+        this.revisions = new long[maxChanges];
+        this.cells = new SpreadsheetCellReference[maxChanges];
+        this.oldest = revision.value();
+    }
+
+    /**
+     * Records a change to a single cell, including deletes.
+     */
+    void cell(final SpreadsheetCellReference cell) {
+        Objects.requireNonNull(cell, "cell");
+
+        this.record(cell);
+    }
+
+    /**
+     * Records a change that may touch any cell, column or row.
+     */
+    void all() {
+        this.record(null);
+    }
+
+    private synchronized void record(final SpreadsheetCellReference cell) {
+        final long revision = this.revision.increment();
+
+        final long[] revisions = this.revisions;
+        final int max = revisions.length;
+        if (0 == max) {
+            this.oldest = revision;
+        } else {
+            final int index = (int) (this.count % max);
+            if (this.count >= max) {
+                // since revisions before the dropped change can no longer be answered
+                this.oldest = revisions[index];
+            }
+            revisions[index] = revision;
+            this.cells[index] = cell;
+            this.count++;
+        }
+    }
+
+    /**
+     * Returns the cells changed or deleted after the given revision, or nothing when the log no longer covers that
+     * revision or something other than a cell changed, in which case a full response is required.
+     */
+    synchronized Optional<Set<SpreadsheetCellReference>> cellsSince(final long since) {
+        Set<SpreadsheetCellReference> changed = null;
+
+        final long[] revisions = this.revisions;
+        final int max = revisions.length;
+
+        if (max > 0 && since >= this.oldest && since <= this.revision.value()) {
+            changed = SortedSets.tree();
+
+            final long count = this.count;
+            for (long i = count - 1; i >= 0 && i >= count - max; i--) {
+                final int index = (int) (i % max);
+                if (revisions[index] <= since) {
+                    break;
+                }
+
+                final SpreadsheetCellReference cell = this.cells[index];
+                if (null == cell) {
+                    changed = null;
+                    break;
+                }
+                changed.add(cell);
+            }
+        }
+
+        return Optional.ofNullable(changed);
+    }
+
+    private final SpreadsheetServerRevision revision;
+
+    /**
+     * Revisions and cells form a ring buffer, a null cell marks a change to everything.
+     */
+    private final long[] revisions;
+
+    private final SpreadsheetCellReference[] cells;
+
+    /**
+     * The total number of changes recorded, including those that were dropped.
+     */
+    private long count;
+
+    /**
+     * The oldest revision changes since which can still be answered.
+     */
+    private long oldest;
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return this.revision + " " + this.count;
+    }
+}
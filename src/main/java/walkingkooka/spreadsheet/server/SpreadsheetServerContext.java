@@ -32,7 +32,9 @@ import walkingkooka.tree.json.marshall.JsonNodeMarshallContextObjectPostProcesso
 import walkingkooka.tree.json.marshall.JsonNodeUnmarshallContextPreProcessor;
 
 import java.util.Locale;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * A {@link Context} that holds ALL available {@link SpreadsheetContext} for a single user.
@@ -56,6 +58,18 @@ public interface SpreadsheetServerContext extends SpreadsheetContextSupplier,
      */
     SpreadsheetContext createSpreadsheetContext();
 
+    /**
+     * Adds a watcher which is notified when a cached {@link SpreadsheetContext} is evicted, giving any state held for
+     * that spreadsheet a chance to be flushed and released. The returned {@link Runnable} removes the watcher. The
+     * default never evicts and never notifies the watcher.
+     */
+    default Runnable addSpreadsheetContextEvictionWatcher(final Consumer<SpreadsheetContext> watcher) {
+        Objects.requireNonNull(watcher, "watcher");
+
+        return () -> {
+        };
+    }
+
     // EnvironmentContext...............................................................................................
 
     /**
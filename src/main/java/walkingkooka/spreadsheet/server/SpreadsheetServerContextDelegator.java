@@ -42,6 +42,7 @@ import java.nio.charset.Charset;
 import java.util.Currency;
 import java.util.Locale;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface SpreadsheetServerContextDelegator extends SpreadsheetServerContext,
     SpreadsheetProviderDelegator,
@@ -185,6 +186,12 @@ public interface SpreadsheetServerContextDelegator extends SpreadsheetServerCont
             .createSpreadsheetContext();
     }
 
+    @Override
+    default Runnable addSpreadsheetContextEvictionWatcher(final Consumer<SpreadsheetContext> watcher) {
+        return this.spreadsheetServerContext()
+            .addSpreadsheetContextEvictionWatcher(watcher);
+    }
+
     @Override
     default AbsoluteUrl serverUrl() {
         return this.spreadsheetServerContext()
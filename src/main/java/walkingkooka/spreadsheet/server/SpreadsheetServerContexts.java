@@ -23,6 +23,7 @@ import walkingkooka.net.header.MediaTypeDetector;
 import walkingkooka.net.http.server.hateos.HateosHandlerContext;
 import walkingkooka.plugin.ProviderContext;
 import walkingkooka.reflect.PublicStaticHelper;
+import walkingkooka.spreadsheet.SpreadsheetContext;
 import walkingkooka.spreadsheet.convert.SpreadsheetConverterContext;
 import walkingkooka.spreadsheet.engine.SpreadsheetEngine;
 import walkingkooka.spreadsheet.environment.SpreadsheetEnvironmentContext;
@@ -50,7 +51,8 @@ public final class SpreadsheetServerContexts implements PublicStaticHelper {
                                                  final SpreadsheetMetadataContext spreadsheetMetadataContext,
                                                  final HateosHandlerContext hateosHandlerContext,
                                                  final ProviderContext providerContext,
-                                                 final TerminalServerContext terminalServerContext) {
+                                                 final TerminalServerContext terminalServerContext,
+                                                 final SpreadsheetServerCache<SpreadsheetId, SpreadsheetContext> spreadsheetContextCache) {
         return BasicSpreadsheetServerContext.with(
             mediaTypeDetector,
             multiplier,
@@ -62,7 +64,8 @@ public final class SpreadsheetServerContexts implements PublicStaticHelper {
             spreadsheetMetadataContext,
             hateosHandlerContext,
             providerContext,
-            terminalServerContext
+            terminalServerContext,
+            spreadsheetContextCache
         );
     }
 
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.server;
+
+import walkingkooka.Binary;
+import walkingkooka.net.header.Accept;
+import walkingkooka.net.header.HasHateosContentType;
+import walkingkooka.net.http.HttpEntity;
+import walkingkooka.net.http.server.hateos.HateosHandlerContext;
+import walkingkooka.net.http.server.hateos.HateosResourceMappings;
+import walkingkooka.reflect.PublicStaticHelper;
+import walkingkooka.spreadsheet.server.net.SpreadsheetServerMediaTypes;
+
+import java.util.Objects;
+
+/**
+ * Factory methods for {@link HttpEntity} holding JSON responses, so all handlers marshall their response in one place.
+ */
+public final class SpreadsheetServerHttpEntities implements PublicStaticHelper {
+
+    /**
+     * Marshalls the value into a JSON {@link HttpEntity} with a hateos content type, a
+     * {@link HateosResourceMappings#X_CONTENT_TYPE_NAME} of the given type and a content-length.
+     */
+    public static HttpEntity hateosJson(final Object value,
+                                        final Class<?> type,
+                                        final HateosHandlerContext context) {
+        Objects.requireNonNull(value, "value");
+        Objects.requireNonNull(type, "type");
+        Objects.requireNonNull(context, "context");
+
+        return HttpEntity.EMPTY.setContentType(HasHateosContentType.HATEOS_CONTENT_TYPE)
+            .addHeader(
+                HateosResourceMappings.X_CONTENT_TYPE_NAME,
+                type.getSimpleName()
+            ).setBodyText(
+                context.marshall(value)
+                    .toJsonText(context)
+            ).setContentLength();
+    }
+
+    /**
+     * Marshalls the value into a {@link SpreadsheetServerMediaTypes#JSON_BINARY} {@link HttpEntity}, with a
+     * {@link HateosResourceMappings#X_CONTENT_TYPE_NAME} of the given type and a content-length.
+     */
+    public static HttpEntity hateosJsonBinary(final Object value,
+                                              final Class<?> type,
+                                              final HateosHandlerContext context) {
+        Objects.requireNonNull(value, "value");
+        Objects.requireNonNull(type, "type");
+        Objects.requireNonNull(context, "context");
+
+        return HttpEntity.EMPTY.setContentType(SpreadsheetServerMediaTypes.JSON_BINARY)
+            .addHeader(
+                HateosResourceMappings.X_CONTENT_TYPE_NAME,
+                type.getSimpleName()
+            ).setBody(
+                Binary.with(
+                    SpreadsheetServerJsonBinary.encode(
+                        context.marshall(value)
+                    )
+                )
+            ).setContentLength();
+    }
+
+    /**
+     * Returns true if the {@link Accept} only accepts {@link SpreadsheetServerMediaTypes#JSON_BINARY} and not JSON.
+     * Wildcards such as <code>*&#47;*</code> continue to receive JSON.
+     */
+    public static boolean isJsonBinary(final Accept accept) {
+        Objects.requireNonNull(accept, "accept");
+
+        return accept.test(SpreadsheetServerMediaTypes.JSON_BINARY) &&
+            false == accept.test(HasHateosContentType.HATEOS_CONTENT_TYPE);
+    }
+
+    /**
+     * Stop creation
+     */
+    private SpreadsheetServerHttpEntities() {
+        throw new UnsupportedOperationException();
+    }
+}
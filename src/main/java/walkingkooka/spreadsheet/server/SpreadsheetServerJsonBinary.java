@@ -0,0 +1,84 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.server;
+
+import walkingkooka.reflect.PublicStaticHelper;
+import walkingkooka.spreadsheet.server.net.SpreadsheetServerMediaTypes;
+import walkingkooka.tree.json.JsonNode;
+
+import java.util.Objects;
+
+/**
+ * A compact binary encoding of any {@link JsonNode}, served when a request accepts {@link SpreadsheetServerMediaTypes#JSON_BINARY}.
+ * <ul>
+ *     <li>Every value starts with a single tag byte</li>
+ *     <li>Whole numbers are zig-zag varints, other numbers are 8 byte doubles</li>
+ *     <li>Array and object sizes are varints</li>
+ *     <li>Property names and string values are held in a per document dictionary, the first occurrence is written as a varint
+ *     length prefixed UTF-8 string and later occurrences as a varint index, which removes the repeated property names,
+ *     style values and formatter patterns found in large {@link walkingkooka.spreadsheet.engine.SpreadsheetDelta}</li>
+ * </ul>
+ * Decoding a document gives an equal {@link JsonNode}, so the JSON unmarshallers are used unchanged.
+ */
+public final class SpreadsheetServerJsonBinary implements PublicStaticHelper {
+
+    /**
+     * The first byte of every document, to allow the format to change.
+     */
+    final static byte VERSION = 1;
+
+    final static byte NULL = 0;
+
+    final static byte FALSE = 1;
+
+    final static byte TRUE = 2;
+
+    final static byte INTEGER = 3;
+
+    final static byte DOUBLE = 4;
+
+    final static byte STRING = 5;
+
+    final static byte ARRAY = 6;
+
+    final static byte OBJECT = 7;
+
+    /**
+     * Encodes the given {@link JsonNode} into bytes.
+     */
+    public static byte[] encode(final JsonNode node) {
+        Objects.requireNonNull(node, "node");
+
+        return SpreadsheetServerJsonBinaryWriter.write(node);
+    }
+
+    /**
+     * Decodes the bytes produced by {@link #encode(JsonNode)}.
+     */
+    public static JsonNode decode(final byte[] bytes) {
+        Objects.requireNonNull(bytes, "bytes");
+
+        return SpreadsheetServerJsonBinaryReader.read(bytes);
+    }
+
+    /**
+     * Stop creation
+     */
+    private SpreadsheetServerJsonBinary() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.server;
+
+import walkingkooka.collect.list.Lists;
+import walkingkooka.tree.json.JsonNode;
+import walkingkooka.tree.json.JsonPropertyName;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Reads a {@link JsonNode} from bytes in the {@link SpreadsheetServerJsonBinary} format.
+ */
+final class SpreadsheetServerJsonBinaryReader {
+
+    static JsonNode read(final byte[] bytes) {
+        final SpreadsheetServerJsonBinaryReader reader = new SpreadsheetServerJsonBinaryReader(bytes);
+
+        final byte version = reader.readByte();
+        if (SpreadsheetServerJsonBinary.VERSION != version) {
+            throw new IllegalArgumentException("Invalid version " + version + " expected " + SpreadsheetServerJsonBinary.VERSION);
+        }
+
+        final JsonNode node = reader.readNode();
+        if (reader.offset != bytes.length) {
+            throw new IllegalArgumentException("Invalid trailing bytes at " + reader.offset);
+        }
+        return node;
+    }
+
+    private SpreadsheetServerJsonBinaryReader(final byte[] bytes) {
+        super();
+        this.bytes = bytes;
+    }
+
+    private JsonNode readNode() {
+        final JsonNode node;
+
+        final int offset = this.offset;
+        final byte tag = this.readByte();
+        switch (tag) {
+            case SpreadsheetServerJsonBinary.NULL:
+                node = JsonNode.nullNode();
+                break;
+            case SpreadsheetServerJsonBinary.FALSE:
+                node = JsonNode.booleanNode(false);
+                break;
+            case SpreadsheetServerJsonBinary.TRUE:
+                node = JsonNode.booleanNode(true);
+                break;
+            case SpreadsheetServerJsonBinary.INTEGER:
+                final long zigZag = this.readVarint();
+                node = JsonNode.number((zigZag >>> 1) ^ -(zigZag & 1));
+                break;
+            case SpreadsheetServerJsonBinary.DOUBLE:
+                long bits = 0;
+                for (int i = 0; i < 8; i++) {
+                    bits = (bits << 8) | (this.readByte() & 0xFF);
+                }
+                node = JsonNode.number(Double.longBitsToDouble(bits));
+                break;
+            case SpreadsheetServerJsonBinary.STRING:
+                node = JsonNode.string(this.readString());
+                break;
+            case SpreadsheetServerJsonBinary.ARRAY:
+                node = JsonNode.array()
+                    .setChildren(this.readChildren(false));
+                break;
+            case SpreadsheetServerJsonBinary.OBJECT:
+                node = JsonNode.object()
+                    .setChildren(this.readChildren(true));
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid tag " + tag + " at " + offset);
+        }
+
+        return node;
+    }
+
+    private List<JsonNode> readChildren(final boolean names) {
+        final int count = this.readSize();
+        final List<JsonNode> children = Lists.array();
+
+        for (int i = 0; i < count; i++) {
+            final JsonPropertyName name = names ?
+                JsonPropertyName.with(this.readString()) :
+                null;
+            final JsonNode child = this.readNode();
+            children.add(
+                names ?
+                    child.setName(name) :
+                    child
+            );
+        }
+
+        return children;
+    }
+
+    private String readString() {
+        final int reference = this.readSize();
+
+        final String string;
+        if (0 == reference) {
+            final int length = this.readSize();
+            if (length > this.bytes.length - this.offset) {
+                throw new IllegalArgumentException("Invalid string length " + length + " at " + this.offset);
+            }
+            string = new String(
+                this.bytes,
+                this.offset,
+                length,
+                StandardCharsets.UTF_8
+            );
+            this.offset += length;
+            this.dictionary.add(string);
+        } else {
+            final int index = reference - 1;
+            if (index >= this.dictionary.size()) {
+                throw new IllegalArgumentException("Invalid string reference " + index + " at " + this.offset);
+            }
+            string = this.dictionary.get(index);
+        }
+
+        return string;
+    }
+
+    private final List<String> dictionary = Lists.array();
+
+    private int readSize() {
+        final long size = this.readVarint();
+        if (size < 0 || size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid size " + size + " at " + this.offset);
+        }
+        return (int) size;
+    }
+
+    private long readVarint() {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (shift > 63) {
+                throw new IllegalArgumentException("Invalid varint at " + this.offset);
+            }
+            b = this.readByte();
+            value = value | ((long) (b & 0x7F) << shift);
+            shift = shift + 7;
+        } while ((b & 0x80) != 0);
+
+        return value;
+    }
+
+    private byte readByte() {
+        if (this.offset >= this.bytes.length) {
+            throw new IllegalArgumentException("Invalid end of bytes at " + this.offset);
+        }
+        return this.bytes[this.offset++];
+    }
+
+    private final byte[] bytes;
+
+    private int offset;
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return this.offset + "/" + this.bytes.length;
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.server;
+
+import walkingkooka.collect.map.Maps;
+import walkingkooka.tree.json.JsonNode;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a {@link JsonNode} into the {@link SpreadsheetServerJsonBinary} format.
+ */
+final class SpreadsheetServerJsonBinaryWriter {
+
+    static byte[] write(final JsonNode node) {
+        final SpreadsheetServerJsonBinaryWriter writer = new SpreadsheetServerJsonBinaryWriter();
+        writer.writeByte(SpreadsheetServerJsonBinary.VERSION);
+        writer.writeNode(node);
+        return writer.bytes();
+    }
+
+    private SpreadsheetServerJsonBinaryWriter() {
+        super();
+    }
+
+    private void writeNode(final JsonNode node) {
+        if (node.isNull()) {
+            this.writeByte(SpreadsheetServerJsonBinary.NULL);
+        } else if (node.isBoolean()) {
+            this.writeByte(
+                node.booleanOrFail() ?
+                    SpreadsheetServerJsonBinary.TRUE :
+                    SpreadsheetServerJsonBinary.FALSE
+            );
+        } else if (node.isNumber()) {
+            this.writeNumber(
+                node.numberOrFail()
+                    .doubleValue()
+            );
+        } else if (node.isString()) {
+            this.writeByte(SpreadsheetServerJsonBinary.STRING);
+            this.writeString(node.stringOrFail());
+        } else if (node.isArray()) {
+            this.writeByte(SpreadsheetServerJsonBinary.ARRAY);
+            this.writeChildren(node, false);
+        } else {
+            this.writeByte(SpreadsheetServerJsonBinary.OBJECT);
+            this.writeChildren(node, true);
+        }
+    }
+
+    private void writeNumber(final double value) {
+        final long longValue = (long) value;
+
+        // -0.0 and fractions must keep all their bits
+        if (longValue == value && (0 != longValue || 1 / value > 0)) {
+            this.writeByte(SpreadsheetServerJsonBinary.INTEGER);
+            this.writeVarint((longValue << 1) ^ (longValue >> 63));
+        } else {
+            this.writeByte(SpreadsheetServerJsonBinary.DOUBLE);
+
+            final long bits = Double.doubleToLongBits(value);
+            for (int i = 56; i >= 0; i = i - 8) {
+                this.writeByte((byte) (bits >>> i));
+            }
+        }
+    }
+
+    private void writeChildren(final JsonNode node,
+                               final boolean names) {
+        final List<JsonNode> children = node.children();
+        this.writeVarint(children.size());
+
+        for (final JsonNode child : children) {
+            if (names) {
+                this.writeString(
+                    child.name()
+                        .value()
+                );
+            }
+            this.writeNode(child);
+        }
+    }
+
+    /**
+     * Writes the dictionary index plus one of a previously written string, or zero followed by the new string.
+     */
+    private void writeString(final String string) {
+        final Integer index = this.dictionary.get(string);
+        if (null != index) {
+            this.writeVarint(index + 1);
+        } else {
+            this.dictionary.put(
+                string,
+                this.dictionary.size()
+            );
+
+            final byte[] utf8 = string.getBytes(StandardCharsets.UTF_8);
+            this.writeVarint(0);
+            this.writeVarint(utf8.length);
+            this.ensureCapacity(utf8.length);
+            System.arraycopy(
+                utf8,
+                0,
+                this.buffer,
+                this.length,
+                utf8.length
+            );
+            this.length += utf8.length;
+        }
+    }
+
+    private final Map<String, Integer> dictionary = Maps.hash();
+
+    private void writeVarint(final long value) {
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0) {
+            this.writeByte((byte) ((remaining & 0x7F) | 0x80));
+            remaining = remaining >>> 7;
+        }
+        this.writeByte((byte) remaining);
+    }
+
+    private void writeByte(final byte value) {
+        this.ensureCapacity(1);
+        this.buffer[this.length++] = value;
+    }
+
+    private void ensureCapacity(final int count) {
+        final int required = this.length + count;
+        if (required > this.buffer.length) {
+            final byte[] buffer = new byte[Math.max(required, this.buffer.length * 2)];
+            System.arraycopy(
+                this.buffer,
+                0,
+                buffer,
+                0,
+                this.length
+            );
+            this.buffer = buffer;
+        }
+    }
+
+    private byte[] bytes() {
+        final byte[] bytes = new byte[this.length];
+        System.arraycopy(
+            this.buffer,
+            0,
+            bytes,
+            0,
+            this.length
+        );
+        return bytes;
+    }
+
+    private byte[] buffer = new byte[256];
+
+    private int length;
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return this.length + " bytes " + this.dictionary.size() + " strings";
+    }
+}
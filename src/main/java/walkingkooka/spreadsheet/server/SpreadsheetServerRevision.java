@@ -0,0 +1,186 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.server;
+
+import walkingkooka.net.RelativeUrl;
+import walkingkooka.net.UrlPathName;
+import walkingkooka.net.header.ETag;
+import walkingkooka.net.header.ETagValidator;
+import walkingkooka.net.header.MediaType;
+import walkingkooka.net.http.HttpMethod;
+import walkingkooka.net.http.server.HttpRequest;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngineEvaluation;
+import walkingkooka.spreadsheet.server.net.SpreadsheetServerLinkRelations;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A monotonically increasing revision for a single spreadsheet, shared by all users of the spreadsheet and incremented
+ * whenever a cell, label or the metadata changes or any request that changes the spreadsheet is handled. Cell loads
+ * use the revision to compute an {@link ETag}, which allows an unchanged window to be answered with a 304 without
+ * loading any cells, and clients may return the revision in a later load to receive only the cells that changed since.
+ * <br>
+ * All revisions are taken from a single counter, so a revision is never reused by another spreadsheet or after a
+ * spreadsheet is reloaded, and a revision held by a client from before a reload is always older.
+ */
+final class SpreadsheetServerRevision {
+
+    static SpreadsheetServerRevision empty() {
+        return new SpreadsheetServerRevision();
+    }
+
+    private SpreadsheetServerRevision() {
+        super();
+        this.value = NEXT.incrementAndGet();
+    }
+
+    /**
+     * Starts at the current time in microseconds so revisions continue to increase after a restart, unless the previous
+     * run averaged more than a thousand revisions every millisecond. The value stays well below 2^53 so revisions
+     * survive being a JSON number.
+     */
+    private final static AtomicLong NEXT = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    /**
+     * Increments and returns the new revision.
+     */
+    synchronized long increment() {
+        final long value = NEXT.incrementAndGet();
+        this.value = value;
+        return value;
+    }
+
+    long value() {
+        return this.value;
+    }
+
+    private volatile long value;
+
+    /**
+     * Computes a weak {@link ETag} for a cell load, the url includes the window and {@link walkingkooka.spreadsheet.engine.SpreadsheetDeltaProperties},
+     * the content type gives the JSON and binary forms of the same load their own {@link ETag}, while the viewport is
+     * any held viewport that has not yet been saved. The url, content type and viewport are included in full rather
+     * than hashed, so two different loads never share an {@link ETag}.
+     */
+    ETag etag(final RelativeUrl url,
+              final MediaType contentType,
+              final Object viewport) {
+        final StringBuilder value = new StringBuilder();
+        value.append(Long.toHexString(this.value()));
+        etagComponent(contentType, value);
+        etagComponent(url, value);
+        if (null != viewport) {
+            etagComponent(viewport, value);
+        }
+
+        return ETag.with(
+            value.toString(),
+            ETagValidator.WEAK
+        );
+    }
+
+    /**
+     * Appends a <code>-</code> followed by the component, escaping <code>-</code>, <code>%</code>, quotes and any
+     * character not allowed within an {@link ETag} as a <code>%</code> followed by four hex digits, so components are
+     * never ambiguous.
+     */
+    private static void etagComponent(final Object component,
+                                      final StringBuilder value) {
+        value.append('-');
+
+        for (final char c : component.toString().toCharArray()) {
+            if (c <= ' ' || c > '~' || '"' == c || '%' == c || '-' == c) {
+                final String hex = Integer.toHexString(c);
+                value.append('%')
+                    .append("0000", hex.length(), 4)
+                    .append(hex);
+            } else {
+                value.append(c);
+            }
+        }
+    }
+
+    /**
+     * Tests if the request always changes the spreadsheet, such as any request other than a GET, or a GET that sorts or
+     * force recomputes cells, in which case the revision is incremented after it is handled, even when no watcher
+     * observed a change, such as inserting columns or rows.
+     */
+    static boolean isChange(final HttpRequest request) {
+        boolean change = false == HttpMethod.GET.equals(request.method());
+
+        if (false == change) {
+            for (final UrlPathName name : request.url().path()) {
+                if (SORT.equals(name) || FORCE_RECOMPUTE.equals(name)) {
+                    change = true;
+                    break;
+                }
+            }
+        }
+
+        return change;
+    }
+
+    private final static UrlPathName SORT = SpreadsheetServerLinkRelations.SORT.toUrlPathName()
+        .get();
+
+    private final static UrlPathName FORCE_RECOMPUTE = SpreadsheetEngineEvaluation.FORCE_RECOMPUTE.toLinkRelation()
+        .toUrlPathName()
+        .get();
+
+    /**
+     * Only GETs of a cell, range or viewport such as <code>/api/spreadsheet/1/cell/*?home=A1&width=200&height=60</code>
+     * are loads, actions such as <code>/api/spreadsheet/1/cell/A1/force-recompute</code> are not.
+     */
+    static boolean isCellLoad(final HttpRequest request) {
+        return HttpMethod.GET.equals(request.method()) &&
+            CELL_LOAD_NAME_COUNT == request.url()
+                .path()
+                .namesList()
+                .size() &&
+            isCell(request);
+    }
+
+    /**
+     * Tests if the request is for cells such as <code>/api/spreadsheet/1/cell/A1/sort</code>, all changes made by
+     * these requests are observed by cell watchers.
+     */
+    static boolean isCell(final HttpRequest request) {
+        final List<UrlPathName> names = request.url()
+            .path()
+            .namesList();
+        return names.size() > CELL_NAME_INDEX &&
+            CELL.equals(names.get(CELL_NAME_INDEX));
+    }
+
+    /**
+     * The index of <code>cell</code> which follows the {@link walkingkooka.spreadsheet.meta.SpreadsheetId}.
+     */
+    private final static int CELL_NAME_INDEX = SpreadsheetHttpServer.API_SPREADSHEET.namesList()
+        .size() + 1;
+
+    private final static int CELL_LOAD_NAME_COUNT = CELL_NAME_INDEX + 2;
+
+    private final static UrlPathName CELL = UrlPathName.with("cell");
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return String.valueOf(this.value());
+    }
+}
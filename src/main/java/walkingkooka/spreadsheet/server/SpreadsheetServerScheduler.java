@@ -0,0 +1,129 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.server;
+
+import javaemul.internal.annotations.GwtIncompatible;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+abstract class SpreadsheetServerScheduler extends SpreadsheetServerSchedulerGwt {
+
+    /**
+     * Runs the task with the target once every {@link #PERIOD}, until the target is garbage collected, so the scheduler
+     * never keeps the target alive. All tasks share a single repeating task, so the task must decide itself if any
+     * work is due, and must only hand off any slow work.
+     */
+    // shadows a method with same signature in SpreadsheetServerSchedulerGwt
+    @GwtIncompatible
+    static <T> void repeatWhileReachable(final T target,
+                                         final Consumer<T> task) {
+        final WeakReference<T> reference = new WeakReference<>(target);
+
+        tasks().add(
+            () -> {
+                final T t = reference.get();
+                if (null != t) {
+                    task.accept(t);
+                }
+                return null != t;
+            }
+        );
+    }
+
+    /**
+     * Returns the tasks, starting the single repeating task when the first task is added. A static initializer cannot
+     * be marked {@link GwtIncompatible}, so the executor is started here rather than when this class is loaded.
+     */
+    @GwtIncompatible
+    private static Queue<BooleanSupplier> tasks() {
+        if (false == STARTED.getAndSet(true)) {
+            EXECUTOR.scheduleWithFixedDelay(
+                SpreadsheetServerScheduler::runTasks,
+                PERIOD.toMillis(),
+                PERIOD.toMillis(),
+                TimeUnit.MILLISECONDS
+            );
+        }
+        return TASKS;
+    }
+
+    /**
+     * Runs every task, removing those whose target was garbage collected. A failing task is only skipped, catching any
+     * {@link Throwable} including an {@link Error} such as {@link OutOfMemoryError}, as anything thrown would stop the
+     * repeating task and therefore all other tasks of every cache.
+     */
+    @GwtIncompatible
+    private static void runTasks() {
+        TASKS.removeIf(
+            (t) -> {
+                boolean reachable;
+                try {
+                    reachable = t.getAsBoolean();
+                } catch (final Throwable ignore) {
+                    reachable = true;
+                }
+                return false == reachable;
+            }
+        );
+    }
+
+    /**
+     * Each task returns false once its target was garbage collected.
+     */
+    @GwtIncompatible
+    private final static Queue<BooleanSupplier> TASKS = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The period of the single repeating task, which is also the shortest period of any task.
+     */
+    @GwtIncompatible
+    private final static Duration PERIOD = Duration.ofSeconds(1);
+
+    /**
+     * A single daemon thread, tasks must be short such as evicting idle cache entries.
+     */
+    @GwtIncompatible
+    private final static ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(
+        (r) -> {
+            final Thread thread = new Thread(
+                r,
+                "spreadsheet-server-scheduler"
+            );
+            thread.setDaemon(true);
+            return thread;
+        }
+    );
+
+    /**
+     * Set once the single repeating task is started by {@link #tasks()}.
+     */
+    @GwtIncompatible
+    private final static AtomicBoolean STARTED = new AtomicBoolean();
+
+    private SpreadsheetServerScheduler() {
+        throw new UnsupportedOperationException();
+    }
+}
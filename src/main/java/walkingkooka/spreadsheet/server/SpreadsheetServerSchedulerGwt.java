@@ -0,0 +1,34 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.server;
+
+import java.util.function.Consumer;
+
+abstract class SpreadsheetServerSchedulerGwt {
+
+    /**
+     * Javascript has no background threads, so repeating tasks are never run.
+     */
+    static <T> void repeatWhileReachable(final T target,
+                                         final Consumer<T> task) {
+        // nop
+    }
+
+    SpreadsheetServerSchedulerGwt() {
+        throw new UnsupportedOperationException();
+    }
+}
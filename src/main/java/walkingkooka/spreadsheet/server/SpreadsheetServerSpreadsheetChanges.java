@@ -0,0 +1,202 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.server;
+
+import walkingkooka.collect.list.Lists;
+import walkingkooka.net.http.HttpEntity;
+import walkingkooka.net.http.server.HttpRequest;
+import walkingkooka.spreadsheet.meta.SpreadsheetId;
+import walkingkooka.spreadsheet.meta.SpreadsheetMetadata;
+import walkingkooka.spreadsheet.meta.SpreadsheetMetadataPropertyName;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
+import walkingkooka.spreadsheet.store.repo.SpreadsheetStoreRepository;
+import walkingkooka.spreadsheet.value.SpreadsheetCell;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * The {@link SpreadsheetServerRevision}, {@link SpreadsheetServerChangeLog}, {@link SpreadsheetServerCellValueIndex}
+ * and cached responses of a single spreadsheet, shared by the pipelines of all users of the spreadsheet, as the stores
+ * of a spreadsheet are shared by all users. The store watchers are added once to the {@link SpreadsheetStoreRepository}
+ * of the spreadsheet rather than the context of any one user, and removed when the last pipeline releases it.
+ */
+final class SpreadsheetServerSpreadsheetChanges {
+
+    static SpreadsheetServerSpreadsheetChanges with(final SpreadsheetId spreadsheetId,
+                                                    final SpreadsheetStoreRepository repository,
+                                                    final SpreadsheetServerCache<String, HttpEntity> viewportResponses,
+                                                    final SpreadsheetServerCache<String, HttpEntity> eventResponses) {
+        return new SpreadsheetServerSpreadsheetChanges(
+            Objects.requireNonNull(spreadsheetId, "spreadsheetId"),
+            Objects.requireNonNull(repository, "repository"),
+            Objects.requireNonNull(viewportResponses, "viewportResponses"),
+            Objects.requireNonNull(eventResponses, "eventResponses")
+        );
+    }
+
+    private SpreadsheetServerSpreadsheetChanges(final SpreadsheetId spreadsheetId,
+                                                final SpreadsheetStoreRepository repository,
+                                                final SpreadsheetServerCache<String, HttpEntity> viewportResponses,
+                                                final SpreadsheetServerCache<String, HttpEntity> eventResponses) {
+        super();
+
+        this.viewportResponses = viewportResponses;
+        this.eventResponses = eventResponses;
+
+        final SpreadsheetServerRevision revision = SpreadsheetServerRevision.empty();
+        this.revision = revision;
+        this.changeLog = SpreadsheetServerChangeLog.with(
+            revision,
+            MAX_CHANGES
+        );
+        this.cellValueIndex = SpreadsheetServerCellValueIndex.with(
+            () -> repository.cells()
+                .loadCellRange(SpreadsheetSelection.ALL_CELLS)
+        );
+
+        this.removeWatchers = Lists.of(
+            repository.cells()
+                .addWatcher(
+                    (oldCell, newCell) -> this.cellChanged(
+                        oldCell.map(SpreadsheetCell::reference)
+                            .orElseGet(() -> newCell.get().reference()),
+                        newCell
+                    )
+                ),
+            repository.labels()
+                .addWatcher(
+                    (oldLabel, newLabel) -> this.changed()
+                ),
+            repository.metadatas()
+                .addWatcher(
+                    (oldMetadata, newMetadata) -> {
+                        // metadata store is shared by all spreadsheets
+                        if (isSpreadsheetId(oldMetadata, spreadsheetId) || isSpreadsheetId(newMetadata, spreadsheetId)) {
+                            this.changed();
+                        }
+                    }
+                )
+        );
+    }
+
+    private static boolean isSpreadsheetId(final Optional<SpreadsheetMetadata> metadata,
+                                           final SpreadsheetId spreadsheetId) {
+        return metadata.flatMap(m -> m.get(SpreadsheetMetadataPropertyName.SPREADSHEET_ID))
+            .map(spreadsheetId::equals)
+            .orElse(false);
+    }
+
+    /**
+     * Called after any request for the spreadsheet has been handled, incrementing the revision when the request always
+     * changes the spreadsheet. Columns and rows have no watchers, while every cell change is observed by the cell
+     * watcher.
+     */
+    void handled(final HttpRequest request) {
+        if (SpreadsheetServerRevision.isChange(request)) {
+            if (SpreadsheetServerRevision.isCell(request)) {
+                this.revision.increment();
+            } else {
+                this.changed();
+            }
+        }
+    }
+
+    /**
+     * Logs the changed or deleted cell and updates the value index.
+     */
+    private void cellChanged(final SpreadsheetCellReference reference,
+                             final Optional<SpreadsheetCell> cell) {
+        this.changeLog.cell(reference);
+        this.cellValueIndex.cellChanged(
+            reference,
+            cell
+        );
+    }
+
+    /**
+     * Logs a change that may touch any cell, column or row. The value index is not cleared, as every cell saved or
+     * deleted by such a change, including cells moved by inserting or deleting columns or rows, or evaluated again
+     * after a label or the metadata changes, is observed by the cell watcher.
+     */
+    private void changed() {
+        this.changeLog.all();
+    }
+
+    // @VisibleForTesting
+    final SpreadsheetServerRevision revision;
+
+    /**
+     * Bounds the memory used to answer cell loads since an earlier revision, older revisions receive all cells.
+     */
+    private final static int MAX_CHANGES = 1024;
+
+    final SpreadsheetServerChangeLog changeLog;
+
+    final SpreadsheetServerCellValueIndex cellValueIndex;
+
+    /**
+     * Successful cell load responses keyed by the revision, the JSON or binary content type and the url, so all users
+     * loading the same window at the same revision share a single load. The cache is shared by all spreadsheets, which
+     * bounds the memory of all cached responses, as revisions are never reused by another spreadsheet.
+     */
+    final SpreadsheetServerCache<String, HttpEntity> viewportResponses;
+
+    /**
+     * Event responses keyed by the revision, the since revision and window, shared by all spreadsheets like
+     * {@link #viewportResponses}.
+     */
+    final SpreadsheetServerCache<String, HttpEntity> eventResponses;
+
+    private final List<Runnable> removeWatchers;
+
+    SpreadsheetServerSpreadsheetChanges retain() {
+        this.references++;
+        return this;
+    }
+
+    /**
+     * Returns null when there are no more references, which removes these changes when used within a
+     * {@link java.util.Map#compute}, after removing the store watchers.
+     */
+    SpreadsheetServerSpreadsheetChanges release() {
+        this.references--;
+
+        SpreadsheetServerSpreadsheetChanges changes = this;
+        if (0 == this.references) {
+            this.removeWatchers.forEach(Runnable::run);
+            changes = null;
+        }
+        return changes;
+    }
+
+    /**
+     * Only modified within {@link java.util.Map#compute}, which is atomic for a concurrent map.
+     */
+    // @VisibleForTesting
+    int references;
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return this.changeLog.toString();
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.server;
+
+import walkingkooka.spreadsheet.meta.SpreadsheetId;
+import walkingkooka.spreadsheet.meta.SpreadsheetMetadata;
+import walkingkooka.spreadsheet.meta.SpreadsheetMetadataPropertyName;
+import walkingkooka.spreadsheet.meta.store.SpreadsheetMetadataStore;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Coalesces saves of {@link SpreadsheetMetadata} that only change the {@link SpreadsheetMetadataPropertyName#VIEWPORT_HOME}
+ * and {@link SpreadsheetMetadataPropertyName#VIEWPORT_SELECTION}, such as when a user scrolls with the arrow keys.
+ * The first save is written immediately, later saves within the interval are held and only the latest is written by
+ * the next save after the interval, by {@link #flushIfDue(LocalDateTime)} which is also called every second by a
+ * scheduled task, or by {@link #flush()} when the owning pipeline is closed. Callers must hold the write lock of the
+ * spreadsheet when saving or flushing, so a held save never overwrites metadata being saved by another request. Saving the same metadata as the last written is skipped.
+ */
+final class SpreadsheetViewportMetadataWriteBehind {
+
+    static SpreadsheetViewportMetadataWriteBehind with(final Duration interval) {
+        Objects.requireNonNull(interval, "interval");
+        if (interval.isNegative()) {
+            throw new IllegalArgumentException("Invalid interval " + interval + " < 0");
+        }
+
+        return new SpreadsheetViewportMetadataWriteBehind(interval);
+    }
+
+    private SpreadsheetViewportMetadataWriteBehind(final Duration interval) {
+        super();
+        this.interval = interval;
+    }
+
+    /**
+     * Saves or holds the given {@link SpreadsheetMetadata}, returning the metadata which should be used for the response.
+     */
+    synchronized SpreadsheetMetadata save(final SpreadsheetMetadata metadata,
+                                          final SpreadsheetMetadataStore store,
+                                          final LocalDateTime now) {
+        Objects.requireNonNull(metadata, "metadata");
+        Objects.requireNonNull(store, "store");
+        Objects.requireNonNull(now, "now");
+
+        final SpreadsheetMetadata saved;
+
+        final LocalDateTime lastSave = this.lastSave;
+        if (null == this.pending && metadata.equals(this.saved)) {
+            // viewport unchanged since the last write, skipping the save also avoids firing any store watchers
+            saved = metadata;
+        } else if (null == lastSave || false == now.isBefore(lastSave.plus(this.interval))) {
+            saved = store.save(metadata);
+
+            this.saved = saved;
+            this.pending = null;
+            this.store = null;
+            this.lastSave = now;
+        } else {
+            saved = metadata;
+
+            // later saves within the same interval replace the held metadata
+            this.pending = metadata;
+            this.store = store;
+        }
+
+        return saved;
+    }
+
+    /**
+     * Writes any held viewport once the interval since the last write has passed, called by requests and every second
+     * by a scheduled task, so a held viewport is written soon after the user stops scrolling.
+     */
+    synchronized void flushIfDue(final LocalDateTime now) {
+        Objects.requireNonNull(now, "now");
+
+        if (null != this.pending && false == now.isBefore(this.lastSave.plus(this.interval))) {
+            this.flush();
+            this.lastSave = now;
+        }
+    }
+
+    /**
+     * Writes any held viewport to the latest {@link SpreadsheetMetadata} in the store, so other properties saved in the
+     * meantime are not lost.
+     */
+    synchronized void flush() {
+        final SpreadsheetMetadata pending = this.pending;
+        if (null != pending) {
+            final SpreadsheetMetadataStore store = this.store;
+
+            this.pending = null;
+            this.store = null;
+            this.saved = null;
+
+            final SpreadsheetId id = pending.getOrFail(SpreadsheetMetadataPropertyName.SPREADSHEET_ID);
+
+            // spreadsheet may have been deleted
+            store.load(id)
+                .ifPresent(
+                    latest -> store.save(
+                        latest.set(
+                            SpreadsheetMetadataPropertyName.VIEWPORT_HOME,
+                            pending.getOrFail(SpreadsheetMetadataPropertyName.VIEWPORT_HOME)
+                        ).setOrRemove(
+                            SpreadsheetMetadataPropertyName.VIEWPORT_SELECTION,
+                            pending.get(SpreadsheetMetadataPropertyName.VIEWPORT_SELECTION)
+                                .orElse(null)
+                        )
+                    )
+                );
+        }
+    }
+
+    /**
+     * Returns any held {@link SpreadsheetMetadata} that has not yet been written.
+     */
+    synchronized Optional<SpreadsheetMetadata> held() {
+        return Optional.ofNullable(this.pending);
+    }
+
+    private final Duration interval;
+
+    /**
+     * The latest held {@link SpreadsheetMetadata} or null when there is nothing to flush.
+     */
+    // @VisibleForTesting
+    SpreadsheetMetadata pending;
+
+    private SpreadsheetMetadataStore store;
+
+    /**
+     * The {@link SpreadsheetMetadata} returned by the last immediate save.
+     */
+    private SpreadsheetMetadata saved;
+
+    private LocalDateTime lastSave;
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return "interval=" + this.interval +
+            (null != this.pending ? " pending=" + this.pending.get(SpreadsheetMetadataPropertyName.VIEWPORT_HOME).orElse(null) : "");
+    }
+}
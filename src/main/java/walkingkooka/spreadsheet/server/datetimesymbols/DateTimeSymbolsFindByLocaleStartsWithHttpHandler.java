@@ -23,13 +23,12 @@ import walkingkooka.locale.LocaleLanguageTag;
 import walkingkooka.net.UrlPathName;
 import walkingkooka.net.header.HasHateosContentType;
 import walkingkooka.net.header.HttpHeaderName;
-import walkingkooka.net.http.HttpEntity;
 import walkingkooka.net.http.HttpStatusCode;
 import walkingkooka.net.http.server.GetOrHeadHttpHandler;
 import walkingkooka.net.http.server.HttpHandler;
 import walkingkooka.net.http.server.HttpRequest;
 import walkingkooka.net.http.server.HttpResponse;
-import walkingkooka.net.http.server.hateos.HateosResourceMappings;
+import walkingkooka.spreadsheet.server.SpreadsheetServerHttpEntities;
 import walkingkooka.spreadsheet.server.locale.LocaleHateosHandlerContext;
 
 import java.util.List;
@@ -91,16 +90,11 @@ final class DateTimeSymbolsFindByLocaleStartsWithHttpHandler implements GetOrHea
             HttpStatusCode.OK.status()
         );
         response.setEntity(
-            HttpEntity.EMPTY.setContentType(
-                HATEOS_CONTENT_TYPE
-            ).addHeader(
-                HateosResourceMappings.X_CONTENT_TYPE_NAME,
-                DateTimeSymbolsHateosResourceSet.class.getSimpleName()
-            ).setBodyText(
-                context.marshall(
-                    DateTimeSymbolsHateosResourceSet.with(all)
-                ).toJsonText(context)
-            ).setContentLength()
+            SpreadsheetServerHttpEntities.hateosJson(
+                DateTimeSymbolsHateosResourceSet.with(all),
+                DateTimeSymbolsHateosResourceSet.class,
+                context
+            )
         );
     }
 
@@ -22,6 +22,7 @@ import walkingkooka.collect.Range;
 import walkingkooka.collect.list.Lists;
 import walkingkooka.collect.map.Maps;
 import walkingkooka.collect.set.Sets;
+import walkingkooka.collect.set.SortedSets;
 import walkingkooka.net.UrlPath;
 import walkingkooka.net.http.server.HttpRequestAttribute;
 import walkingkooka.net.http.server.hateos.HateosResourceHandler;
@@ -36,6 +37,7 @@ import walkingkooka.spreadsheet.reference.SpreadsheetCellRangeReference;
 import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
 import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
 import walkingkooka.spreadsheet.server.SpreadsheetEngineHateosHandlerContext;
+import walkingkooka.spreadsheet.value.SpreadsheetCell;
 import walkingkooka.spreadsheet.viewport.SpreadsheetViewport;
 import walkingkooka.spreadsheet.viewport.SpreadsheetViewportWindows;
 
@@ -46,6 +48,12 @@ import java.util.Set;
 
 /**
  * A {@link HateosResourceHandler} that calls {@link SpreadsheetEngine#loadCells(SpreadsheetSelection, SpreadsheetEngineEvaluation, Set, SpreadsheetEngineContext)}.
+ * <br>
+ * Viewport loads with a <code>since</code> revision only answer the cells and deleted cells changed since that
+ * revision. Changes to columns, rows, labels or the metadata are not tracked individually, instead
+ * {@link SpreadsheetEngineHateosHandlerContext#changedCellsSince(long)} returns nothing after any of them, and the entire
+ * window including its columns, rows and labels is loaded, as it is when the revision is too old or navigations moved
+ * the window.
  */
 final class SpreadsheetDeltaHateosResourceHandlerLoadCell extends SpreadsheetDeltaHateosResourceHandler<SpreadsheetCellReference> {
 
@@ -91,31 +99,38 @@ final class SpreadsheetDeltaHateosResourceHandlerLoadCell extends SpreadsheetDel
             context
         );
 
-        // if the selection moved need to SAVE!
+        // if the selection moved need to SAVE, rapid navigations such as arrow keys may be coalesced into a single save
         SpreadsheetMetadata metadata = context.spreadsheetMetadata();
 
         if (maybeNavigatedViewport.isPresent()) {
             final SpreadsheetViewport navigatedViewport = maybeNavigatedViewport.get();
 
-            metadata = context.storeRepository()
-                .metadatas()
-                .save(
-                    metadata.set(
-                        SpreadsheetMetadataPropertyName.VIEWPORT_HOME,
-                        navigatedViewport.rectangle()
-                            .home()
-                    ).setOrRemove(
-                        SpreadsheetMetadataPropertyName.VIEWPORT_SELECTION,
-                        navigatedViewport.anchoredSelection()
-                            .orElse(null)
-                    )
-                );
+            metadata = context.saveViewportMetadata(
+                metadata.set(
+                    SpreadsheetMetadataPropertyName.VIEWPORT_HOME,
+                    navigatedViewport.rectangle()
+                        .home()
+                ).setOrRemove(
+                    SpreadsheetMetadataPropertyName.VIEWPORT_SELECTION,
+                    navigatedViewport.anchoredSelection()
+                        .orElse(null)
+                )
+            );
         }
 
+        // changes since a revision only cover the window already held by the client, which navigations may move
+        final boolean windowUnchanged = viewport.navigations()
+            .isEmpty() &&
+            maybeNavigatedViewport.map(
+                v -> v.rectangle()
+                    .equals(viewport.rectangle())
+            ).orElse(true);
+
         return this.handleAll0(
             resource,
             parameters,
             maybeNavigatedViewport.orElse(viewport),
+            windowUnchanged,
             SpreadsheetDeltaHateosResourceHandlerLoadCellSpreadsheetEngineHateosHandlerContext.with(
                 metadata,
                 engine,
@@ -125,11 +140,13 @@ final class SpreadsheetDeltaHateosResourceHandlerLoadCell extends SpreadsheetDel
     }
 
     /**
-     * This is invoked after any navigations to the viewport.
+     * This is invoked after any navigations to the viewport. Only the cells changed since the revision given by the
+     * client are loaded when the window was not moved by navigations, otherwise the full window is loaded.
      */
     private Optional<SpreadsheetDelta> handleAll0(final Optional<SpreadsheetDelta> resource,
                                                   final Map<HttpRequestAttribute<?>, Object> parameters,
                                                   final SpreadsheetViewport viewport,
+                                                  final boolean windowUnchanged,
                                                   final SpreadsheetEngineHateosHandlerContext context) {
         final SpreadsheetViewportWindows window = context.spreadsheetEngine()
             .window(
@@ -153,15 +170,83 @@ final class SpreadsheetDeltaHateosResourceHandlerLoadCell extends SpreadsheetDel
             )
         );
 
-        return this.handleRange0(
-            window.cellRanges(),
-            resource,
-            Optional.of(viewport),
-            Maps.immutable(
-                parametersPlusWindow
-            ),
+        final Optional<Set<SpreadsheetCellReference>> changed = windowUnchanged ?
+            SpreadsheetDeltaUrlQueryParameters.since(parameters)
+                .flatMap(context::changedCellsSince) :
+            Optional.empty();
+
+        return changed.isPresent() ?
+            this.handleChangedCells(
+                changed.get(),
+                window,
+                resource,
+                viewport,
+                Maps.immutable(
+                    parametersPlusWindow
+                ),
+                context
+            ) :
+            this.handleRange0(
+                window.cellRanges(),
+                resource,
+                Optional.of(viewport),
+                Maps.immutable(
+                    parametersPlusWindow
+                ),
+                context
+            );
+    }
+
+    /**
+     * Only loads the cells within the window that changed since the revision given by the client, changed cells that no
+     * longer exist are returned as deleted cells. Only called when nothing but cells changed since that revision, so
+     * the columns, rows and labels held by the client are still current.
+     */
+    private Optional<SpreadsheetDelta> handleChangedCells(final Set<SpreadsheetCellReference> changed,
+                                                          final SpreadsheetViewportWindows window,
+                                                          final Optional<SpreadsheetDelta> resource,
+                                                          final SpreadsheetViewport viewport,
+                                                          final Map<HttpRequestAttribute<?>, Object> parameters,
+                                                          final SpreadsheetEngineHateosHandlerContext context) {
+        final Set<SpreadsheetCellRangeReference> windowCellRanges = window.cellRanges();
+
+        final Set<SpreadsheetCellReference> changedWithinWindow = SortedSets.tree();
+        final Set<SpreadsheetCellRangeReference> changedCellRanges = Sets.ordered();
+
+        for (final SpreadsheetCellReference cell : changed) {
+            for (final SpreadsheetCellRangeReference cellRange : windowCellRanges) {
+                if (cellRange.testCell(cell)) {
+                    changedWithinWindow.add(cell);
+                    changedCellRanges.add(cell.toCellRange());
+                    break;
+                }
+            }
+        }
+
+        final SpreadsheetDelta loaded = this.loadMultipleCellRanges(
+            changedCellRanges,
+            SpreadsheetDeltaProperties.extract(parameters),
             context
         );
+
+        final Set<SpreadsheetCellReference> deleted = SortedSets.tree();
+        deleted.addAll(changedWithinWindow);
+        deleted.addAll(loaded.deletedCells());
+        for (final SpreadsheetCell cell : loaded.cells()) {
+            deleted.remove(cell.reference());
+        }
+
+        return Optional.of(
+            this.prepareResponse(
+                resource,
+                parameters,
+                context,
+                loaded.setDeletedCells(deleted)
+                    .setViewport(
+                        Optional.of(viewport)
+                    )
+            )
+        );
     }
 
     final static String MISSING_VIEWPORT = "Missing: " +
@@ -26,14 +26,17 @@ import walkingkooka.environment.EnvironmentValueName;
 import walkingkooka.locale.LocaleLanguageTag;
 import walkingkooka.net.email.EmailAddress;
 import walkingkooka.net.header.ETag;
+import walkingkooka.spreadsheet.engine.SpreadsheetCellQuery;
 import walkingkooka.spreadsheet.engine.SpreadsheetEngine;
 import walkingkooka.spreadsheet.engine.SpreadsheetEngineContext;
 import walkingkooka.spreadsheet.engine.SpreadsheetEngineContextDelegator;
 import walkingkooka.spreadsheet.meta.SpreadsheetMetadata;
 import walkingkooka.spreadsheet.provider.SpreadsheetProvider;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
 import walkingkooka.spreadsheet.reference.SpreadsheetLabelName;
 import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
 import walkingkooka.spreadsheet.server.SpreadsheetEngineHateosHandlerContext;
+import walkingkooka.spreadsheet.value.SpreadsheetCell;
 import walkingkooka.text.Indentation;
 import walkingkooka.text.LineEnding;
 import walkingkooka.tree.expression.ExpressionNumberKind;
@@ -41,6 +44,7 @@ import walkingkooka.tree.json.marshall.JsonNodeMarshallContextObjectPostProcesso
 import walkingkooka.tree.json.marshall.JsonNodeMarshallUnmarshallContext;
 import walkingkooka.tree.json.marshall.JsonNodeMarshallUnmarshallContextDelegator;
 import walkingkooka.tree.json.marshall.JsonNodeUnmarshallContextPreProcessor;
+import walkingkooka.validation.ValueType;
 
 import java.math.MathContext;
 import java.time.LocalDateTime;
@@ -48,6 +52,7 @@ import java.util.Currency;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * A {@link SpreadsheetEngineHateosHandlerContext} which delegates all methods to the given {@link SpreadsheetEngineHateosHandlerContext},
@@ -119,6 +124,30 @@ final class SpreadsheetDeltaHateosResourceHandlerLoadCellSpreadsheetEngineHateos
 
     private final SpreadsheetMetadata metadata;
 
+    @Override
+    public SpreadsheetMetadata saveViewportMetadata(final SpreadsheetMetadata metadata) {
+        return this.context.saveViewportMetadata(metadata);
+    }
+
+    @Override
+    public Optional<Set<SpreadsheetCellReference>> changedCellsSince(final long revision) {
+        return this.context.changedCellsSince(revision);
+    }
+
+    @Override
+    public Set<SpreadsheetCellReference> matchedCells(final SpreadsheetCellQuery query,
+                                                      final Set<SpreadsheetCell> cells) {
+        return this.context.matchedCells(
+            query,
+            cells
+        );
+    }
+
+    @Override
+    public Optional<Set<SpreadsheetCell>> cellsWithValueType(final ValueType valueType) {
+        return this.context.cellsWithValueType(valueType);
+    }
+
     // SpreadsheetEngineHateosHandlerContext.........................................................................
 
     @Override
@@ -17,7 +17,10 @@
 
 package walkingkooka.spreadsheet.server.delta;
 
+import walkingkooka.NeverError;
 import walkingkooka.collect.Range;
+import walkingkooka.collect.list.Lists;
+import walkingkooka.collect.set.Sets;
 import walkingkooka.net.UrlPath;
 import walkingkooka.net.http.server.HttpRequestAttribute;
 import walkingkooka.net.http.server.hateos.HateosResourceHandler;
@@ -26,22 +29,31 @@ import walkingkooka.spreadsheet.engine.SpreadsheetDelta;
 import walkingkooka.spreadsheet.engine.SpreadsheetDeltaProperties;
 import walkingkooka.spreadsheet.engine.SpreadsheetEngine;
 import walkingkooka.spreadsheet.engine.SpreadsheetEngineContext;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngineEvaluation;
 import walkingkooka.spreadsheet.reference.SpreadsheetCellRangeReference;
 import walkingkooka.spreadsheet.reference.SpreadsheetCellRangeReferencePath;
 import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetReferenceKind;
 import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
 import walkingkooka.spreadsheet.server.SpreadsheetEngineHateosHandlerContext;
+import walkingkooka.spreadsheet.value.SpreadsheetCell;
 import walkingkooka.spreadsheet.value.SpreadsheetValueType;
 import walkingkooka.tree.expression.Expression;
 import walkingkooka.validation.ValueType;
 
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * A {@link HateosResourceHandler} that calls {@link SpreadsheetEngine#queryCells(SpreadsheetCellRangeReference, SpreadsheetCellRangeReferencePath, int, int, ValueType, Expression, Set, SpreadsheetEngineContext)}.
+ * When {@link SpreadsheetDeltaUrlQueryParameters#AFTER} is present, the query resumes with the cell following the last cell
+ * of the previous page, skipping all earlier cells, with the offset counted from that cell.
+ * When the cells are indexed by value type, a query for a value type other than ANY only evaluates the indexed cells.
  */
 final class SpreadsheetDeltaHateosResourceHandlerQueryCells extends SpreadsheetDeltaHateosResourceHandler<SpreadsheetCellReference> {
 
@@ -113,25 +125,419 @@ final class SpreadsheetDeltaHateosResourceHandlerQueryCells extends SpreadsheetD
 
         final SpreadsheetCellQueryRequest query = SpreadsheetCellQueryRequest.extract(parameters);
 
-        return Optional.ofNullable(
-            context.spreadsheetEngine()
-                .queryCells(
-                    cells, // cells
-                    query.path().orElse(DEFAULT_CELL_RANGE_PATH), // path
-                    query.offset().orElse(DEFAULT_OFFSET), // offset
-                    query.count().orElse(DEFAULT_COUNT), // count
-                    query.valueType().orElse(DEFAULT_VALUE_TYPE), // valueType
-                    query.query()
-                        .map(q -> context.toExpression(
-                                q.parserToken()
-                            ).orElse(DEFAULT_QUERY)
-                        ).orElse(DEFAULT_QUERY), // query
-                    SpreadsheetDeltaProperties.extract(parameters),
+        final SpreadsheetCellRangeReferencePath cellRangePath = query.path().orElse(DEFAULT_CELL_RANGE_PATH);
+        final int offset = query.offset().orElse(DEFAULT_OFFSET);
+        final int count = query.count().orElse(DEFAULT_COUNT);
+        final ValueType valueType = query.valueType().orElse(DEFAULT_VALUE_TYPE);
+        final Expression expression = query.query()
+            .map(q -> context.toExpression(
+                    q.parserToken()
+                ).orElse(DEFAULT_QUERY)
+            ).orElse(DEFAULT_QUERY);
+        final Set<SpreadsheetDeltaProperties> deltaProperties = SpreadsheetDeltaProperties.extract(parameters);
+
+        final SpreadsheetEngine engine = context.spreadsheetEngine();
+
+        final Optional<SpreadsheetCellReference> after = SpreadsheetDeltaUrlQueryParameters.after(parameters);
+        final List<SpreadsheetCellRangeReference> ranges = after.isPresent() ?
+            rangesAfter(
+                cells,
+                cellRangePath,
+                after.get()
+            ) :
+            Lists.of(cells);
+
+        // ANY includes every cell, so there is nothing to gain from the index
+        final Optional<Set<SpreadsheetCell>> cellsWithValueType = DEFAULT_VALUE_TYPE.equals(valueType) ?
+            Optional.empty() :
+            context.cellsWithValueType(valueType);
+
+        final SpreadsheetDelta delta;
+
+        if (cellsWithValueType.isPresent()) {
+            delta = queryCellsWithValueType(
+                cellsWithValueType.get(),
+                ranges,
+                cellRangePath,
+                offset,
+                count,
+                valueType,
+                expression,
+                deltaProperties,
+                engine,
+                context
+            );
+        } else if (after.isPresent()) {
+            delta = queryCellsRanges(
+                ranges,
+                cellRangePath,
+                offset,
+                count,
+                valueType,
+                expression,
+                deltaProperties,
+                engine,
+                context
+            );
+        } else {
+            delta = engine.queryCells(
+                cells, // cells
+                cellRangePath, // path
+                offset, // offset
+                count, // count
+                valueType, // valueType
+                expression, // query
+                deltaProperties,
+                context
+            );
+        }
+
+        return Optional.ofNullable(delta);
+    }
+
+    /**
+     * Queries the remaining ranges following an {@link SpreadsheetDeltaUrlQueryParameters#AFTER} cursor in the given
+     * order, stopping once offset + count matches are found, giving the same matches as
+     * {@link SpreadsheetEngine#queryCells(SpreadsheetCellRangeReference, SpreadsheetCellRangeReferencePath, int, int, ValueType, Expression, Set, SpreadsheetEngineContext)}.
+     * The matched cells are then loaded with the requested {@link SpreadsheetDeltaProperties}.
+     */
+    private static SpreadsheetDelta queryCellsRanges(final List<SpreadsheetCellRangeReference> ranges,
+                                                     final SpreadsheetCellRangeReferencePath cellRangePath,
+                                                     final int offset,
+                                                     final int count,
+                                                     final ValueType valueType,
+                                                     final Expression expression,
+                                                     final Set<SpreadsheetDeltaProperties> deltaProperties,
+                                                     final SpreadsheetEngine engine,
+                                                     final SpreadsheetEngineContext context) {
+        final int max = (int) Math.min(
+            (long) offset + count,
+            Integer.MAX_VALUE
+        );
+
+        final List<SpreadsheetCell> matches = Lists.array();
+
+        for (final SpreadsheetCellRangeReference range : ranges) {
+            matches.addAll(
+                engine.queryCells(
+                    range,
+                    cellRangePath,
+                    0, // offset
+                    max, // count
+                    valueType,
+                    expression,
+                    RANGE_DELTA_PROPERTIES,
                     context
+                ).cells()
+            );
+            if (matches.size() >= max) {
+                break;
+            }
+        }
+
+        matches.sort(
+            Comparator.comparing(
+                SpreadsheetCell::reference,
+                comparator(cellRangePath)
+            )
+        );
+
+        return loadMatches(
+            matches,
+            offset,
+            count,
+            deltaProperties,
+            engine,
+            context
+        );
+    }
+
+    /**
+     * Only evaluates the query for the indexed cells with a value of the given type, or whose type is unknown, in path
+     * order, a batch of offset + count cells at a time until enough matches are found. All other cells within the
+     * ranges cannot match the value type, and are never loaded or evaluated.
+     */
+    private static SpreadsheetDelta queryCellsWithValueType(final Set<SpreadsheetCell> cellsWithValueType,
+                                                            final List<SpreadsheetCellRangeReference> ranges,
+                                                            final SpreadsheetCellRangeReferencePath cellRangePath,
+                                                            final int offset,
+                                                            final int count,
+                                                            final ValueType valueType,
+                                                            final Expression expression,
+                                                            final Set<SpreadsheetDeltaProperties> deltaProperties,
+                                                            final SpreadsheetEngine engine,
+                                                            final SpreadsheetEngineContext context) {
+        final int max = (int) Math.min(
+            (long) offset + count,
+            Integer.MAX_VALUE
+        );
+        final Comparator<SpreadsheetCell> comparator = Comparator.comparing(
+            SpreadsheetCell::reference,
+            comparator(cellRangePath)
+        );
+
+        final List<SpreadsheetCell> candidates = cellsWithValueType.stream()
+            .filter(c -> ranges.stream()
+                .anyMatch(r -> r.testCell(c.reference()))
+            ).sorted(comparator)
+            .collect(Collectors.toList());
+
+        final List<SpreadsheetCell> matches = Lists.array();
+        final int candidateCount = candidates.size();
+
+        for (int i = 0; i < candidateCount && matches.size() < max; i += max) {
+            final Set<SpreadsheetCell> batch = Sets.ordered();
+            batch.addAll(
+                candidates.subList(
+                    i,
+                    Math.min(
+                        i + max,
+                        candidateCount
+                    )
                 )
+            );
+
+            matches.addAll(
+                engine.filterCells(
+                        batch,
+                        valueType,
+                        expression,
+                        context
+                    ).stream()
+                    .sorted(comparator)
+                    .collect(Collectors.toList())
+            );
+        }
+
+        return loadMatches(
+            matches,
+            offset,
+            count,
+            deltaProperties,
+            engine,
+            context
         );
     }
 
+    /**
+     * Loads the matches following the offset up to count, with the requested {@link SpreadsheetDeltaProperties}.
+     */
+    private static SpreadsheetDelta loadMatches(final List<SpreadsheetCell> matches,
+                                                final int offset,
+                                                final int count,
+                                                final Set<SpreadsheetDeltaProperties> deltaProperties,
+                                                final SpreadsheetEngine engine,
+                                                final SpreadsheetEngineContext context) {
+        return engine.loadMultipleCellRanges(
+            matches.stream()
+                .skip(offset)
+                .limit(count)
+                .map(c -> c.reference().toCellRange())
+                .collect(Collectors.toCollection(Sets::ordered)),
+            SpreadsheetEngineEvaluation.COMPUTE_IF_NECESSARY,
+            deltaProperties,
+            context
+        );
+    }
+
+    /**
+     * Returns the ranges holding the cells visited after the given cell, in path order. This is the remainder of the
+     * row or column holding the after cell followed by all the rows or columns after it.
+     */
+    // @VisibleForTesting
+    static List<SpreadsheetCellRangeReference> rangesAfter(final SpreadsheetCellRangeReference cells,
+                                                           final SpreadsheetCellRangeReferencePath cellRangePath,
+                                                           final SpreadsheetCellReference after) {
+        if (false == cells.testCell(after)) {
+            throw new IllegalArgumentException("Cursor " + after + " outside " + cells);
+        }
+
+        final SpreadsheetCellReference begin = cells.begin();
+        final SpreadsheetCellReference end = cells.end();
+
+        final boolean rows = isRows(cellRangePath);
+
+        final int line = rows ?
+            after.row().value() :
+            after.column().value();
+        final int firstLine = rows ?
+            begin.row().value() :
+            begin.column().value();
+        final int lastLine = rows ?
+            end.row().value() :
+            end.column().value();
+
+        final int position = rows ?
+            after.column().value() :
+            after.row().value();
+        final int firstPosition = rows ?
+            begin.column().value() :
+            begin.row().value();
+        final int lastPosition = rows ?
+            end.column().value() :
+            end.row().value();
+
+        final List<SpreadsheetCellRangeReference> ranges = Lists.array();
+
+        // the remainder of the line holding the after cell
+        if (isPositionAscending(cellRangePath)) {
+            addRange(rows, line, line, position + 1, lastPosition, begin, ranges);
+        } else {
+            addRange(rows, line, line, firstPosition, position - 1, begin, ranges);
+        }
+
+        // the following lines
+        if (isLineAscending(cellRangePath)) {
+            addRange(rows, line + 1, lastLine, firstPosition, lastPosition, begin, ranges);
+        } else {
+            addRange(rows, firstLine, line - 1, firstPosition, lastPosition, begin, ranges);
+        }
+
+        return ranges;
+    }
+
+    private static void addRange(final boolean rows,
+                                 final int firstLine,
+                                 final int lastLine,
+                                 final int firstPosition,
+                                 final int lastPosition,
+                                 final SpreadsheetCellReference cell,
+                                 final List<SpreadsheetCellRangeReference> ranges) {
+        if (firstLine <= lastLine && firstPosition <= lastPosition) {
+            ranges.add(
+                rows ?
+                    cell(cell, firstPosition, firstLine)
+                        .cellRange(
+                            cell(cell, lastPosition, lastLine)
+                        ) :
+                    cell(cell, firstLine, firstPosition)
+                        .cellRange(
+                            cell(cell, lastLine, lastPosition)
+                        )
+            );
+        }
+    }
+
+    private static SpreadsheetCellReference cell(final SpreadsheetCellReference cell,
+                                                 final int column,
+                                                 final int row) {
+        return cell.setColumn(SpreadsheetReferenceKind.RELATIVE.column(column))
+            .setRow(SpreadsheetReferenceKind.RELATIVE.row(row));
+    }
+
+    /**
+     * Only the matched cells of each range are needed, the other properties are loaded once the final cells are known.
+     */
+    private final static Set<SpreadsheetDeltaProperties> RANGE_DELTA_PROPERTIES = Sets.of(
+        SpreadsheetDeltaProperties.CELLS
+    );
+
+    /**
+     * Paths such as {@link SpreadsheetCellRangeReferencePath#LRTD} finish a row before moving to the next row.
+     */
+    private static boolean isRows(final SpreadsheetCellRangeReferencePath cellRangePath) {
+        final boolean rows;
+
+        switch (cellRangePath) {
+            case LRTD:
+            case RLTD:
+            case LRBU:
+            case RLBU:
+                rows = true;
+                break;
+            default:
+                rows = false;
+                break;
+        }
+
+        return rows;
+    }
+
+    /**
+     * Paths such as {@link SpreadsheetCellRangeReferencePath#LRTD} visit the cells within a row or column from the
+     * lowest column or row to the highest.
+     */
+    private static boolean isPositionAscending(final SpreadsheetCellRangeReferencePath cellRangePath) {
+        final boolean ascending;
+
+        switch (cellRangePath) {
+            case LRTD:
+            case LRBU:
+            case TDLR:
+            case TDRL:
+                ascending = true;
+                break;
+            default:
+                ascending = false;
+                break;
+        }
+
+        return ascending;
+    }
+
+    /**
+     * Paths such as {@link SpreadsheetCellRangeReferencePath#LRTD} visit rows or columns from the lowest to the highest.
+     */
+    private static boolean isLineAscending(final SpreadsheetCellRangeReferencePath cellRangePath) {
+        final boolean ascending;
+
+        switch (cellRangePath) {
+            case LRTD:
+            case RLTD:
+            case TDLR:
+            case BULR:
+                ascending = true;
+                break;
+            default:
+                ascending = false;
+                break;
+        }
+
+        return ascending;
+    }
+
+    /**
+     * A {@link Comparator} that sorts cells in the order they are visited by the {@link SpreadsheetCellRangeReferencePath}.
+     */
+    // @VisibleForTesting
+    static Comparator<SpreadsheetCellReference> comparator(final SpreadsheetCellRangeReferencePath cellRangePath) {
+        final Comparator<SpreadsheetCellReference> rows = Comparator.comparingInt(c -> c.row().value());
+        final Comparator<SpreadsheetCellReference> columns = Comparator.comparingInt(c -> c.column().value());
+
+        final Comparator<SpreadsheetCellReference> comparator;
+
+        switch (cellRangePath) {
+            case LRTD:
+                comparator = rows.thenComparing(columns);
+                break;
+            case RLTD:
+                comparator = rows.thenComparing(columns.reversed());
+                break;
+            case LRBU:
+                comparator = rows.reversed().thenComparing(columns);
+                break;
+            case RLBU:
+                comparator = rows.reversed().thenComparing(columns.reversed());
+                break;
+            case TDLR:
+                comparator = columns.thenComparing(rows);
+                break;
+            case TDRL:
+                comparator = columns.reversed().thenComparing(rows);
+                break;
+            case BULR:
+                comparator = columns.thenComparing(rows.reversed());
+                break;
+            case BURL:
+                comparator = columns.reversed().thenComparing(rows.reversed());
+                break;
+            default:
+                throw new NeverError("Unhandled path " + cellRangePath);
+        }
+
+        return comparator;
+    }
+
     final static SpreadsheetCellRangeReferencePath DEFAULT_CELL_RANGE_PATH = SpreadsheetCellRangeReferencePath.LRTD;
 
     final static Integer DEFAULT_OFFSET = 0;
@@ -17,7 +17,6 @@
 package walkingkooka.spreadsheet.server.delta;
 
 import walkingkooka.NeverError;
-import walkingkooka.collect.set.Sets;
 import walkingkooka.net.header.LinkRelation;
 import walkingkooka.net.http.HttpMethod;
 import walkingkooka.net.http.server.HttpRequestAttribute;
@@ -49,15 +48,12 @@ import walkingkooka.spreadsheet.validation.form.SpreadsheetForms;
 import walkingkooka.spreadsheet.value.SpreadsheetCell;
 import walkingkooka.spreadsheet.value.SpreadsheetColumn;
 import walkingkooka.spreadsheet.value.SpreadsheetRow;
-import walkingkooka.spreadsheet.value.SpreadsheetValueType;
 import walkingkooka.text.CharSequences;
-import walkingkooka.tree.expression.Expression;
 import walkingkooka.validation.form.Form;
 import walkingkooka.validation.form.FormName;
 
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * A collection of factory methods to create various {@link HateosResourceHandler}.
@@ -446,18 +442,10 @@ public final class SpreadsheetDeltaHttpMappings implements PublicStaticHelper {
 
         if (query.isPresent()) {
             result = out.setMatchedCells(
-                engine.filterCells(
-                        out.cells(),
-                        SpreadsheetValueType.ANY,
-                        context.toExpression(
-                            query.get()
-                                .parserToken()
-                        ).orElse(DEFAULT_EXPRESSION),
-                        context
-                    ).stream()
-                    .map(
-                        SpreadsheetCell::reference
-                    ).collect(Collectors.toCollection(Sets::ordered))
+                context.matchedCells(
+                    query.get(),
+                    out.cells()
+                )
             );
         }
 
@@ -471,8 +459,6 @@ public final class SpreadsheetDeltaHttpMappings implements PublicStaticHelper {
         );
     }
 
-    private final static Expression DEFAULT_EXPRESSION = Expression.value(Boolean.TRUE);
-
     /**
      * Helper which attempts to read the {@link SpreadsheetCellQuery} from the given parameters and if that is missing
      * then tries if highlighting is enabled {@link SpreadsheetMetadataPropertyName#QUERY}.
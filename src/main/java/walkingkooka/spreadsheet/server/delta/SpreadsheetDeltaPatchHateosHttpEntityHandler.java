@@ -20,13 +20,13 @@ package walkingkooka.spreadsheet.server.delta;
 import walkingkooka.collect.Range;
 import walkingkooka.collect.set.Sets;
 import walkingkooka.net.UrlPath;
+import walkingkooka.net.header.Accept;
 import walkingkooka.net.header.HttpHeaderName;
 import walkingkooka.net.http.HttpEntity;
 import walkingkooka.net.http.HttpStatusCode;
 import walkingkooka.net.http.server.HttpRequestAttribute;
 import walkingkooka.net.http.server.HttpResponseHttpServerException;
 import walkingkooka.net.http.server.hateos.HateosHttpEntityHandler;
-import walkingkooka.net.http.server.hateos.HateosResourceMappings;
 import walkingkooka.net.http.server.hateos.UnsupportedHateosHttpEntityHandlerHandleAll;
 import walkingkooka.net.http.server.hateos.UnsupportedHateosHttpEntityHandlerHandleMany;
 import walkingkooka.net.http.server.hateos.UnsupportedHateosHttpEntityHandlerHandleNone;
@@ -36,6 +36,7 @@ import walkingkooka.spreadsheet.engine.SpreadsheetEngineEvaluation;
 import walkingkooka.spreadsheet.reference.SpreadsheetCellRangeReference;
 import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
 import walkingkooka.spreadsheet.server.SpreadsheetEngineHateosHandlerContext;
+import walkingkooka.spreadsheet.server.SpreadsheetServerHttpEntities;
 import walkingkooka.spreadsheet.value.SpreadsheetCell;
 import walkingkooka.spreadsheet.viewport.SpreadsheetViewport;
 import walkingkooka.spreadsheet.viewport.SpreadsheetViewportWindows;
@@ -122,8 +123,13 @@ abstract class SpreadsheetDeltaPatchHateosHttpEntityHandler<S extends Spreadshee
             HttpHeaderName.CONTENT_TYPE.header(entity)
                 .orElse(null)
         );
-        HttpHeaderName.ACCEPT.headerOrFail(entity)
-            .testOrFail(HATEOS_CONTENT_TYPE);
+
+        // a client may explicitly ask for the compact binary form instead of JSON
+        final Accept accept = HttpHeaderName.ACCEPT.headerOrFail(entity);
+        final boolean jsonBinary = SpreadsheetServerHttpEntities.isJsonBinary(accept);
+        if (false == jsonBinary) {
+            accept.testOrFail(HATEOS_CONTENT_TYPE);
+        }
 
         // parse HttpEntity as JSON giving the PATCH as JsonNode
         final JsonNode patch = this.preparePatch(
@@ -169,6 +175,7 @@ abstract class SpreadsheetDeltaPatchHateosHttpEntityHandler<S extends Spreadshee
 
         return marshallResponse(
             prepareResponse,
+            jsonBinary,
             context
         );
     }
@@ -267,17 +274,21 @@ abstract class SpreadsheetDeltaPatchHateosHttpEntityHandler<S extends Spreadshee
     }
 
     /**
-     * Turn the {@link SpreadsheetDelta} into JSON inside a {@link HttpEntity}.
+     * Turn the {@link SpreadsheetDelta} into JSON or the binary form of JSON inside a {@link HttpEntity}.
      */
     private HttpEntity marshallResponse(final SpreadsheetDelta response,
+                                        final boolean jsonBinary,
                                         final SpreadsheetEngineHateosHandlerContext context) {
-        return HttpEntity.EMPTY
-            .setContentType(
-                HATEOS_CONTENT_TYPE
-            ).addHeader(HateosResourceMappings.X_CONTENT_TYPE_NAME, SpreadsheetDelta.class.getSimpleName())
-            .setBodyText(
-                context.marshall(response)
-                    .toJsonText(context)
-            ).setContentLength();
+        return jsonBinary ?
+            SpreadsheetServerHttpEntities.hateosJsonBinary(
+                response,
+                SpreadsheetDelta.class,
+                context
+            ) :
+            SpreadsheetServerHttpEntities.hateosJson(
+                response,
+                SpreadsheetDelta.class,
+                context
+            );
     }
 }
@@ -228,6 +228,57 @@ public final class SpreadsheetDeltaUrlQueryParameters implements PublicStaticHel
 
     public final static UrlParameterName INCLUDE_FROZEN_COLUMNS_ROWS = UrlParameterName.with("includeFrozenColumnsRows");
 
+    /**
+     * Reads the optional revision, only cells changed after this revision will be loaded, unless navigations move the
+     * window, in which case the full window is loaded.
+     */
+    public static Optional<Long> since(final Map<HttpRequestAttribute<?>, Object> parameters) {
+        checkParameters(parameters);
+
+        return SINCE.firstParameterValue(parameters)
+            .map(s -> parseQueryParameter(
+                s,
+                Long::parseLong,
+                SINCE
+            ));
+    }
+
+    /**
+     * The revision returned by an earlier cell load in the {@link walkingkooka.spreadsheet.server.SpreadsheetHttpServer#REVISION} header.
+     */
+    public final static UrlParameterName SINCE = UrlParameterName.with("since");
+
+    /**
+     * Tests if the window following another navigation in the same direction should be loaded in the background,
+     * defaulting to false.
+     */
+    public static boolean prefetch(final Map<HttpRequestAttribute<?>, Object> parameters) {
+        checkParameters(parameters);
+
+        return PREFETCH.firstParameterValue(parameters)
+            .map(Boolean::parseBoolean)
+            .orElse(false);
+    }
+
+    public final static UrlParameterName PREFETCH = UrlParameterName.with("prefetch");
+
+    /**
+     * Reads the optional cursor, which is the last cell of the previous page of a cell query. The next page resumes
+     * with the cell following it along the path, without visiting any of the earlier cells again.
+     */
+    public static Optional<SpreadsheetCellReference> after(final Map<HttpRequestAttribute<?>, Object> parameters) {
+        checkParameters(parameters);
+
+        return AFTER.firstParameterValue(parameters)
+            .map(s -> parseQueryParameter(
+                s,
+                SpreadsheetSelection::parseCell,
+                AFTER
+            ));
+    }
+
+    public final static UrlParameterName AFTER = UrlParameterName.with("after");
+
     // helpers.........................................................................................................
 
     private static boolean includeFrozenColumnsRows(final String value) {
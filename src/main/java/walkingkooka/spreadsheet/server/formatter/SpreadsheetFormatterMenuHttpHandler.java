@@ -19,16 +19,15 @@ package walkingkooka.spreadsheet.server.formatter;
 
 import walkingkooka.net.header.HasHateosContentType;
 import walkingkooka.net.header.HttpHeaderName;
-import walkingkooka.net.http.HttpEntity;
 import walkingkooka.net.http.HttpStatusCode;
 import walkingkooka.net.http.server.GetOrHeadHttpHandler;
 import walkingkooka.net.http.server.HttpRequest;
 import walkingkooka.net.http.server.HttpResponse;
-import walkingkooka.net.http.server.hateos.HateosResourceMappings;
 import walkingkooka.plugin.ProviderContext;
 import walkingkooka.spreadsheet.format.provider.SpreadsheetFormatterProviderSamplesContexts;
 import walkingkooka.spreadsheet.meta.SpreadsheetMetadata;
 import walkingkooka.spreadsheet.server.SpreadsheetEngineHateosHandlerContext;
+import walkingkooka.spreadsheet.server.SpreadsheetServerHttpEntities;
 
 import java.util.Objects;
 import java.util.Optional;
@@ -90,14 +89,11 @@ final class SpreadsheetFormatterMenuHttpHandler implements GetOrHeadHttpHandler<
         response.setVersion(request.protocolVersion());
         response.setStatus(HttpStatusCode.OK.status());
         response.setEntity(
-            HttpEntity.EMPTY.setContentType(HATEOS_CONTENT_TYPE)
-                .addHeader(
-                    HateosResourceMappings.X_CONTENT_TYPE_NAME,
-                    menuList.getClass().getSimpleName()
-                ).setBodyText(
-                    context.marshall(menuList)
-                        .toJsonText(context)
-                ).setContentLength()
+            SpreadsheetServerHttpEntities.hateosJson(
+                menuList,
+                menuList.getClass(),
+                context
+            )
         );
     }
 
@@ -20,12 +20,10 @@ package walkingkooka.spreadsheet.server.formatter;
 import walkingkooka.net.UrlPath;
 import walkingkooka.net.header.HasHateosContentType;
 import walkingkooka.net.header.HttpHeaderName;
-import walkingkooka.net.http.HttpEntity;
 import walkingkooka.net.http.HttpStatusCode;
 import walkingkooka.net.http.server.GetOrHeadHttpHandler;
 import walkingkooka.net.http.server.HttpRequest;
 import walkingkooka.net.http.server.HttpResponse;
-import walkingkooka.net.http.server.hateos.HateosResourceMappings;
 import walkingkooka.plugin.ProviderContext;
 import walkingkooka.spreadsheet.engine.SpreadsheetMetadataMode;
 import walkingkooka.spreadsheet.expression.SpreadsheetExpressionEvaluationContext;
@@ -33,6 +31,7 @@ import walkingkooka.spreadsheet.format.provider.SpreadsheetFormatterSelector;
 import walkingkooka.spreadsheet.reference.SpreadsheetExpressionReferenceLoaders;
 import walkingkooka.spreadsheet.reference.SpreadsheetLabelNameResolvers;
 import walkingkooka.spreadsheet.server.SpreadsheetEngineHateosHandlerContext;
+import walkingkooka.spreadsheet.server.SpreadsheetServerHttpEntities;
 import walkingkooka.spreadsheet.value.SpreadsheetCell;
 import walkingkooka.text.CharSequences;
 
@@ -84,14 +83,11 @@ abstract class SpreadsheetFormatterSelectorEditHttpHandler implements GetOrHeadH
 
         // write TextNodes as JSON response
         response.setEntity(
-            HttpEntity.EMPTY.setContentType(HATEOS_CONTENT_TYPE)
-                .addHeader(
-                    HateosResourceMappings.X_CONTENT_TYPE_NAME,
-                    edit.getClass().getSimpleName()
-                ).setBodyText(
-                    context.marshall(edit)
-                        .toJsonText(context)
-                ).setContentLength()
+            SpreadsheetServerHttpEntities.hateosJson(
+                edit,
+                edit.getClass(),
+                context
+            )
         );
     }
 
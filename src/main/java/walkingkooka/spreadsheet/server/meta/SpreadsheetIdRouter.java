@@ -29,6 +29,7 @@ import walkingkooka.route.Router;
 import walkingkooka.route.Routers;
 import walkingkooka.spreadsheet.engine.SpreadsheetDelta;
 import walkingkooka.spreadsheet.engine.SpreadsheetEngineContext;
+import walkingkooka.spreadsheet.meta.SpreadsheetId;
 import walkingkooka.spreadsheet.meta.SpreadsheetMetadataPropertyName;
 import walkingkooka.spreadsheet.parser.provider.SpreadsheetParserInfo;
 import walkingkooka.spreadsheet.parser.provider.SpreadsheetParserInfoSet;
@@ -51,8 +52,14 @@ import walkingkooka.spreadsheet.value.SpreadsheetRow;
 import walkingkooka.validation.form.Form;
 import walkingkooka.validation.form.FormName;
 
+import java.util.Set;
+
 public final class SpreadsheetIdRouter implements PublicStaticHelper {
 
+    /**
+     * Creates a {@link Router} for the given spreadsheet, only the base {@link UrlPath} holding the {@link SpreadsheetId}
+     * is created, all mappings and the storage router are shared by all spreadsheets.
+     */
     public static Router<HttpRequestAttribute<?>, HttpHandler<SpreadsheetEngineHateosHandlerContext>> create(final SpreadsheetEngineContext spreadsheetEngineContext) {
         final UrlPath deltaUrlPath = SpreadsheetHttpServer.API_SPREADSHEET.append(
             UrlPathName.with(
@@ -61,50 +68,61 @@ public final class SpreadsheetIdRouter implements PublicStaticHelper {
             )
         );
 
-        final HateosResourceMappings<SpreadsheetCellReference, SpreadsheetDelta, SpreadsheetDelta, SpreadsheetCell, SpreadsheetEngineHateosHandlerContext> cell = SpreadsheetDeltaHttpMappings.cell();
-
-        final HateosResourceMappings<SpreadsheetColumnReference, SpreadsheetDelta, SpreadsheetDelta, SpreadsheetColumn, SpreadsheetEngineHateosHandlerContext> column = SpreadsheetDeltaHttpMappings.column();
-
-        final HateosResourceMappings<FormName, SpreadsheetDelta, SpreadsheetDelta, Form<SpreadsheetValidationReference>, SpreadsheetEngineHateosHandlerContext> form = SpreadsheetDeltaHttpMappings.form();
-
-        final HateosResourceMappings<SpreadsheetLabelName, SpreadsheetDelta, SpreadsheetDelta, SpreadsheetLabelMapping, SpreadsheetEngineHateosHandlerContext> label = SpreadsheetDeltaHttpMappings.label();
-
-        final HateosResourceMappings<SpreadsheetMetadataPropertyName<?>,
-            SpreadsheetMetadataPropertyNameHateosResource,
-            SpreadsheetMetadataPropertyNameHateosResource,
-            SpreadsheetMetadataPropertyNameHateosResource,
-            SpreadsheetEngineHateosHandlerContext> metadata = SpreadsheetMetadataPropertyNameHateosResourceMappings.spreadsheetEngineHateosHandlerContext();
-
-        final HateosResourceMappings<SpreadsheetParserName, SpreadsheetParserInfo, SpreadsheetParserInfoSet, SpreadsheetParserInfo, SpreadsheetEngineHateosHandlerContext> parser = SpreadsheetParserHateosResourceMappings.engine();
-
-        final HateosResourceMappings<SpreadsheetRowReference, SpreadsheetDelta, SpreadsheetDelta, SpreadsheetRow, SpreadsheetEngineHateosHandlerContext> row = SpreadsheetDeltaHttpMappings.row();
-
         // must try storage first
         return Routers.collection(
             Lists.of(
-                SpreadsheetServerStorageRouter.with(
-                    deltaUrlPath.append(
-                        SpreadsheetServerLinkRelations.STORAGE
-                            .toUrlPathName()
-                            .get()
-                    )
-                ),
+                STORAGE,
                 HateosResourceMappings.router(
                     deltaUrlPath,
-                    Sets.of(
-                        cell,
-                        column,
-                        form,
-                        label,
-                        metadata,
-                        parser, // /parser
-                        row
-                    )
+                    MAPPINGS
                 )
             )
         );
     }
 
+    /**
+     * Matches /api/spreadsheet/*&#47;storage for any {@link SpreadsheetId}.
+     */
+    private final static SpreadsheetServerStorageRouter STORAGE = SpreadsheetServerStorageRouter.with(
+        SpreadsheetHttpServer.API_SPREADSHEET.append(UrlPathName.WILDCARD)
+            .append(
+                SpreadsheetServerLinkRelations.STORAGE
+                    .toUrlPathName()
+                    .get()
+            )
+    );
+
+    private final static HateosResourceMappings<SpreadsheetCellReference, SpreadsheetDelta, SpreadsheetDelta, SpreadsheetCell, SpreadsheetEngineHateosHandlerContext> CELL = SpreadsheetDeltaHttpMappings.cell();
+
+    private final static HateosResourceMappings<SpreadsheetColumnReference, SpreadsheetDelta, SpreadsheetDelta, SpreadsheetColumn, SpreadsheetEngineHateosHandlerContext> COLUMN = SpreadsheetDeltaHttpMappings.column();
+
+    private final static HateosResourceMappings<FormName, SpreadsheetDelta, SpreadsheetDelta, Form<SpreadsheetValidationReference>, SpreadsheetEngineHateosHandlerContext> FORM = SpreadsheetDeltaHttpMappings.form();
+
+    private final static HateosResourceMappings<SpreadsheetLabelName, SpreadsheetDelta, SpreadsheetDelta, SpreadsheetLabelMapping, SpreadsheetEngineHateosHandlerContext> LABEL = SpreadsheetDeltaHttpMappings.label();
+
+    private final static HateosResourceMappings<SpreadsheetMetadataPropertyName<?>,
+        SpreadsheetMetadataPropertyNameHateosResource,
+        SpreadsheetMetadataPropertyNameHateosResource,
+        SpreadsheetMetadataPropertyNameHateosResource,
+        SpreadsheetEngineHateosHandlerContext> METADATA = SpreadsheetMetadataPropertyNameHateosResourceMappings.spreadsheetEngineHateosHandlerContext();
+
+    private final static HateosResourceMappings<SpreadsheetParserName, SpreadsheetParserInfo, SpreadsheetParserInfoSet, SpreadsheetParserInfo, SpreadsheetEngineHateosHandlerContext> PARSER = SpreadsheetParserHateosResourceMappings.engine();
+
+    private final static HateosResourceMappings<SpreadsheetRowReference, SpreadsheetDelta, SpreadsheetDelta, SpreadsheetRow, SpreadsheetEngineHateosHandlerContext> ROW = SpreadsheetDeltaHttpMappings.row();
+
+    /**
+     * The {@link HateosResourceMappings} do not depend on any spreadsheet and are only created once.
+     */
+    private final static Set<HateosResourceMappings<?, ?, ?, ?, SpreadsheetEngineHateosHandlerContext>> MAPPINGS = Sets.of(
+        CELL,
+        COLUMN,
+        FORM,
+        LABEL,
+        METADATA,
+        PARSER, // /parser
+        ROW
+    );
+
     /**
      * Stop creation
      */
@@ -35,6 +35,16 @@ public final class SpreadsheetServerMediaTypes implements PublicStaticHelper {
      */
     public final static MediaType BASE64 = MediaType.TEXT_BASE64;
 
+    /**
+     * The content-type for JSON responses encoded in the compact binary format, which must be explicitly accepted.
+     */
+    public final static MediaType JSON_BINARY = MediaType.parse("application/vnd.walkingkooka.json-binary");
+
+    /**
+     * The content-type for server sent events.
+     */
+    public final static MediaType EVENT_STREAM = MediaType.parse("text/event-stream");
+
     /**
      * Stop creation
      */
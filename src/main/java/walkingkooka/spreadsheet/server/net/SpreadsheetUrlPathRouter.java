@@ -0,0 +1,100 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.server.net;
+
+import walkingkooka.collect.map.Maps;
+import walkingkooka.net.UrlPath;
+import walkingkooka.net.UrlPathName;
+import walkingkooka.net.http.server.HttpRequestAttribute;
+import walkingkooka.route.Router;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A {@link Router} that compiles all its {@link UrlPath} into a trie of {@link UrlPathName} and resolves a target with
+ * a single walk of the request path components. {@link UrlPathName#WILDCARD} matches any single path component, literal
+ * names are always tried before wildcards, and the deepest matching path wins, which means the order of the given
+ * paths is not important.
+ */
+public final class SpreadsheetUrlPathRouter<T> implements Router<HttpRequestAttribute<?>, T> {
+
+    public static <T> SpreadsheetUrlPathRouter<T> with(final Map<UrlPath, T> pathToTargets) {
+        Objects.requireNonNull(pathToTargets, "pathToTargets");
+
+        final Map<UrlPath, T> copy = Maps.ordered();
+        final SpreadsheetUrlPathRouterNode<T> root = SpreadsheetUrlPathRouterNode.empty();
+
+        for (final Map.Entry<UrlPath, T> pathAndTarget : pathToTargets.entrySet()) {
+            final UrlPath path = Objects.requireNonNull(pathAndTarget.getKey(), "path")
+                .normalize();
+            final T target = Objects.requireNonNull(pathAndTarget.getValue(), "target");
+
+            root.add(
+                path.iterator(),
+                path,
+                target
+            );
+            copy.put(
+                path,
+                target
+            );
+        }
+
+        return new SpreadsheetUrlPathRouter<>(
+            root,
+            Maps.readOnly(copy)
+        );
+    }
+
+    private SpreadsheetUrlPathRouter(final SpreadsheetUrlPathRouterNode<T> root,
+                                     final Map<UrlPath, T> pathToTargets) {
+        super();
+        this.root = root;
+        this.pathToTargets = pathToTargets;
+    }
+
+    // Router...........................................................................................................
+
+    @Override
+    public Optional<T> route(final Map<HttpRequestAttribute<?>, Object> parameters) {
+        Objects.requireNonNull(parameters, "parameters");
+
+        return Optional.ofNullable(
+            this.root.route(
+                parameters,
+                0 // pathIndex
+            )
+        );
+    }
+
+    /**
+     * The root of the trie, this and all children are never modified after construction and may be shared by many threads.
+     */
+    private final SpreadsheetUrlPathRouterNode<T> root;
+
+    // toString.........................................................................................................
+
+    @Override
+    public String toString() {
+        return this.pathToTargets.toString();
+    }
+
+    private final Map<UrlPath, T> pathToTargets;
+}
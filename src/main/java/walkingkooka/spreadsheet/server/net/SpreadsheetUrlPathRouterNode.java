@@ -0,0 +1,130 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.server.net;
+
+import walkingkooka.collect.map.Maps;
+import walkingkooka.net.UrlPath;
+import walkingkooka.net.UrlPathName;
+import walkingkooka.net.http.server.HttpRequestAttribute;
+import walkingkooka.net.http.server.HttpRequestAttributes;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * A single node within the trie of a {@link SpreadsheetUrlPathRouter}, holding literal children, an optional
+ * {@link UrlPathName#WILDCARD} child and the target if a path ends at this node.
+ */
+final class SpreadsheetUrlPathRouterNode<T> {
+
+    static <T> SpreadsheetUrlPathRouterNode<T> empty() {
+        return new SpreadsheetUrlPathRouterNode<>();
+    }
+
+    private SpreadsheetUrlPathRouterNode() {
+        super();
+    }
+
+    /**
+     * Adds the target creating any missing nodes for the remaining path names.
+     */
+    void add(final Iterator<UrlPathName> names,
+             final UrlPath path,
+             final T target) {
+        if (names.hasNext()) {
+            final UrlPathName name = names.next();
+
+            SpreadsheetUrlPathRouterNode<T> child;
+            if (UrlPathName.WILDCARD.equals(name)) {
+                child = this.wildcard;
+                if (null == child) {
+                    child = empty();
+                    this.wildcard = child;
+                }
+            } else {
+                child = this.children.get(name);
+                if (null == child) {
+                    child = empty();
+                    this.children.put(
+                        name,
+                        child
+                    );
+                }
+            }
+
+            child.add(
+                names,
+                path,
+                target
+            );
+        } else {
+            if (null != this.target) {
+                throw new IllegalArgumentException("Duplicate path " + path);
+            }
+            this.target = target;
+        }
+    }
+
+    /**
+     * Tries the literal child matching the path component, then the wildcard child and finally the target of this node.
+     */
+    T route(final Map<HttpRequestAttribute<?>, Object> parameters,
+            final int pathIndex) {
+        T target = null;
+
+        final Object name = parameters.get(
+            HttpRequestAttributes.pathComponent(pathIndex)
+        );
+        if (null != name) {
+            final SpreadsheetUrlPathRouterNode<T> child = this.children.get(name);
+            if (null != child) {
+                target = child.route(
+                    parameters,
+                    pathIndex + 1
+                );
+            }
+
+            final SpreadsheetUrlPathRouterNode<T> wildcard = this.wildcard;
+            if (null == target && null != wildcard) {
+                target = wildcard.route(
+                    parameters,
+                    pathIndex + 1
+                );
+            }
+        }
+
+        return null != target ?
+            target :
+            this.target;
+    }
+
+    private final Map<UrlPathName, SpreadsheetUrlPathRouterNode<T>> children = Maps.ordered();
+
+    private SpreadsheetUrlPathRouterNode<T> wildcard;
+
+    private T target;
+
+    // Object...........................................................................................................
+
+    @Override
+    public String toString() {
+        return this.children.keySet() +
+            (null != this.wildcard ? " " + UrlPathName.WILDCARD : "") +
+            (null != this.target ? " " + this.target : "");
+    }
+}
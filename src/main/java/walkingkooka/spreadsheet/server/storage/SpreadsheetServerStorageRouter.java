@@ -34,6 +34,8 @@ import java.util.Optional;
 
 /**
  * A {@link Router} that matches the {@link StorageHttpHandlers#storage(int)} if the path matches the given base.
+ * A {@link UrlPathName#WILDCARD} within the base matches any path component, allowing a single router to be shared by
+ * all spreadsheets.
  */
 public final class SpreadsheetServerStorageRouter implements Router<HttpRequestAttribute<?>, HttpHandler<SpreadsheetEngineHateosHandlerContext>> {
 
@@ -65,7 +67,8 @@ public final class SpreadsheetServerStorageRouter implements Router<HttpRequestA
     int consumeBasePath(final Map<HttpRequestAttribute<?>, Object> parameters) {
         int pathIndex = 0;
         for (final UrlPathName name : this.base) {
-            if (false == name.equals(parameters.get(HttpRequestAttributes.pathComponent(pathIndex)))) {
+            final Object component = parameters.get(HttpRequestAttributes.pathComponent(pathIndex));
+            if (null == component || false == (UrlPathName.WILDCARD.equals(name) || name.equals(component))) {
                 pathIndex = -1;
                 break;
             }
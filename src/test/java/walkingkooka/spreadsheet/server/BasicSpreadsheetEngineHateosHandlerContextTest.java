@@ -71,6 +71,7 @@ import walkingkooka.tree.expression.function.provider.ExpressionFunctionProvider
 
 import java.math.MathContext;
 import java.nio.charset.Charset;
+import java.time.Duration;
 import java.util.Currency;
 import java.util.Locale;
 import java.util.Objects;
@@ -86,6 +87,20 @@ public final class BasicSpreadsheetEngineHateosHandlerContextTest implements Spr
 
     private final static SpreadsheetEngineContext SPREADSHEET_ENGINE_CONTEXT = SpreadsheetEngineContexts.fake();
 
+    private final static SpreadsheetViewportMetadataWriteBehind VIEWPORT_METADATA_WRITE_BEHIND = SpreadsheetViewportMetadataWriteBehind.with(Duration.ZERO);
+
+    private final static SpreadsheetServerChangeLog CHANGE_LOG = SpreadsheetServerChangeLog.with(
+        SpreadsheetServerRevision.empty(),
+        0
+    );
+
+    private final static SpreadsheetServerCellQueryCache CELL_QUERY_CACHE = SpreadsheetServerCellQueryCache.with(
+        1,
+        SpreadsheetServerRevision.empty()
+    );
+
+    private final static Optional<SpreadsheetServerCellValueIndex> CELL_VALUE_INDEX = Optional.empty();
+
     final static class TestSpreadsheetContext implements SpreadsheetContext,
         EnvironmentContextDelegator,
         CurrencyContextDelegator,
@@ -317,7 +332,11 @@ public final class BasicSpreadsheetEngineHateosHandlerContextTest implements Spr
             () -> BasicSpreadsheetEngineHateosHandlerContext.with(
                 null,
                 HATEOS_HANDLER_CONTEXT,
-                SPREADSHEET_ENGINE_CONTEXT
+                SPREADSHEET_ENGINE_CONTEXT,
+                VIEWPORT_METADATA_WRITE_BEHIND,
+                CHANGE_LOG,
+                CELL_QUERY_CACHE,
+                CELL_VALUE_INDEX
             )
         );
     }
@@ -329,7 +348,11 @@ public final class BasicSpreadsheetEngineHateosHandlerContextTest implements Spr
             () -> BasicSpreadsheetEngineHateosHandlerContext.with(
                 SPREADSHEET_ENGINE,
                 null,
-                SPREADSHEET_ENGINE_CONTEXT
+                SPREADSHEET_ENGINE_CONTEXT,
+                VIEWPORT_METADATA_WRITE_BEHIND,
+                CHANGE_LOG,
+                CELL_QUERY_CACHE,
+                CELL_VALUE_INDEX
             )
         );
     }
@@ -341,6 +364,74 @@ public final class BasicSpreadsheetEngineHateosHandlerContextTest implements Spr
             () -> BasicSpreadsheetEngineHateosHandlerContext.with(
                 SPREADSHEET_ENGINE,
                 HATEOS_HANDLER_CONTEXT,
+                null,
+                VIEWPORT_METADATA_WRITE_BEHIND,
+                CHANGE_LOG,
+                CELL_QUERY_CACHE,
+                CELL_VALUE_INDEX
+            )
+        );
+    }
+
+    @Test
+    public void testWithNullViewportMetadataWriteBehindFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> BasicSpreadsheetEngineHateosHandlerContext.with(
+                SPREADSHEET_ENGINE,
+                HATEOS_HANDLER_CONTEXT,
+                SPREADSHEET_ENGINE_CONTEXT,
+                null,
+                CHANGE_LOG,
+                CELL_QUERY_CACHE,
+                CELL_VALUE_INDEX
+            )
+        );
+    }
+
+    @Test
+    public void testWithNullChangeLogFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> BasicSpreadsheetEngineHateosHandlerContext.with(
+                SPREADSHEET_ENGINE,
+                HATEOS_HANDLER_CONTEXT,
+                SPREADSHEET_ENGINE_CONTEXT,
+                VIEWPORT_METADATA_WRITE_BEHIND,
+                null,
+                CELL_QUERY_CACHE,
+                CELL_VALUE_INDEX
+            )
+        );
+    }
+
+    @Test
+    public void testWithNullCellQueryCacheFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> BasicSpreadsheetEngineHateosHandlerContext.with(
+                SPREADSHEET_ENGINE,
+                HATEOS_HANDLER_CONTEXT,
+                SPREADSHEET_ENGINE_CONTEXT,
+                VIEWPORT_METADATA_WRITE_BEHIND,
+                CHANGE_LOG,
+                null,
+                CELL_VALUE_INDEX
+            )
+        );
+    }
+
+    @Test
+    public void testWithNullCellValueIndexFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> BasicSpreadsheetEngineHateosHandlerContext.with(
+                SPREADSHEET_ENGINE,
+                HATEOS_HANDLER_CONTEXT,
+                SPREADSHEET_ENGINE_CONTEXT,
+                VIEWPORT_METADATA_WRITE_BEHIND,
+                CHANGE_LOG,
+                CELL_QUERY_CACHE,
                 null
             )
         );
@@ -404,7 +495,11 @@ public final class BasicSpreadsheetEngineHateosHandlerContextTest implements Spr
             SPREADSHEET_ENGINE,
             HATEOS_HANDLER_CONTEXT,
             new TestSpreadsheetContext()
-                .spreadsheetEngineContext()
+                .spreadsheetEngineContext(),
+                VIEWPORT_METADATA_WRITE_BEHIND,
+                CHANGE_LOG,
+                CELL_QUERY_CACHE,
+                CELL_VALUE_INDEX
         );
     }
 
@@ -20,6 +20,7 @@ package walkingkooka.spreadsheet.server;
 import org.junit.jupiter.api.Test;
 import walkingkooka.Cast;
 import walkingkooka.ToStringTesting;
+import walkingkooka.collect.list.Lists;
 import walkingkooka.environment.AuditInfo;
 import walkingkooka.environment.EnvironmentContext;
 import walkingkooka.environment.EnvironmentValueName;
@@ -63,7 +64,9 @@ import walkingkooka.text.printer.TreePrintableTesting;
 import walkingkooka.tree.json.marshall.JsonNodeMarshallContextObjectPostProcessor;
 import walkingkooka.tree.json.marshall.JsonNodeUnmarshallContextPreProcessor;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
@@ -130,7 +133,8 @@ public final class BasicSpreadsheetServerContextTest implements SpreadsheetServe
                 SPREADSHEET_METADATA_CONTEXT,
                 HATEOS_HANDLER_CONTEXT,
                 PROVIDER_CONTEXT,
-                TERMINAL_SERVER_CONTEXT
+                TERMINAL_SERVER_CONTEXT,
+                SpreadsheetServerCache.unbounded()
             )
         );
     }
@@ -150,7 +154,8 @@ public final class BasicSpreadsheetServerContextTest implements SpreadsheetServe
                 SPREADSHEET_METADATA_CONTEXT,
                 HATEOS_HANDLER_CONTEXT,
                 PROVIDER_CONTEXT,
-                TERMINAL_SERVER_CONTEXT
+                TERMINAL_SERVER_CONTEXT,
+                SpreadsheetServerCache.unbounded()
             )
         );
     }
@@ -170,7 +175,8 @@ public final class BasicSpreadsheetServerContextTest implements SpreadsheetServe
                 SPREADSHEET_METADATA_CONTEXT,
                 HATEOS_HANDLER_CONTEXT,
                 PROVIDER_CONTEXT,
-                TERMINAL_SERVER_CONTEXT
+                TERMINAL_SERVER_CONTEXT,
+                SpreadsheetServerCache.unbounded()
             )
         );
     }
@@ -190,7 +196,8 @@ public final class BasicSpreadsheetServerContextTest implements SpreadsheetServe
                 SPREADSHEET_METADATA_CONTEXT,
                 HATEOS_HANDLER_CONTEXT,
                 PROVIDER_CONTEXT,
-                TERMINAL_SERVER_CONTEXT
+                TERMINAL_SERVER_CONTEXT,
+                SpreadsheetServerCache.unbounded()
             )
         );
     }
@@ -210,7 +217,8 @@ public final class BasicSpreadsheetServerContextTest implements SpreadsheetServe
                 SPREADSHEET_METADATA_CONTEXT,
                 HATEOS_HANDLER_CONTEXT,
                 PROVIDER_CONTEXT,
-                TERMINAL_SERVER_CONTEXT
+                TERMINAL_SERVER_CONTEXT,
+                SpreadsheetServerCache.unbounded()
             )
         );
     }
@@ -230,7 +238,8 @@ public final class BasicSpreadsheetServerContextTest implements SpreadsheetServe
                 SPREADSHEET_METADATA_CONTEXT,
                 HATEOS_HANDLER_CONTEXT,
                 PROVIDER_CONTEXT,
-                TERMINAL_SERVER_CONTEXT
+                TERMINAL_SERVER_CONTEXT,
+                SpreadsheetServerCache.unbounded()
             )
         );
     }
@@ -250,7 +259,8 @@ public final class BasicSpreadsheetServerContextTest implements SpreadsheetServe
                 SPREADSHEET_METADATA_CONTEXT,
                 HATEOS_HANDLER_CONTEXT,
                 PROVIDER_CONTEXT,
-                TERMINAL_SERVER_CONTEXT
+                TERMINAL_SERVER_CONTEXT,
+                SpreadsheetServerCache.unbounded()
             )
         );
     }
@@ -270,7 +280,8 @@ public final class BasicSpreadsheetServerContextTest implements SpreadsheetServe
                 null,
                 HATEOS_HANDLER_CONTEXT,
                 PROVIDER_CONTEXT,
-                TERMINAL_SERVER_CONTEXT
+                TERMINAL_SERVER_CONTEXT,
+                SpreadsheetServerCache.unbounded()
             )
         );
     }
@@ -290,7 +301,8 @@ public final class BasicSpreadsheetServerContextTest implements SpreadsheetServe
                 SPREADSHEET_METADATA_CONTEXT,
                 null,
                 PROVIDER_CONTEXT,
-                TERMINAL_SERVER_CONTEXT
+                TERMINAL_SERVER_CONTEXT,
+                SpreadsheetServerCache.unbounded()
             )
         );
     }
@@ -310,7 +322,8 @@ public final class BasicSpreadsheetServerContextTest implements SpreadsheetServe
                 SPREADSHEET_METADATA_CONTEXT,
                 HATEOS_HANDLER_CONTEXT,
                 null,
-                TERMINAL_SERVER_CONTEXT
+                TERMINAL_SERVER_CONTEXT,
+                SpreadsheetServerCache.unbounded()
             )
         );
     }
@@ -330,6 +343,28 @@ public final class BasicSpreadsheetServerContextTest implements SpreadsheetServe
                 SPREADSHEET_METADATA_CONTEXT,
                 HATEOS_HANDLER_CONTEXT,
                 PROVIDER_CONTEXT,
+                null,
+                SpreadsheetServerCache.unbounded()
+            )
+        );
+    }
+
+    @Test
+    public void testWithNullSpreadsheetContextCacheFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> BasicSpreadsheetServerContext.with(
+                MEDIA_TYPE_DETECTOR,
+                MULTIPLIER,
+                SPREADSHEET_ENGINE,
+                SPREADSHEET_ID_TO_SPREADSHEET_STORE_REPOSITORY,
+                SPREADSHEET_PROVIDER,
+                CURRENCY_LOCALE_CONTEXT,
+                SPREADSHEET_ENVIRONMENT_CONTEXT,
+                SPREADSHEET_METADATA_CONTEXT,
+                HATEOS_HANDLER_CONTEXT,
+                PROVIDER_CONTEXT,
+                TERMINAL_SERVER_CONTEXT,
                 null
             )
         );
@@ -599,6 +634,69 @@ public final class BasicSpreadsheetServerContextTest implements SpreadsheetServe
         );
     }
 
+    @Test
+    public void testAddSpreadsheetContextEvictionWatcher() {
+        final List<SpreadsheetContext> evicted = Lists.array();
+
+        final BasicSpreadsheetServerContext spreadsheetServerContext = this.createContext(
+            SpreadsheetServerCache.bounded(
+                1, // maxCount
+                Duration.ofMinutes(1)
+            )
+        );
+        spreadsheetServerContext.addSpreadsheetContextEvictionWatcher(evicted::add);
+
+        final SpreadsheetContext spreadsheetContext1 = spreadsheetServerContext.createEmptySpreadsheet(OPTIONAL_LOCALE);
+        spreadsheetServerContext.createEmptySpreadsheet(OPTIONAL_LOCALE);
+
+        this.checkEquals(
+            Lists.of(spreadsheetContext1),
+            evicted
+        );
+    }
+
+    @Test
+    public void testAddSpreadsheetContextEvictionWatcherRemoved() {
+        final List<SpreadsheetContext> evicted = Lists.array();
+
+        final BasicSpreadsheetServerContext spreadsheetServerContext = this.createContext(
+            SpreadsheetServerCache.bounded(
+                1, // maxCount
+                Duration.ofMinutes(1)
+            )
+        );
+        spreadsheetServerContext.addSpreadsheetContextEvictionWatcher(evicted::add)
+            .run();
+
+        spreadsheetServerContext.createEmptySpreadsheet(OPTIONAL_LOCALE);
+        spreadsheetServerContext.createEmptySpreadsheet(OPTIONAL_LOCALE);
+
+        this.checkEquals(
+            Lists.empty(),
+            evicted
+        );
+    }
+
+    @Test
+    public void testSetEnvironmentContextDoesNotShareSpreadsheetContexts() {
+        final BasicSpreadsheetServerContext before = this.createContext();
+
+        final SpreadsheetContext spreadsheetContext = before.createEmptySpreadsheet(OPTIONAL_LOCALE);
+        final SpreadsheetId spreadsheetId = spreadsheetContext.spreadsheetIdOrFail();
+
+        final SpreadsheetServerContext after = before.setEnvironmentContext(DIFFERENT_ENVIRONMENT_CONTEXT);
+
+        assertNotSame(
+            spreadsheetContext,
+            after.spreadsheetContextOrFail(spreadsheetId)
+        );
+        this.spreadsheetContextAndCheck(
+            before,
+            spreadsheetId,
+            spreadsheetContext
+        );
+    }
+
     // EnvironmentContext...............................................................................................
 
     @Test
@@ -621,7 +719,8 @@ public final class BasicSpreadsheetServerContextTest implements SpreadsheetServe
                 pluginStore,
                 STORAGE_CONTEXT
             ),
-            TERMINAL_SERVER_CONTEXT
+            TERMINAL_SERVER_CONTEXT,
+            SpreadsheetServerCache.unbounded()
         );
 
 
@@ -723,7 +822,31 @@ public final class BasicSpreadsheetServerContextTest implements SpreadsheetServe
         return this.createContext(context);
     }
 
+    private BasicSpreadsheetServerContext createContext(final SpreadsheetServerCache<SpreadsheetId, SpreadsheetContext> spreadsheetContextCache) {
+        final SpreadsheetEnvironmentContext context = SPREADSHEET_ENVIRONMENT_CONTEXT.cloneEnvironment();
+        context.setUser(
+            Optional.of(USER)
+        );
+        context.setEnvironmentValue(
+            SpreadsheetEnvironmentContext.SPREADSHEET_ID,
+            SPREADSHEET_ID
+        );
+
+        return this.createContext(
+            context,
+            spreadsheetContextCache
+        );
+    }
+
     private BasicSpreadsheetServerContext createContext(final SpreadsheetEnvironmentContext spreadsheetEnvironmentContext) {
+        return this.createContext(
+            spreadsheetEnvironmentContext,
+            SpreadsheetServerCache.unbounded()
+        );
+    }
+
+    private BasicSpreadsheetServerContext createContext(final SpreadsheetEnvironmentContext spreadsheetEnvironmentContext,
+                                                        final SpreadsheetServerCache<SpreadsheetId, SpreadsheetContext> spreadsheetContextCache) {
         final SpreadsheetMetadataStore spreadsheetMetadataStore = SpreadsheetMetadataStores.treeMap();
 
         return BasicSpreadsheetServerContext.with(
@@ -821,7 +944,8 @@ public final class BasicSpreadsheetServerContextTest implements SpreadsheetServe
                     Objects.requireNonNull(id, "id");
                     throw new UnsupportedOperationException();
                 }
-            }
+            },
+            spreadsheetContextCache
         );
     }
 
@@ -841,7 +965,8 @@ public final class BasicSpreadsheetServerContextTest implements SpreadsheetServe
                 SPREADSHEET_METADATA_CONTEXT,
                 HATEOS_HANDLER_CONTEXT,
                 PROVIDER_CONTEXT,
-                TERMINAL_SERVER_CONTEXT
+                TERMINAL_SERVER_CONTEXT,
+                SpreadsheetServerCache.unbounded()
             ),
             "mediaTypeDetector=application/octet-stream multiplier=walkingkooka.tree.expression.convert.BasicMultiplyBinaryNumberConverterFunction spreadsheetEngine=FakeSpreadsheetEngine currencyLocaleContext=JRE ReadOnly JRE en-AU spreadsheetEnvironmentContext={charset=UTF-8, currency=AUD, currentWorkingDirectory=/current1/working2/directory3, homeDirectory=/users/user123@example.com, indentation=\"  \", lineEnding=\"\\n\", locale=en_AU, serverUrl=https://example.com, timeOffset=Z, user=user123@example.com} spreadsheetMetadataContext=FakeSpreadsheetMetadataContext hateosHandlerContext=FakeHateosHandlerContext spreadsheetProvider=converterProvider=[https://github.com/mP1/walkingkooka-spreadsheet/Converter/basic basic, https://github.com/mP1/walkingkooka-spreadsheet/Converter/binary binary, https://github.com/mP1/walkingkooka-spreadsheet/Converter/binary-to-text binary-to-text, https://github.com/mP1/walkingkooka-spreadsheet/Converter/boolean boolean, https://github.com/mP1/walkingkooka-spreadsheet/Conve"
         );
@@ -863,7 +988,8 @@ public final class BasicSpreadsheetServerContextTest implements SpreadsheetServe
                 new TestSpreadsheetMetadataContext(),
                 new TestHateosHandlerContext(),
                 new TestProviderContext(),
-                new TestTerminalServerContext()
+                new TestTerminalServerContext(),
+                SpreadsheetServerCache.unbounded()
             ),
             "BasicSpreadsheetServerContext\n" +
                 "  mediaTypeDetector\n" +
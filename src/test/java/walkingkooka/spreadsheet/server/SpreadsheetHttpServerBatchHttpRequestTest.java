@@ -0,0 +1,334 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.server;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.ToStringTesting;
+import walkingkooka.collect.list.Lists;
+import walkingkooka.collect.map.Maps;
+import walkingkooka.net.Url;
+import walkingkooka.net.header.CharsetName;
+import walkingkooka.net.header.ETag;
+import walkingkooka.net.header.ETagValidator;
+import walkingkooka.net.header.HasHateosContentType;
+import walkingkooka.net.header.HttpHeaderName;
+import walkingkooka.net.http.HttpEntity;
+import walkingkooka.net.http.HttpMethod;
+import walkingkooka.net.http.HttpProtocolVersion;
+import walkingkooka.net.http.HttpTransport;
+import walkingkooka.net.http.server.HttpRequest;
+import walkingkooka.net.http.server.HttpRequestParameterName;
+import walkingkooka.net.http.server.HttpRequests;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class SpreadsheetHttpServerBatchHttpRequestTest implements ClassTesting2<SpreadsheetHttpServerBatchHttpRequest>,
+    ToStringTesting<SpreadsheetHttpServerBatchHttpRequest> {
+
+    private final static HttpMethod METHOD = HttpMethod.POST;
+
+    private final static String URL = "/api/spreadsheet/1/cell/A1?home=A1&width=200";
+
+    private final static String BODY = "{\"cells\": {}}";
+
+    private final static Optional<String> TRANSACTION_ID = Optional.of("Transaction123");
+
+    @Test
+    public void testWithNullRequestFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetHttpServerBatchHttpRequest.with(
+                null,
+                METHOD,
+                Url.parseRelative(URL),
+                TRANSACTION_ID,
+                BODY
+            )
+        );
+    }
+
+    @Test
+    public void testWithNullMethodFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetHttpServerBatchHttpRequest.with(
+                batchRequest(),
+                null,
+                Url.parseRelative(URL),
+                TRANSACTION_ID,
+                BODY
+            )
+        );
+    }
+
+    @Test
+    public void testWithNullUrlFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetHttpServerBatchHttpRequest.with(
+                batchRequest(),
+                METHOD,
+                null,
+                TRANSACTION_ID,
+                BODY
+            )
+        );
+    }
+
+    @Test
+    public void testWithNullTransactionIdFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetHttpServerBatchHttpRequest.with(
+                batchRequest(),
+                METHOD,
+                Url.parseRelative(URL),
+                null,
+                BODY
+            )
+        );
+    }
+
+    @Test
+    public void testWithNullBodyFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetHttpServerBatchHttpRequest.with(
+                batchRequest(),
+                METHOD,
+                Url.parseRelative(URL),
+                TRANSACTION_ID,
+                null
+            )
+        );
+    }
+
+    @Test
+    public void testTransportAndProtocolVersion() {
+        final SpreadsheetHttpServerBatchHttpRequest request = this.createRequest();
+
+        this.checkEquals(
+            HttpTransport.SECURED,
+            request.transport(),
+            "transport"
+        );
+        this.checkEquals(
+            HttpProtocolVersion.VERSION_1_1,
+            request.protocolVersion(),
+            "protocolVersion"
+        );
+    }
+
+    @Test
+    public void testMethodAndUrl() {
+        final SpreadsheetHttpServerBatchHttpRequest request = this.createRequest();
+
+        this.checkEquals(
+            METHOD,
+            request.method(),
+            "method"
+        );
+        this.checkEquals(
+            Url.parseRelative(URL),
+            request.url(),
+            "url"
+        );
+    }
+
+    @Test
+    public void testBody() {
+        this.checkEquals(
+            BODY,
+            new String(
+                this.createRequest()
+                    .body(),
+                StandardCharsets.UTF_8
+            )
+        );
+    }
+
+    @Test
+    public void testHeaders() {
+        this.checkEquals(
+            Maps.of(
+                HttpHeaderName.USER_AGENT,
+                Lists.of("Browser123"),
+                HttpHeaderName.ACCEPT,
+                Lists.of(
+                    HasHateosContentType.HATEOS_CONTENT_TYPE.accept()
+                ),
+                HttpHeaderName.CONTENT_TYPE,
+                Lists.of(
+                    HasHateosContentType.HATEOS_CONTENT_TYPE.setCharset(CharsetName.UTF_8)
+                ),
+                HttpHeaderName.CONTENT_LENGTH,
+                Lists.of(
+                    Long.valueOf(BODY.length())
+                ),
+                SpreadsheetHttpServer.TRANSACTION_ID,
+                Lists.of("Transaction123")
+            ),
+            this.createRequest()
+                .headers()
+        );
+    }
+
+    @Test
+    public void testHeadersWithoutBodyOrTransactionId() {
+        this.checkEquals(
+            Maps.of(
+                HttpHeaderName.USER_AGENT,
+                Lists.of("Browser123"),
+                HttpHeaderName.ACCEPT,
+                Lists.of(
+                    HasHateosContentType.HATEOS_CONTENT_TYPE.accept()
+                )
+            ),
+            SpreadsheetHttpServerBatchHttpRequest.with(
+                batchRequest(),
+                HttpMethod.GET,
+                Url.parseRelative(URL),
+                Optional.empty(),
+                ""
+            ).headers()
+        );
+    }
+
+    @Test
+    public void testHeadersWithoutConditionalHeaders() {
+        final ETag etag = ETag.with(
+            "abc123",
+            ETagValidator.WEAK
+        );
+
+        this.checkEquals(
+            Maps.of(
+                HttpHeaderName.USER_AGENT,
+                Lists.of("Browser123"),
+                HttpHeaderName.ACCEPT,
+                Lists.of(
+                    HasHateosContentType.HATEOS_CONTENT_TYPE.accept()
+                )
+            ),
+            SpreadsheetHttpServerBatchHttpRequest.with(
+                HttpRequests.value(
+                    HttpTransport.SECURED,
+                    HttpMethod.POST,
+                    Url.parseRelative("/api/spreadsheet/1/batch"),
+                    HttpProtocolVersion.VERSION_1_1,
+                    HttpEntity.EMPTY.addHeader(
+                        HttpHeaderName.USER_AGENT,
+                        "Browser123"
+                    ).addHeader(
+                        HttpHeaderName.IF_NONE_MATCH,
+                        Lists.of(etag)
+                    ).addHeader(
+                        HttpHeaderName.IF_MATCH,
+                        Lists.of(etag)
+                    )
+                ),
+                HttpMethod.GET,
+                Url.parseRelative(URL),
+                Optional.empty(),
+                ""
+            ).headers()
+        );
+    }
+
+    @Test
+    public void testParameters() {
+        this.checkEquals(
+            Maps.of(
+                HttpRequestParameterName.with("home"),
+                Lists.of("A1"),
+                HttpRequestParameterName.with("width"),
+                Lists.of("200")
+            ),
+            this.createRequest()
+                .parameters()
+        );
+    }
+
+    @Test
+    public void testParameterValues() {
+        this.checkEquals(
+            Lists.of("A1"),
+            this.createRequest()
+                .parameterValues(HttpRequestParameterName.with("home"))
+        );
+    }
+
+    @Test
+    public void testParameterValuesUnknown() {
+        this.checkEquals(
+            Lists.empty(),
+            this.createRequest()
+                .parameterValues(HttpRequestParameterName.with("unknown"))
+        );
+    }
+
+    @Test
+    public void testToString() {
+        this.toStringAndCheck(
+            this.createRequest(),
+            "POST " + URL
+        );
+    }
+
+    private SpreadsheetHttpServerBatchHttpRequest createRequest() {
+        return SpreadsheetHttpServerBatchHttpRequest.with(
+            batchRequest(),
+            METHOD,
+            Url.parseRelative(URL),
+            TRANSACTION_ID,
+            BODY
+        );
+    }
+
+    private static HttpRequest batchRequest() {
+        return HttpRequests.value(
+            HttpTransport.SECURED,
+            HttpMethod.POST,
+            Url.parseRelative("/api/spreadsheet/1/batch"),
+            HttpProtocolVersion.VERSION_1_1,
+            HttpEntity.EMPTY.addHeader(
+                HttpHeaderName.USER_AGENT,
+                "Browser123"
+            ).addHeader(
+                SpreadsheetHttpServer.TRANSACTION_ID,
+                "Batch456"
+            ).setContentType(HasHateosContentType.HATEOS_CONTENT_TYPE)
+        );
+    }
+
+    // class............................................................................................................
+
+    @Override
+    public Class<SpreadsheetHttpServerBatchHttpRequest> type() {
+        return SpreadsheetHttpServerBatchHttpRequest.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
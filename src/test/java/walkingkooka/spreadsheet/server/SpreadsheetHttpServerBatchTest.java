@@ -0,0 +1,228 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.server;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.Binary;
+import walkingkooka.net.Url;
+import walkingkooka.net.header.CharsetName;
+import walkingkooka.net.header.ContentEncoding;
+import walkingkooka.net.header.HasHateosContentType;
+import walkingkooka.net.header.HttpHeaderName;
+import walkingkooka.net.http.HttpEntity;
+import walkingkooka.net.http.HttpMethod;
+import walkingkooka.net.http.HttpProtocolVersion;
+import walkingkooka.net.http.HttpTransport;
+import walkingkooka.net.http.server.HttpRequests;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.spreadsheet.server.net.SpreadsheetServerMediaTypes;
+import walkingkooka.text.CharSequences;
+
+import java.nio.charset.StandardCharsets;
+
+public final class SpreadsheetHttpServerBatchTest implements ClassTesting2<SpreadsheetHttpServerBatch> {
+
+    // isBatch..........................................................................................................
+
+    @Test
+    public void testIsBatchPost() {
+        this.isBatchAndCheck(
+            HttpMethod.POST,
+            "/api/spreadsheet/1/batch",
+            true
+        );
+    }
+
+    @Test
+    public void testIsBatchGet() {
+        this.isBatchAndCheck(
+            HttpMethod.GET,
+            "/api/spreadsheet/1/batch",
+            false
+        );
+    }
+
+    @Test
+    public void testIsBatchPostChild() {
+        this.isBatchAndCheck(
+            HttpMethod.POST,
+            "/api/spreadsheet/1/batch/2",
+            false
+        );
+    }
+
+    @Test
+    public void testIsBatchPostCell() {
+        this.isBatchAndCheck(
+            HttpMethod.POST,
+            "/api/spreadsheet/1/cell/A1",
+            false
+        );
+    }
+
+    private void isBatchAndCheck(final HttpMethod method,
+                                 final String url,
+                                 final boolean expected) {
+        this.checkEquals(
+            expected,
+            SpreadsheetHttpServerBatch.isBatch(
+                HttpRequests.value(
+                    HttpTransport.UNSECURED,
+                    method,
+                    Url.parseRelative(url),
+                    HttpProtocolVersion.VERSION_1_0,
+                    HttpEntity.EMPTY
+                )
+            ),
+            () -> method + " " + url
+        );
+    }
+
+    // isText...........................................................................................................
+
+    @Test
+    public void testIsTextEmpty() {
+        this.isTextAndCheck(
+            HttpEntity.EMPTY.setContentType(SpreadsheetServerMediaTypes.JSON_BINARY),
+            true
+        );
+    }
+
+    @Test
+    public void testIsTextJson() {
+        this.isTextAndCheck(
+            HttpEntity.EMPTY.setContentType(HasHateosContentType.HATEOS_CONTENT_TYPE.setCharset(CharsetName.UTF_8))
+                .setBodyText("{}"),
+            true
+        );
+    }
+
+    @Test
+    public void testIsTextEventStream() {
+        this.isTextAndCheck(
+            HttpEntity.EMPTY.setContentType(SpreadsheetServerMediaTypes.EVENT_STREAM)
+                .setBodyText("retry: 1000\n"),
+            true
+        );
+    }
+
+    @Test
+    public void testIsTextJsonBinary() {
+        this.isTextAndCheck(
+            HttpEntity.EMPTY.setContentType(SpreadsheetServerMediaTypes.JSON_BINARY)
+                .setBody(
+                    Binary.with(
+                        new byte[]{1, 2, (byte) 0xff}
+                    )
+                ),
+            false
+        );
+    }
+
+    @Test
+    public void testIsTextJsonGzipped() {
+        this.isTextAndCheck(
+            HttpEntity.EMPTY.setContentType(HasHateosContentType.HATEOS_CONTENT_TYPE)
+                .addHeader(
+                    HttpHeaderName.CONTENT_ENCODING,
+                    ContentEncoding.GZIP
+                ).setBody(
+                    Binary.with(
+                        new byte[]{0x1f, (byte) 0x8b}
+                    )
+                ),
+            false
+        );
+    }
+
+    private void isTextAndCheck(final HttpEntity entity,
+                                final boolean expected) {
+        this.checkEquals(
+            expected,
+            SpreadsheetHttpServerBatch.isText(entity),
+            entity::toString
+        );
+    }
+
+    // base64...........................................................................................................
+
+    @Test
+    public void testBase64Empty() {
+        this.base64AndCheck(
+            "",
+            ""
+        );
+    }
+
+    @Test
+    public void testBase64Padding2() {
+        this.base64AndCheck(
+            "f",
+            "Zg=="
+        );
+    }
+
+    @Test
+    public void testBase64Padding1() {
+        this.base64AndCheck(
+            "fo",
+            "Zm8="
+        );
+    }
+
+    @Test
+    public void testBase64() {
+        this.base64AndCheck(
+            "foobar",
+            "Zm9vYmFy"
+        );
+    }
+
+    @Test
+    public void testBase64HighBytes() {
+        this.checkEquals(
+            "//79",
+            SpreadsheetHttpServerBatch.base64(
+                new byte[]{(byte) 0xff, (byte) 0xfe, (byte) 0xfd}
+            )
+        );
+    }
+
+    private void base64AndCheck(final String text,
+                                final String expected) {
+        this.checkEquals(
+            expected,
+            SpreadsheetHttpServerBatch.base64(
+                text.getBytes(StandardCharsets.UTF_8)
+            ),
+            () -> "base64 " + CharSequences.quoteAndEscape(text)
+        );
+    }
+
+    // class............................................................................................................
+
+    @Override
+    public Class<SpreadsheetHttpServerBatch> type() {
+        return SpreadsheetHttpServerBatch.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
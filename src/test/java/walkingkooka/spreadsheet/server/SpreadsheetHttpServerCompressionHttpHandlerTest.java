@@ -0,0 +1,459 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.server;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.Binary;
+import walkingkooka.collect.set.Sets;
+import walkingkooka.net.Url;
+import walkingkooka.net.header.AcceptEncoding;
+import walkingkooka.net.header.ContentEncoding;
+import walkingkooka.net.header.HttpHeaderName;
+import walkingkooka.net.header.MediaType;
+import walkingkooka.net.http.HttpEntity;
+import walkingkooka.net.http.HttpProtocolVersion;
+import walkingkooka.net.http.HttpStatusCode;
+import walkingkooka.net.http.HttpTransport;
+import walkingkooka.net.http.server.HttpHandlerTesting;
+import walkingkooka.net.http.server.HttpHandlers;
+import walkingkooka.net.http.server.HttpRequest;
+import walkingkooka.net.http.server.HttpRequests;
+import walkingkooka.net.http.server.HttpResponse;
+import walkingkooka.net.http.server.HttpResponses;
+import walkingkooka.reflect.JavaVisibility;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+public final class SpreadsheetHttpServerCompressionHttpHandlerTest implements HttpHandlerTesting<SpreadsheetHttpServerCompressionHttpHandler, SpreadsheetServerContext> {
+
+    private final static int MINIMUM_SIZE = 100;
+
+    private final static Binary LARGE_BODY = Binary.with(
+        "{\"cells\": {\"A1\": {\"formula\": {\"text\": \"=1+2\"}}, \"A2\": {\"formula\": {\"text\": \"=1+2\"}}, \"A3\": {\"formula\": {\"text\": \"=1+2\"}}}}"
+            .getBytes(StandardCharsets.UTF_8)
+    );
+
+    private final static Binary SMALL_BODY = Binary.with(
+        "{}".getBytes(StandardCharsets.UTF_8)
+    );
+
+    // isGzipAccepted...................................................................................................
+
+    @Test
+    public void testIsGzipAcceptedMissing() {
+        this.isGzipAcceptedAndCheck(
+            HttpEntity.EMPTY,
+            false
+        );
+    }
+
+    @Test
+    public void testIsGzipAcceptedGzip() {
+        this.isGzipAcceptedAndCheck(
+            "gzip",
+            true
+        );
+    }
+
+    @Test
+    public void testIsGzipAcceptedDeflateAndGzip() {
+        this.isGzipAcceptedAndCheck(
+            "deflate, gzip",
+            true
+        );
+    }
+
+    @Test
+    public void testIsGzipAcceptedWildcard() {
+        this.isGzipAcceptedAndCheck(
+            "*",
+            true
+        );
+    }
+
+    @Test
+    public void testIsGzipAcceptedDeflate() {
+        this.isGzipAcceptedAndCheck(
+            "deflate",
+            false
+        );
+    }
+
+    @Test
+    public void testIsGzipAcceptedGzipQualityZero() {
+        this.isGzipAcceptedAndCheck(
+            "gzip;q=0",
+            false
+        );
+    }
+
+    @Test
+    public void testIsGzipAcceptedWildcardQualityZero() {
+        this.isGzipAcceptedAndCheck(
+            "*;q=0",
+            false
+        );
+    }
+
+    @Test
+    public void testIsGzipAcceptedGzipQualityZeroAndWildcard() {
+        this.isGzipAcceptedAndCheck(
+            "gzip;q=0, *",
+            false
+        );
+    }
+
+    @Test
+    public void testIsGzipAcceptedWildcardAndGzipQualityZero() {
+        this.isGzipAcceptedAndCheck(
+            "*, gzip;q=0",
+            false
+        );
+    }
+
+    @Test
+    public void testIsGzipAcceptedDeflateAndWildcardQuality() {
+        this.isGzipAcceptedAndCheck(
+            "deflate, *;q=0.5",
+            true
+        );
+    }
+
+    private void isGzipAcceptedAndCheck(final String acceptEncoding,
+                                        final boolean expected) {
+        this.isGzipAcceptedAndCheck(
+            HttpEntity.EMPTY.addHeader(
+                HttpHeaderName.ACCEPT_ENCODING,
+                AcceptEncoding.parse(acceptEncoding)
+            ),
+            expected
+        );
+    }
+
+    private void isGzipAcceptedAndCheck(final HttpEntity entity,
+                                        final boolean expected) {
+        this.checkEquals(
+            expected,
+            SpreadsheetHttpServerCompressionHttpHandler.isGzipAccepted(
+                request(entity)
+            ),
+            entity::toString
+        );
+    }
+
+    // handle...........................................................................................................
+
+    @Test
+    public void testHandleWithoutAcceptEncoding() {
+        final SpreadsheetHttpServerCompression compression = this.compression();
+
+        this.handleAndCheck(
+            compression,
+            HttpEntity.EMPTY,
+            this.responseEntity(LARGE_BODY),
+            this.responseEntity(LARGE_BODY)
+        );
+
+        this.checkEquals(
+            0L,
+            compression.compressedCount(),
+            "compressedCount"
+        );
+    }
+
+    @Test
+    public void testHandleGzipSmallBody() {
+        final SpreadsheetHttpServerCompression compression = this.compression();
+
+        this.handleAndCheck(
+            compression,
+            this.acceptGzip(),
+            this.responseEntity(SMALL_BODY),
+            this.responseEntity(SMALL_BODY)
+        );
+
+        this.checkEquals(
+            0L,
+            compression.compressedCount(),
+            "compressedCount"
+        );
+    }
+
+    @Test
+    public void testHandleGzipExcludedContentType() {
+        final SpreadsheetHttpServerCompression compression = this.compression();
+
+        final HttpEntity entity = HttpEntity.EMPTY.setContentType(MediaType.BINARY)
+            .setBody(LARGE_BODY)
+            .setContentLength();
+
+        this.handleAndCheck(
+            compression,
+            this.acceptGzip(),
+            entity,
+            entity
+        );
+    }
+
+    @Test
+    public void testHandleGzipAlreadyEncoded() {
+        final SpreadsheetHttpServerCompression compression = this.compression();
+
+        final HttpEntity entity = this.responseEntity(LARGE_BODY)
+            .addHeader(
+                HttpHeaderName.CONTENT_ENCODING,
+                ContentEncoding.GZIP
+            );
+
+        this.handleAndCheck(
+            compression,
+            this.acceptGzip(),
+            entity,
+            entity
+        );
+    }
+
+    @Test
+    public void testHandleGzip() {
+        final SpreadsheetHttpServerCompression compression = this.compression();
+
+        final Binary gzipped = LARGE_BODY.gzip();
+
+        this.handleAndCheck(
+            compression,
+            this.acceptGzip(),
+            this.responseEntity(LARGE_BODY),
+            this.responseEntity(LARGE_BODY)
+                .addHeader(
+                    SpreadsheetHttpServer.VARY,
+                    "Accept-Encoding"
+                ).addHeader(
+                    HttpHeaderName.CONTENT_ENCODING,
+                    ContentEncoding.GZIP
+                ).setBody(gzipped)
+                .setContentLength()
+        );
+
+        this.checkEquals(
+            1L,
+            compression.compressedCount(),
+            "compressedCount"
+        );
+        this.checkEquals(
+            (long) LARGE_BODY.size() - gzipped.size(),
+            compression.bytesSaved(),
+            "bytesSaved"
+        );
+    }
+
+    @Test
+    public void testHandleGzipNotAcceptedVary() {
+        final SpreadsheetHttpServerCompression compression = this.compression();
+
+        this.handleAndCheck(
+            compression,
+            HttpEntity.EMPTY.addHeader(
+                HttpHeaderName.ACCEPT_ENCODING,
+                AcceptEncoding.parse("gzip;q=0, *")
+            ),
+            this.responseEntity(LARGE_BODY),
+            this.responseEntity(LARGE_BODY)
+                .addHeader(
+                    SpreadsheetHttpServer.VARY,
+                    "Accept-Encoding"
+                )
+        );
+
+        this.checkEquals(
+            0L,
+            compression.compressedCount(),
+            "compressedCount"
+        );
+    }
+
+    @Test
+    public void testHandleGzipTwice() {
+        final SpreadsheetHttpServerCompression compression = this.compression();
+        final SpreadsheetHttpServerCompressionHttpHandler handler = SpreadsheetHttpServerCompressionHttpHandler.with(
+            compression,
+            (request, response, context) -> response.setEntity(
+                this.responseEntity(LARGE_BODY)
+            )
+        );
+
+        final HttpResponse first = HttpResponses.recording();
+        handler.handle(
+            request(this.acceptGzip()),
+            first,
+            this.createContext()
+        );
+
+        final HttpResponse second = HttpResponses.recording();
+        handler.handle(
+            request(this.acceptGzip()),
+            second,
+            this.createContext()
+        );
+
+        this.checkEquals(
+            first.entity(),
+            second.entity()
+        );
+        this.checkEquals(
+            2L,
+            compression.compressedCount(),
+            "compressedCount"
+        );
+    }
+
+    @Test
+    public void testHandleGzipAfterDifferentLevel() {
+        this.handleAndCheck(
+            SpreadsheetHttpServerCompression.with(
+                MINIMUM_SIZE,
+                SpreadsheetHttpServerCompression.BEST_SPEED,
+                Sets.of(MediaType.BINARY)
+            ),
+            this.acceptGzip(),
+            this.responseEntity(LARGE_BODY),
+            this.responseEntity(LARGE_BODY)
+                .addHeader(
+                    SpreadsheetHttpServer.VARY,
+                    "Accept-Encoding"
+                ).addHeader(
+                    HttpHeaderName.CONTENT_ENCODING,
+                    ContentEncoding.GZIP
+                ).setBody(
+                    this.gzip(
+                        LARGE_BODY,
+                        SpreadsheetHttpServerCompression.BEST_SPEED
+                    )
+                ).setContentLength()
+        );
+
+        // a pooled deflater must not keep the previous level
+        this.testHandleGzip();
+    }
+
+    private Binary gzip(final Binary body,
+                        final int level) {
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (final GZIPOutputStream gzip = new GZIPOutputStream(bytes) {
+                {
+                    this.def.setLevel(level);
+                }
+            }) {
+                gzip.write(body.value());
+            }
+            return Binary.with(bytes.toByteArray());
+        } catch (final IOException cause) {
+            throw new UncheckedIOException(cause);
+        }
+    }
+
+    private void handleAndCheck(final SpreadsheetHttpServerCompression compression,
+                                final HttpEntity requestEntity,
+                                final HttpEntity responseEntity,
+                                final HttpEntity expected) {
+        final HttpResponse response = HttpResponses.recording();
+
+        SpreadsheetHttpServerCompressionHttpHandler.with(
+            compression,
+            (request, r, context) -> {
+                r.setVersion(request.protocolVersion());
+                r.setStatus(HttpStatusCode.OK.status());
+                r.setEntity(responseEntity);
+            }
+        ).handle(
+            request(requestEntity),
+            response,
+            this.createContext()
+        );
+
+        this.checkEquals(
+            HttpStatusCode.OK.status(),
+            response.status()
+                .orElse(null),
+            "status"
+        );
+        this.checkEquals(
+            expected,
+            response.entity(),
+            "entity"
+        );
+    }
+
+    private SpreadsheetHttpServerCompression compression() {
+        return SpreadsheetHttpServerCompression.with(
+            MINIMUM_SIZE,
+            SpreadsheetHttpServerCompression.DEFAULT_LEVEL,
+            Sets.of(MediaType.BINARY)
+        );
+    }
+
+    private HttpEntity acceptGzip() {
+        return HttpEntity.EMPTY.addHeader(
+            HttpHeaderName.ACCEPT_ENCODING,
+            AcceptEncoding.parse("gzip")
+        );
+    }
+
+    private HttpEntity responseEntity(final Binary body) {
+        return HttpEntity.EMPTY.setContentType(MediaType.APPLICATION_JSON)
+            .setBody(body)
+            .setContentLength();
+    }
+
+    private static HttpRequest request(final HttpEntity entity) {
+        return HttpRequests.get(
+            HttpTransport.UNSECURED,
+            Url.parseRelative("/api"),
+            HttpProtocolVersion.VERSION_1_0,
+            entity
+        );
+    }
+
+    @Override
+    public SpreadsheetHttpServerCompressionHttpHandler createHttpHandler() {
+        return SpreadsheetHttpServerCompressionHttpHandler.with(
+            SpreadsheetHttpServerCompression.defaults(),
+            HttpHandlers.fake()
+        );
+    }
+
+    @Override
+    public SpreadsheetServerContext createContext() {
+        return SpreadsheetServerContexts.fake();
+    }
+
+    // class............................................................................................................
+
+    @Override
+    public Class<SpreadsheetHttpServerCompressionHttpHandler> type() {
+        return SpreadsheetHttpServerCompressionHttpHandler.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.server;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.ToStringTesting;
+import walkingkooka.collect.set.Sets;
+import walkingkooka.net.header.CharsetName;
+import walkingkooka.net.header.MediaType;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class SpreadsheetHttpServerCompressionTest implements ClassTesting2<SpreadsheetHttpServerCompression>,
+    ToStringTesting<SpreadsheetHttpServerCompression> {
+
+    private final static int MINIMUM_SIZE = 100;
+
+    private final static int LEVEL = SpreadsheetHttpServerCompression.BEST_SPEED;
+
+    // with.............................................................................................................
+
+    @Test
+    public void testWithNegativeMinimumSizeFails() {
+        final IllegalArgumentException thrown = assertThrows(
+            IllegalArgumentException.class,
+            () -> SpreadsheetHttpServerCompression.with(
+                -1,
+                LEVEL,
+                Sets.empty()
+            )
+        );
+        this.checkEquals(
+            "Invalid minimumSize -1 < 0",
+            thrown.getMessage()
+        );
+    }
+
+    @Test
+    public void testWithInvalidLevelFails() {
+        final IllegalArgumentException thrown = assertThrows(
+            IllegalArgumentException.class,
+            () -> SpreadsheetHttpServerCompression.with(
+                MINIMUM_SIZE,
+                10,
+                Sets.empty()
+            )
+        );
+        this.checkEquals(
+            "Invalid level 10 not -1 or between 0 and 9",
+            thrown.getMessage()
+        );
+    }
+
+    @Test
+    public void testWithNullExcludedContentTypesFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetHttpServerCompression.with(
+                MINIMUM_SIZE,
+                LEVEL,
+                null
+            )
+        );
+    }
+
+    @Test
+    public void testWith() {
+        final SpreadsheetHttpServerCompression compression = SpreadsheetHttpServerCompression.with(
+            MINIMUM_SIZE,
+            LEVEL,
+            Sets.of(MediaType.BINARY)
+        );
+
+        this.checkEquals(
+            MINIMUM_SIZE,
+            compression.minimumSize(),
+            "minimumSize"
+        );
+        this.checkEquals(
+            LEVEL,
+            compression.level(),
+            "level"
+        );
+        this.checkEquals(
+            Sets.of(MediaType.BINARY),
+            compression.excludedContentTypes(),
+            "excludedContentTypes"
+        );
+    }
+
+    @Test
+    public void testDefaults() {
+        final SpreadsheetHttpServerCompression compression = SpreadsheetHttpServerCompression.defaults();
+
+        this.checkEquals(
+            SpreadsheetHttpServerCompression.DEFAULT_MINIMUM_SIZE,
+            compression.minimumSize(),
+            "minimumSize"
+        );
+        this.checkEquals(
+            SpreadsheetHttpServerCompression.DEFAULT_LEVEL,
+            compression.level(),
+            "level"
+        );
+    }
+
+    // isCompressible...................................................................................................
+
+    @Test
+    public void testIsCompressibleNullContentTypeFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> this.createObject()
+                .isCompressible(
+                    null,
+                    MINIMUM_SIZE
+                )
+        );
+    }
+
+    @Test
+    public void testIsCompressibleTooSmall() {
+        this.isCompressibleAndCheck(
+            MediaType.APPLICATION_JSON,
+            MINIMUM_SIZE - 1,
+            false
+        );
+    }
+
+    @Test
+    public void testIsCompressibleMinimumSize() {
+        this.isCompressibleAndCheck(
+            MediaType.APPLICATION_JSON,
+            MINIMUM_SIZE,
+            true
+        );
+    }
+
+    @Test
+    public void testIsCompressibleMissingContentType() {
+        this.checkEquals(
+            true,
+            this.createObject()
+                .isCompressible(
+                    Optional.empty(),
+                    MINIMUM_SIZE
+                )
+        );
+    }
+
+    @Test
+    public void testIsCompressibleExcluded() {
+        this.isCompressibleAndCheck(
+            MediaType.BINARY,
+            MINIMUM_SIZE * 10,
+            false
+        );
+    }
+
+    @Test
+    public void testIsCompressibleExcludedWithParameters() {
+        this.isCompressibleAndCheck(
+            MediaType.BINARY.setCharset(CharsetName.UTF_8),
+            MINIMUM_SIZE * 10,
+            false
+        );
+    }
+
+    private void isCompressibleAndCheck(final MediaType contentType,
+                                        final long size,
+                                        final boolean expected) {
+        this.checkEquals(
+            expected,
+            this.createObject()
+                .isCompressible(
+                    Optional.of(contentType),
+                    size
+                ),
+            () -> contentType + " " + size
+        );
+    }
+
+    // metrics..........................................................................................................
+
+    @Test
+    public void testRecord() {
+        final SpreadsheetHttpServerCompression compression = this.createObject();
+
+        compression.record(
+            1000,
+            200,
+            5000
+        );
+        compression.record(
+            500,
+            100,
+            1000
+        );
+
+        this.checkEquals(
+            2L,
+            compression.compressedCount(),
+            "compressedCount"
+        );
+        this.checkEquals(
+            1500L,
+            compression.uncompressedBytes(),
+            "uncompressedBytes"
+        );
+        this.checkEquals(
+            300L,
+            compression.compressedBytes(),
+            "compressedBytes"
+        );
+        this.checkEquals(
+            1200L,
+            compression.bytesSaved(),
+            "bytesSaved"
+        );
+        this.checkEquals(
+            Duration.ofNanos(6000),
+            compression.compressTime(),
+            "compressTime"
+        );
+    }
+
+    // toString.........................................................................................................
+
+    @Test
+    public void testToString() {
+        final SpreadsheetHttpServerCompression compression = this.createObject();
+        compression.record(
+            1000,
+            200,
+            5000
+        );
+
+        this.toStringAndCheck(
+            compression,
+            "minimumSize=100 level=1 excludedContentTypes=[" + MediaType.BINARY + "] compressedCount=1 bytesSaved=800"
+        );
+    }
+
+    private SpreadsheetHttpServerCompression createObject() {
+        return SpreadsheetHttpServerCompression.with(
+            MINIMUM_SIZE,
+            LEVEL,
+            Sets.of(MediaType.BINARY)
+        );
+    }
+
+    // class............................................................................................................
+
+    @Override
+    public Class<SpreadsheetHttpServerCompression> type() {
+        return SpreadsheetHttpServerCompression.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PUBLIC;
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.server;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.collect.list.Lists;
+import walkingkooka.net.Url;
+import walkingkooka.net.http.HttpEntity;
+import walkingkooka.net.http.HttpProtocolVersion;
+import walkingkooka.net.http.HttpStatusCode;
+import walkingkooka.net.http.HttpTransport;
+import walkingkooka.net.http.server.HttpHandler;
+import walkingkooka.net.http.server.HttpHandlerTesting;
+import walkingkooka.net.http.server.HttpHandlers;
+import walkingkooka.net.http.server.HttpRequest;
+import walkingkooka.net.http.server.HttpRequests;
+import walkingkooka.net.http.server.HttpResponse;
+import walkingkooka.net.http.server.HttpResponses;
+import walkingkooka.reflect.JavaVisibility;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class SpreadsheetHttpServerConcurrencyLimitHttpHandlerTest implements HttpHandlerTesting<SpreadsheetHttpServerConcurrencyLimitHttpHandler, SpreadsheetServerContext> {
+
+    private final static int MAX_CONCURRENT_REQUESTS = 2;
+
+    @Test
+    public void testHandleLimitsConcurrentRequests() throws Exception {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final AtomicInteger handled = new AtomicInteger();
+
+        final HttpHandler<SpreadsheetServerContext> handler = (request, response, context) -> {
+            final int count = running.incrementAndGet();
+            maxRunning.accumulateAndGet(
+                count,
+                Math::max
+            );
+
+            try {
+                Thread.sleep(5);
+            } catch (final InterruptedException ignore) {
+                // nop
+            }
+
+            running.decrementAndGet();
+            handled.incrementAndGet();
+        };
+
+        final SpreadsheetHttpServerConcurrencyLimitHttpHandler limited = SpreadsheetHttpServerConcurrencyLimitHttpHandler.with(
+            MAX_CONCURRENT_REQUESTS,
+            SpreadsheetHttpServer.DEFAULT_MAX_CONCURRENT_REQUEST_WAIT,
+            handler
+        );
+
+        final int threadCount = 8;
+        final List<Thread> threads = Lists.array();
+
+        for (int i = 0; i < threadCount; i++) {
+            final Thread thread = new Thread(
+                () -> limited.handle(
+                    request(),
+                    HttpResponses.recording(),
+                    this.createContext()
+                )
+            );
+            thread.start();
+            threads.add(thread);
+        }
+
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        this.checkEquals(
+            threadCount,
+            handled.get(),
+            "handled"
+        );
+        this.checkEquals(
+            true,
+            maxRunning.get() <= MAX_CONCURRENT_REQUESTS,
+            () -> "maxRunning " + maxRunning.get()
+        );
+    }
+
+    @Test
+    public void testHandleWaitTooLongServiceUnavailable() throws Exception {
+        final CountDownLatch running = new CountDownLatch(1);
+        final CountDownLatch finish = new CountDownLatch(1);
+
+        final SpreadsheetHttpServerConcurrencyLimitHttpHandler limited = SpreadsheetHttpServerConcurrencyLimitHttpHandler.with(
+            1,
+            Duration.ofMillis(10),
+            (request, response, context) -> {
+                running.countDown();
+                try {
+                    finish.await();
+                } catch (final InterruptedException ignore) {
+                    // nop
+                }
+            }
+        );
+
+        final Thread thread = new Thread(
+            () -> limited.handle(
+                request(),
+                HttpResponses.recording(),
+                this.createContext()
+            )
+        );
+        thread.start();
+        running.await();
+
+        final HttpResponse response = HttpResponses.recording();
+        limited.handle(
+            request(),
+            response,
+            this.createContext()
+        );
+
+        finish.countDown();
+        thread.join();
+
+        this.checkEquals(
+            Optional.of(HttpStatusCode.SERVICE_UNAVAILABLE.status()),
+            response.status(),
+            "status"
+        );
+        this.checkEquals(
+            Optional.of(SpreadsheetHttpServerConcurrencyLimitHttpHandler.RETRY_AFTER_SECONDS),
+            SpreadsheetHttpServerConcurrencyLimitHttpHandler.RETRY_AFTER.header(response.entity()),
+            "Retry-After"
+        );
+    }
+
+    @Test
+    public void testHandleContendedServiceUnavailable() throws Exception {
+        this.handleContendedAndCheck(
+            Duration.ofMillis(20)
+        );
+    }
+
+    @Test
+    public void testHandleContendedZeroWaitServiceUnavailable() throws Exception {
+        this.handleContendedAndCheck(
+            Duration.ZERO
+        );
+    }
+
+    /**
+     * Holds the only permit while several requests contend for it, checking each is rejected with a Retry-After, and
+     * that a request after the permit is released is handled.
+     */
+    private void handleContendedAndCheck(final Duration maxWait) throws Exception {
+        final CountDownLatch running = new CountDownLatch(1);
+        final CountDownLatch finish = new CountDownLatch(1);
+        final AtomicInteger handled = new AtomicInteger();
+
+        final SpreadsheetHttpServerConcurrencyLimitHttpHandler limited = SpreadsheetHttpServerConcurrencyLimitHttpHandler.with(
+            1,
+            maxWait,
+            (request, response, context) -> {
+                if (0 == handled.getAndIncrement()) {
+                    running.countDown();
+                    try {
+                        finish.await();
+                    } catch (final InterruptedException ignore) {
+                        // nop
+                    }
+                }
+                response.setVersion(request.protocolVersion());
+                response.setStatus(HttpStatusCode.OK.status());
+            }
+        );
+
+        final Thread holder = new Thread(
+            () -> limited.handle(
+                request(),
+                HttpResponses.recording(),
+                this.createContext()
+            )
+        );
+        holder.start();
+        running.await();
+
+        final int contenderCount = 4;
+        final List<Thread> contenders = Lists.array();
+        final List<HttpResponse> responses = Lists.array();
+
+        for (int i = 0; i < contenderCount; i++) {
+            final HttpResponse response = HttpResponses.recording();
+            responses.add(response);
+
+            final Thread thread = new Thread(
+                () -> limited.handle(
+                    request(),
+                    response,
+                    this.createContext()
+                )
+            );
+            thread.start();
+            contenders.add(thread);
+        }
+
+        for (final Thread thread : contenders) {
+            thread.join();
+        }
+
+        finish.countDown();
+        holder.join();
+
+        for (final HttpResponse response : responses) {
+            this.checkEquals(
+                Optional.of(HttpStatusCode.SERVICE_UNAVAILABLE.status()),
+                response.status(),
+                "status"
+            );
+            this.checkEquals(
+                Optional.of(SpreadsheetHttpServerConcurrencyLimitHttpHandler.RETRY_AFTER_SECONDS),
+                SpreadsheetHttpServerConcurrencyLimitHttpHandler.RETRY_AFTER.header(response.entity()),
+                "Retry-After"
+            );
+        }
+
+        final HttpResponse after = HttpResponses.recording();
+        limited.handle(
+            request(),
+            after,
+            this.createContext()
+        );
+
+        this.checkEquals(
+            Optional.of(HttpStatusCode.OK.status()),
+            after.status(),
+            "status after release"
+        );
+        this.checkEquals(
+            2,
+            handled.get(),
+            "handled"
+        );
+    }
+
+    private static HttpRequest request() {
+        return HttpRequests.get(
+            HttpTransport.UNSECURED,
+            Url.parseRelative("/api"),
+            HttpProtocolVersion.VERSION_1_0,
+            HttpEntity.EMPTY
+        );
+    }
+
+    @Override
+    public SpreadsheetHttpServerConcurrencyLimitHttpHandler createHttpHandler() {
+        return SpreadsheetHttpServerConcurrencyLimitHttpHandler.with(
+            MAX_CONCURRENT_REQUESTS,
+            SpreadsheetHttpServer.DEFAULT_MAX_CONCURRENT_REQUEST_WAIT,
+            HttpHandlers.fake()
+        );
+    }
+
+    @Override
+    public SpreadsheetServerContext createContext() {
+        return SpreadsheetServerContexts.fake();
+    }
+
+    // class............................................................................................................
+
+    @Override
+    public Class<SpreadsheetHttpServerConcurrencyLimitHttpHandler> type() {
+        return SpreadsheetHttpServerConcurrencyLimitHttpHandler.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
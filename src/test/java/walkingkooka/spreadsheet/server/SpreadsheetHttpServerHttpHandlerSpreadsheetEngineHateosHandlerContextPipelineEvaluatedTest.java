@@ -0,0 +1,195 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.server;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.net.Url;
+import walkingkooka.net.http.HttpEntity;
+import walkingkooka.net.http.HttpMethod;
+import walkingkooka.net.http.HttpProtocolVersion;
+import walkingkooka.net.http.HttpStatusCode;
+import walkingkooka.net.http.HttpTransport;
+import walkingkooka.net.http.server.HttpRequest;
+import walkingkooka.net.http.server.HttpRequests;
+import walkingkooka.net.http.server.HttpResponse;
+import walkingkooka.net.http.server.HttpResponses;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+
+import java.time.Duration;
+
+public final class SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvaluatedTest implements ClassTesting2<SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvaluated> {
+
+    private final static String URL = "/api/spreadsheet/1/cell/A1";
+
+    @Test
+    public void testIsEvaluatedNothingEvaluated() {
+        this.isEvaluatedAndCheck(
+            this.createEvaluated(),
+            request(HttpMethod.GET),
+            false
+        );
+    }
+
+    @Test
+    public void testEvaluatedThenIsEvaluated() {
+        final SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvaluated evaluated = this.createEvaluated();
+        final HttpRequest request = request(HttpMethod.GET);
+
+        evaluated.evaluated(
+            request,
+            response(HttpStatusCode.OK)
+        );
+
+        this.isEvaluatedAndCheck(
+            evaluated,
+            request,
+            true
+        );
+    }
+
+    @Test
+    public void testEvaluatedThenIsEvaluatedDifferentUrl() {
+        final SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvaluated evaluated = this.createEvaluated();
+
+        evaluated.evaluated(
+            request(HttpMethod.GET),
+            response(HttpStatusCode.OK)
+        );
+
+        this.isEvaluatedAndCheck(
+            evaluated,
+            request(
+                HttpMethod.GET,
+                "/api/spreadsheet/1/cell/B2"
+            ),
+            false
+        );
+    }
+
+    @Test
+    public void testEvaluatedThenRevisionChanged() {
+        final SpreadsheetServerRevision revision = SpreadsheetServerRevision.empty();
+        final SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvaluated evaluated = this.createEvaluated(revision);
+        final HttpRequest request = request(HttpMethod.GET);
+
+        evaluated.evaluated(
+            request,
+            response(HttpStatusCode.OK)
+        );
+        revision.increment();
+
+        this.isEvaluatedAndCheck(
+            evaluated,
+            request,
+            false
+        );
+    }
+
+    @Test
+    public void testEvaluatedNotOk() {
+        final SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvaluated evaluated = this.createEvaluated();
+        final HttpRequest request = request(HttpMethod.GET);
+
+        evaluated.evaluated(
+            request,
+            response(HttpStatusCode.INTERNAL_SERVER_ERROR)
+        );
+
+        this.isEvaluatedAndCheck(
+            evaluated,
+            request,
+            false
+        );
+    }
+
+    @Test
+    public void testEvaluatedChange() {
+        final SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvaluated evaluated = this.createEvaluated();
+
+        evaluated.evaluated(
+            request(HttpMethod.POST),
+            response(HttpStatusCode.OK)
+        );
+
+        this.isEvaluatedAndCheck(
+            evaluated,
+            request(HttpMethod.GET),
+            false
+        );
+    }
+
+    private SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvaluated createEvaluated() {
+        return this.createEvaluated(
+            SpreadsheetServerRevision.empty()
+        );
+    }
+
+    private SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvaluated createEvaluated(final SpreadsheetServerRevision revision) {
+        return SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvaluated.with(
+            revision,
+            SpreadsheetViewportMetadataWriteBehind.with(Duration.ofSeconds(5))
+        );
+    }
+
+    private void isEvaluatedAndCheck(final SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvaluated evaluated,
+                                     final HttpRequest request,
+                                     final boolean expected) {
+        this.checkEquals(
+            expected,
+            evaluated.isEvaluated(request),
+            () -> evaluated + " " + request.method() + " " + request.url()
+        );
+    }
+
+    private static HttpRequest request(final HttpMethod method) {
+        return request(
+            method,
+            URL
+        );
+    }
+
+    private static HttpRequest request(final HttpMethod method,
+                                       final String url) {
+        return HttpRequests.value(
+            HttpTransport.UNSECURED,
+            method,
+            Url.parseRelative(url),
+            HttpProtocolVersion.VERSION_1_0,
+            HttpEntity.EMPTY
+        );
+    }
+
+    private static HttpResponse response(final HttpStatusCode status) {
+        final HttpResponse response = HttpResponses.recording();
+        response.setStatus(status.status());
+        return response;
+    }
+
+    // class............................................................................................................
+
+    @Override
+    public Class<SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvaluated> type() {
+        return SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvaluated.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
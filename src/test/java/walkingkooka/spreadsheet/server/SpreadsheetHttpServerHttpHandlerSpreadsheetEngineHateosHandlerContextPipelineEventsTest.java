@@ -0,0 +1,160 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.server;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.net.Url;
+import walkingkooka.net.http.HttpEntity;
+import walkingkooka.net.http.HttpMethod;
+import walkingkooka.net.http.HttpProtocolVersion;
+import walkingkooka.net.http.HttpTransport;
+import walkingkooka.net.http.server.HttpRequest;
+import walkingkooka.net.http.server.HttpRequests;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.text.CharSequences;
+
+import java.util.Optional;
+
+public final class SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEventsTest implements ClassTesting2<SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvents> {
+
+    // isEvents.........................................................................................................
+
+    @Test
+    public void testIsEventsGet() {
+        this.isEventsAndCheck(
+            HttpMethod.GET,
+            "/api/spreadsheet/1/events?since=123&window=A1:C3",
+            true
+        );
+    }
+
+    @Test
+    public void testIsEventsPost() {
+        this.isEventsAndCheck(
+            HttpMethod.POST,
+            "/api/spreadsheet/1/events",
+            false
+        );
+    }
+
+    @Test
+    public void testIsEventsGetChild() {
+        this.isEventsAndCheck(
+            HttpMethod.GET,
+            "/api/spreadsheet/1/events/A1",
+            false
+        );
+    }
+
+    @Test
+    public void testIsEventsGetCell() {
+        this.isEventsAndCheck(
+            HttpMethod.GET,
+            "/api/spreadsheet/1/cell/A1",
+            false
+        );
+    }
+
+    private void isEventsAndCheck(final HttpMethod method,
+                                  final String url,
+                                  final boolean expected) {
+        this.checkEquals(
+            expected,
+            SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvents.isEvents(
+                request(
+                    method,
+                    url
+                )
+            ),
+            () -> method + " " + url
+        );
+    }
+
+    // lastEventId......................................................................................................
+
+    @Test
+    public void testLastEventId() {
+        this.lastEventIdAndCheck(
+            "123",
+            123L
+        );
+    }
+
+    @Test
+    public void testLastEventIdWhitespace() {
+        this.lastEventIdAndCheck(
+            " 123 ",
+            123L
+        );
+    }
+
+    @Test
+    public void testLastEventIdInvalid() {
+        this.lastEventIdAndCheck(
+            "abc"
+        );
+    }
+
+    @Test
+    public void testLastEventIdEmpty() {
+        this.lastEventIdAndCheck(
+            ""
+        );
+    }
+
+    private void lastEventIdAndCheck(final String value) {
+        this.checkEquals(
+            Optional.empty(),
+            SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvents.lastEventId(value),
+            () -> "lastEventId " + CharSequences.quoteAndEscape(value)
+        );
+    }
+
+    private void lastEventIdAndCheck(final String value,
+                                     final long expected) {
+        this.checkEquals(
+            Optional.of(expected),
+            SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvents.lastEventId(value),
+            () -> "lastEventId " + CharSequences.quoteAndEscape(value)
+        );
+    }
+
+    private static HttpRequest request(final HttpMethod method,
+                                       final String url) {
+        return HttpRequests.value(
+            HttpTransport.UNSECURED,
+            method,
+            Url.parseRelative(url),
+            HttpProtocolVersion.VERSION_1_0,
+            HttpEntity.EMPTY
+        );
+    }
+
+    // class............................................................................................................
+
+    @Override
+    public Class<SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvents> type() {
+        return SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineEvents.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.server;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.net.Url;
+import walkingkooka.net.http.HttpEntity;
+import walkingkooka.net.http.HttpMethod;
+import walkingkooka.net.http.HttpProtocolVersion;
+import walkingkooka.net.http.HttpTransport;
+import walkingkooka.net.http.server.HttpRequest;
+import walkingkooka.net.http.server.HttpRequests;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+
+public final class SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineMetricsTest implements ClassTesting2<SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineMetrics> {
+
+    // isMetrics........................................................................................................
+
+    @Test
+    public void testIsMetricsGet() {
+        this.checkEquals(
+            true,
+            SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineMetrics.isMetrics(
+                request(
+                    HttpMethod.GET,
+                    "/api/spreadsheet/1/metrics"
+                )
+            )
+        );
+    }
+
+    @Test
+    public void testIsMetricsEvents() {
+        this.checkEquals(
+            false,
+            SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineMetrics.isMetrics(
+                request(
+                    HttpMethod.GET,
+                    "/api/spreadsheet/1/events"
+                )
+            )
+        );
+    }
+
+    private static HttpRequest request(final HttpMethod method,
+                                       final String url) {
+        return HttpRequests.value(
+            HttpTransport.UNSECURED,
+            method,
+            Url.parseRelative(url),
+            HttpProtocolVersion.VERSION_1_0,
+            HttpEntity.EMPTY
+        );
+    }
+
+    // class............................................................................................................
+
+    @Override
+    public Class<SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineMetrics> type() {
+        return SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineMetrics.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.server;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.net.Url;
+import walkingkooka.net.UrlPathName;
+import walkingkooka.net.http.HttpEntity;
+import walkingkooka.net.http.HttpMethod;
+import walkingkooka.net.http.HttpProtocolVersion;
+import walkingkooka.net.http.HttpTransport;
+import walkingkooka.net.http.server.HttpRequests;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+
+public final class SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipelineTest implements ClassTesting2<SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipeline> {
+
+    // isGet............................................................................................................
+
+    private final static UrlPathName NAME = UrlPathName.with("metrics");
+
+    @Test
+    public void testIsGet() {
+        this.isGetAndCheck(
+            HttpMethod.GET,
+            "/api/spreadsheet/1/metrics",
+            true
+        );
+    }
+
+    @Test
+    public void testIsGetDifferentName() {
+        this.isGetAndCheck(
+            HttpMethod.GET,
+            "/api/spreadsheet/1/events",
+            false
+        );
+    }
+
+    @Test
+    public void testIsGetPost() {
+        this.isGetAndCheck(
+            HttpMethod.POST,
+            "/api/spreadsheet/1/metrics",
+            false
+        );
+    }
+
+    @Test
+    public void testIsGetChild() {
+        this.isGetAndCheck(
+            HttpMethod.GET,
+            "/api/spreadsheet/1/metrics/A1",
+            false
+        );
+    }
+
+    private void isGetAndCheck(final HttpMethod method,
+                               final String url,
+                               final boolean expected) {
+        this.checkEquals(
+            expected,
+            SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipeline.isGet(
+                HttpRequests.value(
+                    HttpTransport.UNSECURED,
+                    method,
+                    Url.parseRelative(url),
+                    HttpProtocolVersion.VERSION_1_0,
+                    HttpEntity.EMPTY
+                ),
+                NAME
+            ),
+            () -> method + " " + url
+        );
+    }
+
+    // class............................................................................................................
+
+    @Override
+    public Class<SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipeline> type() {
+        return SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContextPipeline.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
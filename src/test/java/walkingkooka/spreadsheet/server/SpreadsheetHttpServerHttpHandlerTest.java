@@ -17,11 +17,59 @@
 
 package walkingkooka.spreadsheet.server;
 
+import org.junit.jupiter.api.Test;
+import walkingkooka.net.Url;
+import walkingkooka.net.http.HttpEntity;
+import walkingkooka.net.http.HttpProtocolVersion;
+import walkingkooka.net.http.HttpTransport;
+import walkingkooka.net.http.server.HttpRequests;
+import walkingkooka.net.http.server.HttpResponses;
 import walkingkooka.reflect.ClassTesting;
 import walkingkooka.reflect.JavaVisibility;
 
 public final class SpreadsheetHttpServerHttpHandlerTest implements ClassTesting<SpreadsheetHttpServerHttpHandler> {
 
+    @Test
+    public void testHandleReusesRouter() {
+        final int[] publicHttpHandlerCount = new int[1];
+        final int[] routerFactoryCount = new int[1];
+
+        final SpreadsheetHttpServerHttpHandler handler = SpreadsheetHttpServerHttpHandler.with(
+            () -> {
+                routerFactoryCount[0]++;
+
+                return SpreadsheetHttpServerHttpHandlerRouterFactory.with(
+                    (request, response, context) -> publicHttpHandlerCount[0]++,
+                    SpreadsheetHttpServerCompression.defaults()
+                ).router;
+            }
+        );
+
+        for (int i = 0; i < 3; i++) {
+            handler.handle(
+                HttpRequests.get(
+                    HttpTransport.UNSECURED,
+                    Url.parseRelative("/file.txt"),
+                    HttpProtocolVersion.VERSION_1_0,
+                    HttpEntity.EMPTY
+                ),
+                HttpResponses.recording(),
+                new FakeSpreadsheetServerContext()
+            );
+        }
+
+        this.checkEquals(
+            1,
+            routerFactoryCount[0],
+            "router factory count"
+        );
+        this.checkEquals(
+            3,
+            publicHttpHandlerCount[0],
+            "publicHttpHandler count"
+        );
+    }
+
     // class............................................................................................................
 
     @Override
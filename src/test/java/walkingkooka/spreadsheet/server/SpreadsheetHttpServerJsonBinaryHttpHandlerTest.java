@@ -0,0 +1,218 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.server;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.collect.list.Lists;
+import walkingkooka.net.Url;
+import walkingkooka.net.header.Accept;
+import walkingkooka.net.header.HasHateosContentType;
+import walkingkooka.net.header.HttpHeaderName;
+import walkingkooka.net.header.MediaType;
+import walkingkooka.net.http.HttpEntity;
+import walkingkooka.net.http.HttpMethod;
+import walkingkooka.net.http.HttpProtocolVersion;
+import walkingkooka.net.http.HttpStatusCode;
+import walkingkooka.net.http.HttpTransport;
+import walkingkooka.net.http.server.HttpHandlerTesting;
+import walkingkooka.net.http.server.HttpHandlers;
+import walkingkooka.net.http.server.HttpRequest;
+import walkingkooka.net.http.server.HttpRequests;
+import walkingkooka.net.http.server.HttpResponse;
+import walkingkooka.net.http.server.HttpResponses;
+import walkingkooka.net.http.server.hateos.HateosResourceMappings;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.spreadsheet.server.net.SpreadsheetServerMediaTypes;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class SpreadsheetHttpServerJsonBinaryHttpHandlerTest implements HttpHandlerTesting<SpreadsheetHttpServerJsonBinaryHttpHandler, SpreadsheetServerContext> {
+
+    private final static String URL = "/api/spreadsheet/1/cell/*?home=A1&width=200&height=60";
+
+    private final static String JSON = "{\"cells\": {\"A1\": {\"formula\": {\"text\": \"=1+2\"}}}}";
+
+    @Test
+    public void testWithNullHandlerFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetHttpServerJsonBinaryHttpHandler.with(null)
+        );
+    }
+
+    @Test
+    public void testHandleAcceptJson() {
+        final HttpResponse response = this.handleAndCheckAccept(
+            HttpMethod.GET,
+            accept(HasHateosContentType.HATEOS_CONTENT_TYPE),
+            accept(HasHateosContentType.HATEOS_CONTENT_TYPE)
+        );
+
+        this.checkEquals(
+            json(),
+            response.entity(),
+            "entity"
+        );
+    }
+
+    @Test
+    public void testHandleAcceptJsonAndJsonBinary() {
+        final HttpResponse response = this.handleAndCheckAccept(
+            HttpMethod.GET,
+            accept(
+                HasHateosContentType.HATEOS_CONTENT_TYPE,
+                SpreadsheetServerMediaTypes.JSON_BINARY
+            ),
+            accept(
+                HasHateosContentType.HATEOS_CONTENT_TYPE,
+                SpreadsheetServerMediaTypes.JSON_BINARY
+            )
+        );
+
+        this.checkEquals(
+            json(),
+            response.entity(),
+            "entity"
+        );
+    }
+
+    @Test
+    public void testHandleAcceptJsonBinaryNotCellLoadLeftJson() {
+        final HttpResponse response = this.handleAndCheckAccept(
+            HttpMethod.GET,
+            accept(SpreadsheetServerMediaTypes.JSON_BINARY),
+            accept(HasHateosContentType.HATEOS_CONTENT_TYPE)
+        );
+
+        this.checkEquals(
+            json(),
+            response.entity(),
+            "entity"
+        );
+    }
+
+    @Test
+    public void testHandlePostAcceptJsonBinaryNotNegotiated() {
+        final HttpResponse response = this.handleAndCheckAccept(
+            HttpMethod.POST,
+            accept(SpreadsheetServerMediaTypes.JSON_BINARY),
+            accept(SpreadsheetServerMediaTypes.JSON_BINARY)
+        );
+
+        this.checkEquals(
+            json(),
+            response.entity(),
+            "entity"
+        );
+    }
+
+    private HttpResponse handleAndCheckAccept(final HttpMethod method,
+                                              final Accept accept,
+                                              final Accept expected) {
+        final List<Accept> accepts = Lists.array();
+
+        final HttpResponse response = HttpResponses.recording();
+
+        SpreadsheetHttpServerJsonBinaryHttpHandler.with(
+            (request, r, context) -> {
+                accepts.add(
+                    HttpHeaderName.ACCEPT.headerOrFail(request)
+                );
+                r.setVersion(request.protocolVersion());
+                r.setStatus(HttpStatusCode.OK.status());
+                r.setEntity(json());
+            }
+        ).handle(
+            request(
+                method,
+                accept
+            ),
+            response,
+            this.createContext()
+        );
+
+        this.checkEquals(
+            Lists.of(expected),
+            accepts,
+            "accept"
+        );
+        this.checkEquals(
+            Optional.of(HttpStatusCode.OK.status()),
+            response.status(),
+            "status"
+        );
+
+        return response;
+    }
+
+    private static Accept accept(final MediaType... accept) {
+        return Accept.with(
+            Lists.of(accept)
+        );
+    }
+
+    private static HttpEntity json() {
+        return HttpEntity.EMPTY.setContentType(HasHateosContentType.HATEOS_CONTENT_TYPE)
+            .addHeader(
+                HateosResourceMappings.X_CONTENT_TYPE_NAME,
+                "SpreadsheetDelta"
+            ).setBodyText(JSON)
+            .setContentLength();
+    }
+
+    private static HttpRequest request(final HttpMethod method,
+                                       final Accept accept) {
+        return HttpRequests.value(
+            HttpTransport.UNSECURED,
+            method,
+            Url.parseRelative(URL),
+            HttpProtocolVersion.VERSION_1_0,
+            HttpEntity.EMPTY.addHeader(
+                HttpHeaderName.ACCEPT,
+                accept
+            )
+        );
+    }
+
+    @Override
+    public SpreadsheetHttpServerJsonBinaryHttpHandler createHttpHandler() {
+        return SpreadsheetHttpServerJsonBinaryHttpHandler.with(
+            HttpHandlers.fake()
+        );
+    }
+
+    @Override
+    public SpreadsheetServerContext createContext() {
+        return SpreadsheetServerContexts.fake();
+    }
+
+    // class............................................................................................................
+
+    @Override
+    public Class<SpreadsheetHttpServerJsonBinaryHttpHandler> type() {
+        return SpreadsheetHttpServerJsonBinaryHttpHandler.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
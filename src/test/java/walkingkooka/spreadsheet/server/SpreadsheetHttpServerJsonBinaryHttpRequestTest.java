@@ -0,0 +1,128 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.server;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.ToStringTesting;
+import walkingkooka.net.Url;
+import walkingkooka.net.header.HasHateosContentType;
+import walkingkooka.net.header.HttpHeaderName;
+import walkingkooka.net.http.HttpEntity;
+import walkingkooka.net.http.HttpMethod;
+import walkingkooka.net.http.HttpProtocolVersion;
+import walkingkooka.net.http.HttpTransport;
+import walkingkooka.net.http.server.HttpRequest;
+import walkingkooka.net.http.server.HttpRequests;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.spreadsheet.server.net.SpreadsheetServerMediaTypes;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class SpreadsheetHttpServerJsonBinaryHttpRequestTest implements ClassTesting2<SpreadsheetHttpServerJsonBinaryHttpRequest>,
+    ToStringTesting<SpreadsheetHttpServerJsonBinaryHttpRequest> {
+
+    private final static String URL = "/api/spreadsheet/1/cell/*?home=A1&width=200";
+
+    @Test
+    public void testWithNullRequestFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetHttpServerJsonBinaryHttpRequest.with(null)
+        );
+    }
+
+    @Test
+    public void testHeadersAcceptReplaced() {
+        final HttpRequest request = SpreadsheetHttpServerJsonBinaryHttpRequest.with(request());
+
+        this.checkEquals(
+            Optional.of(
+                HasHateosContentType.HATEOS_CONTENT_TYPE.accept()
+            ),
+            HttpHeaderName.ACCEPT.header(request),
+            "accept"
+        );
+        this.checkEquals(
+            Optional.of("Transaction123"),
+            SpreadsheetHttpServer.TRANSACTION_ID.header(request),
+            "transactionId"
+        );
+    }
+
+    @Test
+    public void testMethodUrlAndParameters() {
+        final HttpRequest original = request();
+        final HttpRequest request = SpreadsheetHttpServerJsonBinaryHttpRequest.with(original);
+
+        this.checkEquals(
+            HttpMethod.GET,
+            request.method(),
+            "method"
+        );
+        this.checkEquals(
+            original.url(),
+            request.url(),
+            "url"
+        );
+        this.checkEquals(
+            original.parameters(),
+            request.parameters(),
+            "parameters"
+        );
+    }
+
+    @Test
+    public void testToString() {
+        final HttpRequest request = request();
+
+        this.toStringAndCheck(
+            SpreadsheetHttpServerJsonBinaryHttpRequest.with(request),
+            request.toString()
+        );
+    }
+
+    private static HttpRequest request() {
+        return HttpRequests.get(
+            HttpTransport.UNSECURED,
+            Url.parseRelative(URL),
+            HttpProtocolVersion.VERSION_1_0,
+            HttpEntity.EMPTY.addHeader(
+                HttpHeaderName.ACCEPT,
+                SpreadsheetServerMediaTypes.JSON_BINARY.accept()
+            ).addHeader(
+                SpreadsheetHttpServer.TRANSACTION_ID,
+                "Transaction123"
+            )
+        );
+    }
+
+    // class............................................................................................................
+
+    @Override
+    public Class<SpreadsheetHttpServerJsonBinaryHttpRequest> type() {
+        return SpreadsheetHttpServerJsonBinaryHttpRequest.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.server;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.Binary;
+import walkingkooka.collect.set.Sets;
+import walkingkooka.net.header.ContentEncoding;
+import walkingkooka.net.header.ETag;
+import walkingkooka.net.header.ETagValidator;
+import walkingkooka.net.header.HttpHeaderName;
+import walkingkooka.net.header.MediaType;
+import walkingkooka.net.http.HttpEntity;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public final class SpreadsheetHttpServerProviderInfoCacheHttpHandlerEntryTest implements ClassTesting2<SpreadsheetHttpServerProviderInfoCacheHttpHandlerEntry> {
+
+    private final static SpreadsheetHttpServerCompression COMPRESSION = SpreadsheetHttpServerCompression.with(
+        0,
+        SpreadsheetHttpServerCompression.DEFAULT_LEVEL,
+        Sets.empty()
+    );
+
+    private final static Binary BODY = Binary.with(
+        "[{\"name\": \"date-format-pattern\"}]".getBytes(StandardCharsets.UTF_8)
+    );
+
+    @Test
+    public void testWithComputesETag() {
+        final SpreadsheetHttpServerProviderInfoCacheHttpHandlerEntry entry = SpreadsheetHttpServerProviderInfoCacheHttpHandlerEntry.with(
+            entity(BODY)
+        );
+
+        this.checkEquals(
+            ETagValidator.WEAK,
+            entry.etag.validator(),
+            "validator"
+        );
+        this.checkEquals(
+            entity(BODY).addHeader(
+                HttpHeaderName.E_TAG,
+                entry.etag
+            ),
+            entry.entity,
+            "entity"
+        );
+    }
+
+    @Test
+    public void testWithSameBodySameETag() {
+        this.checkEquals(
+            SpreadsheetHttpServerProviderInfoCacheHttpHandlerEntry.with(entity(BODY)).etag,
+            SpreadsheetHttpServerProviderInfoCacheHttpHandlerEntry.with(entity(BODY)).etag
+        );
+    }
+
+    @Test
+    public void testWithDifferentBodyDifferentETag() {
+        this.checkNotEquals(
+            SpreadsheetHttpServerProviderInfoCacheHttpHandlerEntry.with(entity(BODY)).etag,
+            SpreadsheetHttpServerProviderInfoCacheHttpHandlerEntry.with(
+                entity(
+                    Binary.with(
+                        "[]".getBytes(StandardCharsets.UTF_8)
+                    )
+                )
+            ).etag
+        );
+    }
+
+    @Test
+    public void testWithETagHeader() {
+        final ETag etag = ETag.with(
+            "abc123",
+            ETagValidator.STRONG
+        );
+        final HttpEntity entity = entity(BODY)
+            .addHeader(
+                HttpHeaderName.E_TAG,
+                etag
+            );
+
+        final SpreadsheetHttpServerProviderInfoCacheHttpHandlerEntry entry = SpreadsheetHttpServerProviderInfoCacheHttpHandlerEntry.with(entity);
+
+        this.checkEquals(
+            etag,
+            entry.etag,
+            "etag"
+        );
+        this.checkEquals(
+            entity,
+            entry.entity,
+            "entity"
+        );
+    }
+
+    @Test
+    public void testGzipped() {
+        final long compressedCount = COMPRESSION.compressedCount();
+
+        final SpreadsheetHttpServerProviderInfoCacheHttpHandlerEntry entry = SpreadsheetHttpServerProviderInfoCacheHttpHandlerEntry.with(
+            entity(BODY)
+        );
+
+        this.checkEquals(
+            entry.entity.addHeader(
+                SpreadsheetHttpServer.VARY,
+                "Accept-Encoding"
+            ).addHeader(
+                HttpHeaderName.CONTENT_ENCODING,
+                ContentEncoding.GZIP
+            ).setBody(BODY.gzip())
+                .setContentLength(),
+            entry.gzipped(COMPRESSION)
+        );
+        this.checkEquals(
+            1L,
+            COMPRESSION.compressedCount() - compressedCount,
+            "compressedCount"
+        );
+    }
+
+    @Test
+    public void testGzippedTooSmall() {
+        final SpreadsheetHttpServerProviderInfoCacheHttpHandlerEntry entry = SpreadsheetHttpServerProviderInfoCacheHttpHandlerEntry.with(
+            entity(BODY)
+        );
+
+        this.checkEquals(
+            entry.entity,
+            entry.gzipped(
+                SpreadsheetHttpServerCompression.defaults()
+            )
+        );
+    }
+
+    @Test
+    public void testGzippedTwiceSame() {
+        final SpreadsheetHttpServerProviderInfoCacheHttpHandlerEntry entry = SpreadsheetHttpServerProviderInfoCacheHttpHandlerEntry.with(
+            entity(BODY)
+        );
+
+        assertSame(
+            entry.gzipped(COMPRESSION),
+            entry.gzipped(COMPRESSION)
+        );
+    }
+
+    private static HttpEntity entity(final Binary body) {
+        return HttpEntity.EMPTY.setContentType(MediaType.APPLICATION_JSON)
+            .setBody(body)
+            .setContentLength();
+    }
+
+    // class............................................................................................................
+
+    @Override
+    public Class<SpreadsheetHttpServerProviderInfoCacheHttpHandlerEntry> type() {
+        return SpreadsheetHttpServerProviderInfoCacheHttpHandlerEntry.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.server;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.HashCodeEqualsDefinedTesting2;
+import walkingkooka.ToStringTesting;
+import walkingkooka.net.UrlPath;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.spreadsheet.provider.SpreadsheetProvider;
+import walkingkooka.spreadsheet.provider.SpreadsheetProviders;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class SpreadsheetHttpServerProviderInfoCacheHttpHandlerKeyTest implements ClassTesting2<SpreadsheetHttpServerProviderInfoCacheHttpHandlerKey>,
+    HashCodeEqualsDefinedTesting2<SpreadsheetHttpServerProviderInfoCacheHttpHandlerKey>,
+    ToStringTesting<SpreadsheetHttpServerProviderInfoCacheHttpHandlerKey> {
+
+    private final static SpreadsheetProvider PROVIDER = SpreadsheetProviders.fake();
+
+    private final static UrlPath PATH = UrlPath.parse("/api/formatter");
+
+    @Test
+    public void testWithNullProviderFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetHttpServerProviderInfoCacheHttpHandlerKey.with(
+                null,
+                PATH
+            )
+        );
+    }
+
+    @Test
+    public void testWithNullPathFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetHttpServerProviderInfoCacheHttpHandlerKey.with(
+                PROVIDER,
+                null
+            )
+        );
+    }
+
+    @Test
+    public void testEqualsDifferentProvider() {
+        this.checkNotEquals(
+            SpreadsheetHttpServerProviderInfoCacheHttpHandlerKey.with(
+                SpreadsheetProviders.fake(),
+                PATH
+            )
+        );
+    }
+
+    @Test
+    public void testEqualsDifferentPath() {
+        this.checkNotEquals(
+            SpreadsheetHttpServerProviderInfoCacheHttpHandlerKey.with(
+                PROVIDER,
+                UrlPath.parse("/api/parser")
+            )
+        );
+    }
+
+    @Test
+    public void testToString() {
+        this.toStringAndCheck(
+            this.createObject(),
+            "/api/formatter"
+        );
+    }
+
+    @Override
+    public SpreadsheetHttpServerProviderInfoCacheHttpHandlerKey createObject() {
+        return SpreadsheetHttpServerProviderInfoCacheHttpHandlerKey.with(
+            PROVIDER,
+            PATH
+        );
+    }
+
+    // class............................................................................................................
+
+    @Override
+    public Class<SpreadsheetHttpServerProviderInfoCacheHttpHandlerKey> type() {
+        return SpreadsheetHttpServerProviderInfoCacheHttpHandlerKey.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
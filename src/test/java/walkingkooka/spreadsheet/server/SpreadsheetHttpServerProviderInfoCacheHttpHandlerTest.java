@@ -0,0 +1,419 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.server;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.Binary;
+import walkingkooka.collect.list.Lists;
+import walkingkooka.collect.set.Sets;
+import walkingkooka.net.Url;
+import walkingkooka.net.UrlPath;
+import walkingkooka.net.header.AcceptEncoding;
+import walkingkooka.net.header.ETag;
+import walkingkooka.net.header.HttpHeaderName;
+import walkingkooka.net.header.MediaType;
+import walkingkooka.net.http.HttpEntity;
+import walkingkooka.net.http.HttpMethod;
+import walkingkooka.net.http.HttpProtocolVersion;
+import walkingkooka.net.http.HttpStatusCode;
+import walkingkooka.net.http.HttpTransport;
+import walkingkooka.net.http.server.HttpHandler;
+import walkingkooka.net.http.server.HttpHandlerTesting;
+import walkingkooka.net.http.server.HttpHandlers;
+import walkingkooka.net.http.server.HttpRequest;
+import walkingkooka.net.http.server.HttpRequests;
+import walkingkooka.net.http.server.HttpResponse;
+import walkingkooka.net.http.server.HttpResponses;
+import walkingkooka.reflect.JavaVisibility;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public final class SpreadsheetHttpServerProviderInfoCacheHttpHandlerTest implements HttpHandlerTesting<SpreadsheetHttpServerProviderInfoCacheHttpHandler, SpreadsheetServerContext> {
+
+    private final static UrlPath PATH = SpreadsheetHttpServer.API_FORMATTER;
+
+    /**
+     * Compresses every response, even the tiny test bodies.
+     */
+    private final static SpreadsheetHttpServerCompression COMPRESSION = SpreadsheetHttpServerCompression.with(
+        0,
+        SpreadsheetHttpServerCompression.DEFAULT_LEVEL,
+        Sets.empty()
+    );
+
+    private final static Binary BODY = Binary.with(
+        "[{\"name\": \"date-format-pattern\"}]".getBytes(StandardCharsets.UTF_8)
+    );
+
+    private final static HttpEntity ENTITY = HttpEntity.EMPTY.setContentType(MediaType.APPLICATION_JSON)
+        .setBody(BODY)
+        .setContentLength();
+
+    @Test
+    public void testHandleGetCached() {
+        final List<HttpRequest> requests = Lists.array();
+        final SpreadsheetHttpServerProviderInfoCacheHttpHandler handler = this.createHttpHandler(requests);
+        final SpreadsheetServerContext context = this.createContext();
+
+        final HttpResponse first = this.handleAndCheckOk(
+            handler,
+            request(
+                HttpMethod.GET,
+                "/api/formatter",
+                HttpEntity.EMPTY
+            ),
+            context
+        );
+
+        final HttpResponse second = this.handleAndCheckOk(
+            handler,
+            request(
+                HttpMethod.GET,
+                "/api/formatter",
+                HttpEntity.EMPTY
+            ),
+            context
+        );
+
+        this.checkEquals(
+            first.entity(),
+            second.entity(),
+            "entity"
+        );
+        this.checkEquals(
+            1,
+            requests.size(),
+            "delegate handler requests"
+        );
+        this.checkEquals(
+            BODY,
+            second.entity()
+                .body(),
+            "body"
+        );
+    }
+
+    @Test
+    public void testHandleGetProviderInfoCached() {
+        final List<HttpRequest> requests = Lists.array();
+        final SpreadsheetHttpServerProviderInfoCacheHttpHandler handler = this.createHttpHandler(requests);
+        final SpreadsheetServerContext context = this.createContext();
+
+        for (int i = 0; i < 2; i++) {
+            this.handleAndCheckOk(
+                handler,
+                request(
+                    HttpMethod.GET,
+                    "/api/formatter/date-format-pattern",
+                    HttpEntity.EMPTY
+                ),
+                context
+            );
+        }
+
+        this.checkEquals(
+            1,
+            requests.size(),
+            "delegate handler requests"
+        );
+    }
+
+    @Test
+    public void testHandleGetDifferentContextNotShared() {
+        final List<HttpRequest> requests = Lists.array();
+        final SpreadsheetHttpServerProviderInfoCacheHttpHandler handler = this.createHttpHandler(requests);
+
+        this.handleAndCheckOk(
+            handler,
+            request(
+                HttpMethod.GET,
+                "/api/formatter",
+                HttpEntity.EMPTY
+            ),
+            this.createContext()
+        );
+
+        this.handleAndCheckOk(
+            handler,
+            request(
+                HttpMethod.GET,
+                "/api/formatter",
+                HttpEntity.EMPTY
+            ),
+            this.createContext()
+        );
+
+        this.checkEquals(
+            2,
+            requests.size(),
+            "delegate handler requests"
+        );
+    }
+
+    @Test
+    public void testHandleGetIfNoneMatch() {
+        final SpreadsheetHttpServerProviderInfoCacheHttpHandler handler = this.createHttpHandler(Lists.array());
+        final SpreadsheetServerContext context = this.createContext();
+
+        final ETag etag = HttpHeaderName.E_TAG.header(
+            this.handleAndCheckOk(
+                handler,
+                request(
+                    HttpMethod.GET,
+                    "/api/formatter",
+                    HttpEntity.EMPTY
+                ),
+                context
+            ).entity()
+        ).get();
+
+        final HttpResponse response = HttpResponses.recording();
+        handler.handle(
+            request(
+                HttpMethod.GET,
+                "/api/formatter",
+                HttpEntity.EMPTY.addHeader(
+                    HttpHeaderName.IF_NONE_MATCH,
+                    Lists.of(etag)
+                )
+            ),
+            response,
+            context
+        );
+
+        this.checkEquals(
+            HttpStatusCode.NOT_MODIFIED.status(),
+            response.status()
+                .orElse(null),
+            "status"
+        );
+        this.checkEquals(
+            HttpEntity.EMPTY.addHeader(
+                HttpHeaderName.E_TAG,
+                etag
+            ),
+            response.entity(),
+            "entity"
+        );
+    }
+
+    @Test
+    public void testHandleGetGzip() {
+        final SpreadsheetHttpServerProviderInfoCacheHttpHandler handler = this.createHttpHandler(Lists.array());
+        final SpreadsheetServerContext context = this.createContext();
+
+        final HttpResponse response = this.handleAndCheckOk(
+            handler,
+            request(
+                HttpMethod.GET,
+                "/api/formatter",
+                HttpEntity.EMPTY.addHeader(
+                    HttpHeaderName.ACCEPT_ENCODING,
+                    AcceptEncoding.parse("gzip")
+                )
+            ),
+            context
+        );
+
+        this.checkEquals(
+            BODY.gzip(),
+            response.entity()
+                .body(),
+            "body"
+        );
+    }
+
+    @Test
+    public void testHandleGetNotFoundNotCached() {
+        final List<HttpRequest> requests = Lists.array();
+        final SpreadsheetHttpServerProviderInfoCacheHttpHandler handler = SpreadsheetHttpServerProviderInfoCacheHttpHandler.with(
+            PATH,
+            COMPRESSION,
+            (request, response, context) -> {
+                requests.add(request);
+                response.setVersion(request.protocolVersion());
+                response.setStatus(HttpStatusCode.NOT_FOUND.status());
+                response.setEntity(HttpEntity.EMPTY);
+            }
+        );
+        final SpreadsheetServerContext context = this.createContext();
+
+        for (int i = 0; i < 2; i++) {
+            final HttpResponse response = HttpResponses.recording();
+            handler.handle(
+                request(
+                    HttpMethod.GET,
+                    "/api/formatter/unknown",
+                    HttpEntity.EMPTY
+                ),
+                response,
+                context
+            );
+
+            this.checkEquals(
+                HttpStatusCode.NOT_FOUND.status(),
+                response.status()
+                    .orElse(null),
+                "status"
+            );
+        }
+
+        this.checkEquals(
+            2,
+            requests.size(),
+            "delegate handler requests"
+        );
+        this.checkEquals(
+            0,
+            handler.entries.size(),
+            "entries"
+        );
+    }
+
+    @Test
+    public void testHandlePostNotCached() {
+        this.handleNotCachedAndCheck(
+            HttpMethod.POST,
+            "/api/formatter"
+        );
+    }
+
+    @Test
+    public void testHandleGetDeeperPathNotCached() {
+        this.handleNotCachedAndCheck(
+            HttpMethod.GET,
+            "/api/formatter/date-format-pattern/edit"
+        );
+    }
+
+    private void handleNotCachedAndCheck(final HttpMethod method,
+                                         final String url) {
+        final List<HttpRequest> requests = Lists.array();
+        final SpreadsheetHttpServerProviderInfoCacheHttpHandler handler = this.createHttpHandler(requests);
+        final SpreadsheetServerContext context = this.createContext();
+
+        for (int i = 0; i < 2; i++) {
+            this.handleAndCheckOk(
+                handler,
+                request(
+                    method,
+                    url,
+                    HttpEntity.EMPTY
+                ),
+                context
+            );
+        }
+
+        this.checkEquals(
+            2,
+            requests.size(),
+            "delegate handler requests"
+        );
+        this.checkEquals(
+            0,
+            handler.entries.size(),
+            "entries"
+        );
+    }
+
+    private HttpResponse handleAndCheckOk(final SpreadsheetHttpServerProviderInfoCacheHttpHandler handler,
+                                          final HttpRequest request,
+                                          final SpreadsheetServerContext context) {
+        final HttpResponse response = HttpResponses.recording();
+        handler.handle(
+            request,
+            response,
+            context
+        );
+
+        this.checkEquals(
+            HttpStatusCode.OK.status(),
+            response.status()
+                .orElse(null),
+            "status"
+        );
+        return response;
+    }
+
+    private SpreadsheetHttpServerProviderInfoCacheHttpHandler createHttpHandler(final List<HttpRequest> requests) {
+        return SpreadsheetHttpServerProviderInfoCacheHttpHandler.with(
+            PATH,
+            COMPRESSION,
+            (request, response, context) -> {
+                requests.add(request);
+                response.setVersion(request.protocolVersion());
+                response.setStatus(HttpStatusCode.OK.status());
+                response.setEntity(ENTITY);
+            }
+        );
+    }
+
+    private static HttpRequest request(final HttpMethod method,
+                                       final String url,
+                                       final HttpEntity entity) {
+        return HttpRequests.value(
+            HttpTransport.UNSECURED,
+            method,
+            Url.parseRelative(url),
+            HttpProtocolVersion.VERSION_1_0,
+            entity
+        );
+    }
+
+    // toString.........................................................................................................
+
+    @Test
+    public void testToString() {
+        final HttpHandler<SpreadsheetServerContext> handler = HttpHandlers.fake();
+
+        this.toStringAndCheck(
+            SpreadsheetHttpServerProviderInfoCacheHttpHandler.with(
+                PATH,
+                COMPRESSION,
+                handler
+            ),
+            PATH + " " + handler
+        );
+    }
+
+    @Override
+    public SpreadsheetHttpServerProviderInfoCacheHttpHandler createHttpHandler() {
+        return SpreadsheetHttpServerProviderInfoCacheHttpHandler.with(
+            PATH,
+            COMPRESSION,
+            HttpHandlers.fake()
+        );
+    }
+
+    @Override
+    public SpreadsheetServerContext createContext() {
+        return SpreadsheetServerContexts.fake();
+    }
+
+    // class............................................................................................................
+
+    @Override
+    public Class<SpreadsheetHttpServerProviderInfoCacheHttpHandler> type() {
+        return SpreadsheetHttpServerProviderInfoCacheHttpHandler.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
@@ -431,7 +431,8 @@ public final class SpreadsheetHttpServerSpreadsheetHttpHandlerTest implements Ht
             ), // SpreadsheetMetadataContext
             HATEOS_HANDLER_CONTEXT,
             PROVIDER_CONTEXT.cloneEnvironment(),
-            TERMINAL_SERVER_CONTEXT
+            TERMINAL_SERVER_CONTEXT,
+            SpreadsheetServerCache.unbounded()
         );
     }
 
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.server;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+
+public final class SpreadsheetHttpServerSpreadsheetIdLockingHttpHandlerLockTest implements ClassTesting2<SpreadsheetHttpServerSpreadsheetIdLockingHttpHandlerLock> {
+
+    @Test
+    public void testRetainRelease() {
+        final SpreadsheetHttpServerSpreadsheetIdLockingHttpHandlerLock lock = SpreadsheetHttpServerSpreadsheetIdLockingHttpHandlerLock.empty();
+
+        this.checkEquals(
+            lock,
+            lock.retain()
+        );
+        this.checkEquals(
+            lock,
+            lock.retain()
+        );
+        this.checkEquals(
+            lock,
+            lock.release()
+        );
+        this.checkEquals(
+            null,
+            lock.release()
+        );
+        this.checkEquals(
+            0,
+            lock.references,
+            "references"
+        );
+    }
+
+    @Test
+    public void testIsFair() {
+        this.checkEquals(
+            true,
+            SpreadsheetHttpServerSpreadsheetIdLockingHttpHandlerLock.empty()
+                .isFair()
+        );
+    }
+
+    // class............................................................................................................
+
+    @Override
+    public Class<SpreadsheetHttpServerSpreadsheetIdLockingHttpHandlerLock> type() {
+        return SpreadsheetHttpServerSpreadsheetIdLockingHttpHandlerLock.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
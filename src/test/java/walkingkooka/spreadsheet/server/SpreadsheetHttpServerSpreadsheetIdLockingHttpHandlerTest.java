@@ -0,0 +1,567 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.server;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.collect.list.Lists;
+import walkingkooka.net.Url;
+import walkingkooka.net.http.HttpEntity;
+import walkingkooka.net.http.HttpMethod;
+import walkingkooka.net.http.HttpProtocolVersion;
+import walkingkooka.net.http.HttpTransport;
+import walkingkooka.net.http.server.HttpHandlerTesting;
+import walkingkooka.net.http.server.HttpHandlers;
+import walkingkooka.net.http.server.HttpRequest;
+import walkingkooka.net.http.server.HttpRequests;
+import walkingkooka.net.http.server.HttpResponses;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.spreadsheet.meta.SpreadsheetId;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class SpreadsheetHttpServerSpreadsheetIdLockingHttpHandlerTest implements HttpHandlerTesting<SpreadsheetHttpServerSpreadsheetIdLockingHttpHandler, SpreadsheetServerContext> {
+
+    private final static SpreadsheetHttpServerSpreadsheetIdLockingHttpHandlerEvaluating NEVER_EVALUATING = (id, request, context) -> false;
+
+    @Test
+    public void testWithNullHandlerFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetHttpServerSpreadsheetIdLockingHttpHandler.with(
+                null,
+                NEVER_EVALUATING
+            )
+        );
+    }
+
+    @Test
+    public void testWithNullEvaluatingFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetHttpServerSpreadsheetIdLockingHttpHandler.with(
+                HttpHandlers.fake(),
+                null
+            )
+        );
+    }
+
+    // isReadOnly.......................................................................................................
+
+    @Test
+    public void testIsReadOnlyGetCell() {
+        this.isReadOnlyAndCheck(
+            HttpMethod.GET,
+            "/api/spreadsheet/1/cell/A1",
+            false
+        );
+    }
+
+    @Test
+    public void testIsReadOnlyGetCellSkipEvaluate() {
+        this.isReadOnlyAndCheck(
+            HttpMethod.GET,
+            "/api/spreadsheet/1/cell/A1/skip-evaluate",
+            true
+        );
+    }
+
+    @Test
+    public void testIsReadOnlyGetCellForceRecompute() {
+        this.isReadOnlyAndCheck(
+            HttpMethod.GET,
+            "/api/spreadsheet/1/cell/A1/force-recompute",
+            false
+        );
+    }
+
+    @Test
+    public void testIsReadOnlyGetQuery() {
+        this.isReadOnlyAndCheck(
+            HttpMethod.GET,
+            "/api/spreadsheet/1/cell/*/query",
+            false
+        );
+    }
+
+    @Test
+    public void testIsReadOnlyGetViewportNavigationSkipEvaluate() {
+        this.isReadOnlyAndCheck(
+            HttpMethod.GET,
+            "/api/spreadsheet/1/cell/*/skip-evaluate?home=A1&width=100&height=50&navigation=right%20column",
+            false
+        );
+    }
+
+    @Test
+    public void testIsReadOnlyGetViewportNavigation() {
+        this.isReadOnlyAndCheck(
+            HttpMethod.GET,
+            "/api/spreadsheet/1/cell/*?home=A1&width=100&height=50&navigation=right%20column",
+            false
+        );
+    }
+
+    @Test
+    public void testIsReadOnlyGetLabel() {
+        this.isReadOnlyAndCheck(
+            HttpMethod.GET,
+            "/api/spreadsheet/1/label/Label123",
+            true
+        );
+    }
+
+    @Test
+    public void testIsReadOnlyGetColumn() {
+        this.isReadOnlyAndCheck(
+            HttpMethod.GET,
+            "/api/spreadsheet/1/column/A",
+            true
+        );
+    }
+
+    @Test
+    public void testIsReadOnlyGetSort() {
+        this.isReadOnlyAndCheck(
+            HttpMethod.GET,
+            "/api/spreadsheet/1/cell/A1:B2/sort",
+            false
+        );
+    }
+
+    @Test
+    public void testIsReadOnlyPost() {
+        this.isReadOnlyAndCheck(
+            HttpMethod.POST,
+            "/api/spreadsheet/1/cell/A1",
+            false
+        );
+    }
+
+    @Test
+    public void testIsReadOnlyPatch() {
+        this.isReadOnlyAndCheck(
+            HttpMethod.PATCH,
+            "/api/spreadsheet/1/cell/A1",
+            false
+        );
+    }
+
+    @Test
+    public void testIsReadOnlyDelete() {
+        this.isReadOnlyAndCheck(
+            HttpMethod.DELETE,
+            "/api/spreadsheet/1/column/A",
+            false
+        );
+    }
+
+    private void isReadOnlyAndCheck(final HttpMethod method,
+                                    final String url,
+                                    final boolean expected) {
+        this.checkEquals(
+            expected,
+            SpreadsheetHttpServerSpreadsheetIdLockingHttpHandler.isReadOnly(
+                request(
+                    method,
+                    url
+                )
+            ),
+            () -> method + " " + url
+        );
+    }
+
+    // isMaybeEvaluating................................................................................................
+
+    @Test
+    public void testIsMaybeEvaluatingGetCell() {
+        this.isMaybeEvaluatingAndCheck(
+            HttpMethod.GET,
+            "/api/spreadsheet/1/cell/A1",
+            true
+        );
+    }
+
+    @Test
+    public void testIsMaybeEvaluatingGetViewportNavigation() {
+        this.isMaybeEvaluatingAndCheck(
+            HttpMethod.GET,
+            "/api/spreadsheet/1/cell/*?home=A1&width=100&height=50&navigation=right%20column",
+            true
+        );
+    }
+
+    @Test
+    public void testIsMaybeEvaluatingGetViewportNavigationSkipEvaluate() {
+        this.isMaybeEvaluatingAndCheck(
+            HttpMethod.GET,
+            "/api/spreadsheet/1/cell/*/skip-evaluate?home=A1&width=100&height=50&navigation=right%20column",
+            true
+        );
+    }
+
+    @Test
+    public void testIsMaybeEvaluatingGetCellSkipEvaluate() {
+        this.isMaybeEvaluatingAndCheck(
+            HttpMethod.GET,
+            "/api/spreadsheet/1/cell/A1/skip-evaluate",
+            false
+        );
+    }
+
+    @Test
+    public void testIsMaybeEvaluatingGetCellForceRecompute() {
+        this.isMaybeEvaluatingAndCheck(
+            HttpMethod.GET,
+            "/api/spreadsheet/1/cell/A1/force-recompute",
+            false
+        );
+    }
+
+    @Test
+    public void testIsMaybeEvaluatingGetLabel() {
+        this.isMaybeEvaluatingAndCheck(
+            HttpMethod.GET,
+            "/api/spreadsheet/1/label/Label123",
+            false
+        );
+    }
+
+    @Test
+    public void testIsMaybeEvaluatingPatch() {
+        this.isMaybeEvaluatingAndCheck(
+            HttpMethod.PATCH,
+            "/api/spreadsheet/1/cell/A1",
+            false
+        );
+    }
+
+    private void isMaybeEvaluatingAndCheck(final HttpMethod method,
+                                           final String url,
+                                           final boolean expected) {
+        this.checkEquals(
+            expected,
+            SpreadsheetHttpServerSpreadsheetIdLockingHttpHandler.isMaybeEvaluating(
+                request(
+                    method,
+                    url
+                )
+            ),
+            () -> method + " " + url
+        );
+    }
+
+    // handle...........................................................................................................
+
+    @Test
+    public void testHandleGetCellNotEvaluatingReadLock() {
+        this.handleAndCheckWriteLocked(
+            false,
+            false
+        );
+    }
+
+    @Test
+    public void testHandleGetCellEvaluatingWriteLock() {
+        this.handleAndCheckWriteLocked(
+            true,
+            true
+        );
+    }
+
+    private void handleAndCheckWriteLocked(final boolean evaluating,
+                                           final boolean expected) {
+        final List<Boolean> writeLocked = Lists.array();
+        final List<SpreadsheetHttpServerSpreadsheetIdLockingHttpHandler> handlers = Lists.array();
+
+        final SpreadsheetHttpServerSpreadsheetIdLockingHttpHandler handler = SpreadsheetHttpServerSpreadsheetIdLockingHttpHandler.with(
+            (request, response, context) -> writeLocked.add(
+                handlers.get(0)
+                    .spreadsheetIdToLock
+                    .get(SpreadsheetId.with(1))
+                    .isWriteLockedByCurrentThread()
+            ),
+            (id, request, context) -> evaluating
+        );
+        handlers.add(handler);
+
+        handler.handle(
+            request(
+                HttpMethod.GET,
+                "/api/spreadsheet/1/cell/A1"
+            ),
+            HttpResponses.recording(),
+            this.createContext()
+        );
+
+        this.checkEquals(
+            Lists.of(expected),
+            writeLocked,
+            "writeLocked"
+        );
+        this.checkEquals(
+            true,
+            handler.spreadsheetIdToLock.isEmpty(),
+            () -> "locks " + handler.spreadsheetIdToLock
+        );
+    }
+
+    @Test
+    public void testHandleGetCellIsEvaluatingWriteLocked() {
+        final List<Boolean> writeLocked = Lists.array();
+        final List<SpreadsheetHttpServerSpreadsheetIdLockingHttpHandler> handlers = Lists.array();
+
+        final SpreadsheetHttpServerSpreadsheetIdLockingHttpHandler handler = SpreadsheetHttpServerSpreadsheetIdLockingHttpHandler.with(
+            (request, response, context) -> {
+            },
+            (id, request, context) -> {
+                writeLocked.add(
+                    handlers.get(0)
+                        .spreadsheetIdToLock
+                        .get(id)
+                        .isWriteLockedByCurrentThread()
+                );
+                return false;
+            }
+        );
+        handlers.add(handler);
+
+        handler.handle(
+            request(
+                HttpMethod.GET,
+                "/api/spreadsheet/1/cell/A1"
+            ),
+            HttpResponses.recording(),
+            this.createContext()
+        );
+
+        this.checkEquals(
+            Lists.of(true),
+            writeLocked,
+            "writeLocked"
+        );
+    }
+
+    @Test
+    public void testHandleReleasesLock() {
+        final AtomicInteger handled = new AtomicInteger();
+
+        final SpreadsheetHttpServerSpreadsheetIdLockingHttpHandler handler = SpreadsheetHttpServerSpreadsheetIdLockingHttpHandler.with(
+            (request, response, context) -> handled.incrementAndGet(),
+            NEVER_EVALUATING
+        );
+
+        handler.handle(
+            request(
+                HttpMethod.POST,
+                "/api/spreadsheet/1/cell/A1"
+            ),
+            HttpResponses.recording(),
+            this.createContext()
+        );
+
+        this.checkEquals(
+            1,
+            handled.get(),
+            "handled"
+        );
+        this.checkEquals(
+            true,
+            handler.spreadsheetIdToLock.isEmpty(),
+            () -> "locks " + handler.spreadsheetIdToLock
+        );
+    }
+
+    @Test
+    public void testHandleInvalidSpreadsheetIdNotLocked() {
+        final AtomicInteger handled = new AtomicInteger();
+
+        final SpreadsheetHttpServerSpreadsheetIdLockingHttpHandler handler = SpreadsheetHttpServerSpreadsheetIdLockingHttpHandler.with(
+            (request, response, context) -> handled.incrementAndGet(),
+            NEVER_EVALUATING
+        );
+
+        handler.handle(
+            request(
+                HttpMethod.GET,
+                "/api/spreadsheet/xyz/cell/A1"
+            ),
+            HttpResponses.recording(),
+            this.createContext()
+        );
+
+        this.checkEquals(
+            1,
+            handled.get(),
+            "handled"
+        );
+    }
+
+    @Test
+    public void testHandleWritesExclusive() throws Exception {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+
+        final SpreadsheetHttpServerSpreadsheetIdLockingHttpHandler handler = SpreadsheetHttpServerSpreadsheetIdLockingHttpHandler.with(
+            (request, response, context) -> {
+                maxRunning.accumulateAndGet(
+                    running.incrementAndGet(),
+                    Math::max
+                );
+                try {
+                    Thread.sleep(5);
+                } catch (final InterruptedException ignore) {
+                    // nop
+                }
+                running.decrementAndGet();
+            },
+            NEVER_EVALUATING
+        );
+
+        final List<Thread> threads = Lists.array();
+        for (int i = 0; i < 8; i++) {
+            final Thread thread = new Thread(
+                () -> handler.handle(
+                    request(
+                        HttpMethod.PATCH,
+                        "/api/spreadsheet/1/cell/A1"
+                    ),
+                    HttpResponses.recording(),
+                    this.createContext()
+                )
+            );
+            thread.start();
+            threads.add(thread);
+        }
+
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        this.checkEquals(
+            1,
+            maxRunning.get(),
+            "maxRunning"
+        );
+        this.checkEquals(
+            true,
+            handler.spreadsheetIdToLock.isEmpty(),
+            () -> "locks " + handler.spreadsheetIdToLock
+        );
+    }
+
+    // writeBehind......................................................................................................
+
+    @Test
+    public void testWriteBehindWriteLocked() {
+        final SpreadsheetId spreadsheetId = SpreadsheetId.with(1);
+        final List<String> written = Lists.array();
+        final List<SpreadsheetHttpServerSpreadsheetIdLockingHttpHandler> handlers = Lists.array();
+
+        final SpreadsheetHttpServerSpreadsheetIdLockingHttpHandler handler = SpreadsheetHttpServerSpreadsheetIdLockingHttpHandler.with(
+            HttpHandlers.fake(),
+            new SpreadsheetHttpServerSpreadsheetIdLockingHttpHandlerEvaluating() {
+                @Override
+                public boolean isEvaluating(final SpreadsheetId id,
+                                            final HttpRequest request,
+                                            final SpreadsheetServerContext context) {
+                    return false;
+                }
+
+                @Override
+                public void closePipelines(final BiConsumer<SpreadsheetId, Runnable> writeLocked) {
+                    writeLocked.accept(
+                        spreadsheetId,
+                        () -> written.add("close " + this.isWriteLocked())
+                    );
+                }
+
+                @Override
+                public void flushPipelines(final BiConsumer<SpreadsheetId, Runnable> writeLocked) {
+                    writeLocked.accept(
+                        spreadsheetId,
+                        () -> written.add("flush " + this.isWriteLocked())
+                    );
+                }
+
+                private boolean isWriteLocked() {
+                    return handlers.get(0)
+                        .spreadsheetIdToLock
+                        .get(spreadsheetId)
+                        .isWriteLockedByCurrentThread();
+                }
+            }
+        );
+        handlers.add(handler);
+
+        handler.writeBehind();
+
+        this.checkEquals(
+            Lists.of(
+                "close true",
+                "flush true"
+            ),
+            written,
+            "written"
+        );
+        this.checkEquals(
+            true,
+            handler.spreadsheetIdToLock.isEmpty(),
+            () -> "locks " + handler.spreadsheetIdToLock
+        );
+    }
+
+    private static HttpRequest request(final HttpMethod method,
+                                       final String url) {
+        return HttpRequests.value(
+            HttpTransport.UNSECURED,
+            method,
+            Url.parseRelative(url),
+            HttpProtocolVersion.VERSION_1_0,
+            HttpEntity.EMPTY
+        );
+    }
+
+    @Override
+    public SpreadsheetHttpServerSpreadsheetIdLockingHttpHandler createHttpHandler() {
+        return SpreadsheetHttpServerSpreadsheetIdLockingHttpHandler.with(
+            HttpHandlers.fake(),
+            NEVER_EVALUATING
+        );
+    }
+
+    @Override
+    public SpreadsheetServerContext createContext() {
+        return SpreadsheetServerContexts.fake();
+    }
+
+    // class............................................................................................................
+
+    @Override
+    public Class<SpreadsheetHttpServerSpreadsheetIdLockingHttpHandler> type() {
+        return SpreadsheetHttpServerSpreadsheetIdLockingHttpHandler.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
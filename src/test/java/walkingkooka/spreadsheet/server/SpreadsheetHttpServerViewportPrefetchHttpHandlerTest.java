@@ -0,0 +1,251 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.server;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.collect.list.Lists;
+import walkingkooka.net.Url;
+import walkingkooka.net.http.HttpEntity;
+import walkingkooka.net.http.HttpProtocolVersion;
+import walkingkooka.net.http.HttpStatusCode;
+import walkingkooka.net.http.HttpTransport;
+import walkingkooka.net.http.server.HttpHandler;
+import walkingkooka.net.http.server.HttpHandlerTesting;
+import walkingkooka.net.http.server.HttpHandlers;
+import walkingkooka.net.http.server.HttpRequest;
+import walkingkooka.net.http.server.HttpRequests;
+import walkingkooka.net.http.server.HttpResponse;
+import walkingkooka.net.http.server.HttpResponses;
+import walkingkooka.reflect.JavaVisibility;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class SpreadsheetHttpServerViewportPrefetchHttpHandlerTest implements HttpHandlerTesting<SpreadsheetHttpServerViewportPrefetchHttpHandler, SpreadsheetServerContext> {
+
+    private final static String VIEWPORT_PATH = "/api/spreadsheet/1/cell/*";
+
+    private final static String VIEWPORT_URL = VIEWPORT_PATH + "?home=A1&width=200&height=60&navigation=right%20column&prefetch=true";
+
+    private final static Consumer<Runnable> EXECUTOR = Runnable::run;
+
+    @Test
+    public void testWithNullHandlerFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetHttpServerViewportPrefetchHttpHandler.with(
+                null,
+                EXECUTOR
+            )
+        );
+    }
+
+    @Test
+    public void testWithNullExecutorFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetHttpServerViewportPrefetchHttpHandler.with(
+                HttpHandlers.fake(),
+                null
+            )
+        );
+    }
+
+    @Test
+    public void testHandleWithoutPrefetchHeader() {
+        final List<String> urls = Lists.array();
+        final List<Runnable> submitted = Lists.array();
+
+        final HttpResponse response = HttpResponses.recording();
+
+        SpreadsheetHttpServerViewportPrefetchHttpHandler.with(
+            (request, r, context) -> {
+                urls.add(
+                    request.url()
+                        .path()
+                        .value()
+                );
+                r.setStatus(HttpStatusCode.OK.status());
+                r.setEntity(
+                    HttpEntity.EMPTY.setBodyText("Hello")
+                );
+            },
+            submitted::add
+        ).handle(
+            request(VIEWPORT_URL),
+            response,
+            this.createContext()
+        );
+
+        this.checkEquals(
+            Lists.of(VIEWPORT_PATH),
+            urls,
+            "urls"
+        );
+        this.checkEquals(
+            Lists.empty(),
+            submitted,
+            "submitted"
+        );
+        this.checkEquals(
+            HttpEntity.EMPTY.setBodyText("Hello"),
+            response.entity(),
+            "entity"
+        );
+    }
+
+    @Test
+    public void testHandleWithPrefetchHeader() {
+        final List<String> urls = Lists.array();
+        final List<Runnable> submitted = Lists.array();
+
+        final HttpResponse response = HttpResponses.recording();
+
+        SpreadsheetHttpServerViewportPrefetchHttpHandler.with(
+            (request, r, context) -> {
+                urls.add(
+                    request.url()
+                        .path()
+                        .value() +
+                        (request instanceof SpreadsheetHttpServerViewportPrefetchHttpRequest ?
+                            " prefetch" :
+                            "")
+                );
+                r.setStatus(HttpStatusCode.OK.status());
+                r.setEntity(
+                    HttpEntity.EMPTY.setBodyText("Hello")
+                        .addHeader(
+                            SpreadsheetHttpServerViewportPrefetchHttpHandler.PREFETCH,
+                            "true"
+                        )
+                );
+            },
+            submitted::add
+        ).handle(
+            request(VIEWPORT_URL),
+            response,
+            this.createContext()
+        );
+
+        // the prefetch runs after the response is complete
+        this.checkEquals(
+            Lists.of(
+                VIEWPORT_PATH
+            ),
+            urls,
+            "urls before prefetch"
+        );
+        this.checkEquals(
+            1,
+            submitted.size(),
+            "submitted"
+        );
+
+        submitted.forEach(Runnable::run);
+
+        this.checkEquals(
+            Lists.of(
+                VIEWPORT_PATH,
+                VIEWPORT_PATH + " prefetch"
+            ),
+            urls,
+            "urls"
+        );
+        this.checkEquals(
+            Optional.empty(),
+            SpreadsheetHttpServerViewportPrefetchHttpHandler.PREFETCH.header(response.entity()),
+            "prefetch header should have been removed"
+        );
+        this.checkEquals(
+            "Hello",
+            response.entity()
+                .bodyText(),
+            "body"
+        );
+    }
+
+    @Test
+    public void testHandlePrefetchFailureIgnored() {
+        final HttpHandler<SpreadsheetServerContext> handler = (request, r, context) -> {
+            if (false == request instanceof SpreadsheetHttpServerViewportPrefetchHttpRequest) {
+                r.setStatus(HttpStatusCode.OK.status());
+                r.setEntity(
+                    HttpEntity.EMPTY.addHeader(
+                        SpreadsheetHttpServerViewportPrefetchHttpHandler.PREFETCH,
+                        "true"
+                    )
+                );
+            } else {
+                throw new IllegalStateException("Prefetch failed");
+            }
+        };
+
+        final HttpResponse response = HttpResponses.recording();
+
+        SpreadsheetHttpServerViewportPrefetchHttpHandler.with(
+            handler,
+            EXECUTOR
+        ).handle(
+            request(VIEWPORT_URL),
+            response,
+            this.createContext()
+        );
+
+        this.checkEquals(
+            Optional.of(HttpStatusCode.OK.status()),
+            response.status(),
+            "status"
+        );
+    }
+
+    private static HttpRequest request(final String url) {
+        return HttpRequests.get(
+            HttpTransport.UNSECURED,
+            Url.parseRelative(url),
+            HttpProtocolVersion.VERSION_1_0,
+            HttpEntity.EMPTY
+        );
+    }
+
+    @Override
+    public SpreadsheetHttpServerViewportPrefetchHttpHandler createHttpHandler() {
+        return SpreadsheetHttpServerViewportPrefetchHttpHandler.with(
+            HttpHandlers.fake(),
+            EXECUTOR
+        );
+    }
+
+    @Override
+    public SpreadsheetServerContext createContext() {
+        return SpreadsheetServerContexts.fake();
+    }
+
+    // class............................................................................................................
+
+    @Override
+    public Class<SpreadsheetHttpServerViewportPrefetchHttpHandler> type() {
+        return SpreadsheetHttpServerViewportPrefetchHttpHandler.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.server;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.net.Url;
+import walkingkooka.net.header.HasHateosContentType;
+import walkingkooka.net.header.HttpHeaderName;
+import walkingkooka.net.http.HttpEntity;
+import walkingkooka.net.http.HttpMethod;
+import walkingkooka.net.http.HttpProtocolVersion;
+import walkingkooka.net.http.HttpTransport;
+import walkingkooka.net.http.server.HttpRequest;
+import walkingkooka.net.http.server.HttpRequests;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class SpreadsheetHttpServerViewportPrefetchHttpRequestTest implements ClassTesting2<SpreadsheetHttpServerViewportPrefetchHttpRequest> {
+
+    private final static String URL = "/api/spreadsheet/1/cell/*?home=A1&width=200&height=60&navigation=right+column&prefetch=true";
+
+    @Test
+    public void testWithNullRequestFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetHttpServerViewportPrefetchHttpRequest.with(null)
+        );
+    }
+
+    @Test
+    public void testWith() {
+        final HttpRequest request = SpreadsheetHttpServerViewportPrefetchHttpRequest.with(
+            HttpRequests.get(
+                HttpTransport.UNSECURED,
+                Url.parseRelative(URL),
+                HttpProtocolVersion.VERSION_1_0,
+                HttpEntity.EMPTY.addHeader(
+                    SpreadsheetHttpServer.TRANSACTION_ID,
+                    "Transaction123"
+                )
+            )
+        );
+
+        this.checkEquals(
+            HttpMethod.GET,
+            request.method(),
+            "method"
+        );
+        this.checkEquals(
+            Url.parseRelative(URL),
+            request.url(),
+            "url"
+        );
+        this.checkEquals(
+            Optional.of(
+                HasHateosContentType.HATEOS_CONTENT_TYPE.accept()
+            ),
+            HttpHeaderName.ACCEPT.header(request),
+            "accept"
+        );
+        this.checkEquals(
+            Optional.empty(),
+            SpreadsheetHttpServer.TRANSACTION_ID.header(request),
+            "transactionId"
+        );
+    }
+
+    // class............................................................................................................
+
+    @Override
+    public Class<SpreadsheetHttpServerViewportPrefetchHttpRequest> type() {
+        return SpreadsheetHttpServerViewportPrefetchHttpRequest.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
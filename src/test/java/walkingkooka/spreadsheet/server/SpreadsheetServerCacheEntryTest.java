@@ -0,0 +1,84 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.server;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.Cast;
+import walkingkooka.ToStringTesting;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+
+public final class SpreadsheetServerCacheEntryTest implements ClassTesting2<SpreadsheetServerCacheEntry<String, String>>,
+    ToStringTesting<SpreadsheetServerCacheEntry<String, String>> {
+
+    private final static long NOW = 123456789L;
+
+    @Test
+    public void testAccess() {
+        final SpreadsheetServerCacheEntry<String, String> entry = SpreadsheetServerCacheEntry.with(
+            "key1",
+            "value1",
+            6,
+            NOW,
+            1
+        );
+
+        final long later = NOW + 1;
+        entry.access(
+            later,
+            2
+        );
+
+        this.checkEquals(
+            later,
+            entry.lastAccess,
+            "lastAccess"
+        );
+        this.checkEquals(
+            2L,
+            entry.tick,
+            "tick"
+        );
+    }
+
+    @Test
+    public void testToString() {
+        this.toStringAndCheck(
+            SpreadsheetServerCacheEntry.with(
+                "key1",
+                "value1",
+                6,
+                NOW,
+                1
+            ),
+            "key1=value1"
+        );
+    }
+
+    // class............................................................................................................
+
+    @Override
+    public Class<SpreadsheetServerCacheEntry<String, String>> type() {
+        return Cast.to(SpreadsheetServerCacheEntry.class);
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
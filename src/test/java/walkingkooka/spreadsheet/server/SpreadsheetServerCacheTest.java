@@ -0,0 +1,1118 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.server;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.Cast;
+import walkingkooka.ToStringTesting;
+import walkingkooka.collect.list.Lists;
+import walkingkooka.collect.map.Maps;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class SpreadsheetServerCacheTest implements ClassTesting2<SpreadsheetServerCache<String, String>>,
+    ToStringTesting<SpreadsheetServerCache<String, String>> {
+
+    private final static int MAX_COUNT = 2;
+
+    private final static long MAX_WEIGHT = 100;
+
+    private final static ToLongFunction<String> WEIGHER = String::length;
+
+    private final static Optional<Duration> MAX_IDLE = Optional.of(
+        Duration.ofMinutes(1)
+    );
+
+    private final static BiConsumer<String, String> EVICTION_LISTENER = (k, v) -> {
+        throw new UnsupportedOperationException();
+    };
+
+    /**
+     * A nano time, which may be negative.
+     */
+    private final static long NOW = -123456789L;
+
+    private final static long SECOND = Duration.ofSeconds(1)
+        .toNanos();
+
+    private final static LongSupplier NOW_SUPPLIER = () -> NOW;
+
+    // with.............................................................................................................
+
+    @Test
+    public void testWithZeroMaxCountFails() {
+        final IllegalArgumentException thrown = assertThrows(
+            IllegalArgumentException.class,
+            () -> SpreadsheetServerCache.with(
+                0,
+                MAX_WEIGHT,
+                WEIGHER,
+                MAX_IDLE,
+                EVICTION_LISTENER,
+                NOW_SUPPLIER
+            )
+        );
+        this.checkEquals(
+            "Invalid maxCount 0 <= 0",
+            thrown.getMessage()
+        );
+    }
+
+    @Test
+    public void testWithZeroMaxWeightFails() {
+        final IllegalArgumentException thrown = assertThrows(
+            IllegalArgumentException.class,
+            () -> SpreadsheetServerCache.with(
+                MAX_COUNT,
+                0,
+                WEIGHER,
+                MAX_IDLE,
+                EVICTION_LISTENER,
+                NOW_SUPPLIER
+            )
+        );
+        this.checkEquals(
+            "Invalid maxWeight 0 <= 0",
+            thrown.getMessage()
+        );
+    }
+
+    @Test
+    public void testWithNullWeigherFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetServerCache.with(
+                MAX_COUNT,
+                MAX_WEIGHT,
+                null,
+                MAX_IDLE,
+                EVICTION_LISTENER,
+                NOW_SUPPLIER
+            )
+        );
+    }
+
+    @Test
+    public void testWithNullMaxIdleFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetServerCache.with(
+                MAX_COUNT,
+                MAX_WEIGHT,
+                WEIGHER,
+                null,
+                EVICTION_LISTENER,
+                NOW_SUPPLIER
+            )
+        );
+    }
+
+    @Test
+    public void testWithNegativeMaxIdleFails() {
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> SpreadsheetServerCache.with(
+                MAX_COUNT,
+                MAX_WEIGHT,
+                WEIGHER,
+                Optional.of(
+                    Duration.ofSeconds(-1)
+                ),
+                EVICTION_LISTENER,
+                NOW_SUPPLIER
+            )
+        );
+    }
+
+    @Test
+    public void testWithNullEvictionListenerFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetServerCache.with(
+                MAX_COUNT,
+                MAX_WEIGHT,
+                WEIGHER,
+                MAX_IDLE,
+                null,
+                NOW_SUPPLIER
+            )
+        );
+    }
+
+    @Test
+    public void testWithNullNanoTimeFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetServerCache.with(
+                MAX_COUNT,
+                MAX_WEIGHT,
+                WEIGHER,
+                MAX_IDLE,
+                EVICTION_LISTENER,
+                null
+            )
+        );
+    }
+
+    // get..............................................................................................................
+
+    @Test
+    public void testGetMissing() {
+        final SpreadsheetServerCache<String, String> cache = this.createCache();
+
+        this.getAndCheck(
+            cache,
+            "missing"
+        );
+        this.countsAndCheck(
+            cache,
+            0,
+            1,
+            0
+        );
+    }
+
+    @Test
+    public void testPutThenGet() {
+        final SpreadsheetServerCache<String, String> cache = this.createCache();
+
+        this.checkEquals(
+            "value1",
+            cache.put(
+                "key1",
+                "value1"
+            )
+        );
+
+        this.getAndCheck(
+            cache,
+            "key1",
+            "value1"
+        );
+        this.countsAndCheck(
+            cache,
+            1,
+            0,
+            0
+        );
+        this.checkEquals(
+            1,
+            cache.size(),
+            "size"
+        );
+        this.checkEquals(
+            6L,
+            cache.weight(),
+            "weight"
+        );
+    }
+
+    @Test
+    public void testPutReplaces() {
+        final List<String> fired = Lists.array();
+
+        final SpreadsheetServerCache<String, String> cache = SpreadsheetServerCache.with(
+            MAX_COUNT,
+            MAX_WEIGHT,
+            WEIGHER,
+            MAX_IDLE,
+            (k, v) -> fired.add("listener " + k + "=" + v),
+            NOW_SUPPLIER
+        );
+        cache.addEvictionWatcher(
+            (k, v) -> fired.add("watcher " + k + "=" + v)
+        );
+
+        cache.put(
+            "key1",
+            "value1"
+        );
+        cache.put(
+            "key1",
+            "value22"
+        );
+
+        this.getAndCheck(
+            cache,
+            "key1",
+            "value22"
+        );
+        this.checkEquals(
+            7L,
+            cache.weight(),
+            "weight"
+        );
+        this.checkEquals(
+            Lists.of(
+                "listener key1=value1",
+                "watcher key1=value1"
+            ),
+            fired
+        );
+        this.checkEquals(
+            0L,
+            cache.evictionCount(),
+            "evictionCount"
+        );
+    }
+
+    @Test
+    public void testPutSameValueNotReplaced() {
+        final SpreadsheetServerCache<String, String> cache = this.createCache();
+
+        final String value = "value1";
+        cache.put(
+            "key1",
+            value
+        );
+        cache.put(
+            "key1",
+            value
+        );
+
+        this.getAndCheck(
+            cache,
+            "key1",
+            value
+        );
+    }
+
+    @Test
+    public void testPutEvictsLeastRecentlyUsedWhenMaxCountExceeded() {
+        final List<String> evicted = Lists.array();
+
+        final SpreadsheetServerCache<String, String> cache = SpreadsheetServerCache.with(
+            MAX_COUNT,
+            MAX_WEIGHT,
+            WEIGHER,
+            MAX_IDLE,
+            (k, v) -> evicted.add(k + "=" + v),
+            NOW_SUPPLIER
+        );
+
+        cache.put(
+            "key1",
+            "value1"
+        );
+        cache.put(
+            "key2",
+            "value2"
+        );
+
+        // key1 is now more recently used than key2
+        cache.get("key1");
+
+        cache.put(
+            "key3",
+            "value3"
+        );
+
+        this.checkEquals(
+            Lists.of("key2=value2"),
+            evicted,
+            "evicted"
+        );
+        this.getAndCheck(
+            cache,
+            "key2"
+        );
+        this.getAndCheck(
+            cache,
+            "key1",
+            "value1"
+        );
+        this.getAndCheck(
+            cache,
+            "key3",
+            "value3"
+        );
+        this.checkEquals(
+            1L,
+            cache.evictionCount(),
+            "evictionCount"
+        );
+    }
+
+    @Test
+    public void testPutEvictsWhenMaxWeightExceeded() {
+        final List<String> evicted = Lists.array();
+
+        final SpreadsheetServerCache<String, String> cache = SpreadsheetServerCache.with(
+            100,
+            10,
+            WEIGHER,
+            MAX_IDLE,
+            (k, v) -> evicted.add(k),
+            NOW_SUPPLIER
+        );
+
+        cache.put(
+            "key1",
+            "12345"
+        );
+        cache.put(
+            "key2",
+            "123456"
+        );
+
+        this.checkEquals(
+            Lists.of("key1"),
+            evicted,
+            "evicted"
+        );
+        this.checkEquals(
+            6L,
+            cache.weight(),
+            "weight"
+        );
+    }
+
+    @Test
+    public void testGetIdleEvicts() {
+        final List<String> evicted = Lists.array();
+        final long[] now = new long[]{NOW};
+
+        final SpreadsheetServerCache<String, String> cache = SpreadsheetServerCache.with(
+            MAX_COUNT,
+            MAX_WEIGHT,
+            WEIGHER,
+            MAX_IDLE,
+            (k, v) -> evicted.add(k),
+            () -> now[0]
+        );
+
+        cache.put(
+            "key1",
+            "value1"
+        );
+
+        now[0] = NOW + MAX_IDLE.get().toNanos() + SECOND;
+
+        this.getAndCheck(
+            cache,
+            "key1"
+        );
+        this.checkEquals(
+            Lists.of("key1"),
+            evicted,
+            "evicted"
+        );
+        this.countsAndCheck(
+            cache,
+            0,
+            1,
+            1
+        );
+    }
+
+    @Test
+    public void testGetRefreshesLastAccess() {
+        final long[] now = new long[]{NOW};
+
+        final SpreadsheetServerCache<String, String> cache = SpreadsheetServerCache.with(
+            MAX_COUNT,
+            MAX_WEIGHT,
+            WEIGHER,
+            MAX_IDLE,
+            EVICTION_LISTENER,
+            () -> now[0]
+        );
+
+        cache.put(
+            "key1",
+            "value1"
+        );
+
+        now[0] = NOW + MAX_IDLE.get().toNanos();
+        cache.get("key1");
+
+        now[0] = now[0] + MAX_IDLE.get().toNanos();
+
+        this.getAndCheck(
+            cache,
+            "key1",
+            "value1"
+        );
+    }
+
+    // getOrLoad........................................................................................................
+
+    @Test
+    public void testGetOrLoadWithNullKeyFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> this.createCache()
+                .getOrLoad(
+                    null,
+                    (k) -> Optional.empty()
+                )
+        );
+    }
+
+    @Test
+    public void testGetOrLoadWithNullLoaderFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> this.createCache()
+                .getOrLoad(
+                    "key1",
+                    null
+                )
+        );
+    }
+
+    @Test
+    public void testGetOrLoadHit() {
+        final SpreadsheetServerCache<String, String> cache = this.createCache();
+
+        cache.put(
+            "key1",
+            "value1"
+        );
+
+        this.checkEquals(
+            Optional.of("value1"),
+            cache.getOrLoad(
+                "key1",
+                (k) -> {
+                    throw new UnsupportedOperationException();
+                }
+            )
+        );
+        this.countsAndCheck(
+            cache,
+            1,
+            0,
+            0
+        );
+    }
+
+    @Test
+    public void testGetOrLoadMissLoadsAndCaches() {
+        final SpreadsheetServerCache<String, String> cache = this.createCache();
+
+        this.checkEquals(
+            Optional.of("value1"),
+            cache.getOrLoad(
+                "key1",
+                (k) -> Optional.of("value1")
+            )
+        );
+        this.countsAndCheck(
+            cache,
+            0,
+            1,
+            0
+        );
+
+        this.getAndCheck(
+            cache,
+            "key1",
+            "value1"
+        );
+    }
+
+    @Test
+    public void testGetOrLoadMissLoaderEmpty() {
+        final SpreadsheetServerCache<String, String> cache = this.createCache();
+
+        this.checkEquals(
+            Optional.empty(),
+            cache.getOrLoad(
+                "key1",
+                (k) -> Optional.empty()
+            )
+        );
+        this.checkEquals(
+            0,
+            cache.size(),
+            "size"
+        );
+    }
+
+    @Test
+    public void testGetOrLoadLoadCountAndLoadTime() {
+        final long[] now = new long[]{NOW};
+
+        final SpreadsheetServerCache<String, String> cache = SpreadsheetServerCache.with(
+            MAX_COUNT,
+            MAX_WEIGHT,
+            WEIGHER,
+            Optional.empty(),
+            EVICTION_LISTENER,
+            () -> now[0]
+        );
+
+        cache.getOrLoad(
+            "key1",
+            (k) -> {
+                now[0] = now[0] + 2 * SECOND;
+                return Optional.of("value1");
+            }
+        );
+        cache.getOrLoad(
+            "key1",
+            (k) -> {
+                throw new UnsupportedOperationException();
+            }
+        );
+        cache.getOrLoad(
+            "key2",
+            (k) -> {
+                now[0] = now[0] + 3 * SECOND;
+                return Optional.empty();
+            }
+        );
+
+        this.checkEquals(
+            2L,
+            cache.loadCount(),
+            "loadCount"
+        );
+        this.checkEquals(
+            Duration.ofSeconds(5),
+            cache.loadTime(),
+            "loadTime"
+        );
+    }
+
+    @Test
+    public void testGetOrLoadConcurrentMissesLoadOnce() throws Exception {
+        final SpreadsheetServerCache<String, String> cache = SpreadsheetServerCache.unbounded();
+
+        final int threadCount = 16;
+        final int keyCount = 4;
+
+        final AtomicInteger loadCount = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Thread> threads = Lists.array();
+        final List<Throwable> failures = Lists.array();
+
+        for (int i = 0; i < threadCount; i++) {
+            final String key = "key" + (i % keyCount);
+
+            final Thread thread = new Thread(
+                () -> {
+                    try {
+                        start.await();
+
+                        for (int j = 0; j < 1000; j++) {
+                            this.checkEquals(
+                                Optional.of(key.toUpperCase()),
+                                cache.getOrLoad(
+                                    key,
+                                    (k) -> {
+                                        loadCount.incrementAndGet();
+                                        return Optional.of(k.toUpperCase());
+                                    }
+                                )
+                            );
+                        }
+                    } catch (final Throwable cause) {
+                        synchronized (failures) {
+                            failures.add(cause);
+                        }
+                    }
+                }
+            );
+            thread.start();
+            threads.add(thread);
+        }
+
+        start.countDown();
+
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        this.checkEquals(
+            Lists.empty(),
+            failures,
+            "failures"
+        );
+        this.checkEquals(
+            keyCount,
+            loadCount.get(),
+            "loadCount"
+        );
+        this.checkEquals(
+            (long) threadCount * 1000,
+            cache.hitCount() + cache.missCount(),
+            "hitCount + missCount"
+        );
+    }
+
+    // evictIdle........................................................................................................
+
+    @Test
+    public void testEvictIdle() {
+        final List<String> evicted = Lists.array();
+        final long[] now = new long[]{NOW};
+
+        final SpreadsheetServerCache<String, String> cache = SpreadsheetServerCache.with(
+            MAX_COUNT,
+            MAX_WEIGHT,
+            WEIGHER,
+            MAX_IDLE,
+            (k, v) -> evicted.add(k),
+            () -> now[0]
+        );
+
+        cache.put(
+            "key1",
+            "value1"
+        );
+
+        now[0] = NOW + MAX_IDLE.get().toNanos() + SECOND;
+
+        cache.put(
+            "key2",
+            "value2"
+        );
+
+        cache.evictIdle();
+
+        this.checkEquals(
+            Lists.of("key1"),
+            evicted,
+            "evicted"
+        );
+        this.checkEquals(
+            Maps.of("key2", "value2"),
+            cache.toMap()
+        );
+    }
+
+    @Test
+    public void testEvictIdleWithoutMaxIdle() {
+        final SpreadsheetServerCache<String, String> cache = SpreadsheetServerCache.unbounded();
+
+        cache.put(
+            "key1",
+            "value1"
+        );
+        cache.evictIdle();
+
+        this.getAndCheck(
+            cache,
+            "key1",
+            "value1"
+        );
+    }
+
+    @Test
+    public void testGetSweepsOtherIdleEntries() {
+        final List<String> evicted = Lists.array();
+        final long[] now = new long[]{NOW};
+
+        final SpreadsheetServerCache<String, String> cache = SpreadsheetServerCache.with(
+            MAX_COUNT,
+            MAX_WEIGHT,
+            WEIGHER,
+            MAX_IDLE,
+            (k, v) -> evicted.add(k),
+            () -> now[0]
+        );
+
+        cache.put(
+            "key1",
+            "value1"
+        );
+
+        now[0] = NOW + MAX_IDLE.get().toNanos() + SECOND;
+
+        this.getAndCheck(
+            cache,
+            "missing"
+        );
+        this.checkEquals(
+            Lists.of("key1"),
+            evicted,
+            "evicted"
+        );
+        this.checkEquals(
+            0,
+            cache.size(),
+            "size"
+        );
+    }
+
+    @Test
+    public void testPutSweepsOnlyOncePerSweepPeriod() {
+        final List<String> evicted = Lists.array();
+        final long[] now = new long[]{NOW};
+
+        final SpreadsheetServerCache<String, String> cache = SpreadsheetServerCache.with(
+            10, // maxCount
+            MAX_WEIGHT,
+            WEIGHER,
+            Optional.of(Duration.ZERO), // sweep period is 1 second
+            (k, v) -> evicted.add(k),
+            () -> now[0]
+        );
+
+        cache.put(
+            "key1",
+            "value1"
+        );
+
+        // key1 is idle but the sweep period has not passed
+        now[0] = NOW + SECOND / 2;
+        cache.put(
+            "key2",
+            "value2"
+        );
+        this.checkEquals(
+            Lists.empty(),
+            evicted,
+            "evicted"
+        );
+
+        now[0] = NOW + SECOND;
+        cache.put(
+            "key3",
+            "value3"
+        );
+        this.checkEquals(
+            Lists.of("key1", "key2"),
+            evicted,
+            "evicted"
+        );
+    }
+
+    @Test
+    public void testGetNanoTimeWraps() {
+        final long[] now = new long[]{Long.MAX_VALUE - SECOND};
+
+        final SpreadsheetServerCache<String, String> cache = SpreadsheetServerCache.with(
+            MAX_COUNT,
+            MAX_WEIGHT,
+            WEIGHER,
+            MAX_IDLE,
+            EVICTION_LISTENER,
+            () -> now[0]
+        );
+
+        cache.put(
+            "key1",
+            "value1"
+        );
+
+        // only the difference between nano times is meaningful
+        now[0] = Long.MIN_VALUE + SECOND;
+
+        this.getAndCheck(
+            cache,
+            "key1",
+            "value1"
+        );
+    }
+
+    // addEvictionWatcher...............................................................................................
+
+    @Test
+    public void testAddEvictionWatcherWithNullFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> this.createCache()
+                .addEvictionWatcher(null)
+        );
+    }
+
+    @Test
+    public void testAddEvictionWatcher() {
+        final List<String> fired = Lists.array();
+
+        final SpreadsheetServerCache<String, String> cache = SpreadsheetServerCache.with(
+            1, // maxCount
+            MAX_WEIGHT,
+            WEIGHER,
+            MAX_IDLE,
+            (k, v) -> fired.add("listener " + k),
+            NOW_SUPPLIER
+        );
+        cache.addEvictionWatcher(
+            (k, v) -> fired.add("watcher " + k + "=" + v)
+        );
+
+        cache.put(
+            "key1",
+            "value1"
+        );
+        cache.put(
+            "key2",
+            "value2"
+        );
+
+        this.checkEquals(
+            Lists.of(
+                "listener key1",
+                "watcher key1=value1"
+            ),
+            fired
+        );
+    }
+
+    @Test
+    public void testAddEvictionWatcherRemoved() {
+        final List<String> fired = Lists.array();
+
+        final SpreadsheetServerCache<String, String> cache = SpreadsheetServerCache.with(
+            1, // maxCount
+            MAX_WEIGHT,
+            WEIGHER,
+            MAX_IDLE,
+            (k, v) -> {},
+            NOW_SUPPLIER
+        );
+        cache.addEvictionWatcher(
+            (k, v) -> fired.add(k)
+        ).run();
+
+        cache.put(
+            "key1",
+            "value1"
+        );
+        cache.put(
+            "key2",
+            "value2"
+        );
+
+        this.checkEquals(
+            Lists.empty(),
+            fired
+        );
+    }
+
+    // cloneEmpty.......................................................................................................
+
+    @Test
+    public void testCloneEmpty() {
+        final List<String> evicted = Lists.array();
+
+        final SpreadsheetServerCache<String, String> cache = SpreadsheetServerCache.with(
+            1, // maxCount
+            MAX_WEIGHT,
+            WEIGHER,
+            MAX_IDLE,
+            (k, v) -> evicted.add(k),
+            NOW_SUPPLIER
+        );
+        cache.put(
+            "key1",
+            "value1"
+        );
+
+        final SpreadsheetServerCache<String, String> clone = cache.cloneEmpty();
+        this.checkEquals(
+            0,
+            clone.size(),
+            "size"
+        );
+
+        clone.put(
+            "key2",
+            "value2"
+        );
+        clone.put(
+            "key3",
+            "value3"
+        );
+
+        this.checkEquals(
+            Lists.of("key2"),
+            evicted,
+            "evicted"
+        );
+        this.checkEquals(
+            Maps.of("key1", "value1"),
+            cache.toMap(),
+            "original"
+        );
+    }
+
+    // remove...........................................................................................................
+
+    @Test
+    public void testRemove() {
+        final SpreadsheetServerCache<String, String> cache = this.createCache();
+
+        cache.put(
+            "key1",
+            "value1"
+        );
+
+        this.checkEquals(
+            Optional.of("value1"),
+            cache.remove("key1")
+        );
+        this.checkEquals(
+            0,
+            cache.size(),
+            "size"
+        );
+        this.checkEquals(
+            0L,
+            cache.weight(),
+            "weight"
+        );
+        this.checkEquals(
+            0L,
+            cache.evictionCount(),
+            "evictionCount"
+        );
+    }
+
+    @Test
+    public void testRemoveMissing() {
+        this.checkEquals(
+            Optional.empty(),
+            this.createCache()
+                .remove("missing")
+        );
+    }
+
+    @Test
+    public void testClear() {
+        final SpreadsheetServerCache<String, String> cache = this.createCache();
+
+        cache.put(
+            "key1",
+            "value1"
+        );
+        cache.put(
+            "key2",
+            "value2"
+        );
+
+        cache.clear();
+
+        this.checkEquals(
+            0,
+            cache.size(),
+            "size"
+        );
+        this.checkEquals(
+            0L,
+            cache.weight(),
+            "weight"
+        );
+        this.checkEquals(
+            0L,
+            cache.evictionCount(),
+            "evictionCount"
+        );
+        this.checkEquals(
+            Optional.empty(),
+            cache.get("key1")
+        );
+    }
+
+    private SpreadsheetServerCache<String, String> createCache() {
+        return SpreadsheetServerCache.with(
+            MAX_COUNT,
+            MAX_WEIGHT,
+            WEIGHER,
+            MAX_IDLE,
+            EVICTION_LISTENER,
+            NOW_SUPPLIER
+        );
+    }
+
+    private void getAndCheck(final SpreadsheetServerCache<String, String> cache,
+                             final String key) {
+        this.checkEquals(
+            Optional.empty(),
+            cache.get(key),
+            key
+        );
+    }
+
+    private void getAndCheck(final SpreadsheetServerCache<String, String> cache,
+                             final String key,
+                             final String expected) {
+        this.checkEquals(
+            Optional.of(expected),
+            cache.get(key),
+            key
+        );
+    }
+
+    private void countsAndCheck(final SpreadsheetServerCache<String, String> cache,
+                                final long hits,
+                                final long misses,
+                                final long evictions) {
+        this.checkEquals(
+            hits,
+            cache.hitCount(),
+            "hitCount"
+        );
+        this.checkEquals(
+            misses,
+            cache.missCount(),
+            "missCount"
+        );
+        this.checkEquals(
+            evictions,
+            cache.evictionCount(),
+            "evictionCount"
+        );
+    }
+
+    // toString.........................................................................................................
+
+    @Test
+    public void testToString() {
+        final SpreadsheetServerCache<String, String> cache = this.createCache();
+
+        cache.put(
+            "key1",
+            "value1"
+        );
+        cache.get("key1");
+        cache.get("missing");
+
+        this.toStringAndCheck(
+            cache,
+            "{key1=value1} hits=1 misses=1 evictions=0"
+        );
+    }
+
+    // class............................................................................................................
+
+    @Override
+    public Class<SpreadsheetServerCache<String, String>> type() {
+        return Cast.to(SpreadsheetServerCache.class);
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PUBLIC;
+    }
+}
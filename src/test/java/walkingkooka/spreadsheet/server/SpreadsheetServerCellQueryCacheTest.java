@@ -0,0 +1,387 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.server;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.ToStringTesting;
+import walkingkooka.collect.list.Lists;
+import walkingkooka.collect.set.Sets;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.spreadsheet.engine.FakeSpreadsheetEngine;
+import walkingkooka.spreadsheet.engine.SpreadsheetCellQuery;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngine;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngineContext;
+import walkingkooka.spreadsheet.formula.SpreadsheetFormula;
+import walkingkooka.spreadsheet.formula.parser.SpreadsheetFormulaParserToken;
+import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
+import walkingkooka.spreadsheet.value.SpreadsheetCell;
+import walkingkooka.tree.expression.Expression;
+import walkingkooka.validation.ValueType;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class SpreadsheetServerCellQueryCacheTest implements ClassTesting2<SpreadsheetServerCellQueryCache>,
+    ToStringTesting<SpreadsheetServerCellQueryCache> {
+
+    private final static SpreadsheetCellQuery QUERY = SpreadsheetCellQuery.parse("true()");
+
+    private final static SpreadsheetCell A1 = cell("A1", "match1");
+
+    private final static SpreadsheetCell B2 = cell("B2", "miss2");
+
+    private final static SpreadsheetCell C3 = cell("C3", "match3");
+
+    @Test
+    public void testWithZeroMaxCellsFails() {
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> SpreadsheetServerCellQueryCache.with(
+                0,
+                SpreadsheetServerRevision.empty()
+            )
+        );
+    }
+
+    @Test
+    public void testWithNullRevisionFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetServerCellQueryCache.with(
+                1,
+                null
+            )
+        );
+    }
+
+    @Test
+    public void testMatchedCellsNullQueryFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetServerCellQueryCache.with(
+                1,
+                SpreadsheetServerRevision.empty()
+            )
+                .matchedCells(
+                    null,
+                    Sets.empty(),
+                    new TestContext()
+                )
+        );
+    }
+
+    @Test
+    public void testMatchedCellsNullCellsFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetServerCellQueryCache.with(
+                1,
+                SpreadsheetServerRevision.empty()
+            )
+                .matchedCells(
+                    QUERY,
+                    null,
+                    new TestContext()
+                )
+        );
+    }
+
+    @Test
+    public void testMatchedCellsNullContextFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetServerCellQueryCache.with(
+                1,
+                SpreadsheetServerRevision.empty()
+            )
+                .matchedCells(
+                    QUERY,
+                    Sets.empty(),
+                    null
+                )
+        );
+    }
+
+    @Test
+    public void testMatchedCells() {
+        final TestContext context = new TestContext();
+
+        this.matchedCellsAndCheck(
+            SpreadsheetServerCellQueryCache.with(
+                10,
+                SpreadsheetServerRevision.empty()
+            ),
+            Sets.of(A1, B2, C3),
+            context,
+            "A1",
+            "C3"
+        );
+
+        this.checkEquals(
+            1,
+            context.compileCount,
+            "compileCount"
+        );
+        this.checkEquals(
+            Lists.of(
+                Sets.of(A1, B2, C3)
+            ),
+            context.filtered,
+            "filtered"
+        );
+    }
+
+    @Test
+    public void testMatchedCellsOnlyFiltersUntestedCells() {
+        final SpreadsheetServerCellQueryCache cache = SpreadsheetServerCellQueryCache.with(
+            10,
+            SpreadsheetServerRevision.empty()
+        );
+        final TestContext context = new TestContext();
+
+        this.matchedCellsAndCheck(
+            cache,
+            Sets.of(A1, B2),
+            context,
+            "A1"
+        );
+
+        this.matchedCellsAndCheck(
+            cache,
+            Sets.of(A1, B2, C3),
+            context,
+            "A1",
+            "C3"
+        );
+
+        this.checkEquals(
+            1,
+            context.compileCount,
+            "compileCount"
+        );
+        this.checkEquals(
+            Lists.of(
+                Sets.of(A1, B2),
+                Sets.of(C3)
+            ),
+            context.filtered,
+            "filtered"
+        );
+    }
+
+    @Test
+    public void testMatchedCellsChangedCellFilteredAgain() {
+        final SpreadsheetServerCellQueryCache cache = SpreadsheetServerCellQueryCache.with(
+            10,
+            SpreadsheetServerRevision.empty()
+        );
+        final TestContext context = new TestContext();
+
+        this.matchedCellsAndCheck(
+            cache,
+            Sets.of(A1, B2),
+            context,
+            "A1"
+        );
+
+        final SpreadsheetCell b2Changed = cell("B2", "match2");
+
+        this.matchedCellsAndCheck(
+            cache,
+            Sets.of(A1, b2Changed),
+            context,
+            "A1",
+            "B2"
+        );
+
+        this.checkEquals(
+            Lists.of(
+                Sets.of(A1, B2),
+                Sets.of(b2Changed)
+            ),
+            context.filtered,
+            "filtered"
+        );
+    }
+
+    @Test
+    public void testMatchedCellsRevisionIncrementedFilteredAgain() {
+        final SpreadsheetServerRevision revision = SpreadsheetServerRevision.empty();
+        final SpreadsheetServerCellQueryCache cache = SpreadsheetServerCellQueryCache.with(
+            10,
+            revision
+        );
+        final TestContext context = new TestContext();
+
+        this.matchedCellsAndCheck(
+            cache,
+            Sets.of(A1, B2),
+            context,
+            "A1"
+        );
+
+        // unchanged cells may still match differently, eg a query referencing another cell
+        revision.increment();
+
+        this.matchedCellsAndCheck(
+            cache,
+            Sets.of(A1, B2),
+            context,
+            "A1"
+        );
+
+        this.checkEquals(
+            2,
+            context.compileCount,
+            "compileCount"
+        );
+        this.checkEquals(
+            Lists.of(
+                Sets.of(A1, B2),
+                Sets.of(A1, B2)
+            ),
+            context.filtered,
+            "filtered"
+        );
+    }
+
+    @Test
+    public void testMatchedCellsDifferentQueryCompiledAgain() {
+        final SpreadsheetServerCellQueryCache cache = SpreadsheetServerCellQueryCache.with(
+            10,
+            SpreadsheetServerRevision.empty()
+        );
+        final TestContext context = new TestContext();
+
+        this.matchedCellsAndCheck(
+            cache,
+            Sets.of(A1),
+            context,
+            "A1"
+        );
+
+        cache.matchedCells(
+            SpreadsheetCellQuery.parse("false()"),
+            Sets.of(A1),
+            context
+        );
+
+        this.checkEquals(
+            2,
+            context.compileCount,
+            "compileCount"
+        );
+        this.checkEquals(
+            Lists.of(
+                Sets.of(A1),
+                Sets.of(A1)
+            ),
+            context.filtered,
+            "filtered"
+        );
+    }
+
+    private void matchedCellsAndCheck(final SpreadsheetServerCellQueryCache cache,
+                                      final Set<SpreadsheetCell> cells,
+                                      final TestContext context,
+                                      final String... expected) {
+        this.checkEquals(
+            Sets.of(expected)
+                .stream()
+                .map(SpreadsheetSelection::parseCell)
+                .collect(Collectors.toCollection(Sets::ordered)),
+            cache.matchedCells(
+                QUERY,
+                cells,
+                context
+            )
+        );
+    }
+
+    private static SpreadsheetCell cell(final String reference,
+                                        final String formula) {
+        return SpreadsheetSelection.parseCell(reference)
+            .setFormula(
+                SpreadsheetFormula.EMPTY.setText(formula)
+            );
+    }
+
+    /**
+     * Counts compiles and records the cells filtered, matching cells with a formula starting with <code>match</code>.
+     */
+    private final static class TestContext extends FakeSpreadsheetEngineHateosHandlerContext {
+
+        @Override
+        public Optional<Expression> toExpression(final SpreadsheetFormulaParserToken token) {
+            this.compileCount++;
+            return Optional.of(
+                Expression.value(true)
+            );
+        }
+
+        int compileCount;
+
+        @Override
+        public SpreadsheetEngine spreadsheetEngine() {
+            return new FakeSpreadsheetEngine() {
+                @Override
+                public Set<SpreadsheetCell> filterCells(final Set<SpreadsheetCell> cells,
+                                                        final ValueType valueType,
+                                                        final Expression expression,
+                                                        final SpreadsheetEngineContext context) {
+                    TestContext.this.filtered.add(cells);
+
+                    return cells.stream()
+                        .filter(c -> c.formula().text().startsWith("match"))
+                        .collect(Collectors.toCollection(Sets::ordered));
+                }
+            };
+        }
+
+        final List<Set<SpreadsheetCell>> filtered = Lists.array();
+    }
+
+    // toString.........................................................................................................
+
+    @Test
+    public void testToStringEmpty() {
+        this.toStringAndCheck(
+            SpreadsheetServerCellQueryCache.with(
+                1,
+                SpreadsheetServerRevision.empty()
+            ),
+            ""
+        );
+    }
+
+    // class............................................................................................................
+
+    @Override
+    public Class<SpreadsheetServerCellQueryCache> type() {
+        return SpreadsheetServerCellQueryCache.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.server;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.ToStringTesting;
+import walkingkooka.collect.set.Sets;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.spreadsheet.formula.SpreadsheetFormula;
+import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
+import walkingkooka.spreadsheet.value.SpreadsheetCell;
+import walkingkooka.spreadsheet.value.SpreadsheetValueType;
+import walkingkooka.validation.ValueType;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class SpreadsheetServerCellValueIndexTest implements ClassTesting2<SpreadsheetServerCellValueIndex>,
+    ToStringTesting<SpreadsheetServerCellValueIndex> {
+
+    private final static SpreadsheetCell NUMBER = cell("A1", 1);
+
+    private final static SpreadsheetCell TEXT = cell("B2", "abc");
+
+    private final static SpreadsheetCell DATE = cell("C3", LocalDate.of(1999, 12, 31));
+
+    private final static SpreadsheetCell UNEVALUATED = SpreadsheetSelection.parseCell("D4")
+        .setFormula(
+            SpreadsheetFormula.EMPTY.setText("=1+2")
+        );
+
+    @Test
+    public void testWithNullLoaderFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetServerCellValueIndex.with(null)
+        );
+    }
+
+    @Test
+    public void testCellsWithValueTypeNullValueTypeFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> this.createIndex()
+                .cellsWithValueType(null)
+        );
+    }
+
+    @Test
+    public void testCellsWithValueTypeNumber() {
+        this.cellsWithValueTypeAndCheck(
+            this.createIndex(),
+            SpreadsheetValueType.NUMBER,
+            NUMBER,
+            UNEVALUATED
+        );
+    }
+
+    @Test
+    public void testCellsWithValueTypeText() {
+        this.cellsWithValueTypeAndCheck(
+            this.createIndex(),
+            SpreadsheetValueType.TEXT,
+            TEXT,
+            UNEVALUATED
+        );
+    }
+
+    @Test
+    public void testCellsWithValueTypeNone() {
+        this.cellsWithValueTypeAndCheck(
+            this.createIndex(),
+            SpreadsheetValueType.BOOLEAN,
+            UNEVALUATED
+        );
+    }
+
+    @Test
+    public void testCellsWithValueTypeLoadsOnce() {
+        final AtomicInteger loads = new AtomicInteger();
+        final SpreadsheetServerCellValueIndex index = SpreadsheetServerCellValueIndex.with(
+            () -> {
+                loads.incrementAndGet();
+                return Sets.of(NUMBER);
+            }
+        );
+
+        index.cellsWithValueType(SpreadsheetValueType.NUMBER);
+        index.cellsWithValueType(SpreadsheetValueType.TEXT);
+
+        this.checkEquals(
+            1,
+            loads.get(),
+            "loads"
+        );
+    }
+
+    @Test
+    public void testCellChangedValueType() {
+        final SpreadsheetServerCellValueIndex index = this.createIndex();
+        index.cellsWithValueType(SpreadsheetValueType.NUMBER);
+
+        final SpreadsheetCell text = cell("A1", "changed");
+        index.cellChanged(
+            text.reference(),
+            Optional.of(text)
+        );
+
+        this.cellsWithValueTypeAndCheck(
+            index,
+            SpreadsheetValueType.NUMBER,
+            UNEVALUATED
+        );
+        this.cellsWithValueTypeAndCheck(
+            index,
+            SpreadsheetValueType.TEXT,
+            text,
+            TEXT,
+            UNEVALUATED
+        );
+    }
+
+    @Test
+    public void testCellChangedDeleted() {
+        final SpreadsheetServerCellValueIndex index = this.createIndex();
+        index.cellsWithValueType(SpreadsheetValueType.NUMBER);
+
+        index.cellChanged(
+            UNEVALUATED.reference(),
+            Optional.empty()
+        );
+
+        this.cellsWithValueTypeAndCheck(
+            index,
+            SpreadsheetValueType.NUMBER,
+            NUMBER
+        );
+    }
+
+    @Test
+    public void testCellChangedBeforeLoadIgnored() {
+        final SpreadsheetServerCellValueIndex index = this.createIndex();
+
+        final SpreadsheetCell number = cell("E5", 2);
+        index.cellChanged(
+            number.reference(),
+            Optional.of(number)
+        );
+
+        this.cellsWithValueTypeAndCheck(
+            index,
+            SpreadsheetValueType.NUMBER,
+            NUMBER,
+            UNEVALUATED
+        );
+    }
+
+    private void cellsWithValueTypeAndCheck(final SpreadsheetServerCellValueIndex index,
+                                            final ValueType valueType,
+                                            final SpreadsheetCell... expected) {
+        this.checkEquals(
+            Sets.of(expected),
+            index.cellsWithValueType(valueType),
+            valueType.toString()
+        );
+    }
+
+    // valueType........................................................................................................
+
+    @Test
+    public void testValueTypeUnevaluated() {
+        this.valueTypeAndCheck(
+            UNEVALUATED,
+            Optional.empty()
+        );
+    }
+
+    @Test
+    public void testValueTypeBoolean() {
+        this.valueTypeAndCheck(
+            cell("A1", true),
+            Optional.of(SpreadsheetValueType.BOOLEAN)
+        );
+    }
+
+    @Test
+    public void testValueTypeNumber() {
+        this.valueTypeAndCheck(
+            NUMBER,
+            Optional.of(SpreadsheetValueType.NUMBER)
+        );
+    }
+
+    @Test
+    public void testValueTypeDate() {
+        this.valueTypeAndCheck(
+            DATE,
+            Optional.of(SpreadsheetValueType.DATE)
+        );
+    }
+
+    @Test
+    public void testValueTypeText() {
+        this.valueTypeAndCheck(
+            TEXT,
+            Optional.of(SpreadsheetValueType.TEXT)
+        );
+    }
+
+    private void valueTypeAndCheck(final SpreadsheetCell cell,
+                                   final Optional<ValueType> expected) {
+        this.checkEquals(
+            expected,
+            SpreadsheetServerCellValueIndex.valueType(cell),
+            cell.toString()
+        );
+    }
+
+    private SpreadsheetServerCellValueIndex createIndex() {
+        return SpreadsheetServerCellValueIndex.with(
+            () -> Sets.of(
+                NUMBER,
+                TEXT,
+                DATE,
+                UNEVALUATED
+            )
+        );
+    }
+
+    private static SpreadsheetCell cell(final String reference,
+                                        final Object value) {
+        return SpreadsheetSelection.parseCell(reference)
+            .setFormula(
+                SpreadsheetFormula.EMPTY.setText("'" + value)
+                    .setValue(
+                        Optional.of(value)
+                    )
+            );
+    }
+
+    // toString.........................................................................................................
+
+    @Test
+    public void testToStringNotLoaded() {
+        this.toStringAndCheck(
+            this.createIndex(),
+            ""
+        );
+    }
+
+    @Test
+    public void testToStringLoaded() {
+        final SpreadsheetServerCellValueIndex index = this.createIndex();
+        index.cellsWithValueType(SpreadsheetValueType.NUMBER);
+
+        this.toStringAndCheck(
+            index,
+            "4 cell(s)"
+        );
+    }
+
+    // class............................................................................................................
+
+    @Override
+    public Class<SpreadsheetServerCellValueIndex> type() {
+        return SpreadsheetServerCellValueIndex.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
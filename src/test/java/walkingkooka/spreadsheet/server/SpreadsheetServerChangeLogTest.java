@@ -0,0 +1,281 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.server;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.collect.set.Sets;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
+
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class SpreadsheetServerChangeLogTest implements ClassTesting2<SpreadsheetServerChangeLog> {
+
+    private final static SpreadsheetCellReference B2 = SpreadsheetSelection.parseCell("B2");
+
+    private final static SpreadsheetCellReference C3 = SpreadsheetSelection.parseCell("C3");
+
+    @Test
+    public void testWithNullRevisionFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetServerChangeLog.with(
+                null,
+                1
+            )
+        );
+    }
+
+    @Test
+    public void testWithNegativeMaxChangesFails() {
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> SpreadsheetServerChangeLog.with(
+                SpreadsheetServerRevision.empty(),
+                -1
+            )
+        );
+    }
+
+    @Test
+    public void testCellNullFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetServerChangeLog.with(
+                SpreadsheetServerRevision.empty(),
+                1
+            ).cell(null)
+        );
+    }
+
+    @Test
+    public void testCellIncrementsRevision() {
+        final SpreadsheetServerRevision revision = SpreadsheetServerRevision.empty();
+        final long since = revision.value();
+
+        SpreadsheetServerChangeLog.with(
+            revision,
+            1
+        ).cell(B2);
+
+        this.checkEquals(
+            since + 1,
+            revision.value()
+        );
+    }
+
+    @Test
+    public void testCellsSinceNothingChanged() {
+        final SpreadsheetServerRevision revision = SpreadsheetServerRevision.empty();
+
+        this.cellsSinceAndCheck(
+            SpreadsheetServerChangeLog.with(
+                revision,
+                2
+            ),
+            revision.value(),
+            Sets.empty()
+        );
+    }
+
+    @Test
+    public void testCellsSince() {
+        final SpreadsheetServerRevision revision = SpreadsheetServerRevision.empty();
+        final long since = revision.value();
+
+        final SpreadsheetServerChangeLog log = SpreadsheetServerChangeLog.with(
+            revision,
+            4
+        );
+        log.cell(B2);
+        log.cell(C3);
+        log.cell(B2);
+
+        this.cellsSinceAndCheck(
+            log,
+            since,
+            Sets.of(
+                B2,
+                C3
+            )
+        );
+    }
+
+    @Test
+    public void testCellsSinceIgnoresEarlierChanges() {
+        final SpreadsheetServerRevision revision = SpreadsheetServerRevision.empty();
+
+        final SpreadsheetServerChangeLog log = SpreadsheetServerChangeLog.with(
+            revision,
+            4
+        );
+        log.cell(B2);
+
+        final long since = revision.value();
+        log.cell(C3);
+
+        this.cellsSinceAndCheck(
+            log,
+            since,
+            Sets.of(C3)
+        );
+    }
+
+    @Test
+    public void testCellsSinceIgnoresAllBefore() {
+        final SpreadsheetServerRevision revision = SpreadsheetServerRevision.empty();
+
+        final SpreadsheetServerChangeLog log = SpreadsheetServerChangeLog.with(
+            revision,
+            4
+        );
+        log.all();
+
+        final long since = revision.value();
+        log.cell(C3);
+
+        this.cellsSinceAndCheck(
+            log,
+            since,
+            Sets.of(C3)
+        );
+    }
+
+    @Test
+    public void testCellsSinceAll() {
+        final SpreadsheetServerRevision revision = SpreadsheetServerRevision.empty();
+        final long since = revision.value();
+
+        final SpreadsheetServerChangeLog log = SpreadsheetServerChangeLog.with(
+            revision,
+            4
+        );
+        log.cell(B2);
+        log.all();
+        log.cell(C3);
+
+        this.cellsSinceAndCheck(
+            log,
+            since
+        );
+    }
+
+    @Test
+    public void testCellsSinceDropped() {
+        final SpreadsheetServerRevision revision = SpreadsheetServerRevision.empty();
+        final long since = revision.value();
+
+        final SpreadsheetServerChangeLog log = SpreadsheetServerChangeLog.with(
+            revision,
+            2
+        );
+        log.cell(B2);
+
+        final long since2 = revision.value();
+        log.cell(C3);
+        log.cell(B2);
+
+        this.cellsSinceAndCheck(
+            log,
+            since
+        );
+
+        this.cellsSinceAndCheck(
+            log,
+            since2,
+            Sets.of(
+                B2,
+                C3
+            )
+        );
+    }
+
+    @Test
+    public void testCellsSinceBeforeLog() {
+        final SpreadsheetServerRevision revision = SpreadsheetServerRevision.empty();
+
+        this.cellsSinceAndCheck(
+            SpreadsheetServerChangeLog.with(
+                revision,
+                2
+            ),
+            revision.value() - 1
+        );
+    }
+
+    @Test
+    public void testCellsSinceAfterRevision() {
+        final SpreadsheetServerRevision revision = SpreadsheetServerRevision.empty();
+
+        this.cellsSinceAndCheck(
+            SpreadsheetServerChangeLog.with(
+                revision,
+                2
+            ),
+            revision.value() + 1
+        );
+    }
+
+    @Test
+    public void testCellsSinceZeroMaxChanges() {
+        final SpreadsheetServerRevision revision = SpreadsheetServerRevision.empty();
+
+        this.cellsSinceAndCheck(
+            SpreadsheetServerChangeLog.with(
+                revision,
+                0
+            ),
+            revision.value()
+        );
+    }
+
+    private void cellsSinceAndCheck(final SpreadsheetServerChangeLog log,
+                                    final long since) {
+        this.checkEquals(
+            Optional.empty(),
+            log.cellsSince(since),
+            () -> log + " cellsSince " + since
+        );
+    }
+
+    private void cellsSinceAndCheck(final SpreadsheetServerChangeLog log,
+                                    final long since,
+                                    final Set<SpreadsheetCellReference> expected) {
+        this.checkEquals(
+            Optional.of(expected),
+            log.cellsSince(since),
+            () -> log + " cellsSince " + since
+        );
+    }
+
+    // class............................................................................................................
+
+    @Override
+    public Class<SpreadsheetServerChangeLog> type() {
+        return SpreadsheetServerChangeLog.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
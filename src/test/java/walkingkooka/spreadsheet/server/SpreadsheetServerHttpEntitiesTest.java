@@ -0,0 +1,105 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.server;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.collect.list.Lists;
+import walkingkooka.net.header.Accept;
+import walkingkooka.net.header.MediaType;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.reflect.PublicStaticHelperTesting;
+import walkingkooka.spreadsheet.server.net.SpreadsheetServerMediaTypes;
+
+import java.lang.reflect.Method;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class SpreadsheetServerHttpEntitiesTest implements PublicStaticHelperTesting<SpreadsheetServerHttpEntities> {
+
+    // isJsonBinary.....................................................................................................
+
+    @Test
+    public void testIsJsonBinaryNullFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetServerHttpEntities.isJsonBinary(null)
+        );
+    }
+
+    @Test
+    public void testIsJsonBinaryJson() {
+        this.isJsonBinaryAndCheck(
+            false,
+            MediaType.APPLICATION_JSON
+        );
+    }
+
+    @Test
+    public void testIsJsonBinaryWildcard() {
+        this.isJsonBinaryAndCheck(
+            false,
+            MediaType.ALL
+        );
+    }
+
+    @Test
+    public void testIsJsonBinaryJsonAndJsonBinary() {
+        this.isJsonBinaryAndCheck(
+            false,
+            MediaType.APPLICATION_JSON,
+            SpreadsheetServerMediaTypes.JSON_BINARY
+        );
+    }
+
+    @Test
+    public void testIsJsonBinaryJsonBinary() {
+        this.isJsonBinaryAndCheck(
+            true,
+            SpreadsheetServerMediaTypes.JSON_BINARY
+        );
+    }
+
+    private void isJsonBinaryAndCheck(final boolean expected,
+                                      final MediaType... accept) {
+        this.checkEquals(
+            expected,
+            SpreadsheetServerHttpEntities.isJsonBinary(
+                Accept.with(
+                    Lists.of(accept)
+                )
+            )
+        );
+    }
+
+    // class............................................................................................................
+
+    @Override
+    public Class<SpreadsheetServerHttpEntities> type() {
+        return SpreadsheetServerHttpEntities.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PUBLIC;
+    }
+
+    @Override
+    public boolean canHavePublicTypes(final Method method) {
+        return false;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.server;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.tree.json.JsonNode;
+
+public final class SpreadsheetServerJsonBinaryReaderTest implements ClassTesting2<SpreadsheetServerJsonBinaryReader> {
+
+    @Test
+    public void testReadFalse() {
+        this.readAndCheck(
+            JsonNode.booleanNode(false),
+            SpreadsheetServerJsonBinary.FALSE
+        );
+    }
+
+    @Test
+    public void testReadNegativeInteger() {
+        this.readAndCheck(
+            JsonNode.number(-2),
+            SpreadsheetServerJsonBinary.INTEGER,
+            3 // zig-zag
+        );
+    }
+
+    @Test
+    public void testReadIntegerVarint() {
+        this.readAndCheck(
+            JsonNode.number(64),
+            SpreadsheetServerJsonBinary.INTEGER,
+            0x80,
+            1
+        );
+    }
+
+    @Test
+    public void testReadArrayRepeatedString() {
+        this.readAndCheck(
+            JsonNode.parse("[\"ab\", \"ab\"]"),
+            SpreadsheetServerJsonBinary.ARRAY,
+            2, // count
+            SpreadsheetServerJsonBinary.STRING,
+            0, // new string
+            2, // length
+            'a',
+            'b',
+            SpreadsheetServerJsonBinary.STRING,
+            1 // reference to dictionary 0
+        );
+    }
+
+    @Test
+    public void testReadObject() {
+        this.readAndCheck(
+            JsonNode.parse("{\"a\": null}"),
+            SpreadsheetServerJsonBinary.OBJECT,
+            1, // count
+            0, // new string
+            1, // length
+            'a',
+            SpreadsheetServerJsonBinary.NULL
+        );
+    }
+
+    private void readAndCheck(final JsonNode expected,
+                              final int... values) {
+        final byte[] bytes = new byte[1 + values.length];
+        bytes[0] = SpreadsheetServerJsonBinary.VERSION;
+        for (int i = 0; i < values.length; i++) {
+            bytes[1 + i] = (byte) values[i];
+        }
+
+        this.checkEquals(
+            expected,
+            SpreadsheetServerJsonBinaryReader.read(bytes)
+        );
+    }
+
+    // class............................................................................................................
+
+    @Override
+    public Class<SpreadsheetServerJsonBinaryReader> type() {
+        return SpreadsheetServerJsonBinaryReader.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
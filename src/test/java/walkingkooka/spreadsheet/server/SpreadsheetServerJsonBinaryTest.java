@@ -0,0 +1,313 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.server;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.collect.set.Sets;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.reflect.PublicStaticHelperTesting;
+import walkingkooka.spreadsheet.engine.SpreadsheetDelta;
+import walkingkooka.spreadsheet.formula.SpreadsheetFormula;
+import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
+import walkingkooka.spreadsheet.value.SpreadsheetCell;
+import walkingkooka.tree.json.JsonNode;
+import walkingkooka.tree.json.marshall.JsonNodeMarshallContexts;
+import walkingkooka.tree.text.FontStyle;
+import walkingkooka.tree.text.TextStyle;
+import walkingkooka.tree.text.TextStylePropertyName;
+
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class SpreadsheetServerJsonBinaryTest implements PublicStaticHelperTesting<SpreadsheetServerJsonBinary> {
+
+    // encode...........................................................................................................
+
+    @Test
+    public void testEncodeNullFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetServerJsonBinary.encode(null)
+        );
+    }
+
+    // decode...........................................................................................................
+
+    @Test
+    public void testDecodeNullFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetServerJsonBinary.decode(null)
+        );
+    }
+
+    @Test
+    public void testDecodeEmptyFails() {
+        this.decodeFails(
+            new byte[0],
+            "Invalid end of bytes at 0"
+        );
+    }
+
+    @Test
+    public void testDecodeInvalidVersionFails() {
+        this.decodeFails(
+            new byte[]{99, SpreadsheetServerJsonBinary.NULL},
+            "Invalid version 99 expected 1"
+        );
+    }
+
+    @Test
+    public void testDecodeInvalidTagFails() {
+        this.decodeFails(
+            new byte[]{SpreadsheetServerJsonBinary.VERSION, 99},
+            "Invalid tag 99 at 1"
+        );
+    }
+
+    @Test
+    public void testDecodeTrailingBytesFails() {
+        this.decodeFails(
+            new byte[]{SpreadsheetServerJsonBinary.VERSION, SpreadsheetServerJsonBinary.NULL, 0},
+            "Invalid trailing bytes at 2"
+        );
+    }
+
+    @Test
+    public void testDecodeTruncatedStringFails() {
+        this.decodeFails(
+            new byte[]{SpreadsheetServerJsonBinary.VERSION, SpreadsheetServerJsonBinary.STRING, 0, 9, 'a'},
+            "Invalid string length 9 at 4"
+        );
+    }
+
+    @Test
+    public void testDecodeInvalidStringReferenceFails() {
+        this.decodeFails(
+            new byte[]{SpreadsheetServerJsonBinary.VERSION, SpreadsheetServerJsonBinary.STRING, 1},
+            "Invalid string reference 0 at 3"
+        );
+    }
+
+    private void decodeFails(final byte[] bytes,
+                             final String message) {
+        final IllegalArgumentException thrown = assertThrows(
+            IllegalArgumentException.class,
+            () -> SpreadsheetServerJsonBinary.decode(bytes)
+        );
+        this.checkEquals(
+            message,
+            thrown.getMessage(),
+            "message"
+        );
+    }
+
+    // round trip.......................................................................................................
+
+    @Test
+    public void testRoundTripNull() {
+        this.roundTripAndCheck(JsonNode.nullNode());
+    }
+
+    @Test
+    public void testRoundTripFalse() {
+        this.roundTripAndCheck(JsonNode.booleanNode(false));
+    }
+
+    @Test
+    public void testRoundTripTrue() {
+        this.roundTripAndCheck(JsonNode.booleanNode(true));
+    }
+
+    @Test
+    public void testRoundTripZero() {
+        this.roundTripAndCheck(JsonNode.number(0));
+    }
+
+    @Test
+    public void testRoundTripNegativeZero() {
+        this.roundTripAndCheck(JsonNode.number(-0.0));
+    }
+
+    @Test
+    public void testRoundTripPositiveInteger() {
+        this.roundTripAndCheck(JsonNode.number(123456));
+    }
+
+    @Test
+    public void testRoundTripNegativeInteger() {
+        this.roundTripAndCheck(JsonNode.number(-123456));
+    }
+
+    @Test
+    public void testRoundTripLargeInteger() {
+        this.roundTripAndCheck(JsonNode.number(1L << 52));
+    }
+
+    @Test
+    public void testRoundTripDouble() {
+        this.roundTripAndCheck(JsonNode.number(1.25));
+    }
+
+    @Test
+    public void testRoundTripNegativeDouble() {
+        this.roundTripAndCheck(JsonNode.number(-0.1));
+    }
+
+    @Test
+    public void testRoundTripHugeDouble() {
+        this.roundTripAndCheck(JsonNode.number(1.5E300));
+    }
+
+    @Test
+    public void testRoundTripEmptyString() {
+        this.roundTripAndCheck(JsonNode.string(""));
+    }
+
+    @Test
+    public void testRoundTripString() {
+        this.roundTripAndCheck(JsonNode.string("Hello"));
+    }
+
+    @Test
+    public void testRoundTripStringUnicode() {
+        this.roundTripAndCheck(JsonNode.string("é中😀"));
+    }
+
+    @Test
+    public void testRoundTripEmptyArray() {
+        this.roundTripAndCheck("[]");
+    }
+
+    @Test
+    public void testRoundTripArray() {
+        this.roundTripAndCheck("[null, true, false, 1, -2.5, \"a\", \"a\", [], {}]");
+    }
+
+    @Test
+    public void testRoundTripEmptyObject() {
+        this.roundTripAndCheck("{}");
+    }
+
+    @Test
+    public void testRoundTripObject() {
+        this.roundTripAndCheck("{\"a\": 1, \"b\": \"a\", \"c\": {\"a\": [\"b\", \"c\"]}}");
+    }
+
+    @Test
+    public void testRoundTripSpreadsheetDelta() {
+        this.roundTripAndCheck(
+            JsonNodeMarshallContexts.basic()
+                .marshall(
+                    SpreadsheetDelta.EMPTY.setCells(
+                        cells(100)
+                    )
+                )
+        );
+    }
+
+    private void roundTripAndCheck(final String json) {
+        this.roundTripAndCheck(
+            JsonNode.parse(json)
+        );
+    }
+
+    private void roundTripAndCheck(final JsonNode node) {
+        this.checkEquals(
+            node,
+            SpreadsheetServerJsonBinary.decode(
+                SpreadsheetServerJsonBinary.encode(node)
+            ),
+            node::toString
+        );
+    }
+
+    // size.............................................................................................................
+
+    @Test
+    public void testEncodeRepeatedStringsSmaller() {
+        final JsonNode node = JsonNode.parse("[\"repeated\", \"repeated\", \"repeated\"]");
+
+        final byte[] bytes = SpreadsheetServerJsonBinary.encode(node);
+
+        this.checkEquals(
+            1 + 1 + 1 + (1 + 1 + 1 + 8) + (1 + 1) + (1 + 1),
+            bytes.length,
+            "version, tag, count, first string, 2 references"
+        );
+    }
+
+    @Test
+    public void testEncodeSpreadsheetDeltaSmallerThanJson() {
+        final JsonNode node = JsonNodeMarshallContexts.basic()
+            .marshall(
+                SpreadsheetDelta.EMPTY.setCells(
+                    cells(1000)
+                )
+            );
+
+        final int jsonLength = node.toString()
+            .getBytes(StandardCharsets.UTF_8)
+            .length;
+        final int binaryLength = SpreadsheetServerJsonBinary.encode(node)
+            .length;
+
+        this.checkEquals(
+            true,
+            binaryLength < jsonLength / 2,
+            () -> "binary " + binaryLength + " json " + jsonLength
+        );
+    }
+
+    private static Set<SpreadsheetCell> cells(final int count) {
+        final TextStyle style = TextStyle.EMPTY.set(
+            TextStylePropertyName.FONT_STYLE,
+            FontStyle.ITALIC
+        );
+
+        final Set<SpreadsheetCell> cells = Sets.ordered();
+        for (int i = 1; i <= count; i++) {
+            cells.add(
+                SpreadsheetSelection.parseCell("A" + i)
+                    .setFormula(
+                        SpreadsheetFormula.EMPTY.setText("=1+" + i)
+                    ).setStyle(style)
+            );
+        }
+        return cells;
+    }
+
+    // class............................................................................................................
+
+    @Override
+    public Class<SpreadsheetServerJsonBinary> type() {
+        return SpreadsheetServerJsonBinary.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PUBLIC;
+    }
+
+    @Override
+    public boolean canHavePublicTypes(final Method method) {
+        return false;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.server;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.tree.json.JsonNode;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+public final class SpreadsheetServerJsonBinaryWriterTest implements ClassTesting2<SpreadsheetServerJsonBinaryWriter> {
+
+    @Test
+    public void testWriteNull() {
+        this.writeAndCheck(
+            JsonNode.nullNode(),
+            SpreadsheetServerJsonBinary.NULL
+        );
+    }
+
+    @Test
+    public void testWriteTrue() {
+        this.writeAndCheck(
+            JsonNode.booleanNode(true),
+            SpreadsheetServerJsonBinary.TRUE
+        );
+    }
+
+    @Test
+    public void testWriteNegativeInteger() {
+        this.writeAndCheck(
+            JsonNode.number(-1),
+            SpreadsheetServerJsonBinary.INTEGER,
+            1 // zig-zag
+        );
+    }
+
+    @Test
+    public void testWriteIntegerVarint() {
+        this.writeAndCheck(
+            JsonNode.number(64),
+            SpreadsheetServerJsonBinary.INTEGER,
+            (byte) 0x80,
+            1
+        );
+    }
+
+    @Test
+    public void testWriteDouble() {
+        this.writeAndCheck(
+            JsonNode.number(1.5),
+            SpreadsheetServerJsonBinary.DOUBLE,
+            0x3F,
+            (byte) 0xF8,
+            0,
+            0,
+            0,
+            0,
+            0,
+            0
+        );
+    }
+
+    @Test
+    public void testWriteObjectRepeatedString() {
+        this.writeAndCheck(
+            JsonNode.parse("{\"a\": \"a\"}"),
+            SpreadsheetServerJsonBinary.OBJECT,
+            1, // count
+            0, // new string
+            1, // length
+            'a',
+            SpreadsheetServerJsonBinary.STRING,
+            1 // reference to dictionary 0
+        );
+    }
+
+    private void writeAndCheck(final JsonNode node,
+                               final int... expected) {
+        final byte[] bytes = new byte[1 + expected.length];
+        bytes[0] = SpreadsheetServerJsonBinary.VERSION;
+        for (int i = 0; i < expected.length; i++) {
+            bytes[1 + i] = (byte) expected[i];
+        }
+
+        assertArrayEquals(
+            bytes,
+            SpreadsheetServerJsonBinaryWriter.write(node),
+            node::toString
+        );
+    }
+
+    // class............................................................................................................
+
+    @Override
+    public Class<SpreadsheetServerJsonBinaryWriter> type() {
+        return SpreadsheetServerJsonBinaryWriter.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
@@ -0,0 +1,483 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.server;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.ToStringTesting;
+import walkingkooka.net.RelativeUrl;
+import walkingkooka.net.Url;
+import walkingkooka.net.header.ETagValidator;
+import walkingkooka.net.header.HasHateosContentType;
+import walkingkooka.net.header.MediaType;
+import walkingkooka.net.http.HttpEntity;
+import walkingkooka.net.http.HttpMethod;
+import walkingkooka.net.http.HttpProtocolVersion;
+import walkingkooka.net.http.HttpTransport;
+import walkingkooka.net.http.server.HttpRequests;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
+import walkingkooka.spreadsheet.server.net.SpreadsheetServerMediaTypes;
+
+public final class SpreadsheetServerRevisionTest implements ClassTesting2<SpreadsheetServerRevision>,
+    ToStringTesting<SpreadsheetServerRevision> {
+
+    private final static RelativeUrl URL = Url.parseRelative("/api/spreadsheet/1/cell/*?home=A1&width=200&height=60");
+
+    private final static MediaType CONTENT_TYPE = HasHateosContentType.HATEOS_CONTENT_TYPE;
+
+    @Test
+    public void testIncrement() {
+        final SpreadsheetServerRevision revision = SpreadsheetServerRevision.empty();
+        final long value = revision.value();
+
+        final long incremented = revision.increment();
+
+        this.checkEquals(
+            true,
+            incremented > value,
+            () -> incremented + " > " + value
+        );
+        this.checkEquals(
+            incremented,
+            revision.value()
+        );
+    }
+
+    @Test
+    public void testIncrementNeverSharedWithAnotherInstance() {
+        final SpreadsheetServerRevision revision = SpreadsheetServerRevision.empty();
+        final SpreadsheetServerRevision other = SpreadsheetServerRevision.empty();
+
+        this.checkNotEquals(
+            revision.increment(),
+            other.increment()
+        );
+    }
+
+    @Test
+    public void testValueLaterInstanceNewer() {
+        final SpreadsheetServerRevision revision = SpreadsheetServerRevision.empty();
+        revision.increment();
+
+        final long value = revision.value();
+
+        this.checkEquals(
+            true,
+            SpreadsheetServerRevision.empty()
+                .value() > value
+        );
+    }
+
+    @Test
+    public void testValueJsonNumberSafe() {
+        this.checkEquals(
+            true,
+            SpreadsheetServerRevision.empty()
+                .value() < (1L << 53)
+        );
+    }
+
+    @Test
+    public void testETagWeak() {
+        this.checkEquals(
+            ETagValidator.WEAK,
+            SpreadsheetServerRevision.empty()
+                .etag(
+                    URL,
+                    CONTENT_TYPE,
+                    null
+                ).validator()
+        );
+    }
+
+    @Test
+    public void testETagSameRevision() {
+        final SpreadsheetServerRevision revision = SpreadsheetServerRevision.empty();
+
+        this.checkEquals(
+            revision.etag(
+                URL,
+                CONTENT_TYPE,
+                null
+            ),
+            revision.etag(
+                URL,
+                CONTENT_TYPE,
+                null
+            )
+        );
+    }
+
+    @Test
+    public void testETagAfterIncrement() {
+        final SpreadsheetServerRevision revision = SpreadsheetServerRevision.empty();
+
+        final Object before = revision.etag(
+            URL,
+            CONTENT_TYPE,
+            null
+        );
+        revision.increment();
+
+        this.checkNotEquals(
+            before,
+            revision.etag(
+                URL,
+                CONTENT_TYPE,
+                null
+            )
+        );
+    }
+
+    @Test
+    public void testETagDifferentUrl() {
+        final SpreadsheetServerRevision revision = SpreadsheetServerRevision.empty();
+
+        this.checkNotEquals(
+            revision.etag(
+                URL,
+                CONTENT_TYPE,
+                null
+            ),
+            revision.etag(
+                Url.parseRelative("/api/spreadsheet/1/cell/*?home=B2&width=200&height=60"),
+                CONTENT_TYPE,
+                null
+            )
+        );
+    }
+
+    @Test
+    public void testETagDifferentUrlSameHashCode() {
+        final SpreadsheetServerRevision revision = SpreadsheetServerRevision.empty();
+
+        // "Aa" and "BB" have the same hash code
+        this.checkNotEquals(
+            revision.etag(
+                Url.parseRelative("/api/spreadsheet/1/label/Aa"),
+                CONTENT_TYPE,
+                null
+            ),
+            revision.etag(
+                Url.parseRelative("/api/spreadsheet/1/label/BB"),
+                CONTENT_TYPE,
+                null
+            )
+        );
+    }
+
+    @Test
+    public void testETagViewportNotAmbiguous() {
+        final SpreadsheetServerRevision revision = SpreadsheetServerRevision.empty();
+
+        this.checkNotEquals(
+            revision.etag(
+                Url.parseRelative("/api/spreadsheet/1/cell/*?home=A1-B"),
+                CONTENT_TYPE,
+                "C"
+            ),
+            revision.etag(
+                Url.parseRelative("/api/spreadsheet/1/cell/*?home=A1"),
+                CONTENT_TYPE,
+                "B-C"
+            )
+        );
+    }
+
+    @Test
+    public void testETagDifferentViewport() {
+        final SpreadsheetServerRevision revision = SpreadsheetServerRevision.empty();
+
+        this.checkNotEquals(
+            revision.etag(
+                URL,
+                CONTENT_TYPE,
+                null
+            ),
+            revision.etag(
+                URL,
+                CONTENT_TYPE,
+                SpreadsheetSelection.A1
+            )
+        );
+    }
+
+    @Test
+    public void testETagDifferentContentType() {
+        final SpreadsheetServerRevision revision = SpreadsheetServerRevision.empty();
+
+        this.checkNotEquals(
+            revision.etag(
+                URL,
+                CONTENT_TYPE,
+                null
+            ),
+            revision.etag(
+                URL,
+                SpreadsheetServerMediaTypes.JSON_BINARY,
+                null
+            )
+        );
+    }
+
+    @Test
+    public void testETagDifferentRevisionInstance() {
+        this.checkNotEquals(
+            SpreadsheetServerRevision.empty()
+                .etag(
+                    URL,
+                    CONTENT_TYPE,
+                    null
+                ),
+            SpreadsheetServerRevision.empty()
+                .etag(
+                    URL,
+                    CONTENT_TYPE,
+                    null
+                )
+        );
+    }
+
+    // isChange.........................................................................................................
+
+    @Test
+    public void testIsChangeGetCell() {
+        this.isChangeAndCheck(
+            HttpMethod.GET,
+            "/api/spreadsheet/1/cell/A1",
+            false
+        );
+    }
+
+    @Test
+    public void testIsChangeGetViewport() {
+        this.isChangeAndCheck(
+            HttpMethod.GET,
+            "/api/spreadsheet/1/cell/*?home=A1&width=200&height=60&navigation=right%20column",
+            false
+        );
+    }
+
+    @Test
+    public void testIsChangeGetSort() {
+        this.isChangeAndCheck(
+            HttpMethod.GET,
+            "/api/spreadsheet/1/cell/A1:B2/sort?comparators=A=text",
+            true
+        );
+    }
+
+    @Test
+    public void testIsChangeGetForceRecompute() {
+        this.isChangeAndCheck(
+            HttpMethod.GET,
+            "/api/spreadsheet/1/cell/*/force-recompute?home=A1&width=200&height=60",
+            true
+        );
+    }
+
+    @Test
+    public void testIsChangePostColumn() {
+        this.isChangeAndCheck(
+            HttpMethod.POST,
+            "/api/spreadsheet/1/column/A/insert-after?count=1",
+            true
+        );
+    }
+
+    @Test
+    public void testIsChangePatchMetadata() {
+        this.isChangeAndCheck(
+            HttpMethod.PATCH,
+            "/api/spreadsheet/1",
+            true
+        );
+    }
+
+    @Test
+    public void testIsChangeDeleteRow() {
+        this.isChangeAndCheck(
+            HttpMethod.DELETE,
+            "/api/spreadsheet/1/row/1",
+            true
+        );
+    }
+
+    private void isChangeAndCheck(final HttpMethod method,
+                                  final String url,
+                                  final boolean expected) {
+        this.checkEquals(
+            expected,
+            SpreadsheetServerRevision.isChange(
+                HttpRequests.value(
+                    HttpTransport.UNSECURED,
+                    method,
+                    Url.parseRelative(url),
+                    HttpProtocolVersion.VERSION_1_0,
+                    HttpEntity.EMPTY
+                )
+            ),
+            () -> method + " " + url
+        );
+    }
+
+    // isCellLoad.......................................................................................................
+
+    @Test
+    public void testIsCellLoadGetCell() {
+        this.isCellLoadAndCheck(
+            HttpMethod.GET,
+            "/api/spreadsheet/1/cell/A1",
+            true
+        );
+    }
+
+    @Test
+    public void testIsCellLoadGetViewport() {
+        this.isCellLoadAndCheck(
+            HttpMethod.GET,
+            "/api/spreadsheet/1/cell/*?home=A1&width=200&height=60&includeFrozenColumnsRows=false",
+            true
+        );
+    }
+
+    @Test
+    public void testIsCellLoadGetForceRecompute() {
+        this.isCellLoadAndCheck(
+            HttpMethod.GET,
+            "/api/spreadsheet/1/cell/*/force-recompute?home=A1&width=200&height=60",
+            false
+        );
+    }
+
+    @Test
+    public void testIsCellLoadGetColumn() {
+        this.isCellLoadAndCheck(
+            HttpMethod.GET,
+            "/api/spreadsheet/1/column/A",
+            false
+        );
+    }
+
+    @Test
+    public void testIsCellLoadPost() {
+        this.isCellLoadAndCheck(
+            HttpMethod.POST,
+            "/api/spreadsheet/1/cell/A1",
+            false
+        );
+    }
+
+    private void isCellLoadAndCheck(final HttpMethod method,
+                                    final String url,
+                                    final boolean expected) {
+        this.checkEquals(
+            expected,
+            SpreadsheetServerRevision.isCellLoad(
+                HttpRequests.value(
+                    HttpTransport.UNSECURED,
+                    method,
+                    Url.parseRelative(url),
+                    HttpProtocolVersion.VERSION_1_0,
+                    HttpEntity.EMPTY
+                )
+            ),
+            () -> method + " " + url
+        );
+    }
+
+    // isCell...........................................................................................................
+
+    @Test
+    public void testIsCellPostCell() {
+        this.isCellAndCheck(
+            HttpMethod.POST,
+            "/api/spreadsheet/1/cell/A1",
+            true
+        );
+    }
+
+    @Test
+    public void testIsCellPostSort() {
+        this.isCellAndCheck(
+            HttpMethod.POST,
+            "/api/spreadsheet/1/cell/A1:B2/sort?comparators=A=text",
+            true
+        );
+    }
+
+    @Test
+    public void testIsCellPostColumn() {
+        this.isCellAndCheck(
+            HttpMethod.POST,
+            "/api/spreadsheet/1/column/A/insert-after?count=1",
+            false
+        );
+    }
+
+    @Test
+    public void testIsCellPatchMetadata() {
+        this.isCellAndCheck(
+            HttpMethod.PATCH,
+            "/api/spreadsheet/1",
+            false
+        );
+    }
+
+    private void isCellAndCheck(final HttpMethod method,
+                                final String url,
+                                final boolean expected) {
+        this.checkEquals(
+            expected,
+            SpreadsheetServerRevision.isCell(
+                HttpRequests.value(
+                    HttpTransport.UNSECURED,
+                    method,
+                    Url.parseRelative(url),
+                    HttpProtocolVersion.VERSION_1_0,
+                    HttpEntity.EMPTY
+                )
+            ),
+            () -> method + " " + url
+        );
+    }
+
+    // toString.........................................................................................................
+
+    @Test
+    public void testToString() {
+        final SpreadsheetServerRevision revision = SpreadsheetServerRevision.empty();
+
+        this.toStringAndCheck(
+            revision,
+            String.valueOf(revision.increment())
+        );
+    }
+
+    // class............................................................................................................
+
+    @Override
+    public Class<SpreadsheetServerRevision> type() {
+        return SpreadsheetServerRevision.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.server;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.collect.set.Sets;
+import walkingkooka.net.Url;
+import walkingkooka.net.http.HttpEntity;
+import walkingkooka.net.http.HttpMethod;
+import walkingkooka.net.http.HttpProtocolVersion;
+import walkingkooka.net.http.HttpTransport;
+import walkingkooka.net.http.server.HttpRequest;
+import walkingkooka.net.http.server.HttpRequests;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.spreadsheet.formula.SpreadsheetFormula;
+import walkingkooka.spreadsheet.meta.SpreadsheetId;
+import walkingkooka.spreadsheet.meta.store.SpreadsheetMetadataStore;
+import walkingkooka.spreadsheet.meta.store.SpreadsheetMetadataStores;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
+import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
+import walkingkooka.spreadsheet.store.SpreadsheetCellStore;
+import walkingkooka.spreadsheet.store.SpreadsheetCellStores;
+import walkingkooka.spreadsheet.store.SpreadsheetLabelStore;
+import walkingkooka.spreadsheet.store.SpreadsheetLabelStores;
+import walkingkooka.spreadsheet.store.repo.FakeSpreadsheetStoreRepository;
+import walkingkooka.spreadsheet.value.SpreadsheetCell;
+
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class SpreadsheetServerSpreadsheetChangesTest implements ClassTesting2<SpreadsheetServerSpreadsheetChanges> {
+
+    @Test
+    public void testWithNullSpreadsheetIdFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetServerSpreadsheetChanges.with(
+                null,
+                new TestSpreadsheetStoreRepository(),
+                responses(),
+                responses()
+            )
+        );
+    }
+
+    @Test
+    public void testWithNullRepositoryFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetServerSpreadsheetChanges.with(
+                SPREADSHEET_ID,
+                null,
+                responses(),
+                responses()
+            )
+        );
+    }
+
+    @Test
+    public void testWithNullViewportResponsesFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetServerSpreadsheetChanges.with(
+                SPREADSHEET_ID,
+                new TestSpreadsheetStoreRepository(),
+                null,
+                responses()
+            )
+        );
+    }
+
+    @Test
+    public void testWithNullEventResponsesFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetServerSpreadsheetChanges.with(
+                SPREADSHEET_ID,
+                new TestSpreadsheetStoreRepository(),
+                responses(),
+                null
+            )
+        );
+    }
+
+    @Test
+    public void testCellSavedToRepository() {
+        final TestSpreadsheetStoreRepository repository = new TestSpreadsheetStoreRepository();
+        final SpreadsheetServerSpreadsheetChanges changes = SpreadsheetServerSpreadsheetChanges.with(
+            SPREADSHEET_ID,
+            repository,
+            responses(),
+            responses()
+        );
+
+        final long revision = changes.revision.value();
+
+        repository.cells()
+            .save(CELL);
+
+        this.checkEquals(
+            Optional.of(
+                Sets.of(CELL.reference())
+            ),
+            changes.changeLog.cellsSince(revision)
+        );
+    }
+
+    @Test
+    public void testRetainReleaseRemovesWatchers() {
+        final TestSpreadsheetStoreRepository repository = new TestSpreadsheetStoreRepository();
+        final SpreadsheetServerSpreadsheetChanges changes = SpreadsheetServerSpreadsheetChanges.with(
+            SPREADSHEET_ID,
+            repository,
+            responses(),
+            responses()
+        );
+
+        this.checkEquals(
+            changes,
+            changes.retain()
+        );
+        this.checkEquals(
+            changes,
+            changes.retain()
+        );
+        this.checkEquals(
+            changes,
+            changes.release()
+        );
+        this.checkEquals(
+            null,
+            changes.release()
+        );
+        this.checkEquals(
+            0,
+            changes.references,
+            "references"
+        );
+
+        final long revision = changes.revision.value();
+
+        repository.cells()
+            .save(CELL);
+
+        this.checkEquals(
+            revision,
+            changes.revision.value(),
+            "revision after release"
+        );
+    }
+
+    @Test
+    public void testHandledGet() {
+        this.handledAndCheck(
+            HttpMethod.GET,
+            "/api/spreadsheet/1/cell/A1",
+            false,
+            Optional.of(
+                Sets.empty()
+            )
+        );
+    }
+
+    @Test
+    public void testHandledGetSort() {
+        this.handledAndCheck(
+            HttpMethod.GET,
+            "/api/spreadsheet/1/cell/A1:B2/sort?comparators=A=text",
+            true,
+            Optional.of(
+                Sets.empty()
+            )
+        );
+    }
+
+    @Test
+    public void testHandledPostCell() {
+        // cell changes are logged by the cell watcher
+        this.handledAndCheck(
+            HttpMethod.POST,
+            "/api/spreadsheet/1/cell/A1",
+            true,
+            Optional.of(
+                Sets.empty()
+            )
+        );
+    }
+
+    @Test
+    public void testHandledPostColumn() {
+        // columns have no watcher, so everything may have changed
+        this.handledAndCheck(
+            HttpMethod.POST,
+            "/api/spreadsheet/1/column/A/insert-after?count=1",
+            true,
+            Optional.empty()
+        );
+    }
+
+    private void handledAndCheck(final HttpMethod method,
+                                 final String url,
+                                 final boolean incremented,
+                                 final Optional<Set<SpreadsheetCellReference>> cellsSince) {
+        final SpreadsheetServerSpreadsheetChanges changes = SpreadsheetServerSpreadsheetChanges.with(
+            SPREADSHEET_ID,
+            new TestSpreadsheetStoreRepository(),
+            responses(),
+            responses()
+        );
+
+        final long revision = changes.revision.value();
+
+        changes.handled(
+            request(
+                method,
+                url
+            )
+        );
+
+        this.checkEquals(
+            incremented,
+            changes.revision.value() > revision,
+            () -> method + " " + url + " revision incremented"
+        );
+        this.checkEquals(
+            cellsSince,
+            changes.changeLog.cellsSince(revision),
+            () -> method + " " + url + " cellsSince"
+        );
+    }
+
+    private static HttpRequest request(final HttpMethod method,
+                                       final String url) {
+        return HttpRequests.value(
+            HttpTransport.UNSECURED,
+            method,
+            Url.parseRelative(url),
+            HttpProtocolVersion.VERSION_1_0,
+            HttpEntity.EMPTY
+        );
+    }
+
+    private static SpreadsheetServerCache<String, HttpEntity> responses() {
+        return SpreadsheetServerCache.with(
+            1,
+            1,
+            (e) -> 1L,
+            Optional.empty(),
+            (k, v) -> {},
+            System::nanoTime
+        );
+    }
+
+    private final static SpreadsheetId SPREADSHEET_ID = SpreadsheetId.with(1);
+
+    private final static SpreadsheetCell CELL = SpreadsheetSelection.A1.setFormula(
+        SpreadsheetFormula.EMPTY.setText("=1")
+    );
+
+    final static class TestSpreadsheetStoreRepository extends FakeSpreadsheetStoreRepository {
+
+        @Override
+        public SpreadsheetCellStore cells() {
+            return this.cells;
+        }
+
+        private final SpreadsheetCellStore cells = SpreadsheetCellStores.treeMap();
+
+        @Override
+        public SpreadsheetLabelStore labels() {
+            return this.labels;
+        }
+
+        private final SpreadsheetLabelStore labels = SpreadsheetLabelStores.treeMap();
+
+        @Override
+        public SpreadsheetMetadataStore metadatas() {
+            return this.metadatas;
+        }
+
+        private final SpreadsheetMetadataStore metadatas = SpreadsheetMetadataStores.treeMap();
+    }
+
+    // class............................................................................................................
+
+    @Override
+    public Class<SpreadsheetServerSpreadsheetChanges> type() {
+        return SpreadsheetServerSpreadsheetChanges.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
@@ -0,0 +1,543 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package walkingkooka.spreadsheet.server;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.ToStringTesting;
+import walkingkooka.reflect.ClassTesting2;
+import walkingkooka.reflect.JavaVisibility;
+import walkingkooka.spreadsheet.meta.SpreadsheetId;
+import walkingkooka.spreadsheet.meta.SpreadsheetMetadata;
+import walkingkooka.spreadsheet.meta.SpreadsheetMetadataPropertyName;
+import walkingkooka.spreadsheet.meta.SpreadsheetMetadataTesting;
+import walkingkooka.spreadsheet.meta.SpreadsheetName;
+import walkingkooka.spreadsheet.meta.store.SpreadsheetMetadataStore;
+import walkingkooka.spreadsheet.meta.store.SpreadsheetMetadataStores;
+import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class SpreadsheetViewportMetadataWriteBehindTest implements ClassTesting2<SpreadsheetViewportMetadataWriteBehind>,
+    ToStringTesting<SpreadsheetViewportMetadataWriteBehind>,
+    SpreadsheetMetadataTesting {
+
+    private final static Duration INTERVAL = Duration.ofSeconds(5);
+
+    private final static SpreadsheetId ID = SpreadsheetId.with(1);
+
+    private final static LocalDateTime NOW = LocalDateTime.of(
+        1999,
+        12,
+        31,
+        12,
+        58
+    );
+
+    // with.............................................................................................................
+
+    @Test
+    public void testWithNullIntervalFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetViewportMetadataWriteBehind.with(null)
+        );
+    }
+
+    @Test
+    public void testWithNegativeIntervalFails() {
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> SpreadsheetViewportMetadataWriteBehind.with(Duration.ofSeconds(-1))
+        );
+    }
+
+    // save.............................................................................................................
+
+    @Test
+    public void testSaveNullMetadataFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetViewportMetadataWriteBehind.with(INTERVAL)
+                .save(
+                    null,
+                    SpreadsheetMetadataStores.treeMap(),
+                    NOW
+                )
+        );
+    }
+
+    @Test
+    public void testSaveNullStoreFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetViewportMetadataWriteBehind.with(INTERVAL)
+                .save(
+                    this.metadata("A1"),
+                    null,
+                    NOW
+                )
+        );
+    }
+
+    @Test
+    public void testSaveNullNowFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetViewportMetadataWriteBehind.with(INTERVAL)
+                .save(
+                    this.metadata("A1"),
+                    SpreadsheetMetadataStores.treeMap(),
+                    null
+                )
+        );
+    }
+
+    @Test
+    public void testSaveFirstImmediate() {
+        final SpreadsheetMetadataStore store = this.store();
+        final SpreadsheetViewportMetadataWriteBehind writeBehind = SpreadsheetViewportMetadataWriteBehind.with(INTERVAL);
+
+        final SpreadsheetMetadata metadata = this.metadata("B2");
+        writeBehind.save(
+            metadata,
+            store,
+            NOW
+        );
+
+        this.homeAndCheck(
+            store,
+            "B2"
+        );
+        this.checkEquals(
+            null,
+            writeBehind.pending,
+            "pending"
+        );
+    }
+
+    @Test
+    public void testSaveWithinIntervalHeld() {
+        final SpreadsheetMetadataStore store = this.store();
+        final SpreadsheetViewportMetadataWriteBehind writeBehind = SpreadsheetViewportMetadataWriteBehind.with(INTERVAL);
+
+        writeBehind.save(
+            this.metadata("B2"),
+            store,
+            NOW
+        );
+
+        final SpreadsheetMetadata held = this.metadata("C3");
+        this.checkEquals(
+            held,
+            writeBehind.save(
+                held,
+                store,
+                NOW.plusSeconds(1)
+            ),
+            "save should return held metadata"
+        );
+
+        this.homeAndCheck(
+            store,
+            "B2"
+        );
+        this.checkEquals(
+            held,
+            writeBehind.pending,
+            "pending"
+        );
+    }
+
+    @Test
+    public void testSaveAfterIntervalWritten() {
+        final SpreadsheetMetadataStore store = this.store();
+        final SpreadsheetViewportMetadataWriteBehind writeBehind = SpreadsheetViewportMetadataWriteBehind.with(INTERVAL);
+
+        writeBehind.save(
+            this.metadata("B2"),
+            store,
+            NOW
+        );
+        writeBehind.save(
+            this.metadata("C3"),
+            store,
+            NOW.plusSeconds(1)
+        );
+        writeBehind.save(
+            this.metadata("D4"),
+            store,
+            NOW.plus(INTERVAL)
+        );
+
+        this.homeAndCheck(
+            store,
+            "D4"
+        );
+        this.checkEquals(
+            null,
+            writeBehind.pending,
+            "pending"
+        );
+    }
+
+    @Test
+    public void testSaveSameAsLastWrittenSkipped() {
+        final SpreadsheetMetadataStore store = this.store();
+        final SpreadsheetViewportMetadataWriteBehind writeBehind = SpreadsheetViewportMetadataWriteBehind.with(INTERVAL);
+
+        final SpreadsheetMetadata saved = writeBehind.save(
+            this.metadata("B2"),
+            store,
+            NOW
+        );
+
+        // skipped so the last save time remains NOW
+        this.checkEquals(
+            saved,
+            writeBehind.save(
+                saved,
+                store,
+                NOW.plus(INTERVAL)
+            )
+        );
+
+        // written immediately because INTERVAL has passed since NOW
+        writeBehind.save(
+            this.metadata("C3"),
+            store,
+            NOW.plus(INTERVAL)
+                .plusSeconds(1)
+        );
+
+        this.homeAndCheck(
+            store,
+            "C3"
+        );
+        this.checkEquals(
+            null,
+            writeBehind.pending,
+            "pending"
+        );
+    }
+
+    @Test
+    public void testSaveZeroIntervalAlwaysImmediate() {
+        final SpreadsheetMetadataStore store = this.store();
+        final SpreadsheetViewportMetadataWriteBehind writeBehind = SpreadsheetViewportMetadataWriteBehind.with(Duration.ZERO);
+
+        writeBehind.save(
+            this.metadata("B2"),
+            store,
+            NOW
+        );
+        writeBehind.save(
+            this.metadata("C3"),
+            store,
+            NOW
+        );
+
+        this.homeAndCheck(
+            store,
+            "C3"
+        );
+    }
+
+    // held.............................................................................................................
+
+    @Test
+    public void testHeldNothingPending() {
+        final SpreadsheetViewportMetadataWriteBehind writeBehind = SpreadsheetViewportMetadataWriteBehind.with(INTERVAL);
+
+        writeBehind.save(
+            this.metadata("B2"),
+            this.store(),
+            NOW
+        );
+
+        this.checkEquals(
+            Optional.empty(),
+            writeBehind.held()
+        );
+    }
+
+    @Test
+    public void testHeld() {
+        final SpreadsheetMetadataStore store = this.store();
+        final SpreadsheetViewportMetadataWriteBehind writeBehind = SpreadsheetViewportMetadataWriteBehind.with(INTERVAL);
+
+        writeBehind.save(
+            this.metadata("B2"),
+            store,
+            NOW
+        );
+
+        final SpreadsheetMetadata held = this.metadata("C3");
+        writeBehind.save(
+            held,
+            store,
+            NOW.plusSeconds(1)
+        );
+
+        this.checkEquals(
+            Optional.of(held),
+            writeBehind.held()
+        );
+    }
+
+    // flush............................................................................................................
+
+    @Test
+    public void testFlushNothingPending() {
+        final SpreadsheetMetadataStore store = this.store();
+        final SpreadsheetViewportMetadataWriteBehind writeBehind = SpreadsheetViewportMetadataWriteBehind.with(INTERVAL);
+
+        writeBehind.flush();
+
+        this.homeAndCheck(
+            store,
+            "A1"
+        );
+    }
+
+    @Test
+    public void testFlushMergesLatest() {
+        final SpreadsheetMetadataStore store = this.store();
+        final SpreadsheetViewportMetadataWriteBehind writeBehind = SpreadsheetViewportMetadataWriteBehind.with(INTERVAL);
+
+        writeBehind.save(
+            this.metadata("B2"),
+            store,
+            NOW
+        );
+        writeBehind.save(
+            this.metadata("C3"),
+            store,
+            NOW.plusSeconds(1)
+        );
+
+        // another property saved after the viewport was held must not be lost
+        final SpreadsheetMetadata latest = store.loadOrFail(ID)
+            .set(
+                SpreadsheetMetadataPropertyName.SPREADSHEET_NAME,
+                SpreadsheetName.with("Spreadsheet234")
+            );
+        store.save(latest);
+
+        writeBehind.flush();
+
+        this.checkEquals(
+            latest.set(
+                SpreadsheetMetadataPropertyName.VIEWPORT_HOME,
+                SpreadsheetSelection.parseCell("C3")
+            ),
+            store.loadOrFail(ID)
+        );
+        this.checkEquals(
+            null,
+            writeBehind.pending,
+            "pending"
+        );
+    }
+
+    @Test
+    public void testFlushDeletedSpreadsheet() {
+        final SpreadsheetMetadataStore store = this.store();
+        final SpreadsheetViewportMetadataWriteBehind writeBehind = SpreadsheetViewportMetadataWriteBehind.with(INTERVAL);
+
+        writeBehind.save(
+            this.metadata("B2"),
+            store,
+            NOW
+        );
+        writeBehind.save(
+            this.metadata("C3"),
+            store,
+            NOW.plusSeconds(1)
+        );
+
+        store.delete(ID);
+
+        writeBehind.flush();
+
+        this.checkEquals(
+            0,
+            store.count(),
+            "count"
+        );
+    }
+
+    // flushIfDue.......................................................................................................
+
+    @Test
+    public void testFlushIfDueNullNowFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetViewportMetadataWriteBehind.with(INTERVAL)
+                .flushIfDue(null)
+        );
+    }
+
+    @Test
+    public void testFlushIfDueWithinIntervalHeld() {
+        final SpreadsheetMetadataStore store = this.store();
+        final SpreadsheetViewportMetadataWriteBehind writeBehind = SpreadsheetViewportMetadataWriteBehind.with(INTERVAL);
+
+        writeBehind.save(
+            this.metadata("B2"),
+            store,
+            NOW
+        );
+        writeBehind.save(
+            this.metadata("C3"),
+            store,
+            NOW.plusSeconds(1)
+        );
+
+        writeBehind.flushIfDue(
+            NOW.plusSeconds(2)
+        );
+
+        this.homeAndCheck(
+            store,
+            "B2"
+        );
+        this.checkEquals(
+            true,
+            writeBehind.held()
+                .isPresent(),
+            "held"
+        );
+    }
+
+    @Test
+    public void testFlushIfDueAfterIntervalWritten() {
+        final SpreadsheetMetadataStore store = this.store();
+        final SpreadsheetViewportMetadataWriteBehind writeBehind = SpreadsheetViewportMetadataWriteBehind.with(INTERVAL);
+
+        writeBehind.save(
+            this.metadata("B2"),
+            store,
+            NOW
+        );
+        writeBehind.save(
+            this.metadata("C3"),
+            store,
+            NOW.plusSeconds(1)
+        );
+
+        // no further saves happen, the next request must write the held viewport
+        writeBehind.flushIfDue(
+            NOW.plus(INTERVAL)
+        );
+
+        this.homeAndCheck(
+            store,
+            "C3"
+        );
+        this.checkEquals(
+            Optional.empty(),
+            writeBehind.held(),
+            "held"
+        );
+    }
+
+    @Test
+    public void testFlushIfDueNothingPending() {
+        final SpreadsheetMetadataStore store = this.store();
+        final SpreadsheetViewportMetadataWriteBehind writeBehind = SpreadsheetViewportMetadataWriteBehind.with(INTERVAL);
+
+        writeBehind.flushIfDue(NOW);
+
+        this.homeAndCheck(
+            store,
+            "A1"
+        );
+    }
+
+    private SpreadsheetMetadataStore store() {
+        final SpreadsheetMetadataStore store = SpreadsheetMetadataStores.treeMap();
+        store.save(this.metadata("A1"));
+        return store;
+    }
+
+    private SpreadsheetMetadata metadata(final String home) {
+        return METADATA_EN_AU.set(
+            SpreadsheetMetadataPropertyName.SPREADSHEET_ID,
+            ID
+        ).set(
+            SpreadsheetMetadataPropertyName.VIEWPORT_HOME,
+            SpreadsheetSelection.parseCell(home)
+        );
+    }
+
+    private void homeAndCheck(final SpreadsheetMetadataStore store,
+                              final String home) {
+        this.checkEquals(
+            SpreadsheetSelection.parseCell(home),
+            store.loadOrFail(ID)
+                .getOrFail(SpreadsheetMetadataPropertyName.VIEWPORT_HOME),
+            "viewportHome"
+        );
+    }
+
+    // toString.........................................................................................................
+
+    @Test
+    public void testToString() {
+        this.toStringAndCheck(
+            SpreadsheetViewportMetadataWriteBehind.with(INTERVAL),
+            "interval=PT5S"
+        );
+    }
+
+    @Test
+    public void testToStringPending() {
+        final SpreadsheetViewportMetadataWriteBehind writeBehind = SpreadsheetViewportMetadataWriteBehind.with(INTERVAL);
+
+        writeBehind.save(
+            this.metadata("B2"),
+            this.store(),
+            NOW
+        );
+        writeBehind.save(
+            this.metadata("C3"),
+            this.store(),
+            NOW.plusSeconds(1)
+        );
+
+        this.toStringAndCheck(
+            writeBehind,
+            "interval=PT5S pending=C3"
+        );
+    }
+
+    // class............................................................................................................
+
+    @Override
+    public Class<SpreadsheetViewportMetadataWriteBehind> type() {
+        return SpreadsheetViewportMetadataWriteBehind.class;
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
@@ -814,6 +814,11 @@ public final class SpreadsheetDeltaHateosResourceHandlerLoadCellTest
                 public Optional<SpreadsheetSelection> resolveIfLabel(final SpreadsheetSelection selection) {
                     return Optional.of(selection);
                 }
+
+                @Override
+                public SpreadsheetMetadata saveViewportMetadata(final SpreadsheetMetadata metadata) {
+                    return metadataStore.save(metadata);
+                }
             },
             Optional.of(
                 SpreadsheetDelta.EMPTY
@@ -833,6 +838,256 @@ public final class SpreadsheetDeltaHateosResourceHandlerLoadCellTest
         );
     }
 
+    @Test
+    public void testLoadCellRangeSinceChangedCells() {
+        // B1, B2, B3
+        // C1, C2, C3
+        final SpreadsheetCell b2 = this.b2();
+
+        final SpreadsheetCellReference c2 = SpreadsheetSelection.parseCell("C2");
+
+        this.loadCellRangeSinceAndCheck(
+            Optional.of(
+                Sets.of(
+                    b2.reference(),
+                    c2,
+                    SpreadsheetSelection.parseCell("Z99") // outside window
+                )
+            ),
+            Sets.of(
+                b2.reference()
+                    .toCellRange(),
+                c2.toCellRange()
+            ),
+            SpreadsheetDelta.EMPTY
+                .setCells(
+                    Sets.of(b2)
+                ),
+            SpreadsheetDelta.EMPTY
+                .setCells(
+                    Sets.of(b2)
+                ).setDeletedCells(
+                    Sets.of(c2)
+                )
+        );
+    }
+
+    @Test
+    public void testLoadCellRangeSinceNothingChanged() {
+        this.loadCellRangeSinceAndCheck(
+            Optional.of(
+                Sets.empty()
+            ),
+            Sets.empty(),
+            SpreadsheetDelta.EMPTY,
+            SpreadsheetDelta.EMPTY
+        );
+    }
+
+    @Test
+    public void testLoadCellRangeSinceUnknownRevision() {
+        final Set<SpreadsheetCell> cells = Sets.of(
+            this.b1(),
+            this.b2(),
+            this.b3(),
+            this.c1(),
+            this.c2(),
+            this.c3()
+        );
+
+        this.loadCellRangeSinceAndCheck(
+            Optional.empty(),
+            Sets.of(
+                SpreadsheetSelection.cellRange(this.range())
+            ),
+            SpreadsheetDelta.EMPTY
+                .setCells(cells),
+            SpreadsheetDelta.EMPTY
+                .setCells(cells)
+        );
+    }
+
+    @Test
+    public void testLoadCellRangeSinceNavigatedLoadsWindow() {
+        final Set<SpreadsheetCell> cells = Sets.of(
+            this.b1(),
+            this.b2(),
+            this.b3(),
+            this.c1(),
+            this.c2(),
+            this.c3()
+        );
+
+        this.loadCellRangeSinceAndCheck(
+            Optional.of(
+                Sets.of(
+                    this.b2()
+                        .reference()
+                )
+            ),
+            SpreadsheetSelection.parseCell("C3"), // navigatedHome
+            Sets.of(
+                SpreadsheetSelection.cellRange(this.range())
+            ),
+            SpreadsheetDelta.EMPTY
+                .setCells(cells),
+            SpreadsheetDelta.EMPTY
+                .setCells(cells)
+        );
+    }
+
+    private void loadCellRangeSinceAndCheck(final Optional<Set<SpreadsheetCellReference>> changed,
+                                            final Set<SpreadsheetCellRangeReference> load,
+                                            final SpreadsheetDelta loaded,
+                                            final SpreadsheetDelta expected) {
+        this.loadCellRangeSinceAndCheck(
+            changed,
+            SpreadsheetSelection.parseCell("B2"), // navigatedHome
+            load,
+            loaded,
+            expected
+        );
+    }
+
+    private void loadCellRangeSinceAndCheck(final Optional<Set<SpreadsheetCellReference>> changed,
+                                            final SpreadsheetCellReference navigatedHome,
+                                            final Set<SpreadsheetCellRangeReference> load,
+                                            final SpreadsheetDelta loaded,
+                                            final SpreadsheetDelta expected) {
+        final long since = 123;
+
+        final SpreadsheetCellReference home = SpreadsheetSelection.parseCell("B2");
+        final int width = 33;
+        final int height = 44;
+
+        final Map<HttpRequestAttribute<?>, Object> parameters = Maps.sorted();
+        parameters.put(SpreadsheetDeltaUrlQueryParameters.HOME, Lists.of(home.toString()));
+        parameters.put(SpreadsheetDeltaUrlQueryParameters.WIDTH, Lists.of("" + width));
+        parameters.put(SpreadsheetDeltaUrlQueryParameters.HEIGHT, Lists.of("" + height));
+        parameters.put(SpreadsheetDeltaUrlQueryParameters.INCLUDE_FROZEN_COLUMNS_ROWS, Lists.of("false"));
+        parameters.put(SpreadsheetDeltaUrlQueryParameters.SINCE, Lists.of("" + since));
+        parameters.put(
+            SpreadsheetDeltaProperties.PROPERTIES,
+            Lists.of("cells")
+        );
+
+        final SpreadsheetMetadataStore metadataStore = SpreadsheetMetadataStores.treeMap();
+        metadataStore.save(METADATA_EN_AU);
+
+        final Range<SpreadsheetCellReference> range = this.range();
+
+        this.handleAllAndCheck(
+            SpreadsheetDeltaHateosResourceHandlerLoadCell.with(
+                EVALUATION
+            ),
+            Optional.empty(),
+            parameters,
+            UrlPath.EMPTY,
+            new FakeSpreadsheetEngineHateosHandlerContext() {
+
+                @Override
+                public SpreadsheetEngine spreadsheetEngine() {
+                    return new FakeSpreadsheetEngine() {
+
+                        @Override
+                        public SpreadsheetDelta loadMultipleCellRanges(final Set<SpreadsheetCellRangeReference> r,
+                                                                       final SpreadsheetEngineEvaluation evaluation,
+                                                                       final Set<SpreadsheetDeltaProperties> dp,
+                                                                       final SpreadsheetEngineContext context) {
+                            checkEquals(
+                                load,
+                                r,
+                                "range"
+                            );
+                            checkEquals(EVALUATION, evaluation, "evaluation");
+
+                            return loaded;
+                        }
+
+                        @Override
+                        public SpreadsheetViewportWindows window(final SpreadsheetViewport viewport,
+                                                                 final SpreadsheetEngineContext context) {
+                            return SpreadsheetViewportWindows.with(
+                                Sets.of(
+                                    SpreadsheetSelection.cellRange(range)
+                                )
+                            );
+                        }
+
+                        @Override
+                        public double columnWidth(final SpreadsheetColumnReference column,
+                                                  final SpreadsheetEngineContext context) {
+                            return COLUMN_WIDTH;
+                        }
+
+                        @Override
+                        public double rowHeight(final SpreadsheetRowReference row,
+                                                final SpreadsheetEngineContext context) {
+                            return ROW_HEIGHT;
+                        }
+
+                        @Override
+                        public Optional<SpreadsheetViewport> navigate(final SpreadsheetViewport viewport,
+                                                                      final SpreadsheetEngineContext context) {
+                            return Optional.of(
+                                navigatedHome.viewportRectangle(
+                                    width,
+                                    height
+                                ).viewport()
+                            );
+                        }
+                    };
+                }
+
+                @Override
+                public SpreadsheetMetadata spreadsheetMetadata() {
+                    return METADATA_EN_AU;
+                }
+
+                @Override
+                public SpreadsheetStoreRepository storeRepository() {
+                    return new FakeSpreadsheetStoreRepository() {
+                        @Override
+                        public SpreadsheetCellStore cells() {
+                            return SpreadsheetCellStores.fake();
+                        }
+
+                        @Override
+                        public SpreadsheetMetadataStore metadatas() {
+                            return metadataStore;
+                        }
+                    };
+                }
+
+                @Override
+                public Optional<SpreadsheetSelection> resolveIfLabel(final SpreadsheetSelection selection) {
+                    return Optional.of(selection);
+                }
+
+                @Override
+                public SpreadsheetMetadata saveViewportMetadata(final SpreadsheetMetadata metadata) {
+                    return metadataStore.save(metadata);
+                }
+
+                @Override
+                public Optional<Set<SpreadsheetCellReference>> changedCellsSince(final long revision) {
+                    checkEquals(since, revision, "revision");
+                    return changed;
+                }
+            },
+            Optional.of(
+                expected.setWindow(
+                    SpreadsheetViewportWindows.parse("B1:C3")
+                ).setViewport(
+                    Optional.of(
+                        navigatedHome.viewportRectangle(width, height)
+                            .viewport()
+                    )
+                )
+            )
+        );
+    }
+
     @Test
     public void testLoadCellRangeNoFrozenColumnRows() {
         this.loadCellRangeFilteredAndCheck(
@@ -1296,6 +1551,11 @@ public final class SpreadsheetDeltaHateosResourceHandlerLoadCellTest
                     }
                     return Optional.of(selection);
                 }
+
+                @Override
+                public SpreadsheetMetadata saveViewportMetadata(final SpreadsheetMetadata metadata) {
+                    return metadataStore.save(metadata);
+                }
             },
             Optional.of(
                 SpreadsheetDelta.EMPTY
@@ -1446,6 +1706,11 @@ public final class SpreadsheetDeltaHateosResourceHandlerLoadCellTest
                     }
                 };
             }
+
+            @Override
+            public SpreadsheetMetadata saveViewportMetadata(final SpreadsheetMetadata metadata) {
+                return store.save(metadata);
+            }
         };
     }
 
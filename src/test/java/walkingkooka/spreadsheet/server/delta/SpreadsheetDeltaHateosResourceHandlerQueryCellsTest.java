@@ -32,6 +32,7 @@ import walkingkooka.spreadsheet.engine.SpreadsheetDelta;
 import walkingkooka.spreadsheet.engine.SpreadsheetDeltaProperties;
 import walkingkooka.spreadsheet.engine.SpreadsheetEngine;
 import walkingkooka.spreadsheet.engine.SpreadsheetEngineContext;
+import walkingkooka.spreadsheet.engine.SpreadsheetEngineEvaluation;
 import walkingkooka.spreadsheet.expression.SpreadsheetExpressionFunctions;
 import walkingkooka.spreadsheet.expression.SpreadsheetFunctionName;
 import walkingkooka.spreadsheet.formula.SpreadsheetFormula;
@@ -49,9 +50,14 @@ import walkingkooka.text.cursor.TextCursorSavePoint;
 import walkingkooka.tree.expression.Expression;
 import walkingkooka.validation.ValueType;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public final class SpreadsheetDeltaHateosResourceHandlerQueryCellsTest extends SpreadsheetDeltaHateosResourceHandlerTestCase2<SpreadsheetDeltaHateosResourceHandlerQueryCells,
     SpreadsheetCellReference> {
@@ -421,6 +427,382 @@ public final class SpreadsheetDeltaHateosResourceHandlerQueryCellsTest extends S
         );
     }
 
+    @Test
+    public void testHandleRangeAfter() {
+        final SpreadsheetCell a1 = SpreadsheetSelection.A1.setFormula(
+            SpreadsheetFormula.EMPTY.setText("=1")
+        );
+        final SpreadsheetCell b2 = SpreadsheetSelection.parseCell("B2")
+            .setFormula(
+                SpreadsheetFormula.EMPTY.setText("=2")
+            );
+        final SpreadsheetCell a3 = SpreadsheetSelection.parseCell("A3")
+            .setFormula(
+                SpreadsheetFormula.EMPTY.setText("=3")
+            );
+        final SpreadsheetCell b3 = SpreadsheetSelection.parseCell("B3")
+            .setFormula(
+                SpreadsheetFormula.EMPTY.setText("=4")
+            );
+
+        final SpreadsheetCellRangeReference range = SpreadsheetSelection.parseCellRange("A1:B3");
+        final List<SpreadsheetCellRangeReference> queried = Lists.array();
+
+        this.handleRangeAndCheck(
+            range.range(), // reference
+            Optional.empty(), // resource
+            Maps.of(
+                SpreadsheetDeltaUrlQueryParameters.AFTER, Lists.of("A2"),
+                SpreadsheetCellQueryRequest.COUNT, Lists.of("2")
+            ), // parameters
+            UrlPath.EMPTY,
+            this.context(
+                new FakeSpreadsheetEngine() {
+
+                    @Override
+                    public SpreadsheetDelta queryCells(final SpreadsheetCellRangeReference r,
+                                                       final SpreadsheetCellRangeReferencePath p,
+                                                       final int o,
+                                                       final int c,
+                                                       final ValueType v,
+                                                       final Expression e,
+                                                       final Set<SpreadsheetDeltaProperties> properties,
+                                                       final SpreadsheetEngineContext context) {
+                        checkEquals(0, o, "offset");
+                        checkEquals(2, c, "count");
+
+                        queried.add(r);
+
+                        final Set<SpreadsheetCell> found = Sets.ordered();
+                        for (final SpreadsheetCell cell : Lists.of(a1, b2, a3, b3)) {
+                            if (r.testCell(cell.reference())) {
+                                found.add(cell);
+                            }
+                        }
+
+                        return SpreadsheetDelta.EMPTY.setCells(found);
+                    }
+
+                    @Override
+                    public SpreadsheetDelta loadMultipleCellRanges(final Set<SpreadsheetCellRangeReference> ranges,
+                                                                   final SpreadsheetEngineEvaluation evaluation,
+                                                                   final Set<SpreadsheetDeltaProperties> deltaProperties,
+                                                                   final SpreadsheetEngineContext context) {
+                        checkEquals(
+                            Sets.of(
+                                b2.reference().toCellRange(),
+                                a3.reference().toCellRange()
+                            ),
+                            ranges,
+                            "ranges"
+                        );
+
+                        return SpreadsheetDelta.EMPTY.setCells(
+                            Sets.of(
+                                b2,
+                                a3
+                            )
+                        );
+                    }
+                }
+            ),
+            Optional.of(
+                SpreadsheetDelta.EMPTY.setCells(
+                    Sets.of(
+                        b2,
+                        a3
+                    )
+                )
+            )
+        );
+
+        this.checkEquals(
+            Lists.of(
+                SpreadsheetSelection.parseCellRange("B2:B2"),
+                SpreadsheetSelection.parseCellRange("A3:B3")
+            ),
+            queried,
+            "queried"
+        );
+    }
+
+    @Test
+    public void testHandleRangeCellsWithValueType() {
+        final SpreadsheetCell a1 = SpreadsheetSelection.A1.setFormula(
+            SpreadsheetFormula.EMPTY.setText("=1")
+        );
+        final SpreadsheetCell b2 = SpreadsheetSelection.parseCell("B2")
+            .setFormula(
+                SpreadsheetFormula.EMPTY.setText("=2")
+            );
+        final SpreadsheetCell c3 = SpreadsheetSelection.parseCell("C3")
+            .setFormula(
+                SpreadsheetFormula.EMPTY.setText("=3")
+            );
+        final SpreadsheetCell z99 = SpreadsheetSelection.parseCell("Z99")
+            .setFormula(
+                SpreadsheetFormula.EMPTY.setText("=99")
+            );
+
+        final SpreadsheetCellRangeReference range = SpreadsheetSelection.parseCellRange("A1:C3");
+        final List<Set<SpreadsheetCell>> filtered = Lists.array();
+
+        this.handleRangeAndCheck(
+            range.range(), // reference
+            Optional.empty(), // resource
+            Maps.of(
+                SpreadsheetCellQueryRequest.VALUE_TYPE, Lists.of(VALUE_TYPE.value()),
+                SpreadsheetCellQueryRequest.COUNT, Lists.of("2")
+            ), // parameters
+            UrlPath.EMPTY,
+            new TestSpreadsheetEngineHateosHandlerContext() {
+
+                @Override
+                public Optional<Set<SpreadsheetCell>> cellsWithValueType(final ValueType valueType) {
+                    checkEquals(VALUE_TYPE, valueType, "valueType");
+
+                    return Optional.of(
+                        Sets.of(c3, z99, b2, a1)
+                    );
+                }
+
+                @Override
+                public SpreadsheetEngine spreadsheetEngine() {
+                    return new FakeSpreadsheetEngine() {
+
+                        @Override
+                        public Set<SpreadsheetCell> filterCells(final Set<SpreadsheetCell> cells,
+                                                                final ValueType valueType,
+                                                                final Expression expression,
+                                                                final SpreadsheetEngineContext context) {
+                            checkEquals(VALUE_TYPE, valueType, "valueType");
+                            checkEquals(SpreadsheetDeltaHateosResourceHandlerQueryCells.DEFAULT_QUERY, expression, "expression");
+
+                            filtered.add(cells);
+
+                            final Set<SpreadsheetCell> matches = Sets.ordered();
+                            matches.addAll(cells);
+                            matches.remove(b2);
+                            return matches;
+                        }
+
+                        @Override
+                        public SpreadsheetDelta loadMultipleCellRanges(final Set<SpreadsheetCellRangeReference> ranges,
+                                                                       final SpreadsheetEngineEvaluation evaluation,
+                                                                       final Set<SpreadsheetDeltaProperties> deltaProperties,
+                                                                       final SpreadsheetEngineContext context) {
+                            checkEquals(
+                                Sets.of(
+                                    a1.reference().toCellRange(),
+                                    c3.reference().toCellRange()
+                                ),
+                                ranges,
+                                "ranges"
+                            );
+
+                            return SpreadsheetDelta.EMPTY.setCells(
+                                Sets.of(
+                                    a1,
+                                    c3
+                                )
+                            );
+                        }
+                    };
+                }
+
+                @Override
+                public SpreadsheetMetadata spreadsheetMetadata() {
+                    return METADATA;
+                }
+            },
+            Optional.of(
+                SpreadsheetDelta.EMPTY.setCells(
+                    Sets.of(
+                        a1,
+                        c3
+                    )
+                )
+            )
+        );
+
+        this.checkEquals(
+            Lists.of(
+                Sets.of(a1, b2),
+                Sets.of(c3)
+            ),
+            filtered,
+            "filtered"
+        );
+    }
+
+    // rangesAfter......................................................................................................
+
+    @Test
+    public void testRangesAfterOutsideFails() {
+        final IllegalArgumentException thrown = assertThrows(
+            IllegalArgumentException.class,
+            () -> SpreadsheetDeltaHateosResourceHandlerQueryCells.rangesAfter(
+                SpreadsheetSelection.parseCellRange("A1:D4"),
+                SpreadsheetCellRangeReferencePath.LRTD,
+                SpreadsheetSelection.parseCell("E5")
+            )
+        );
+        this.checkEquals(
+            "Cursor E5 outside A1:D4",
+            thrown.getMessage()
+        );
+    }
+
+    @Test
+    public void testRangesAfterLRTD() {
+        this.rangesAfterAndCheck(
+            SpreadsheetCellRangeReferencePath.LRTD,
+            "B2",
+            "C2:D2",
+            "A3:D4"
+        );
+    }
+
+    @Test
+    public void testRangesAfterRLTD() {
+        this.rangesAfterAndCheck(
+            SpreadsheetCellRangeReferencePath.RLTD,
+            "B2",
+            "A2:A2",
+            "A3:D4"
+        );
+    }
+
+    @Test
+    public void testRangesAfterLRBU() {
+        this.rangesAfterAndCheck(
+            SpreadsheetCellRangeReferencePath.LRBU,
+            "B2",
+            "C2:D2",
+            "A1:D1"
+        );
+    }
+
+    @Test
+    public void testRangesAfterTDLR() {
+        this.rangesAfterAndCheck(
+            SpreadsheetCellRangeReferencePath.TDLR,
+            "B2",
+            "B3:B4",
+            "C1:D4"
+        );
+    }
+
+    @Test
+    public void testRangesAfterBURL() {
+        this.rangesAfterAndCheck(
+            SpreadsheetCellRangeReferencePath.BURL,
+            "B2",
+            "B1:B1",
+            "A1:A4"
+        );
+    }
+
+    @Test
+    public void testRangesAfterLastCell() {
+        this.rangesAfterAndCheck(
+            SpreadsheetCellRangeReferencePath.LRTD,
+            "D4"
+        );
+    }
+
+    @Test
+    public void testRangesAfterEndOfLine() {
+        this.rangesAfterAndCheck(
+            SpreadsheetCellRangeReferencePath.LRTD,
+            "D2",
+            "A3:D4"
+        );
+    }
+
+    private void rangesAfterAndCheck(final SpreadsheetCellRangeReferencePath path,
+                                     final String after,
+                                     final String... expected) {
+        this.checkEquals(
+            Arrays.stream(expected)
+                .map(SpreadsheetSelection::parseCellRange)
+                .collect(Collectors.toList()),
+            SpreadsheetDeltaHateosResourceHandlerQueryCells.rangesAfter(
+                SpreadsheetSelection.parseCellRange("A1:D4"),
+                path,
+                SpreadsheetSelection.parseCell(after)
+            ),
+            path + " " + after
+        );
+    }
+
+    // comparator.......................................................................................................
+
+    @Test
+    public void testComparatorLRTD() {
+        this.comparatorAndCheck(
+            SpreadsheetCellRangeReferencePath.LRTD,
+            "A1",
+            "B1",
+            "A2",
+            "B2"
+        );
+    }
+
+    @Test
+    public void testComparatorRLBU() {
+        this.comparatorAndCheck(
+            SpreadsheetCellRangeReferencePath.RLBU,
+            "B2",
+            "A2",
+            "B1",
+            "A1"
+        );
+    }
+
+    @Test
+    public void testComparatorTDLR() {
+        this.comparatorAndCheck(
+            SpreadsheetCellRangeReferencePath.TDLR,
+            "A1",
+            "A2",
+            "B1",
+            "B2"
+        );
+    }
+
+    @Test
+    public void testComparatorBURL() {
+        this.comparatorAndCheck(
+            SpreadsheetCellRangeReferencePath.BURL,
+            "B2",
+            "B1",
+            "A2",
+            "A1"
+        );
+    }
+
+    private void comparatorAndCheck(final SpreadsheetCellRangeReferencePath path,
+                                    final String... expected) {
+        final List<SpreadsheetCellReference> cells = Lists.array();
+        for (final String cell : new String[]{"B2", "A1", "B1", "A2"}) {
+            cells.add(
+                SpreadsheetSelection.parseCell(cell)
+            );
+        }
+        cells.sort(
+            SpreadsheetDeltaHateosResourceHandlerQueryCells.comparator(path)
+        );
+
+        this.checkEquals(
+            Arrays.stream(expected)
+                .map(SpreadsheetSelection::parseCell)
+                .collect(Collectors.toList()),
+            cells,
+            path.toString()
+        );
+    }
+
     // toString.........................................................................................................
 
     @Test
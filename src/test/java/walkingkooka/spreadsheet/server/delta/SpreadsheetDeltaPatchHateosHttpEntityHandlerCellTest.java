@@ -18,8 +18,11 @@
 package walkingkooka.spreadsheet.server.delta;
 
 import org.junit.jupiter.api.Test;
+import walkingkooka.Binary;
 import walkingkooka.collect.Range;
 import walkingkooka.collect.set.Sets;
+import walkingkooka.net.http.HttpEntity;
+import walkingkooka.net.http.server.hateos.HateosResourceMappings;
 import walkingkooka.reflect.ThrowableTesting;
 import walkingkooka.spreadsheet.engine.FakeSpreadsheetEngine;
 import walkingkooka.spreadsheet.engine.SpreadsheetDelta;
@@ -31,9 +34,12 @@ import walkingkooka.spreadsheet.formula.SpreadsheetFormula;
 import walkingkooka.spreadsheet.reference.SpreadsheetCellRangeReference;
 import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
 import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
+import walkingkooka.spreadsheet.server.SpreadsheetServerJsonBinary;
+import walkingkooka.spreadsheet.server.net.SpreadsheetServerMediaTypes;
 import walkingkooka.spreadsheet.value.SpreadsheetCell;
 import walkingkooka.spreadsheet.viewport.SpreadsheetViewport;
 import walkingkooka.spreadsheet.viewport.SpreadsheetViewportWindows;
+import walkingkooka.tree.json.marshall.JsonNodeMarshallContexts;
 import walkingkooka.tree.text.FontStyle;
 import walkingkooka.tree.text.TextStyle;
 import walkingkooka.tree.text.TextStylePropertyName;
@@ -122,6 +128,52 @@ public final class SpreadsheetDeltaPatchHateosHttpEntityHandlerCellTest extends
         );
     }
 
+    @Test
+    public void testHandleOneAcceptJsonBinary() {
+        final SpreadsheetCell patch = CELL.setFormula(SpreadsheetFormula.EMPTY.setText("='patched"));
+
+        final TextStyle style = TextStyle.EMPTY.set(TextStylePropertyName.FONT_STYLE, FontStyle.ITALIC);
+        final SpreadsheetCell loaded = CELL.setFormula(SpreadsheetFormula.EMPTY.setText("='before"))
+            .setStyle(style);
+        final SpreadsheetCell saved = patch.setStyle(style);
+
+        this.handleOneAndCheck(
+            CELL,
+            this.httpEntity(
+                SpreadsheetDelta.EMPTY.setCells(
+                    Sets.of(patch)
+                )
+            ).setAccept(
+                SpreadsheetServerMediaTypes.JSON_BINARY.accept()
+            ),
+            this.parameters(),
+            this.path(),
+            this.context(
+                this.spreadsheetEngine(
+                    CELL.toCellRange(),
+                    Sets.of(loaded),
+                    Sets.of(saved)
+                )
+            ),
+            HttpEntity.EMPTY.setContentType(SpreadsheetServerMediaTypes.JSON_BINARY)
+                .addHeader(
+                    HateosResourceMappings.X_CONTENT_TYPE_NAME,
+                    SpreadsheetDelta.class.getSimpleName()
+                ).setBody(
+                    Binary.with(
+                        SpreadsheetServerJsonBinary.encode(
+                            JsonNodeMarshallContexts.basic()
+                                .marshall(
+                                    SpreadsheetDelta.EMPTY.setCells(
+                                        Sets.of(saved)
+                                    )
+                                )
+                        )
+                    )
+                ).setContentLength()
+        );
+    }
+
     @Test
     public void testHandleOnWithLabel() {
         final SpreadsheetCell patch = CELL.setFormula(SpreadsheetFormula.EMPTY.setText("='patched"));
@@ -30,6 +30,7 @@ import walkingkooka.spreadsheet.engine.SpreadsheetEngine;
 import walkingkooka.spreadsheet.engine.SpreadsheetEngineContext;
 import walkingkooka.spreadsheet.engine.SpreadsheetEngineContexts;
 import walkingkooka.spreadsheet.engine.SpreadsheetEngines;
+import walkingkooka.spreadsheet.reference.SpreadsheetCellReference;
 import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
 import walkingkooka.spreadsheet.viewport.SpreadsheetViewport;
 import walkingkooka.spreadsheet.viewport.SpreadsheetViewportNavigation;
@@ -296,6 +297,164 @@ public final class SpreadsheetDeltaUrlQueryParametersTest implements PublicStati
         );
     }
 
+    // since............................................................................................................
+
+    @Test
+    public void testSinceNullParametersFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetDeltaUrlQueryParameters.since(null)
+        );
+    }
+
+    @Test
+    public void testSinceMissing() {
+        this.sinceAndCheck(
+            Maps.empty(),
+            Optional.empty()
+        );
+    }
+
+    @Test
+    public void testSince() {
+        this.sinceAndCheck(
+            Maps.of(
+                SpreadsheetDeltaUrlQueryParameters.SINCE,
+                Lists.of("123")
+            ),
+            Optional.of(123L)
+        );
+    }
+
+    @Test
+    public void testSinceInvalidFails() {
+        final IllegalArgumentException thrown = assertThrows(
+            IllegalArgumentException.class,
+            () -> SpreadsheetDeltaUrlQueryParameters.since(
+                Maps.of(
+                    SpreadsheetDeltaUrlQueryParameters.SINCE,
+                    Lists.of("!invalid")
+                )
+            )
+        );
+        this.checkEquals(
+            "Invalid since=\"!invalid\"",
+            thrown.getMessage()
+        );
+    }
+
+    private void sinceAndCheck(final Map<HttpRequestAttribute<?>, Object> parameters,
+                               final Optional<Long> expected) {
+        this.checkEquals(
+            expected,
+            SpreadsheetDeltaUrlQueryParameters.since(parameters)
+        );
+    }
+
+    // prefetch.........................................................................................................
+
+    @Test
+    public void testPrefetchNullParametersFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetDeltaUrlQueryParameters.prefetch(null)
+        );
+    }
+
+    @Test
+    public void testPrefetchMissing() {
+        this.prefetchAndCheck(
+            Maps.empty(),
+            false
+        );
+    }
+
+    @Test
+    public void testPrefetchTrue() {
+        this.prefetchAndCheck(
+            Maps.of(
+                SpreadsheetDeltaUrlQueryParameters.PREFETCH,
+                Lists.of("true")
+            ),
+            true
+        );
+    }
+
+    @Test
+    public void testPrefetchFalse() {
+        this.prefetchAndCheck(
+            Maps.of(
+                SpreadsheetDeltaUrlQueryParameters.PREFETCH,
+                Lists.of("false")
+            ),
+            false
+        );
+    }
+
+    private void prefetchAndCheck(final Map<HttpRequestAttribute<?>, Object> parameters,
+                                  final boolean expected) {
+        this.checkEquals(
+            expected,
+            SpreadsheetDeltaUrlQueryParameters.prefetch(parameters)
+        );
+    }
+
+    // after............................................................................................................
+
+    @Test
+    public void testAfterNullParametersFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetDeltaUrlQueryParameters.after(null)
+        );
+    }
+
+    @Test
+    public void testAfterMissing() {
+        this.afterAndCheck(
+            Maps.empty(),
+            Optional.empty()
+        );
+    }
+
+    @Test
+    public void testAfter() {
+        this.afterAndCheck(
+            Maps.of(
+                SpreadsheetDeltaUrlQueryParameters.AFTER,
+                Lists.of("B2")
+            ),
+            Optional.of(
+                SpreadsheetSelection.parseCell("B2")
+            )
+        );
+    }
+
+    @Test
+    public void testAfterInvalidFails() {
+        final IllegalArgumentException thrown = assertThrows(
+            IllegalArgumentException.class,
+            () -> SpreadsheetDeltaUrlQueryParameters.after(
+                Maps.of(
+                    SpreadsheetDeltaUrlQueryParameters.AFTER,
+                    Lists.of("!invalid")
+                )
+            )
+        );
+        this.checkEquals(
+            "Invalid after=\"!invalid\"",
+            thrown.getMessage()
+        );
+    }
+
+    private void afterAndCheck(final Map<HttpRequestAttribute<?>, Object> parameters,
+                               final Optional<SpreadsheetCellReference> expected) {
+        this.checkEquals(
+            expected,
+            SpreadsheetDeltaUrlQueryParameters.after(parameters)
+        );
+    }
+
     // viewport.........................................................................................................
 
     @Test
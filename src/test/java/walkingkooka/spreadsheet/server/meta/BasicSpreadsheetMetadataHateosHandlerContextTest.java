@@ -70,6 +70,7 @@ import walkingkooka.spreadsheet.reference.SpreadsheetLabelName;
 import walkingkooka.spreadsheet.reference.SpreadsheetSelection;
 import walkingkooka.spreadsheet.server.SpreadsheetHttpServerHttpHandlerSpreadsheetEngineHateosHandlerContext;
 import walkingkooka.spreadsheet.server.SpreadsheetHttpServerSpreadsheetHttpHandler;
+import walkingkooka.spreadsheet.server.SpreadsheetServerCache;
 import walkingkooka.spreadsheet.server.SpreadsheetServerContext;
 import walkingkooka.spreadsheet.server.SpreadsheetServerContexts;
 import walkingkooka.spreadsheet.store.repo.SpreadsheetStoreRepositories;
@@ -997,7 +998,8 @@ public final class BasicSpreadsheetMetadataHateosHandlerContextTest implements S
                 ),
                 HATEOS_HANDLER_CONTEXT,
                 providerContext,
-                TERMINAL_SERVER_CONTEXT
+                TERMINAL_SERVER_CONTEXT,
+                SpreadsheetServerCache.unbounded()
             )
         );
     }
@@ -23,6 +23,7 @@ import walkingkooka.reflect.JavaVisibility;
 import walkingkooka.spreadsheet.engine.SpreadsheetEngines;
 import walkingkooka.spreadsheet.meta.SpreadsheetMetadataContexts;
 import walkingkooka.spreadsheet.meta.SpreadsheetMetadataTesting;
+import walkingkooka.spreadsheet.server.SpreadsheetServerCache;
 import walkingkooka.spreadsheet.server.SpreadsheetServerContext;
 import walkingkooka.spreadsheet.server.SpreadsheetServerContexts;
 import walkingkooka.spreadsheet.store.repo.SpreadsheetStoreRepositories;
@@ -59,7 +60,8 @@ public final class SpreadsheetMetadataHttpHandlerTest implements HttpHandlerTest
             SpreadsheetMetadataContexts.fake(),
             HateosHandlerContexts.fake(),
             PROVIDER_CONTEXT,
-            TERMINAL_SERVER_CONTEXT
+            TERMINAL_SERVER_CONTEXT,
+            SpreadsheetServerCache.unbounded()
         );
     }
 
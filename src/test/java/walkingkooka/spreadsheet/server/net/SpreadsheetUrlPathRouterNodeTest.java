@@ -0,0 +1,66 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.server.net;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.Cast;
+import walkingkooka.net.UrlPath;
+import walkingkooka.reflect.ClassTesting;
+import walkingkooka.reflect.JavaVisibility;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class SpreadsheetUrlPathRouterNodeTest implements ClassTesting<SpreadsheetUrlPathRouterNode<?>> {
+
+    @Test
+    public void testAddDuplicatePathFails() {
+        final UrlPath path = UrlPath.parse("/api/spreadsheet/*");
+
+        final SpreadsheetUrlPathRouterNode<String> node = SpreadsheetUrlPathRouterNode.empty();
+        node.add(
+            path.iterator(),
+            path,
+            "first"
+        );
+
+        final IllegalArgumentException thrown = assertThrows(
+            IllegalArgumentException.class,
+            () -> node.add(
+                path.iterator(),
+                path,
+                "second"
+            )
+        );
+        this.checkEquals(
+            "Duplicate path /api/spreadsheet/*",
+            thrown.getMessage()
+        );
+    }
+
+    // class............................................................................................................
+
+    @Override
+    public Class<SpreadsheetUrlPathRouterNode<?>> type() {
+        return Cast.to(SpreadsheetUrlPathRouterNode.class);
+    }
+
+    @Override
+    public JavaVisibility typeVisibility() {
+        return JavaVisibility.PACKAGE_PRIVATE;
+    }
+}
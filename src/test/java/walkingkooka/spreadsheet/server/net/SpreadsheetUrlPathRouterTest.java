@@ -0,0 +1,204 @@
+/*
+ * Copyright 2019 Miroslav Pokorny (github.com/mP1)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package walkingkooka.spreadsheet.server.net;
+
+import org.junit.jupiter.api.Test;
+import walkingkooka.Cast;
+import walkingkooka.collect.map.Maps;
+import walkingkooka.net.Url;
+import walkingkooka.net.UrlPath;
+import walkingkooka.net.http.HttpEntity;
+import walkingkooka.net.http.HttpProtocolVersion;
+import walkingkooka.net.http.HttpTransport;
+import walkingkooka.net.http.server.HttpRequestAttribute;
+import walkingkooka.net.http.server.HttpRequests;
+import walkingkooka.route.RouterTesting2;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class SpreadsheetUrlPathRouterTest implements RouterTesting2<SpreadsheetUrlPathRouter<String>, HttpRequestAttribute<?>, String> {
+
+    private final static String FILES = "files";
+
+    private final static String API = "api";
+
+    private final static String COMPARATOR = "comparator";
+
+    private final static String SPREADSHEET_ENGINE = "spreadsheet-engine";
+
+    @Test
+    public void testWithNullMapFails() {
+        assertThrows(
+            NullPointerException.class,
+            () -> SpreadsheetUrlPathRouter.with(null)
+        );
+    }
+
+    @Test
+    public void testRouteLiteral() {
+        this.routeAndCheck2(
+            "/api/comparator",
+            COMPARATOR
+        );
+    }
+
+    @Test
+    public void testRouteLiteralWithExtraPathComponents() {
+        this.routeAndCheck2(
+            "/api/comparator/name1/extra",
+            COMPARATOR
+        );
+    }
+
+    @Test
+    public void testRouteWildcards() {
+        this.routeAndCheck2(
+            "/api/spreadsheet/1/cell",
+            SPREADSHEET_ENGINE
+        );
+    }
+
+    @Test
+    public void testRouteWildcardsWithExtraPathComponents() {
+        this.routeAndCheck2(
+            "/api/spreadsheet/1/cell/A1",
+            SPREADSHEET_ENGINE
+        );
+    }
+
+    @Test
+    public void testRouteWildcardsIncompleteBacktracks() {
+        this.routeAndCheck2(
+            "/api/spreadsheet/1",
+            API
+        );
+    }
+
+    @Test
+    public void testRouteLiteralParent() {
+        this.routeAndCheck2(
+            "/api/unknown",
+            API
+        );
+    }
+
+    @Test
+    public void testRouteLiteralExact() {
+        this.routeAndCheck2(
+            "/api",
+            API
+        );
+    }
+
+    @Test
+    public void testRouteRootWildcard() {
+        this.routeAndCheck2(
+            "/file.txt",
+            FILES
+        );
+    }
+
+    @Test
+    public void testRouteRootWildcard2() {
+        this.routeAndCheck2(
+            "/dir1/file.txt",
+            FILES
+        );
+    }
+
+    @Test
+    public void testRouteOrderNotImportant() {
+        final Map<UrlPath, String> pathToTargets = Maps.ordered();
+        pathToTargets.put(
+            UrlPath.parse("/*"),
+            FILES
+        );
+        pathToTargets.put(
+            UrlPath.parse("/api"),
+            API
+        );
+
+        this.checkEquals(
+            Optional.of(API),
+            SpreadsheetUrlPathRouter.with(pathToTargets)
+                .route(parameters("/api/unknown"))
+        );
+    }
+
+    private void routeAndCheck2(final String url,
+                                final String expected) {
+        this.checkEquals(
+            Optional.of(expected),
+            this.createRouter()
+                .route(parameters(url)),
+            url
+        );
+    }
+
+    private static Map<HttpRequestAttribute<?>, Object> parameters(final String url) {
+        return HttpRequests.get(
+            HttpTransport.UNSECURED,
+            Url.parseRelative(url),
+            HttpProtocolVersion.VERSION_1_0,
+            HttpEntity.EMPTY
+        ).routerParameters();
+    }
+
+    @Override
+    public SpreadsheetUrlPathRouter<String> createRouter() {
+        final Map<UrlPath, String> pathToTargets = Maps.ordered();
+        pathToTargets.put(
+            UrlPath.parse("/api/comparator"),
+            COMPARATOR
+        );
+        pathToTargets.put(
+            UrlPath.parse("/api/spreadsheet/*/*"),
+            SPREADSHEET_ENGINE
+        );
+        pathToTargets.put(
+            UrlPath.parse("/api"),
+            API
+        );
+        pathToTargets.put(
+            UrlPath.parse("/*"),
+            FILES
+        );
+
+        return SpreadsheetUrlPathRouter.with(pathToTargets);
+    }
+
+    // toString.........................................................................................................
+
+    @Test
+    public void testToString() {
+        this.toStringAndCheck(
+            this.createRouter(),
+            "{/api/comparator=comparator, /api/spreadsheet/*/*=spreadsheet-engine, /api=api, /*=files}"
+        );
+    }
+
+    // class............................................................................................................
+
+    @Override
+    public Class<SpreadsheetUrlPathRouter<String>> type() {
+        return Cast.to(SpreadsheetUrlPathRouter.class);
+    }
+}
@@ -18,9 +18,14 @@
 package walkingkooka.spreadsheet.server.storage;
 
 import org.junit.jupiter.api.Test;
+import walkingkooka.net.Url;
 import walkingkooka.net.UrlPath;
+import walkingkooka.net.http.HttpEntity;
+import walkingkooka.net.http.HttpProtocolVersion;
+import walkingkooka.net.http.HttpTransport;
 import walkingkooka.net.http.server.HttpHandler;
 import walkingkooka.net.http.server.HttpRequestAttribute;
+import walkingkooka.net.http.server.HttpRequests;
 import walkingkooka.route.RouterTesting2;
 import walkingkooka.spreadsheet.server.SpreadsheetEngineHateosHandlerContext;
 
@@ -38,6 +43,56 @@ public final class SpreadsheetServerStorageRouterTest implements RouterTesting2<
         );
     }
 
+    @Test
+    public void testRouteWildcardSpreadsheetId() {
+        this.routeWildcardAndCheck(
+            "/api/spreadsheet/123/storage/file.txt",
+            true
+        );
+    }
+
+    @Test
+    public void testRouteWildcardSpreadsheetId2() {
+        this.routeWildcardAndCheck(
+            "/api/spreadsheet/456/storage",
+            true
+        );
+    }
+
+    @Test
+    public void testRouteWildcardDifferentResource() {
+        this.routeWildcardAndCheck(
+            "/api/spreadsheet/123/cell/A1",
+            false
+        );
+    }
+
+    @Test
+    public void testRouteWildcardMissingSpreadsheetId() {
+        this.routeWildcardAndCheck(
+            "/api/spreadsheet",
+            false
+        );
+    }
+
+    private void routeWildcardAndCheck(final String url,
+                                       final boolean expected) {
+        this.checkEquals(
+            expected,
+            SpreadsheetServerStorageRouter.with(
+                UrlPath.parse("/api/spreadsheet/*/storage")
+            ).route(
+                HttpRequests.get(
+                    HttpTransport.UNSECURED,
+                    Url.parseRelative(url),
+                    HttpProtocolVersion.VERSION_1_0,
+                    HttpEntity.EMPTY
+                ).routerParameters()
+            ).isPresent(),
+            url
+        );
+    }
+
     @Override
     public SpreadsheetServerStorageRouter createRouter() {
         return SpreadsheetServerStorageRouter.with(